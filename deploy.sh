@@ -6,7 +6,7 @@ echo "Applying Kubernetes configurations..."
 # Apply ConfigMap
 kubectl apply -f kubernetes/configmap.yaml
 
-# Apply Deployment
+# Apply StatefulSet
 kubectl apply -f kubernetes/deployment.yaml
 
 # Apply Service
@@ -18,7 +18,7 @@ kubectl apply -f kubernetes/ingress.yaml
 echo "Deployment completed!"
 
 # Check deployment status
-kubectl rollout status deployment/library-management
+kubectl rollout status statefulset/library-management
 
 # Get pods
 kubectl get pods -l app=library-management
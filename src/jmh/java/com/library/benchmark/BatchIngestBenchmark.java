@@ -0,0 +1,122 @@
+package com.library.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.LibraryManagementApplication;
+import com.library.model.BookVO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk ingest over HTTP: one {@code POST /books/batch} with {@code batchSize} NDJSON
+ * records against a client looping over {@code POST /books} with the same books, both
+ * against the running application. Both include the request parsing, validation and
+ * HTTP cost along with the store's (one id reservation and one journal commit per chunk
+ * for the batch, one of each per book for the loop).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchIngestBenchmark {
+
+    @Param({"NONE", "BATCH", "WRITE"})
+    public String journal;
+
+    @Param({"10000"})
+    public int batchSize;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private byte[] batchBody;
+    private List<byte[]> bookBodies;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<String> properties = new ArrayList<>(List.of(
+                "server.port=0",
+                "library.store=memory",
+                "logging.level.com.library=WARN"));
+        if ("NONE".equals(journal)) {
+            properties.add("library.persistence.enabled=false");
+        } else {
+            directory = Files.createTempDirectory("ingest-benchmark");
+            properties.add("library.persistence.enabled=true");
+            properties.add("library.persistence.directory=" + directory);
+            properties.add("library.persistence.fsync=" + journal);
+        }
+        context = new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .properties(properties.toArray(new String[0]))
+                .run();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        bookBodies = new ArrayList<>(batchSize);
+        for (BookVO book : BenchmarkStores.books(batchSize)) {
+            byte[] json = objectMapper.writeValueAsBytes(book);
+            batch.write(json);
+            batch.write('\n');
+            bookBodies.add(json);
+        }
+        batchBody = batch.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        if (directory != null) {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    public byte[] postBatch() throws IOException, InterruptedException {
+        return post("/books/batch", "application/x-ndjson", batchBody, 200);
+    }
+
+    @Benchmark
+    public int postLoop() throws IOException, InterruptedException {
+        int bytes = 0;
+        for (byte[] body : bookBodies) {
+            bytes += post("/books", "application/json", body, 201).length;
+        }
+        return bytes;
+    }
+
+    private byte[] post(String path, String contentType, byte[] body, int expectedStatus)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException("POST " + path + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+}
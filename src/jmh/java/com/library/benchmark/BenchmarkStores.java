@@ -0,0 +1,69 @@
+package com.library.benchmark;
+
+import com.library.model.BookVO;
+import com.library.repository.BookRepository;
+import com.library.repository.CompactBookRepository;
+import com.library.repository.InMemoryBookRepository;
+import com.library.repository.JdbcBookRepository;
+import com.library.repository.MvccBookRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Store and data fixtures shared by the benchmarks.
+ */
+final class BenchmarkStores {
+
+    static final int AUTHORS = 1_000;
+
+    private BenchmarkStores() {
+    }
+
+    /**
+     * Creates the named store; anything that must be released afterwards is added to
+     * {@code resources}.
+     */
+    static BookRepository create(String store, List<AutoCloseable> resources) {
+        switch (store) {
+            case "memory":
+                return new InMemoryBookRepository();
+            case "compact":
+                return new CompactBookRepository(false);
+            case "mvcc":
+                return new MvccBookRepository();
+            case "jdbc":
+                EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                        .setType(EmbeddedDatabaseType.H2)
+                        .generateUniqueName(true)
+                        .build();
+                resources.add(database::shutdown);
+                return new JdbcBookRepository(new JdbcTemplate(database));
+            default:
+                throw new IllegalArgumentException("Unknown store " + store);
+        }
+    }
+
+    static List<BookVO> books(int count) {
+        List<BookVO> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(book(i));
+        }
+        return books;
+    }
+
+    static BookVO book(long i) {
+        return new BookVO(null, "Title " + i, "Author " + (i % AUTHORS), 5.0 + (i % 100));
+    }
+
+    static void close(List<AutoCloseable> resources) throws Exception {
+        for (AutoCloseable resource : resources) {
+            resource.close();
+        }
+        resources.clear();
+    }
+}
@@ -0,0 +1,99 @@
+package com.library.benchmark;
+
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.service.BookService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BookService} operations against each store engine, single-threaded and under a
+ * contended read/write mix.
+ *
+ * Books 1..catalogSize are never deleted, so random reads and updates always hit; the
+ * delete path is measured together with the add that creates its victim.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookServiceBenchmark {
+
+    @Param({"memory", "compact", "jdbc"})
+    public String store;
+
+    @Param({"100000"})
+    public int catalogSize;
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bookService = new BookService(BenchmarkStores.create(store, resources));
+        bookService.addBatchBooks(BenchmarkStores.books(catalogSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkStores.close(resources);
+    }
+
+    @Benchmark
+    public BookVO getById() {
+        return bookService.getBookById(randomId());
+    }
+
+    @Benchmark
+    public BookVO add() {
+        return bookService.addBook(BenchmarkStores.book(ThreadLocalRandom.current().nextInt()));
+    }
+
+    @Benchmark
+    public BookVO update() {
+        long id = randomId();
+        return bookService.updateBook(id, BenchmarkStores.book(id));
+    }
+
+    @Benchmark
+    public long addThenDelete() {
+        long id = bookService.addBook(BenchmarkStores.book(0)).getId();
+        bookService.deleteBook(id);
+        return id;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<BookVO> getAll() {
+        return bookService.getAllBooks();
+    }
+
+    @Benchmark
+    public BookPage getPage() {
+        return bookService.getBooksPage(randomId(), 100);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(6)
+    public BookVO contendedRead() {
+        return getById();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public BookVO contendedUpdate() {
+        return update();
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, catalogSize + 1);
+    }
+}
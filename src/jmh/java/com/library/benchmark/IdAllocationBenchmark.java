@@ -0,0 +1,83 @@
+package com.library.benchmark;
+
+import com.library.ids.IdAllocator;
+import com.library.ids.LeasedIdAllocator;
+import com.library.ids.SnowflakeIdAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cost of handing out one book id, single-threaded and with eight threads allocating from
+ * the same instance. {@code atomic} is the per-process {@link AtomicLong} the in-memory store
+ * used before ids became pluggable; {@code snowflake} and {@code leased} are the allocators
+ * that stay unique across instances. The leased source waits a millisecond per block to
+ * stand in for the round trip to the shared database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdAllocationBenchmark {
+
+    private static final long LEASE_ROUND_TRIP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"atomic", "snowflake", "leased"})
+    public String strategy;
+
+    private IdAllocator allocator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (strategy) {
+            case "atomic": {
+                AtomicLong counter = new AtomicLong(1);
+                allocator = new IdAllocator() {
+                    @Override
+                    public long next() {
+                        return counter.getAndIncrement();
+                    }
+
+                    @Override
+                    public void skipTo(long nextId) {
+                        counter.accumulateAndGet(nextId, Math::max);
+                    }
+
+                    @Override
+                    public long peek() {
+                        return counter.get();
+                    }
+                };
+                break;
+            }
+            case "snowflake":
+                allocator = new SnowflakeIdAllocator(1);
+                break;
+            case "leased": {
+                AtomicLong shared = new AtomicLong(1);
+                allocator = new LeasedIdAllocator(size -> {
+                    LockSupport.parkNanos(LEASE_ROUND_TRIP_NANOS);
+                    return shared.getAndAdd(size);
+                }, 10_000, 64);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException(strategy);
+        }
+    }
+
+    @Benchmark
+    public long next() {
+        return allocator.next();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long nextContended() {
+        return allocator.next();
+    }
+}
@@ -0,0 +1,112 @@
+package com.library.benchmark;
+
+import com.library.model.BookVO;
+import com.library.persistence.FsyncPolicy;
+import com.library.persistence.MappedBookJournal;
+import com.library.repository.InMemoryBookRepository;
+import com.library.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write latency of a journaled update per fsync policy, and startup recovery time with and
+ * without a snapshot covering most of the history.
+ */
+public class JournalBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int SEGMENT_BYTES = 64 << 20;
+
+    @State(Scope.Benchmark)
+    public static class WriteState {
+
+        @Param({"WRITE", "BATCH", "INTERVAL"})
+        public FsyncPolicy fsync;
+
+        Path directory;
+        MappedBookJournal journal;
+        BookService bookService;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("journal-benchmark");
+            journal = new MappedBookJournal(directory, fsync, 100, SEGMENT_BYTES, 1_000_000);
+            bookService = new BookService(new InMemoryBookRepository(journal));
+            bookService.addBatchBooks(BenchmarkStores.books(CATALOG_SIZE));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            journal.close();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RecoveryState {
+
+        @Param({"1000000"})
+        public int history;
+
+        @Param({"10000", "1000000"})
+        public int tail;
+
+        Path directory;
+
+        /**
+         * Writes {@code history} updates over a fixed catalog, snapshotting so that only the
+         * last {@code tail} of them remain in the log.
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("recovery-benchmark");
+            try (MappedBookJournal journal = new MappedBookJournal(directory, FsyncPolicy.INTERVAL, 60_000,
+                    SEGMENT_BYTES, Long.MAX_VALUE)) {
+                BookService bookService = new BookService(new InMemoryBookRepository(journal));
+                bookService.addBatchBooks(BenchmarkStores.books(CATALOG_SIZE));
+                for (int i = 0; i < history; i++) {
+                    if (i == history - tail) {
+                        journal.snapshot();
+                    }
+                    long id = 1 + i % CATALOG_SIZE;
+                    bookService.updateBook(id, BenchmarkStores.book(i));
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    public BookVO journaledUpdate(WriteState state) {
+        long id = ThreadLocalRandom.current().nextLong(1, CATALOG_SIZE + 1);
+        return state.bookService.updateBook(id, BenchmarkStores.book(id));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    public BookService recover(RecoveryState state) throws IOException {
+        try (MappedBookJournal journal = new MappedBookJournal(state.directory, FsyncPolicy.INTERVAL, 60_000,
+                SEGMENT_BYTES, Long.MAX_VALUE)) {
+            return new BookService(new InMemoryBookRepository(journal));
+        }
+    }
+}
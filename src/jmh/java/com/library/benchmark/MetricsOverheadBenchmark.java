@@ -0,0 +1,63 @@
+package com.library.benchmark;
+
+import com.library.model.BookVO;
+import com.library.repository.InMemoryBookRepository;
+import com.library.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link BookService} timers on its cheapest operations, where it shows most:
+ * reads and updates against the in-memory store, with metrics discarded ({@code off}) or
+ * recorded into percentile histograms ({@code on}), single-threaded and with eight
+ * threads sharing each timer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+
+    @Param({"off", "on"})
+    public String metrics;
+
+    @Param({"100000"})
+    public int catalogSize;
+
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry registry = "on".equals(metrics) ? new SimpleMeterRegistry() : new CompositeMeterRegistry();
+        bookService = new BookService(new InMemoryBookRepository(), registry);
+        bookService.addBatchBooks(BenchmarkStores.books(catalogSize));
+    }
+
+    @Benchmark
+    public BookVO getById() {
+        return bookService.getBookById(randomId());
+    }
+
+    @Benchmark
+    public BookVO update() {
+        long id = randomId();
+        return bookService.updateBook(id, BenchmarkStores.book(id));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public BookVO getByIdContended() {
+        return getById();
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, catalogSize + 1);
+    }
+}
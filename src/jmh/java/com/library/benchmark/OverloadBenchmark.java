@@ -0,0 +1,155 @@
+package com.library.benchmark;
+
+import com.library.admission.AdaptiveLimit;
+import com.library.admission.AdmissionController;
+import com.library.admission.AdmissionController.Permit;
+import com.library.admission.AdmissionController.Priority;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latency of admitted requests as offered load doubles, with and without admission
+ * control. The server is {@link #WORKERS} workers taking {@link #SERVICE_NANOS} per
+ * request, so it saturates at 8,000 requests per second; {@code clients} closed-loop
+ * clients send requests back to back, and a rejected client waits as long as one request
+ * takes before trying again.
+ *
+ * JMH's own score counts every call, rejected or not, so each measurement iteration
+ * prints the admitted requests' p50/p99 and the rejection count. Without a limiter p99
+ * grows with the client count as requests queue for workers; with the adaptive limit it
+ * stays near the unloaded latency and the excess is rejected instead.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class OverloadBenchmark {
+
+    static final int WORKERS = 8;
+    static final long SERVICE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"none", "adaptive"})
+    public String limiter;
+
+    // Clients sending requests; the rest of the 64 benchmark threads stay idle
+    @Param({"16", "32", "64"})
+    public int clients;
+
+    private final Semaphore workers = new Semaphore(WORKERS, true);
+    private final LatencyHistogram admitted = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+    private AdmissionController admission;
+
+    @State(Scope.Thread)
+    public static class Client {
+        boolean active;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threads, OverloadBenchmark benchmark) {
+            active = threads.getThreadIndex() < benchmark.clients;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        admission = limiter.equals("adaptive")
+                ? new AdmissionController(new AdaptiveLimit(20, 4, 500, 1.5, 0.2), 0.9, 0.5, 4)
+                : null;
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounts() {
+        admitted.reset();
+        rejected.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printLatency() {
+        System.out.printf("%n%s, %d clients: admitted %d, p50 %.2f ms, p99 %.2f ms; rejected %d; limit %s%n",
+                limiter, clients, admitted.count(), admitted.percentile(0.50) / 1e6, admitted.percentile(0.99) / 1e6,
+                rejected.sum(), admission != null ? admission.getLimit() : "-");
+    }
+
+    @Benchmark
+    public void request(Client client) {
+        if (!client.active) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            return;
+        }
+        long start = System.nanoTime();
+        Permit permit = null;
+        if (admission != null) {
+            permit = admission.tryAcquire(Priority.READ);
+            if (permit == null) {
+                rejected.increment();
+                LockSupport.parkNanos(SERVICE_NANOS);
+                return;
+            }
+        }
+        try {
+            workers.acquireUninterruptibly();
+            try {
+                LockSupport.parkNanos(SERVICE_NANOS);
+            } finally {
+                workers.release();
+            }
+        } finally {
+            if (permit != null) {
+                permit.release();
+            }
+        }
+        admitted.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Counts latencies in buckets 5% apart, enough to read percentiles without keeping
+     * every sample.
+     */
+    static final class LatencyHistogram {
+        private static final double GROWTH = Math.log(1.05);
+        private final AtomicLongArray buckets = new AtomicLongArray(512);
+
+        void record(long nanos) {
+            int bucket = (int) (Math.log(Math.max(1, nanos / 1000.0)) / GROWTH);
+            buckets.incrementAndGet(Math.min(bucket, buckets.length() - 1));
+        }
+
+        long count() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                count += buckets.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * The upper bound of the bucket holding the given quantile, in nanoseconds.
+         */
+        double percentile(double quantile) {
+            long target = (long) Math.ceil(count() * quantile);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= target && seen > 0) {
+                    return Math.exp((i + 1) * GROWTH) * 1000;
+                }
+            }
+            return 0;
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.library.benchmark;
+
+import com.library.PairSumSolution;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Both {@link PairSumSolution} strategies, boxed and primitive, across input sizes and
+ * duplicate ratios. A
+ * duplicate ratio of 0.9 draws the input from a pool of only 10% distinct values.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PairSumBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"0.0", "0.5", "0.9"})
+    public double duplicateRatio;
+
+    private int[] array;
+    private int target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int distinct = Math.max(1, (int) (size * (1 - duplicateRatio)));
+        int[] pool = new int[distinct];
+        for (int i = 0; i < distinct; i++) {
+            pool[i] = random.nextInt(size * 4) - size * 2;
+        }
+        array = new int[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = pool[random.nextInt(distinct)];
+        }
+        target = array[random.nextInt(size)] + array[random.nextInt(size)];
+    }
+
+    @Benchmark
+    public List<int[]> hashMap() {
+        return PairSumSolution.findPairsWithSum(array, target);
+    }
+
+    @Benchmark
+    public List<int[]> twoPointers() {
+        return PairSumSolution.findPairsWithSumTwoPointers(array, target);
+    }
+
+    @Benchmark
+    public int[] hashMapPrimitive() {
+        return PairSumSolution.findPairsWithSumPrimitive(array, target);
+    }
+
+    @Benchmark
+    public int[] twoPointersPrimitive() {
+        return PairSumSolution.findPairsWithSumTwoPointersPrimitive(array, target);
+    }
+}
@@ -0,0 +1,74 @@
+package com.library.benchmark;
+
+import com.library.ParallelPairSum;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ParallelPairSum} over a 100M-element (400 MB) file at increasing worker counts, to
+ * check how close the partition and solve phases get to linear scaling. The file is
+ * written once per trial; each invocation is a full cold pass over it.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ParallelPairSumBenchmark {
+
+    @Param({"100000000"})
+    public int size;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private Path directory;
+    private Path file;
+    private int target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("pair-sum-bench");
+        file = directory.resolve("values.bin");
+        Random random = new Random(42);
+        int range = size * 2;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.BIG_ENDIAN);
+            for (int i = 0; i < size; i++) {
+                buffer.putInt(random.nextInt(range) - size);
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    channel.write(buffer);
+                    buffer.clear();
+                }
+            }
+            buffer.flip();
+            channel.write(buffer);
+        }
+        target = random.nextInt(size) - size / 2;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long pairs() throws IOException {
+        long[] count = new long[1];
+        ParallelPairSum.findPairsWithSum(file, ByteOrder.BIG_ENDIAN, target, parallelism,
+                64L << 20, directory, (first, second) -> count[0]++);
+        return count[0];
+    }
+}
@@ -0,0 +1,115 @@
+package com.library.benchmark;
+
+import com.library.LibraryManagementApplication;
+import com.library.service.BookService;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The MVC API on Tomcat versus the reactive routes on Netty as the number of concurrent
+ * connections grows, in a JVM with a fixed 256 MB heap.
+ *
+ * Each operation is one wave: {@code connections} clients, each on its own kept-alive
+ * connection, issue a request at the same time and the wave ends when the last response
+ * is read. {@code getBook} fetches one book; {@code streamCatalog} downloads the whole
+ * catalog as NDJSON, which holds a worker thread per stream on the MVC side and only a
+ * subscription on the reactive side. Run with {@code -prof gc} to compare allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms256m", "-Xmx256m"})
+@State(Scope.Benchmark)
+public class ReactiveConnectionBenchmark {
+
+    @Param({"mvc", "reactive"})
+    public String api;
+
+    @Param({"100", "1000", "4000"})
+    public int connections;
+
+    @Param({"1000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private ConnectionProvider connectionProvider;
+    private HttpClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .properties(
+                        "server.port=0",
+                        // Let Tomcat queue a whole wave of connection attempts, as Netty does
+                        "server.tomcat.accept-count=" + connections,
+                        "library.reactive.enabled=true",
+                        "library.reactive.port=0",
+                        "library.store=memory",
+                        "library.persistence.enabled=false",
+                        "logging.level.com.library=WARN")
+                .run();
+        context.getBean(BookService.class).addBatchBooks(BenchmarkStores.books(catalogSize));
+
+        int port = "reactive".equals(api)
+                ? context.getBean(DisposableServer.class).port()
+                : context.getEnvironment().getProperty("local.server.port", Integer.class);
+        connectionProvider = ConnectionProvider.builder("benchmark")
+                .maxConnections(connections)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        client = HttpClient.create(connectionProvider)
+                .baseUrl("http://localhost:" + port)
+                .responseTimeout(Duration.ofSeconds(60));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionProvider.disposeLater().block();
+        context.close();
+    }
+
+    @Benchmark
+    public long getBook() {
+        return wave(() -> client.get()
+                .uri("/books/" + ThreadLocalRandom.current().nextLong(1, catalogSize + 1))
+                .responseSingle((response, body) -> {
+                    if (response.status().code() != 200) {
+                        return Mono.error(new IllegalStateException("GET /books/{id} returned " + response.status()));
+                    }
+                    return body.asByteArray().map(bytes -> (long) bytes.length);
+                }));
+    }
+
+    @Benchmark
+    public long streamCatalog() {
+        return wave(() -> client.headers(headers -> headers.set(HttpHeaderNames.ACCEPT, "application/x-ndjson"))
+                .get()
+                .uri("/books")
+                .responseContent()
+                .map(buffer -> (long) buffer.readableBytes())
+                .reduce(0L, Long::sum));
+    }
+
+    /**
+     * Runs one request per connection concurrently and returns the total bytes read.
+     */
+    private long wave(Supplier<Mono<Long>> request) {
+        return Flux.range(0, connections)
+                .flatMap(i -> request.get(), connections)
+                .reduce(0L, Long::sum)
+                .block();
+    }
+}
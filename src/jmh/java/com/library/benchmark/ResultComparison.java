@@ -0,0 +1,84 @@
+package com.library.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files (as written with {@code -rf json}) and exits non-zero
+ * when any benchmark got slower, or allocates more per operation, by more than the
+ * threshold. Run with:
+ * <pre>
+ * ./mvnw -Pbenchmark exec:exec -Djmh.main=com.library.benchmark.ResultComparison \
+ *     -Djmh.args="baseline.json target/jmh-result.json 10"
+ * </pre>
+ */
+public final class ResultComparison {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private ResultComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ResultComparison <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s%n", entry.getKey(), "(new)");
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            // Throughput is better when higher; every time-based mode is better when lower
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            regressions += report(entry.getKey(), after.path("primaryMetric").path("scoreUnit").asText(),
+                    before.path("primaryMetric").path("score").asDouble(),
+                    after.path("primaryMetric").path("score").asDouble(), higherIsBetter, threshold);
+
+            JsonNode allocBefore = before.path("secondaryMetrics").path(ALLOCATION_METRIC);
+            JsonNode allocAfter = after.path("secondaryMetrics").path(ALLOCATION_METRIC);
+            if (!allocBefore.isMissingNode() && !allocAfter.isMissingNode()) {
+                regressions += report("  " + ALLOCATION_METRIC, allocAfter.path("scoreUnit").asText(),
+                        allocBefore.path("score").asDouble(), allocAfter.path("score").asDouble(), false, threshold);
+            }
+        }
+        if (regressions > 0) {
+            System.out.printf("%d regression(s) beyond %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private static int report(String name, String unit, double before, double after,
+                              boolean higherIsBetter, double threshold) {
+        double change = before == 0 ? 0 : (after - before) * 100 / before;
+        boolean regressed = higherIsBetter ? change < -threshold : change > threshold;
+        System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %s%s%n", name, before, after, change, unit,
+                regressed ? "  REGRESSION" : "");
+        return regressed ? 1 : 0;
+    }
+
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            for (Map.Entry<String, JsonNode> param : result.path("params").properties()) {
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,111 @@
+package com.library.benchmark;
+
+import com.library.model.BookVO;
+import com.library.search.BookSearchIndex;
+import com.library.search.SearchHit;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency and update cost of {@link BookSearchIndex}. The catalog draws its words
+ * from a Zipf-distributed vocabulary, as natural text does, so queries meet both very
+ * common and rare words. Queries are titles of indexed books with one character dropped,
+ * exercising the typo expansion on every search. {@code search} runs in sample mode so
+ * the report includes p99; {@code update} re-indexes a book under a new version, which is
+ * what every write through {@code BookService} pays on top of the store.
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ru", "sa", "to", "vi", "ber", "dan",
+            "el", "for", "gra", "ho", "in", "jus", "kel", "lum", "mor", "nat", "or", "pel", "qua", "ris",
+            "ster", "tur", "un", "vel", "wes", "yor"};
+    private static final int VOCABULARY = 50_000;
+    private static final int QUERIES = 1024;
+
+    @Param({"1000000"})
+    public int books;
+
+    private BookSearchIndex index;
+    private String[] vocabulary;
+    private double[] cumulative;
+    private String[] queries;
+    private Random random;
+    private int next;
+    private long version;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(42);
+        vocabulary = new String[VOCABULARY];
+        for (int i = 0; i < vocabulary.length; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int syllables = 2 + random.nextInt(3); syllables > 0; syllables--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            vocabulary[i] = word.toString();
+        }
+        cumulative = new double[vocabulary.length];
+        double sum = 0;
+        for (int rank = 0; rank < vocabulary.length; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+
+        index = new BookSearchIndex(books);
+        List<String> typos = new ArrayList<>();
+        int stride = Math.max(1, books / QUERIES);
+        for (int id = 1; id <= books; id++) {
+            BookVO book = book(id, 1);
+            index.put(book);
+            if (id % stride == 0 && typos.size() < QUERIES) {
+                String title = book.getTitle();
+                int typo = random.nextInt(title.length());
+                typos.add(title.substring(0, typo) + title.substring(typo + 1));
+            }
+        }
+        queries = typos.toArray(new String[0]);
+        version = 1;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<SearchHit> search() {
+        next = (next + 1) % queries.length;
+        return index.search(queries[next], 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void update() {
+        index.put(book(1 + random.nextInt(books), ++version));
+    }
+
+    private BookVO book(long id, long bookVersion) {
+        StringBuilder title = new StringBuilder();
+        for (int words = 1 + random.nextInt(5); words > 0; words--) {
+            if (title.length() > 0) {
+                title.append(' ');
+            }
+            title.append(word());
+        }
+        BookVO book = new BookVO(id, title.toString(), word() + " " + word(), 10.0);
+        book.setVersion(bookVersion);
+        return book;
+    }
+
+    private String word() {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+        return vocabulary[Math.min(rank < 0 ? -rank - 1 : rank, vocabulary.length - 1)];
+    }
+}
@@ -0,0 +1,195 @@
+package com.library.benchmark;
+
+import com.library.ids.SequentialIdAllocator;
+import com.library.model.AuthorStats;
+import com.library.model.BatchResult;
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import com.library.service.BookService;
+import com.library.sharding.LocalShard;
+import com.library.sharding.Shard;
+import com.library.sharding.ShardRouter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Throughput of a sharded catalog as shards are added. Each shard stands in for one pod:
+ * a {@link LocalShard} behind a single worker thread that spends {@link #SERVICE_NANOS}
+ * per request, so a shard serves a fixed number of requests per second however many
+ * threads call it, and the benchmark host's own CPUs are not what is measured.
+ *
+ * Routed reads and writes touch one shard each and should scale close to linearly with
+ * the shard count; a scatter-gather page touches every shard, so its throughput stays
+ * flat while its latency is bounded by the slowest shard.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class ShardingBenchmark {
+
+    static final long SERVICE_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final int BOOKS = 100_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    private final List<ExecutorService> pods = new ArrayList<>();
+    private ShardRouter router;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        Map<String, Shard> byNode = new LinkedHashMap<>();
+        for (int i = 0; i < shards; i++) {
+            String node = "shard-" + i;
+            ExecutorService pod = Executors.newSingleThreadExecutor();
+            pods.add(pod);
+            nodes.put(node, node);
+            byNode.put(node, new PodShard(new LocalShard(new BookService()), pod));
+        }
+        router = new ShardRouter("shard-0", nodes, 128, new SequentialIdAllocator(), (node, url) -> byNode.get(node));
+        List<BookVO> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(new BookVO(null, "Book " + i, "Author " + (i % 1000), (double) (i % 500)));
+        }
+        router.addBatchBooks(books);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        router.close();
+        pods.forEach(ExecutorService::shutdownNow);
+    }
+
+    @Benchmark
+    public BookVO getBookById() {
+        return router.getBookById(1L + ThreadLocalRandom.current().nextInt(BOOKS));
+    }
+
+    @Benchmark
+    public BookVO updateBook() {
+        long id = 1 + ThreadLocalRandom.current().nextInt(BOOKS);
+        return router.updateBook(id, new BookVO(id, "Book " + id, "Author", 10.0), null);
+    }
+
+    @Benchmark
+    public BookPage getBooksPage() {
+        return router.getBooksPage((long) ThreadLocalRandom.current().nextInt(BOOKS), 20);
+    }
+
+    /**
+     * A shard whose requests are served one at a time by its own thread, each taking
+     * {@link #SERVICE_NANOS} on top of the store's own work.
+     */
+    static final class PodShard implements Shard {
+
+        private final Shard shard;
+        private final ExecutorService pod;
+
+        PodShard(Shard shard, ExecutorService pod) {
+            this.shard = shard;
+            this.pod = pod;
+        }
+
+        private <T> T serve(Supplier<T> request) {
+            Future<T> response = pod.submit(() -> {
+                LockSupport.parkNanos(SERVICE_NANOS);
+                return request.get();
+            });
+            try {
+                return response.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            } catch (ExecutionException ex) {
+                throw (RuntimeException) ex.getCause();
+            }
+        }
+
+        @Override
+        public BookVO getBookById(long id) {
+            return serve(() -> shard.getBookById(id));
+        }
+
+        @Override
+        public BookVO updateBook(long id, BookVO book, Long expectedVersion) {
+            return serve(() -> shard.updateBook(id, book, expectedVersion));
+        }
+
+        @Override
+        public void deleteBook(long id, Long expectedVersion) {
+            serve(() -> {
+                shard.deleteBook(id, expectedVersion);
+                return null;
+            });
+        }
+
+        @Override
+        public void importBooks(List<BookVO> books) {
+            // Loading the catalog is setup, not part of what is measured
+            shard.importBooks(books);
+        }
+
+        @Override
+        public BatchResult updateBatchBooks(List<BookVO> books) {
+            return serve(() -> shard.updateBatchBooks(books));
+        }
+
+        @Override
+        public BatchResult deleteBatchBooks(List<Long> ids) {
+            return serve(() -> shard.deleteBatchBooks(ids));
+        }
+
+        @Override
+        public List<BookVO> getAllBooks() {
+            return serve(shard::getAllBooks);
+        }
+
+        @Override
+        public BookPage getBooksPage(Long after, int limit) {
+            return serve(() -> shard.getBooksPage(after, limit));
+        }
+
+        @Override
+        public List<BookVO> findBooks(String author, String title) {
+            return serve(() -> shard.findBooks(author, title));
+        }
+
+        @Override
+        public List<BookVO> findBooksByPrice(Double minPrice, Double maxPrice, boolean descending, Integer limit) {
+            return serve(() -> shard.findBooksByPrice(minPrice, maxPrice, descending, limit));
+        }
+
+        @Override
+        public PriceSummary summarizePrices(Double minPrice, Double maxPrice) {
+            return serve(() -> shard.summarizePrices(minPrice, maxPrice));
+        }
+
+        @Override
+        public List<AuthorStats> getAuthorStats() {
+            return serve(shard::getAuthorStats);
+        }
+
+        @Override
+        public List<BookVO> searchBooks(String query, Integer limit) {
+            return serve(() -> shard.searchBooks(query, limit));
+        }
+    }
+}
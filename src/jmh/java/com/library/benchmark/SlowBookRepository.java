@@ -0,0 +1,134 @@
+package com.library.benchmark;
+
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import com.library.repository.BookChangeListener;
+import com.library.repository.BookRepository;
+import com.library.repository.WriteStatus;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Stands in for a remote backing store: every call blocks for a fixed latency before it
+ * reaches the wrapped store, the way a request waits on a database round trip.
+ */
+final class SlowBookRepository implements BookRepository {
+
+    private final BookRepository delegate;
+    private final long latencyNanos;
+
+    SlowBookRepository(BookRepository delegate, long latencyMillis) {
+        this.delegate = delegate;
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+    }
+
+    @Override
+    public BookVO insert(BookVO book) {
+        roundTrip();
+        return delegate.insert(book);
+    }
+
+    @Override
+    public List<BookVO> insertAll(List<BookVO> books) {
+        roundTrip();
+        return delegate.insertAll(books);
+    }
+
+    @Override
+    public Optional<BookVO> findById(long id) {
+        roundTrip();
+        return delegate.findById(id);
+    }
+
+    @Override
+    public WriteStatus update(long id, BookVO book, Long expectedVersion) {
+        roundTrip();
+        return delegate.update(id, book, expectedVersion);
+    }
+
+    @Override
+    public boolean[] updateAll(List<BookVO> books) {
+        roundTrip();
+        return delegate.updateAll(books);
+    }
+
+    @Override
+    public WriteStatus delete(long id, Long expectedVersion) {
+        roundTrip();
+        return delegate.delete(id, expectedVersion);
+    }
+
+    @Override
+    public boolean[] deleteAll(List<Long> ids) {
+        roundTrip();
+        return delegate.deleteAll(ids);
+    }
+
+    @Override
+    public List<BookVO> findAll() {
+        roundTrip();
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<BookVO> findPage(Long after, int limit) {
+        roundTrip();
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public Stream<BookVO> stream(Long after) {
+        roundTrip();
+        return delegate.stream(after);
+    }
+
+    @Override
+    public List<BookVO> findByAuthorAndTitle(String author, String title) {
+        roundTrip();
+        return delegate.findByAuthorAndTitle(author, title);
+    }
+
+    @Override
+    public List<BookVO> findByPriceRange(Double minPrice, Double maxPrice, int limit, boolean descending) {
+        roundTrip();
+        return delegate.findByPriceRange(minPrice, maxPrice, limit, descending);
+    }
+
+    @Override
+    public PriceSummary summarizePrices(Double minPrice, Double maxPrice) {
+        roundTrip();
+        return delegate.summarizePrices(minPrice, maxPrice);
+    }
+
+    @Override
+    public void setChangeListener(BookChangeListener listener) {
+        delegate.setChangeListener(listener);
+    }
+
+    @Override
+    public long count() {
+        roundTrip();
+        return delegate.count();
+    }
+
+    @Override
+    public long nextId() {
+        roundTrip();
+        return delegate.nextId();
+    }
+
+    private void roundTrip() {
+        if (latencyNanos == 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(latencyNanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting on the store", ex);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.library.benchmark;
+
+import com.library.model.BatchResult;
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.service.BookService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read throughput of the concurrent-map store and the multi-version store while a writer
+ * rewrites the catalog in batches of {@link #BATCH_SIZE} books back to back.
+ *
+ * The {@code memory} store answers a page from its skip list of ids plus one hash lookup
+ * per book, and a reader can see a batch half-applied; the {@code mvcc} store reads the
+ * page straight out of one immutable trie version, while its writer pays for copying the
+ * trie paths it changes. Compare the reader scores of each group, and the writer score
+ * for what the consistent view costs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotReadBenchmark {
+
+    static final int BATCH_SIZE = 100;
+
+    @Param({"memory", "mvcc"})
+    public String store;
+
+    @Param({"100000"})
+    public int catalogSize;
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bookService = new BookService(BenchmarkStores.create(store, resources));
+        bookService.addBatchBooks(BenchmarkStores.books(catalogSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkStores.close(resources);
+    }
+
+    @Benchmark
+    @Group("pages")
+    @GroupThreads(3)
+    public BookPage pageRead() {
+        return bookService.getBooksPage(randomId(), 100);
+    }
+
+    @Benchmark
+    @Group("pages")
+    @GroupThreads(1)
+    public BatchResult pageWrite() {
+        return rewriteBatch();
+    }
+
+    @Benchmark
+    @Group("points")
+    @GroupThreads(3)
+    public BookVO pointRead() {
+        return bookService.getBookById(randomId());
+    }
+
+    @Benchmark
+    @Group("points")
+    @GroupThreads(1)
+    public BatchResult pointWrite() {
+        return rewriteBatch();
+    }
+
+    private BatchResult rewriteBatch() {
+        List<BookVO> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long id = randomId();
+            BookVO book = BenchmarkStores.book(id);
+            book.setId(id);
+            batch.add(book);
+        }
+        return bookService.updateBatchBooks(batch);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, catalogSize + 1);
+    }
+}
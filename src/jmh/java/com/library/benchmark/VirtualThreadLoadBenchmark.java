@@ -0,0 +1,121 @@
+package com.library.benchmark;
+
+import com.library.LibraryManagementApplication;
+import com.library.repository.BookRepository;
+import com.library.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the running application on Tomcat's platform-thread pool versus virtual
+ * threads, with {@link BookService} backed by a store that blocks for
+ * {@code storeLatencyMillis} on every call.
+ *
+ * 480 clients fetch books while 32 hit {@code /health}, as probes would. With platform
+ * threads at most {@code server.tomcat.threads.max} requests run at once and the rest
+ * queue, health checks included; with virtual threads every request gets a thread. The
+ * throughput run gives requests per millisecond, the sample-time run gives p99 latency per
+ * endpoint. Virtual threads need Java 21, so run with:
+ * <pre>
+ * ./mvnw -Pbenchmark,java21 test-compile exec:exec \
+ *     -Djmh.args="VirtualThreadLoadBenchmark -rf json -rff target/jmh-result.json"
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VirtualThreadLoadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"20"})
+    public long storeLatencyMillis;
+
+    @Param({"200"})
+    public int tomcatThreads;
+
+    @Param({"10000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21; build with -Pjava21 and run on a Java 21 JDK");
+        }
+        long latency = storeLatencyMillis;
+        context = new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.threads.max=" + tomcatThreads,
+                        "library.store=memory",
+                        "library.persistence.enabled=false",
+                        "logging.level.com.library=WARN")
+                .initializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(
+                        new BeanPostProcessor() {
+                            @Override
+                            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                                return bean instanceof BookRepository repository
+                                        ? new SlowBookRepository(repository, latency) : bean;
+                            }
+                        }))
+                .run();
+        context.getBean(BookService.class).addBatchBooks(BenchmarkStores.books(catalogSize));
+
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("load")
+    @GroupThreads(480)
+    public byte[] getBook() throws IOException, InterruptedException {
+        return get("/books/" + ThreadLocalRandom.current().nextLong(1, catalogSize + 1));
+    }
+
+    @Benchmark
+    @Group("load")
+    @GroupThreads(32)
+    public byte[] health() throws IOException, InterruptedException {
+        return get("/health");
+    }
+
+    private byte[] get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,71 @@
+package com.library.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.codec.BookWireCodec;
+import com.library.model.BookVO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of a catalog page as JSON (the controller's ObjectMapper setup)
+ * and as {@link BookWireCodec} records. Payload sizes are printed once per trial, since
+ * JMH only reports time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    private static final TypeReference<List<BookVO>> BOOK_LIST = new TypeReference<>() {
+    };
+
+    @Param({"1000"})
+    public int books;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<BookVO> catalog;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        catalog = BenchmarkStores.books(books);
+        long id = 1;
+        for (BookVO book : catalog) {
+            book.setId(id++);
+            book.setVersion(1L);
+        }
+        json = objectMapper.writeValueAsBytes(catalog);
+        binary = BookWireCodec.encodeAll(catalog);
+        System.out.printf("%n%d books: JSON %d bytes, binary %d bytes (%.2fx smaller)%n",
+                books, json.length, binary.length, (double) json.length / binary.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return objectMapper.writeValueAsBytes(catalog);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return BookWireCodec.encodeAll(catalog);
+    }
+
+    @Benchmark
+    public List<BookVO> decodeJson() throws IOException {
+        return objectMapper.readValue(json, BOOK_LIST);
+    }
+
+    @Benchmark
+    public List<BookVO> decodeBinary() throws IOException {
+        return BookWireCodec.decodeAll(new ByteArrayInputStream(binary));
+    }
+}
@@ -145,6 +145,122 @@ public class PairSumSolution {
         return result;
     }
 
+    /**
+     * Receives pairs from the primitive variants without boxing or array allocation.
+     */
+    @FunctionalInterface
+    public interface PairConsumer {
+        void accept(int first, int second);
+    }
+
+    /**
+     * Primitive variant of {@link #findPairsWithSum(int[], int)} returning the pairs flattened
+     * as {@code [first0, second0, first1, second1, ...]}, in the same order.
+     */
+    public static int[] findPairsWithSumPrimitive(int[] array, int target) {
+        FlatPairs pairs = new FlatPairs();
+        findPairsWithSumPrimitive(array, target, pairs);
+        return pairs.toArray();
+    }
+
+    /**
+     * Primitive variant of {@link #findPairsWithSum(int[], int)} that reports each pair to a
+     * callback, in the same order and with the same deduplication.
+     *
+     * Algorithm:
+     * 1. Seen values go into an open-addressing int hash set instead of a HashMap<Integer, Integer>
+     * 2. Each pair is packed into one long (first in the high half, second in the low half)
+     *    and deduplicated through an open-addressing long hash set instead of a String key
+     *
+     * The hot loop allocates nothing per element; the sets only allocate when they grow.
+     *
+     * Time Complexity: O(n)
+     * Space Complexity: O(n) in two primitive arrays
+     */
+    public static void findPairsWithSumPrimitive(int[] array, int target, PairConsumer consumer) {
+        if (array == null || array.length < 2) {
+            return;
+        }
+
+        IntHashSet seenValues = new IntHashSet(array.length);
+        LongHashSet seenPairs = new LongHashSet(Math.min(array.length, 1024));
+
+        for (int current : array) {
+            int complement = target - current;
+
+            if (seenValues.contains(complement)) {
+                int first = Math.min(current, complement);
+                int second = Math.max(current, complement);
+
+                if (seenPairs.add(((long) first << 32) | (second & 0xFFFFFFFFL))) {
+                    consumer.accept(first, second);
+                }
+            }
+
+            seenValues.add(current);
+        }
+    }
+
+    /**
+     * Primitive variant of {@link #findPairsWithSumTwoPointers(int[], int)} returning the pairs
+     * flattened as {@code [first0, second0, first1, second1, ...]}, in the same order.
+     */
+    public static int[] findPairsWithSumTwoPointersPrimitive(int[] array, int target) {
+        FlatPairs pairs = new FlatPairs();
+        findPairsWithSumTwoPointersPrimitive(array, target, pairs);
+        return pairs.toArray();
+    }
+
+    /**
+     * Primitive variant of {@link #findPairsWithSumTwoPointers(int[], int)} that reports each
+     * pair to a callback, in the same order and with the same deduplication.
+     *
+     * Only the values take part in the pointer walk, so a copy of the input is sorted with
+     * the primitive {@link Arrays#sort(int[])} instead of sorting [value, index] rows with a
+     * comparator. Both pointers move monotonically, so repeated matches of the same pair
+     * are always consecutive and comparing with the last reported pair replaces the set.
+     *
+     * Time Complexity: O(n log n) due to sorting step
+     * Space Complexity: O(n) for the sorted copy, O(1) otherwise
+     */
+    public static void findPairsWithSumTwoPointersPrimitive(int[] array, int target, PairConsumer consumer) {
+        if (array == null || array.length < 2) {
+            return;
+        }
+
+        int[] sorted = array.clone();
+        Arrays.sort(sorted);
+
+        boolean reported = false;
+        int lastFirst = 0;
+        int lastSecond = 0;
+        int left = 0;
+        int right = sorted.length - 1;
+
+        while (left < right) {
+            int sum = sorted[left] + sorted[right];
+
+            if (sum == target) {
+                int first = Math.min(sorted[left], sorted[right]);
+                int second = Math.max(sorted[left], sorted[right]);
+
+                if (!reported || first != lastFirst || second != lastSecond) {
+                    consumer.accept(first, second);
+                    reported = true;
+                    lastFirst = first;
+                    lastSecond = second;
+                }
+
+                left++;
+                right--;
+            } else if (sum < target) {
+                left++;
+            } else {
+                right--;
+            }
+        }
+    }
+
     /**
      * Utility method to print pairs in a readable format.
      * Converts the list of int arrays to a human-readable string format.
@@ -236,4 +352,156 @@ public class PairSumSolution {
         printPairs(result4);
         System.out.println();
     }
-}
\ No newline at end of file
+
+    /**
+     * Growable flat int array collecting pairs for the array-returning primitive variants.
+     */
+    private static final class FlatPairs implements PairConsumer {
+        private int[] values = new int[16];
+        private int size;
+
+        @Override
+        public void accept(int first, int second) {
+            if (size + 2 > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = first;
+            values[size++] = second;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Open-addressing int hash set with linear probing. Zero marks an empty slot, so the
+     * value zero itself is tracked by a separate flag.
+     */
+    private static final class IntHashSet {
+        private int[] slots;
+        private int size;
+        private boolean containsZero;
+
+        IntHashSet(int expectedSize) {
+            slots = new int[capacityFor(expectedSize)];
+        }
+
+        boolean contains(int value) {
+            if (value == 0) {
+                return containsZero;
+            }
+            int mask = slots.length - 1;
+            for (int i = mix(value) & mask; slots[i] != 0; i = (i + 1) & mask) {
+                if (slots[i] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(int value) {
+            if (value == 0) {
+                containsZero = true;
+                return;
+            }
+            int mask = slots.length - 1;
+            int i = mix(value) & mask;
+            while (slots[i] != 0) {
+                if (slots[i] == value) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = value;
+            if (++size * 2 > slots.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            int[] old = slots;
+            slots = new int[old.length * 2];
+            int mask = slots.length - 1;
+            for (int value : old) {
+                if (value != 0) {
+                    int i = mix(value) & mask;
+                    while (slots[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    slots[i] = value;
+                }
+            }
+        }
+
+        private static int mix(int value) {
+            int h = value * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Open-addressing long hash set with linear probing, used for packed pair keys. Zero
+     * marks an empty slot, so the key zero (the pair (0, 0)) is tracked by a separate flag.
+     */
+    private static final class LongHashSet {
+        private long[] slots;
+        private int size;
+        private boolean containsZero;
+
+        LongHashSet(int expectedSize) {
+            slots = new long[capacityFor(expectedSize)];
+        }
+
+        /**
+         * @return true when the key was not present before
+         */
+        boolean add(long key) {
+            if (key == 0) {
+                boolean added = !containsZero;
+                containsZero = true;
+                return added;
+            }
+            int mask = slots.length - 1;
+            int i = mix(key) & mask;
+            while (slots[i] != 0) {
+                if (slots[i] == key) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = key;
+            if (++size * 2 > slots.length) {
+                grow();
+            }
+            return true;
+        }
+
+        private void grow() {
+            long[] old = slots;
+            slots = new long[old.length * 2];
+            int mask = slots.length - 1;
+            for (long key : old) {
+                if (key != 0) {
+                    int i = mix(key) & mask;
+                    while (slots[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    slots[i] = key;
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * Smallest power of two that keeps the load factor at or below one half.
+     */
+    private static int capacityFor(int expectedSize) {
+        return Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+    }
+}
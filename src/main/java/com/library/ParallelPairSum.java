@@ -0,0 +1,348 @@
+package com.library;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Out-of-core, multi-core variant of {@link PairSumSolution#findPairsWithSum(int[], int)} for
+ * binary files of 32-bit integers that may be far larger than the heap.
+ *
+ * Algorithm:
+ * 1. Partition: the file is memory-mapped in segments and the segments are split across
+ *    fork-join workers. Each value x is routed to partition hash(min(x, target - x)), so a
+ *    value and its complement always land in the same partition. Partitions are spilled to
+ *    temporary files.
+ * 2. Solve: partitions are processed in parallel. Each one is small enough to count its
+ *    distinct values in an open-addressing table. Every distinct x with x <= target - x
+ *    that has its complement present (twice, when x is its own complement) forms a pair.
+ *
+ * No pair spans two partitions and each partition sees every copy of its values, so the
+ * partitions never need to be merged or deduplicated against each other. The result is the
+ * same set of pairs as {@code findPairsWithSum}, with int arithmetic wrapping the same way;
+ * only the order differs.
+ *
+ * Time Complexity: O(n) reads and writes of the data, spread over the workers
+ * Space Complexity: O(partition size) heap per worker; the data itself stays on disk
+ */
+public class ParallelPairSum {
+
+    static final int DEFAULT_SEGMENT_INTS = 1 << 24;
+    static final long DEFAULT_PARTITION_BYTES = 64L << 20;
+
+    private static final int MAX_BUFFER_BYTES = 64 << 10;
+    private static final int MIN_BUFFER_BYTES = 4 << 10;
+    private static final long MAX_MAP_BYTES = 1L << 30;
+
+    private ParallelPairSum() {
+    }
+
+    /**
+     * Finds all unique pairs in a big-endian int file using every available core.
+     * Pairs are reported one partition at a time, never concurrently, so the consumer does
+     * not need to be thread-safe.
+     */
+    public static void findPairsWithSum(Path file, int target, PairSumSolution.PairConsumer consumer)
+            throws IOException {
+        findPairsWithSum(file, ByteOrder.BIG_ENDIAN, target, Runtime.getRuntime().availableProcessors(),
+                DEFAULT_PARTITION_BYTES, file.toAbsolutePath().getParent(), consumer);
+    }
+
+    /**
+     * @param parallelism    number of fork-join workers
+     * @param partitionBytes target size of each spilled partition; bounds the heap each
+     *                       worker needs while solving
+     * @param spillDirectory where the temporary partition files are written
+     */
+    public static void findPairsWithSum(Path file, ByteOrder byteOrder, int target, int parallelism,
+                                        long partitionBytes, Path spillDirectory,
+                                        PairSumSolution.PairConsumer consumer) throws IOException {
+        findPairsWithSum(file, byteOrder, target, parallelism, partitionBytes, spillDirectory,
+                DEFAULT_SEGMENT_INTS, consumer);
+    }
+
+    static void findPairsWithSum(Path file, ByteOrder byteOrder, int target, int parallelism,
+                                 long partitionBytes, Path spillDirectory, int segmentInts,
+                                 PairSumSolution.PairConsumer consumer) throws IOException {
+        if (parallelism < 1 || partitionBytes < 4 || segmentInts < 1) {
+            throw new IllegalArgumentException("parallelism, partitionBytes and segmentInts must be positive");
+        }
+        long fileBytes = Files.size(file);
+        if (fileBytes % Integer.BYTES != 0) {
+            throw new IllegalArgumentException(file + " does not hold a whole number of ints");
+        }
+        if (fileBytes < 2L * Integer.BYTES) {
+            return;
+        }
+
+        // At least one partition per worker so the solve phase keeps every core busy
+        int partitions = (int) Math.max(parallelism, Math.min(1 << 16, (fileBytes + partitionBytes - 1) / partitionBytes));
+        Path spill = Files.createTempDirectory(spillDirectory, "pair-sum-");
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            FileChannel[] partitionFiles = new FileChannel[partitions];
+            AtomicLong[] partitionSizes = new AtomicLong[partitions];
+            try {
+                for (int p = 0; p < partitions; p++) {
+                    partitionFiles[p] = FileChannel.open(spill.resolve("partition-" + p), StandardOpenOption.CREATE_NEW,
+                            StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    partitionSizes[p] = new AtomicLong();
+                }
+                partition(pool, file, byteOrder, target, segmentInts, partitionFiles, partitionSizes);
+                solve(pool, target, partitionFiles, partitionSizes, consumer);
+            } finally {
+                for (FileChannel channel : partitionFiles) {
+                    if (channel != null) {
+                        channel.close();
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            try (var entries = Files.list(spill)) {
+                for (Path entry : (Iterable<Path>) entries::iterator) {
+                    Files.deleteIfExists(entry);
+                }
+            }
+            Files.deleteIfExists(spill);
+        }
+    }
+
+    private static void partition(ForkJoinPool pool, Path file, ByteOrder byteOrder, int target, int segmentInts,
+                                  FileChannel[] partitionFiles, AtomicLong[] partitionSizes) throws IOException {
+        int partitions = partitionFiles.length;
+        int bufferBytes = Math.max(MIN_BUFFER_BYTES, Math.min(MAX_BUFFER_BYTES, (8 << 20) / partitions)) & ~3;
+        try (FileChannel input = FileChannel.open(file, StandardOpenOption.READ)) {
+            long totalInts = input.size() / Integer.BYTES;
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (long start = 0; start < totalInts; start += segmentInts) {
+                long first = start;
+                int count = (int) Math.min(segmentInts, totalInts - start);
+                tasks.add(() -> {
+                    MappedByteBuffer segment = input.map(FileChannel.MapMode.READ_ONLY,
+                            first * Integer.BYTES, (long) count * Integer.BYTES);
+                    IntBuffer values = segment.order(byteOrder).asIntBuffer();
+                    ByteBuffer[] buffers = new ByteBuffer[partitions];
+                    for (int i = 0; i < count; i++) {
+                        int value = values.get(i);
+                        int p = partitionOf(value, target, partitions);
+                        ByteBuffer buffer = buffers[p];
+                        if (buffer == null) {
+                            buffer = buffers[p] = ByteBuffer.allocate(bufferBytes).order(ByteOrder.nativeOrder());
+                        }
+                        buffer.putInt(value);
+                        if (!buffer.hasRemaining()) {
+                            flush(buffer, partitionFiles[p], partitionSizes[p]);
+                        }
+                    }
+                    for (int p = 0; p < partitions; p++) {
+                        if (buffers[p] != null) {
+                            flush(buffers[p], partitionFiles[p], partitionSizes[p]);
+                        }
+                    }
+                    return null;
+                });
+            }
+            runAll(pool, tasks);
+        }
+    }
+
+    private static void solve(ForkJoinPool pool, int target, FileChannel[] partitionFiles,
+                              AtomicLong[] partitionSizes, PairSumSolution.PairConsumer consumer) throws IOException {
+        Object deliveryLock = new Object();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int p = 0; p < partitionFiles.length; p++) {
+            FileChannel channel = partitionFiles[p];
+            long bytes = partitionSizes[p].get();
+            if (bytes < Integer.BYTES) {
+                continue;
+            }
+            tasks.add(() -> {
+                ValueCounts counts = new ValueCounts((int) Math.min(bytes / Integer.BYTES, 1 << 28));
+                for (long offset = 0; offset < bytes; offset += MAX_MAP_BYTES) {
+                    long length = Math.min(MAX_MAP_BYTES, bytes - offset);
+                    IntBuffer values = channel.map(FileChannel.MapMode.READ_ONLY, offset, length)
+                            .order(ByteOrder.nativeOrder()).asIntBuffer();
+                    for (int i = 0, n = values.limit(); i < n; i++) {
+                        counts.add(values.get(i));
+                    }
+                }
+
+                int[] pairs = counts.pairsSummingTo(target);
+                if (pairs.length > 0) {
+                    synchronized (deliveryLock) {
+                        for (int i = 0; i < pairs.length; i += 2) {
+                            consumer.accept(pairs[i], pairs[i + 1]);
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        runAll(pool, tasks);
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel, AtomicLong size) throws IOException {
+        buffer.flip();
+        // Reserve a disjoint region of the partition file so workers never contend on a lock
+        long position = size.getAndAdd(buffer.remaining());
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+    }
+
+    private static void runAll(ForkJoinPool pool, List<Callable<Void>> tasks) throws IOException {
+        try {
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while searching for pairs", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            if (ex.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) ex.getCause()).getCause();
+            }
+            throw new IllegalStateException("Pair search failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Routes a value and its complement to the same partition.
+     */
+    static int partitionOf(int value, int target, int partitions) {
+        int key = Math.min(value, target - value);
+        int h = key * 0x9E3779B9;
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % partitions;
+    }
+
+    /**
+     * Open-addressing map from a distinct value to how often it occurs, saturating at two
+     * (all the pair rule needs). Zero marks an empty slot, so the value zero has its own
+     * counter.
+     */
+    private static final class ValueCounts {
+        private int[] values;
+        private byte[] counts;
+        private int size;
+        private byte zeroCount;
+
+        ValueCounts(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(16, Math.min(expectedSize, 1 << 20) * 2) - 1) << 1;
+            values = new int[capacity];
+            counts = new byte[capacity];
+        }
+
+        void add(int value) {
+            if (value == 0) {
+                zeroCount = (byte) Math.min(2, zeroCount + 1);
+                return;
+            }
+            int mask = values.length - 1;
+            int i = mix(value) & mask;
+            while (values[i] != 0) {
+                if (values[i] == value) {
+                    if (counts[i] < 2) {
+                        counts[i]++;
+                    }
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            values[i] = value;
+            counts[i] = 1;
+            if (++size * 2 > values.length) {
+                grow();
+            }
+        }
+
+        int count(int value) {
+            if (value == 0) {
+                return zeroCount;
+            }
+            int mask = values.length - 1;
+            for (int i = mix(value) & mask; values[i] != 0; i = (i + 1) & mask) {
+                if (values[i] == value) {
+                    return counts[i];
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Returns the pairs as {@code [first0, second0, ...]} with first <= second.
+         */
+        int[] pairsSummingTo(int target) {
+            int[] pairs = new int[16];
+            int found = 0;
+            for (int i = -1; i < values.length; i++) {
+                int value;
+                if (i < 0) {
+                    if (zeroCount == 0) {
+                        continue;
+                    }
+                    value = 0;
+                } else if (values[i] == 0) {
+                    continue;
+                } else {
+                    value = values[i];
+                }
+                int complement = target - value;
+                // Report each pair once, from its smaller value
+                boolean pair = value < complement ? count(complement) > 0
+                        : value == complement && count(value) >= 2;
+                if (pair) {
+                    if (found + 2 > pairs.length) {
+                        pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                    }
+                    pairs[found++] = value;
+                    pairs[found++] = complement;
+                }
+            }
+            return Arrays.copyOf(pairs, found);
+        }
+
+        private void grow() {
+            int[] oldValues = values;
+            byte[] oldCounts = counts;
+            values = new int[oldValues.length * 2];
+            counts = new byte[oldValues.length * 2];
+            int mask = values.length - 1;
+            for (int j = 0; j < oldValues.length; j++) {
+                if (oldValues[j] != 0) {
+                    int i = mix(oldValues[j]) & mask;
+                    while (values[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    values[i] = oldValues[j];
+                    counts[i] = oldCounts[j];
+                }
+            }
+        }
+
+        private static int mix(int value) {
+            int h = value * 0x85EBCA6B;
+            return h ^ (h >>> 13);
+        }
+    }
+}
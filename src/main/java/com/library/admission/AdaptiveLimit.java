@@ -0,0 +1,95 @@
+package com.library.admission;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A concurrency limit that adapts to observed latency, after the gradient algorithm of
+ * Netflix's concurrency-limits. It compares a fast moving average of request latency with
+ * the lowest latency seen, which stands in for the latency without queueing. While they
+ * agree, the limit grows by about its square root per sample; once queueing makes the
+ * average exceed the minimum by more than {@code tolerance}, the limit shrinks in
+ * proportion (at most by half per sample), so in-flight requests settle near what the
+ * service completes without queueing.
+ *
+ * A service that is overloaded from the start never shows its unqueued latency, and one
+ * whose unqueued latency rises (a bigger catalog, a slower disk) would be throttled
+ * against a stale minimum. So every thousand or so samples the limit is probed: it drops
+ * to about its square root and the minimum is measured afresh.
+ *
+ * Samples taken while fewer than half the permits are in use are ignored: latency says
+ * nothing about capacity then, and the limit must not grow without bound when idle.
+ */
+public class AdaptiveLimit {
+
+    private static final double SAMPLE_WEIGHT = 0.1;
+    private static final int PROBE_SAMPLES = 1000;
+
+    private final double minLimit;
+    private final double maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private volatile double limit;
+    private double averageRtt;
+    private double minRtt;
+    private long samplesToProbe = nextProbe();
+
+    /**
+     * @param tolerance how much average latency may exceed the minimum before the limit
+     *                  shrinks, e.g. 1.5
+     * @param smoothing weight of each new estimate, between 0 and 1
+     */
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (tolerance < 1 || smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("tolerance must be at least 1 and smoothing in (0, 1]");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Records the latency of a completed request.
+     *
+     * @param inflight requests in flight when it started, itself included
+     */
+    public synchronized void onSample(long rttNanos, int inflight) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        double current = limit;
+        if (--samplesToProbe <= 0) {
+            samplesToProbe = nextProbe();
+            minRtt = 0;
+            averageRtt = 0;
+            limit = Math.max(minLimit, Math.sqrt(current));
+            return;
+        }
+        if (minRtt == 0 || rttNanos < minRtt) {
+            minRtt = rttNanos;
+        }
+        averageRtt = averageRtt == 0 ? rttNanos : averageRtt + (rttNanos - averageRtt) * SAMPLE_WEIGHT;
+        if (inflight < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * minRtt / averageRtt));
+        double estimate = current * gradient + Math.sqrt(current);
+        limit = Math.max(minLimit, Math.min(maxLimit, current * (1 - smoothing) + estimate * smoothing));
+    }
+
+    /**
+     * Jittered, so instances sharing a load balancer don't probe in step.
+     */
+    private static long nextProbe() {
+        return PROBE_SAMPLES + ThreadLocalRandom.current().nextInt(PROBE_SAMPLES);
+    }
+}
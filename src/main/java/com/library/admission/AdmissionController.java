@@ -0,0 +1,120 @@
+package com.library.admission;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admits requests while fewer are in flight than the {@link AdaptiveLimit} allows, and
+ * turns the rest away at once instead of letting them queue. Each {@link Priority} may
+ * fill a different share of the limit, so as load rises bulk requests are shed first,
+ * then reads, and writes last; health checks may exceed the limit by a small reserve, so
+ * probes keep answering while the service is saturated.
+ *
+ * Only reads and writes feed the limit their latency: bulk requests take long by nature
+ * and health checks don't touch the store.
+ */
+public class AdmissionController {
+
+    public enum Priority {
+        HEALTH, WRITE, READ, BULK
+    }
+
+    private final AdaptiveLimit limit;
+    private final Map<Priority, Double> shares = new EnumMap<>(Priority.class);
+    private final int healthReserve;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final Map<Priority, LongAdder> admitted = new EnumMap<>(Priority.class);
+    private final Map<Priority, LongAdder> rejected = new EnumMap<>(Priority.class);
+
+    /**
+     * @param readShare     fraction of the limit reads may fill, e.g. 0.9
+     * @param bulkShare     fraction of the limit bulk requests may fill, e.g. 0.5
+     * @param healthReserve health checks admitted beyond the limit
+     */
+    public AdmissionController(AdaptiveLimit limit, double readShare, double bulkShare, int healthReserve) {
+        if (readShare <= 0 || readShare > 1 || bulkShare <= 0 || bulkShare > readShare) {
+            throw new IllegalArgumentException("Shares must satisfy 0 < bulk <= read <= 1");
+        }
+        this.limit = limit;
+        this.healthReserve = healthReserve;
+        shares.put(Priority.WRITE, 1.0);
+        shares.put(Priority.READ, readShare);
+        shares.put(Priority.BULK, bulkShare);
+        for (Priority priority : Priority.values()) {
+            admitted.put(priority, new LongAdder());
+            rejected.put(priority, new LongAdder());
+        }
+    }
+
+    /**
+     * @return a permit to release when the request completes, or null if it must be
+     * rejected
+     */
+    public Permit tryAcquire(Priority priority) {
+        int capacity = capacity(priority);
+        while (true) {
+            int current = inflight.get();
+            if (current >= capacity) {
+                rejected.get(priority).increment();
+                return null;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                admitted.get(priority).increment();
+                return new Permit(priority, current + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public long admitted(Priority priority) {
+        return admitted.get(priority).sum();
+    }
+
+    public long rejected(Priority priority) {
+        return rejected.get(priority).sum();
+    }
+
+    private int capacity(Priority priority) {
+        int current = limit.getLimit();
+        if (priority == Priority.HEALTH) {
+            return current + healthReserve;
+        }
+        return Math.max(1, (int) (current * shares.get(priority)));
+    }
+
+    /**
+     * One admitted request. Releasing it more than once has no further effect.
+     */
+    public final class Permit {
+
+        private final Priority priority;
+        private final int inflightAtStart;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Priority priority, int inflightAtStart) {
+            this.priority = priority;
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            inflight.decrementAndGet();
+            if (priority == Priority.READ || priority == Priority.WRITE) {
+                limit.onSample(System.nanoTime() - startNanos, inflightAtStart);
+            }
+        }
+    }
+}
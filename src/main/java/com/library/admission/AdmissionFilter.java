@@ -0,0 +1,133 @@
+package com.library.admission;
+
+import com.library.admission.AdmissionController.Permit;
+import com.library.admission.AdmissionController.Priority;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Runs every books API request and health check through the {@link AdmissionController}
+ * before it reaches a controller. A rejected request is answered at once with 503 and
+ * {@code Retry-After}, written here rather than through the error page so shedding stays
+ * cheap. Streaming responses hold their permit until the stream completes.
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private static final String REJECTED_BODY = "{\"status\":503,\"message\":\"Server overloaded, retry later\",\"timestamp\":\"%s\"}";
+
+    private final AdmissionController admission;
+    private final String retryAfterSeconds;
+
+    public AdmissionFilter(AdmissionController admission, long retryAfterSeconds) {
+        this.admission = admission;
+        this.retryAfterSeconds = Long.toString(retryAfterSeconds);
+    }
+
+    /**
+     * The class a request is admitted under, or null for requests that are not limited:
+     * replication, sharding and the rest of Actuator. Whole-catalog listings, streams,
+     * exports and batches are bulk.
+     */
+    static Priority classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals("/health") || path.startsWith("/actuator/health")) {
+            return Priority.HEALTH;
+        }
+        if (!path.equals("/books") && !path.startsWith("/books/")) {
+            return null;
+        }
+        if (path.startsWith("/books/batch") || path.startsWith("/books/export")) {
+            return Priority.BULK;
+        }
+        String method = request.getMethod();
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            return Priority.WRITE;
+        }
+        if (path.equals("/books")) {
+            String accept = request.getHeader(HttpHeaders.ACCEPT);
+            boolean stream = accept != null && (accept.contains("ndjson") || accept.contains("x-library-books"));
+            if (stream || request.getQueryString() == null) {
+                return Priority.BULK;
+            }
+        }
+        return Priority.READ;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return classify(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Permit permit = admission.tryAcquire(classify(request));
+        if (permit == null) {
+            reject(response);
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(permit));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                permit.release();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        byte[] body = String.format(REJECTED_BODY, LocalDateTime.now()).getBytes(StandardCharsets.UTF_8);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static final class ReleaseOnComplete implements AsyncListener {
+
+        private final Permit permit;
+
+        ReleaseOnComplete(Permit permit) {
+            this.permit = permit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Still the same request; keep listening
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
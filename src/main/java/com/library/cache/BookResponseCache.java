@@ -0,0 +1,192 @@
+package com.library.cache;
+
+import com.library.model.BookVO;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Encoded responses for single-book reads, so a hot book is serialized once per version
+ * instead of once per request. Entries are keyed by id and tagged with the version they
+ * encode; a lookup only hits when the version matches the book just read from the store,
+ * so an entry left behind by a racing write is never served. Writes through
+ * {@code BookService} also {@link #invalidate} the entry to free it early.
+ *
+ * Concurrent misses for the same book share one encoding: the first caller encodes and
+ * the others wait for its result.
+ *
+ * Bounded by entry count. When full, an arbitrary other entry is dropped per insert; hot
+ * books come straight back on their next read, so a smarter policy would buy little.
+ */
+public class BookResponseCache {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Function<BookVO, byte[]> encoder;
+    private final int capacity;
+    private final boolean cpuTime;
+    private final ConcurrentHashMap<Long, Encoded> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, CompletableFuture<Encoded>> encoding = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+
+    public BookResponseCache(Function<BookVO, byte[]> encoder, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.encoder = encoder;
+        this.capacity = capacity;
+        this.cpuTime = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+    }
+
+    /**
+     * The encoded form of the book, which must carry its id and version as stored. A book
+     * without a version is encoded every time.
+     */
+    public byte[] get(BookVO book) {
+        if (book.getVersion() == null) {
+            return encode(book).bytes;
+        }
+        long id = book.getId();
+        long version = book.getVersion();
+        Encoded cached = entries.get(id);
+        if (cached != null && cached.version == version) {
+            hits.increment();
+            return cached.bytes;
+        }
+
+        CompletableFuture<Encoded> mine = new CompletableFuture<>();
+        CompletableFuture<Encoded> running = encoding.putIfAbsent(id, mine);
+        if (running != null) {
+            Encoded shared = await(running);
+            if (shared.version == version) {
+                coalesced.increment();
+                return shared.bytes;
+            }
+            // Another version is being encoded; leave the cache to whichever is newer
+            misses.increment();
+            return encode(book).bytes;
+        }
+        try {
+            misses.increment();
+            Encoded encoded = encode(book);
+            store(id, encoded);
+            mine.complete(encoded);
+            return encoded.bytes;
+        } catch (RuntimeException | Error ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            encoding.remove(id, mine);
+        }
+    }
+
+    public void invalidate(long id) {
+        entries.remove(id);
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Misses served by another request's encoding of the same book.
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Share of reads answered without encoding, coalesced ones included.
+     */
+    public double hitRatio() {
+        long served = hits.sum() + coalesced.sum();
+        long total = served + misses.sum();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    /**
+     * CPU time spent encoding, in nanoseconds (wall time where the JVM does not measure
+     * thread CPU time).
+     */
+    public long encodeNanos() {
+        return encodeNanos.sum();
+    }
+
+    /**
+     * Estimated encoding time saved: reads answered without encoding, times the average
+     * cost of an encoding.
+     */
+    public long savedNanos() {
+        long encodings = misses.sum();
+        return encodings == 0 ? 0 : (hits.sum() + coalesced.sum()) * (encodeNanos.sum() / encodings);
+    }
+
+    private Encoded encode(BookVO book) {
+        long start = now();
+        byte[] bytes = encoder.apply(book);
+        encodeNanos.add(now() - start);
+        return new Encoded(book.getVersion() != null ? book.getVersion() : 0, bytes);
+    }
+
+    private long now() {
+        return cpuTime ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private void store(long id, Encoded encoded) {
+        Encoded stored = entries.merge(id, encoded, (current, fresh) -> fresh.version >= current.version ? fresh : current);
+        if (stored == encoded && entries.size() > capacity) {
+            Iterator<Long> keys = entries.keySet().iterator();
+            while (keys.hasNext()) {
+                if (keys.next() != id) {
+                    keys.remove();
+                    evictions.increment();
+                    break;
+                }
+            }
+        }
+    }
+
+    private static Encoded await(CompletableFuture<Encoded> running) {
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private static final class Encoded {
+        final long version;
+        final byte[] bytes;
+
+        Encoded(long version, byte[] bytes) {
+            this.version = version;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.library.codec;
+
+import com.library.model.BookVO;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of books for bulk transfer, served as {@link #MEDIA_TYPE_VALUE}.
+ * It has no dependencies beyond {@link BookVO}, so clients can decode responses with
+ * {@link Reader} directly.
+ *
+ * A body is a sequence of records, one per book, ending at end of stream. Each record is
+ * {@code [varint payloadLength][payload]} and the payload is
+ * {@code [varint id+1][varint version+1][byte hasPrice][double price if hasPrice]
+ * [varint titleLength+1][title][varint authorLength+1][author]}. Strings are UTF-8, zero
+ * encodes null, and doubles are big-endian. A typical book takes under half the bytes of
+ * its JSON form, and encoding is a few array writes with no reflection.
+ */
+public final class BookWireCodec {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-library-books";
+
+    static final int MAX_RECORD_BYTES = 1 << 24;
+
+    private BookWireCodec() {
+    }
+
+    public static byte[] encode(BookVO book) {
+        return encodeAll(List.of(book));
+    }
+
+    public static byte[] encodeAll(Iterable<BookVO> books) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Writer writer = new Writer(out)) {
+            for (BookVO book : books) {
+                writer.write(book);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a body holding exactly one book.
+     */
+    public static BookVO decode(byte[] body) throws IOException {
+        List<BookVO> books = decodeAll(new ByteArrayInputStream(body));
+        if (books.size() != 1) {
+            throw new IOException("Expected one book but found " + books.size());
+        }
+        return books.get(0);
+    }
+
+    public static List<BookVO> decodeAll(InputStream in) throws IOException {
+        List<BookVO> books = new ArrayList<>();
+        Reader reader = new Reader(in);
+        BookVO book;
+        while ((book = reader.read()) != null) {
+            books.add(book);
+        }
+        return books;
+    }
+
+    /**
+     * Writes records through an internal buffer; call {@link #flush()} or {@link #close()}
+     * to push them to the underlying stream.
+     */
+    public static final class Writer implements AutoCloseable {
+
+        private static final int MAX_HEADER_BYTES = 5;
+
+        private final OutputStream out;
+        private byte[] buffer = new byte[8192];
+        private int position;
+
+        public Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        public void write(BookVO book) throws IOException {
+            byte[] title = utf8(book.getTitle());
+            byte[] author = utf8(book.getAuthor());
+            int maxPayload = 10 + 10 + 1 + 8 + 5 + length(title) + 5 + length(author);
+            if (maxPayload > MAX_RECORD_BYTES) {
+                throw new IllegalArgumentException("Book " + book.getId() + " is too large for the wire format");
+            }
+            ensureRoom(MAX_HEADER_BYTES + maxPayload);
+
+            // Encode the payload after the largest possible header, then move it up behind the real one
+            int payloadStart = position + MAX_HEADER_BYTES;
+            int end = payloadStart;
+            end = putVarLong(buffer, end, book.getId() == null ? 0 : book.getId() + 1);
+            end = putVarLong(buffer, end, book.getVersion() == null ? 0 : book.getVersion() + 1);
+            if (book.getPrice() == null) {
+                buffer[end++] = 0;
+            } else {
+                buffer[end++] = 1;
+                end = putLong(buffer, end, Double.doubleToLongBits(book.getPrice()));
+            }
+            end = putString(buffer, end, title);
+            end = putString(buffer, end, author);
+
+            int payloadLength = end - payloadStart;
+            int header = putVarLong(buffer, position, payloadLength) - position;
+            System.arraycopy(buffer, payloadStart, buffer, position + header, payloadLength);
+            position += header + payloadLength;
+        }
+
+        public void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        private void ensureRoom(int bytes) throws IOException {
+            if (buffer.length - position >= bytes) {
+                return;
+            }
+            out.write(buffer, 0, position);
+            position = 0;
+            if (buffer.length < bytes) {
+                buffer = new byte[Math.max(bytes, buffer.length * 2)];
+            }
+        }
+
+        private static int length(byte[] value) {
+            return value == null ? 0 : value.length;
+        }
+
+        private static int putString(byte[] buffer, int position, byte[] value) {
+            if (value == null) {
+                buffer[position] = 0;
+                return position + 1;
+            }
+            position = putVarLong(buffer, position, value.length + 1L);
+            System.arraycopy(value, 0, buffer, position, value.length);
+            return position + value.length;
+        }
+
+        private static int putVarLong(byte[] buffer, int position, long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+            return position;
+        }
+
+        private static int putLong(byte[] buffer, int position, long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+            return position;
+        }
+
+        private static byte[] utf8(String value) {
+            return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Reads records one at a time, so a client can process a large catalog without holding
+     * it in memory.
+     */
+    public static final class Reader {
+
+        private final InputStream in;
+        private byte[] record = new byte[256];
+        private int position;
+        private int limit;
+
+        public Reader(InputStream in) {
+            // Headers are read a byte at a time
+            this.in = in instanceof BufferedInputStream || in instanceof ByteArrayInputStream
+                    ? in : new BufferedInputStream(in);
+        }
+
+        /**
+         * @return the next book, or null at the end of the stream
+         * @throws EOFException when the stream ends inside a record
+         */
+        public BookVO read() throws IOException {
+            int first = in.read();
+            if (first < 0) {
+                return null;
+            }
+            long length = first & 0x7F;
+            for (int shift = 7; (first & 0x80) != 0; shift += 7) {
+                first = in.read();
+                if (first < 0) {
+                    throw new EOFException("Truncated record header");
+                }
+                if (shift > 28) {
+                    throw new IOException("Record length is too large");
+                }
+                length |= (long) (first & 0x7F) << shift;
+            }
+            if (length > MAX_RECORD_BYTES) {
+                throw new IOException("Record of " + length + " bytes exceeds the limit of " + MAX_RECORD_BYTES);
+            }
+            if (record.length < length) {
+                record = new byte[(int) Math.max(length, record.length * 2L)];
+            }
+            if (in.readNBytes(record, 0, (int) length) < length) {
+                throw new EOFException("Truncated record");
+            }
+
+            position = 0;
+            limit = (int) length;
+            try {
+                long id = getVarLong();
+                long version = getVarLong();
+                Double price = record[position++] == 0 ? null : Double.longBitsToDouble(getLong());
+                String title = getString();
+                String author = getString();
+                BookVO book = new BookVO(id == 0 ? null : id - 1, title, author, price);
+                book.setVersion(version == 0 ? null : version - 1);
+                if (position != limit) {
+                    throw new IOException("Malformed record: payload is " + limit + " bytes but " + position + " were read");
+                }
+                return book;
+            } catch (ArrayIndexOutOfBoundsException ex) {
+                throw new IOException("Malformed record", ex);
+            }
+        }
+
+        private long getVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = record[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private long getLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = value << 8 | (record[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private String getString() throws IOException {
+            long length = getVarLong();
+            if (length == 0) {
+                return null;
+            }
+            int bytes = (int) (length - 1);
+            if (bytes < 0 || bytes > limit - position) {
+                throw new IOException("Malformed string length");
+            }
+            String value = new String(record, position, bytes, StandardCharsets.UTF_8);
+            position += bytes;
+            return value;
+        }
+    }
+}
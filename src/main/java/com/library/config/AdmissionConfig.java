@@ -0,0 +1,78 @@
+package com.library.config;
+
+import com.library.admission.AdaptiveLimit;
+import com.library.admission.AdmissionController;
+import com.library.admission.AdmissionController.Priority;
+import com.library.admission.AdmissionFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Locale;
+
+/**
+ * Load shedding for the books API; see {@link AdmissionController}. Requests beyond the
+ * adaptive concurrency limit are refused with 503 before they take a Tomcat thread for
+ * the length of a store call, so latency for the requests that are admitted, and for
+ * Kubernetes probes, stays close to the unloaded latency. Off unless
+ * {@code library.admission.enabled} is set.
+ */
+@Configuration
+@Slf4j
+@ConditionalOnProperty(name = "library.admission.enabled", havingValue = "true")
+public class AdmissionConfig {
+
+    @Bean
+    public AdmissionController admissionController(@Value("${library.admission.initial-limit:20}") int initialLimit,
+                                                   @Value("${library.admission.min-limit:4}") int minLimit,
+                                                   @Value("${library.admission.max-limit:500}") int maxLimit,
+                                                   @Value("${library.admission.tolerance:1.5}") double tolerance,
+                                                   @Value("${library.admission.smoothing:0.2}") double smoothing,
+                                                   @Value("${library.admission.read-share:0.9}") double readShare,
+                                                   @Value("${library.admission.bulk-share:0.5}") double bulkShare,
+                                                   @Value("${library.admission.health-reserve:4}") int healthReserve) {
+        log.info("Admission control on, concurrency limit {} adapting between {} and {}", initialLimit, minLimit, maxLimit);
+        return new AdmissionController(new AdaptiveLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing),
+                readShare, bulkShare, healthReserve);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(AdmissionController admissionController,
+                                                                   @Value("${library.admission.retry-after-seconds:1}") long retryAfterSeconds) {
+        FilterRegistrationBean<AdmissionFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionFilter(admissionController, retryAfterSeconds));
+        // Ahead of replication's filters, so shed requests are never forwarded
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder admissionMetrics(AdmissionController admission) {
+        return registry -> {
+            Gauge.builder("library.admission.limit", admission, AdmissionController::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .register(registry);
+            Gauge.builder("library.admission.inflight", admission, AdmissionController::getInflight)
+                    .description("Admitted requests in flight")
+                    .register(registry);
+            for (Priority priority : Priority.values()) {
+                String tag = priority.name().toLowerCase(Locale.ROOT);
+                FunctionCounter.builder("library.admission.requests", admission, a -> a.admitted(priority))
+                        .tags("priority", tag, "outcome", "admitted")
+                        .description("Requests admitted or rejected by admission control")
+                        .register(registry);
+                FunctionCounter.builder("library.admission.requests", admission, a -> a.rejected(priority))
+                        .tags("priority", tag, "outcome", "rejected")
+                        .description("Requests admitted or rejected by admission control")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.library.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.export.CatalogExporter;
+import com.library.service.BookService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Precompressed catalog snapshots for {@code GET /books/export}. Disabled by default, in
+ * which case the endpoint answers 404 and bulk consumers page or stream {@code /books}.
+ */
+@Configuration
+@Slf4j
+public class ExportConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "library.export.enabled", havingValue = "true")
+    public CatalogExporter catalogExporter(BookService bookService, ObjectMapper objectMapper,
+                                           @Value("${library.export.directory:data/export}") String directory,
+                                           @Value("${library.export.change-threshold:10000}") long changeThreshold,
+                                           @Value("${library.export.max-age-millis:300000}") long maxAgeMillis,
+                                           @Value("${library.export.tick-millis:1000}") long tickMillis)
+            throws IOException {
+        log.info("Exporting catalog snapshots to {} every {} changes", directory, changeThreshold);
+        return new CatalogExporter(bookService, objectMapper, Path.of(directory), changeThreshold, maxAgeMillis, tickMillis);
+    }
+}
@@ -0,0 +1,65 @@
+package com.library.config;
+
+import com.library.ids.IdAllocator;
+import com.library.ids.JdbcIdBlockSource;
+import com.library.ids.LeasedIdAllocator;
+import com.library.ids.SequentialIdAllocator;
+import com.library.ids.SnowflakeIdAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Chooses how the in-memory store assigns ids from {@code library.ids.strategy}:
+ * {@code sequential} (default) counts up per process, {@code snowflake} builds time-ordered
+ * ids from a per-instance node id, and {@code leased} takes blocks of ids from a table in
+ * the configured database. Only the latter two keep ids unique when several instances
+ * accept writes, and {@code leased} only when the instances share that database.
+ */
+@Configuration
+@Slf4j
+public class IdConfig {
+
+    @Bean
+    public IdAllocator idAllocator(@Value("${library.ids.strategy:sequential}") String strategy,
+                                   @Value("${library.store:memory}") String store,
+                                   @Value("${library.ids.node-id:-1}") int nodeId,
+                                   @Value("${library.ids.node-name:}") String nodeName,
+                                   @Value("${library.ids.block-size:10000}") int blockSize,
+                                   @Value("${library.ids.stripe-size:64}") int stripeSize,
+                                   ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        if (strategy.equals("sequential")) {
+            return new SequentialIdAllocator();
+        }
+        if (!"memory".equals(store)) {
+            throw new IllegalStateException("library.ids.strategy=" + strategy + " requires library.store=memory");
+        }
+        switch (strategy) {
+            case "snowflake": {
+                int node = nodeId >= 0 ? nodeId : ordinalOf(nodeName);
+                log.info("Allocating snowflake ids as node {}", node);
+                return new SnowflakeIdAllocator(node);
+            }
+            case "leased":
+                log.info("Allocating ids in leased blocks of {}", blockSize);
+                return new LeasedIdAllocator(new JdbcIdBlockSource(jdbcTemplate.getObject(), "books"), blockSize, stripeSize);
+            default:
+                throw new IllegalArgumentException("Unknown library.ids.strategy: " + strategy);
+        }
+    }
+
+    /**
+     * The ordinal a StatefulSet appends to its pod names, e.g. 2 for {@code library-management-2}.
+     */
+    static int ordinalOf(String nodeName) {
+        int dash = nodeName.lastIndexOf('-');
+        try {
+            return Integer.parseInt(nodeName.substring(dash + 1));
+        } catch (NumberFormatException ex) {
+            throw new IllegalStateException("Set library.ids.node-id; no ordinal in node name '" + nodeName + "'");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.library.config;
+
+import com.library.persistence.BookJournal;
+import com.library.persistence.FsyncPolicy;
+import com.library.persistence.MappedBookJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Optional durability for the book store. Disabled by default, in which case the catalog
+ * lives only in memory as before.
+ */
+@Configuration
+@Slf4j
+public class PersistenceConfig {
+
+    @Bean(destroyMethod = "close")
+    public BookJournal bookJournal(@Value("${library.persistence.enabled:false}") boolean enabled,
+                                   @Value("${library.persistence.directory:data/journal}") String directory,
+                                   @Value("${library.persistence.fsync:BATCH}") FsyncPolicy fsyncPolicy,
+                                   @Value("${library.persistence.tick-millis:1000}") long tickMillis,
+                                   @Value("${library.persistence.segment-bytes:67108864}") int segmentBytes,
+                                   @Value("${library.persistence.snapshot-threshold:1000000}") long snapshotThreshold)
+            throws IOException {
+        if (!enabled) {
+            return BookJournal.NONE;
+        }
+        log.info("Persisting books to {} with fsync policy {}", directory, fsyncPolicy);
+        return new MappedBookJournal(Path.of(directory), fsyncPolicy, tickMillis, segmentBytes, snapshotThreshold);
+    }
+}
@@ -0,0 +1,59 @@
+package com.library.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.controller.ReactiveBookRoutes;
+import com.library.service.BookService;
+import com.library.service.ReactiveBookService;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Serves {@link ReactiveBookRoutes} from a Reactor Netty server on
+ * {@code library.reactive.port}, next to the servlet container that runs the MVC API.
+ * A few event-loop threads handle every connection, so idle or slow clients cost buffers
+ * rather than a thread each; store calls are moved off the event loop by
+ * {@link ReactiveBookService}. Off unless {@code library.reactive.enabled} is set.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.reactive.enabled", havingValue = "true")
+@Slf4j
+public class ReactiveConfig {
+
+    @Bean
+    public ReactiveBookService reactiveBookService(BookService bookService) {
+        return new ReactiveBookService(bookService);
+    }
+
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer reactiveBookServer(ReactiveBookService reactiveBookService, Validator validator,
+                                               ObjectMapper objectMapper,
+                                               @Value("${library.reactive.port:8081}") int port) {
+        // Same JSON mapping as the MVC API
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler handler = RouterFunctions.toHttpHandler(
+                new ReactiveBookRoutes(reactiveBookService, validator).routes(), strategies);
+        DisposableServer server = HttpServer.create()
+                .port(port)
+                .handle(new ReactorHttpHandlerAdapter(handler))
+                .bindNow();
+        log.info("Reactive book routes listening on port {}", server.port());
+        return server;
+    }
+}
@@ -0,0 +1,156 @@
+package com.library.config;
+
+import com.library.replication.HttpReplicationSource;
+import com.library.replication.LeaderSequenceFilter;
+import com.library.replication.ReplicationFollower;
+import com.library.replication.ReplicationLog;
+import com.library.replication.WriteForwardingFilter;
+import com.library.service.BookService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Keeps the catalogs of several instances identical. One instance is the leader: it
+ * accepts writes and numbers each one in its {@link ReplicationLog}. The others follow it,
+ * streaming that log and forwarding the writes they receive to the leader.
+ *
+ * An instance leads when replication is enabled and either no leader URL is configured
+ * or its own name ({@code HOSTNAME} in Kubernetes) equals {@code library.replication.leader-name},
+ * which lets every pod of a StatefulSet share one configuration. Only the in-memory store
+ * can be replicated. Off unless {@code library.replication.enabled} is set.
+ */
+@Configuration
+@Slf4j
+public class ReplicationConfig {
+
+    private static final int FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+    @Bean
+    @Conditional(OnLeader.class)
+    public ReplicationLog replicationLog(@Value("${library.store:memory}") String store,
+                                         @Value("${library.replication.retention:100000}") int retention,
+                                         @Value("${library.replication.batch-size:1000}") int batchSize,
+                                         @Value("${library.replication.heartbeat-millis:1000}") long heartbeatMillis,
+                                         @Value("${library.replication.stream-millis:20000}") long streamMillis) {
+        checkStore(store);
+        log.info("Replication leader, retaining {} log entries", retention);
+        return new ReplicationLog(retention, batchSize, heartbeatMillis, streamMillis);
+    }
+
+    @Bean
+    @Conditional(OnLeader.class)
+    public FilterRegistrationBean<LeaderSequenceFilter> leaderSequenceFilter(ReplicationLog replicationLog) {
+        FilterRegistrationBean<LeaderSequenceFilter> registration =
+                new FilterRegistrationBean<>(new LeaderSequenceFilter(replicationLog));
+        registration.setOrder(FILTER_ORDER);
+        return registration;
+    }
+
+    @Bean
+    @Conditional(OnLeader.class)
+    public MeterBinder replicationLeaderMetrics(ReplicationLog replicationLog) {
+        return registry -> {
+            FunctionCounter.builder("library.replication.sequence", replicationLog, ReplicationLog::sequence)
+                    .description("Writes numbered in the replication log")
+                    .register(registry);
+            Gauge.builder("library.replication.followers", replicationLog, ReplicationLog::streams)
+                    .description("Followers currently streaming the log")
+                    .register(registry);
+        };
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @Conditional(OnFollower.class)
+    public ReplicationFollower replicationFollower(BookService bookService,
+                                                   @Value("${library.store:memory}") String store,
+                                                   @Value("${library.replication.leader-url}") String leaderUrl,
+                                                   @Value("${library.replication.retry-millis:1000}") long retryMillis) {
+        checkStore(store);
+        log.info("Replicating from the leader at {}", leaderUrl);
+        return new ReplicationFollower(bookService, new HttpReplicationSource(leaderUrl), retryMillis);
+    }
+
+    @Bean
+    @Conditional(OnFollower.class)
+    public FilterRegistrationBean<WriteForwardingFilter> writeForwardingFilter(
+            ReplicationFollower replicationFollower,
+            @Value("${library.replication.leader-url}") String leaderUrl,
+            @Value("${library.replication.read-your-writes-millis:1000}") long readYourWritesMillis) {
+        FilterRegistrationBean<WriteForwardingFilter> registration =
+                new FilterRegistrationBean<>(new WriteForwardingFilter(leaderUrl, replicationFollower, readYourWritesMillis));
+        registration.setOrder(FILTER_ORDER);
+        return registration;
+    }
+
+    /**
+     * Replication lag and health, for alerting on followers that fall behind.
+     */
+    @Bean
+    @Conditional(OnFollower.class)
+    public MeterBinder replicationFollowerMetrics(ReplicationFollower follower) {
+        return registry -> {
+            Gauge.builder("library.replication.applied.sequence", follower, ReplicationFollower::appliedSequence)
+                    .description("Last leader log entry applied locally")
+                    .register(registry);
+            Gauge.builder("library.replication.lag.entries", follower, ReplicationFollower::lagEntries)
+                    .description("Leader log entries not applied locally yet")
+                    .register(registry);
+            Gauge.builder("library.replication.lag", follower, f -> f.lagMillis() / 1000.0)
+                    .baseUnit("seconds")
+                    .description("Age of the oldest leader write not applied locally yet")
+                    .register(registry);
+            FunctionCounter.builder("library.replication.snapshots", follower, ReplicationFollower::snapshots)
+                    .description("Leader snapshots loaded")
+                    .register(registry);
+            FunctionCounter.builder("library.replication.reconnects", follower, ReplicationFollower::reconnects)
+                    .description("Times the log stream was reopened after failing")
+                    .register(registry);
+            Gauge.builder("library.replication.connected", follower, f -> f.connected() ? 1 : 0)
+                    .description("Whether the log stream from the leader is open")
+                    .register(registry);
+        };
+    }
+
+    private static void checkStore(String store) {
+        if (!"memory".equals(store)) {
+            throw new IllegalStateException("Replication requires library.store=memory, not " + store);
+        }
+    }
+
+    static boolean isEnabled(Environment environment) {
+        return environment.getProperty("library.replication.enabled", Boolean.class, false);
+    }
+
+    static boolean isLeader(Environment environment) {
+        String leaderUrl = environment.getProperty("library.replication.leader-url", "");
+        String leaderName = environment.getProperty("library.replication.leader-name", "");
+        String nodeName = environment.getProperty("library.replication.node-name", "");
+        return leaderUrl.isBlank() || (!leaderName.isBlank() && leaderName.equals(nodeName));
+    }
+
+    static class OnLeader implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return isEnabled(context.getEnvironment()) && isLeader(context.getEnvironment());
+        }
+    }
+
+    static class OnFollower implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return isEnabled(context.getEnvironment()) && !isLeader(context.getEnvironment());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.library.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.library.cache.BookResponseCache;
+import com.library.model.BookVO;
+import com.library.service.BookService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the JSON of single-book reads; see {@link BookResponseCache}. Books are encoded
+ * with the application's {@link ObjectMapper}, so cached responses are byte-for-byte what
+ * Spring would have written. On unless {@code library.response-cache.enabled} is false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig {
+
+    @Bean
+    public BookResponseCache bookResponseCache(BookService bookService, ObjectMapper objectMapper,
+                                               @Value("${library.response-cache.capacity:10000}") int capacity) {
+        ObjectWriter writer = objectMapper.writerFor(BookVO.class);
+        BookResponseCache cache = new BookResponseCache(book -> {
+            try {
+                return writer.writeValueAsBytes(book);
+            } catch (JsonProcessingException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, capacity);
+        bookService.onBookChanged(cache::invalidate);
+        return cache;
+    }
+
+    /**
+     * Hit ratio and the serialization time the cache saves, next to what encoding misses
+     * still costs.
+     */
+    @Bean
+    public MeterBinder bookResponseCacheMetrics(BookResponseCache cache) {
+        return registry -> {
+            FunctionCounter.builder("library.books.response.cache.requests", cache, BookResponseCache::hits)
+                    .tag("result", "hit")
+                    .description("Single-book JSON reads by cache outcome")
+                    .register(registry);
+            FunctionCounter.builder("library.books.response.cache.requests", cache, BookResponseCache::coalesced)
+                    .tag("result", "coalesced")
+                    .description("Single-book JSON reads by cache outcome")
+                    .register(registry);
+            FunctionCounter.builder("library.books.response.cache.requests", cache, BookResponseCache::misses)
+                    .tag("result", "miss")
+                    .description("Single-book JSON reads by cache outcome")
+                    .register(registry);
+            FunctionCounter.builder("library.books.response.cache.evictions", cache, BookResponseCache::evictions)
+                    .description("Entries dropped to stay within capacity")
+                    .register(registry);
+            Gauge.builder("library.books.response.cache.size", cache, BookResponseCache::size)
+                    .description("Books with a cached response")
+                    .register(registry);
+            Gauge.builder("library.books.response.cache.hit.ratio", cache, BookResponseCache::hitRatio)
+                    .description("Share of single-book JSON reads served without serializing")
+                    .register(registry);
+            FunctionCounter.builder("library.books.response.cache.serialization", cache,
+                            c -> c.encodeNanos() / (double) TimeUnit.SECONDS.toNanos(1))
+                    .baseUnit("seconds")
+                    .description("CPU time spent serializing books on cache misses")
+                    .register(registry);
+            FunctionCounter.builder("library.books.response.cache.serialization.saved", cache,
+                            c -> c.savedNanos() / (double) TimeUnit.SECONDS.toNanos(1))
+                    .baseUnit("seconds")
+                    .description("Estimated serialization CPU time saved by cache hits")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package com.library.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.ids.IdAllocator;
+import com.library.service.BookService;
+import com.library.sharding.HttpShard;
+import com.library.sharding.LocalShard;
+import com.library.sharding.Shard;
+import com.library.sharding.ShardRouter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Splits the catalog over several instances by book id; see {@link ShardRouter}. Every
+ * instance routes, so clients can call any of them. The ring is
+ * {@code library.sharding.nodes}, a comma-separated list of {@code name=url} entries, and
+ * an instance's own shard is the entry named {@code library.sharding.node-name}
+ * ({@code HOSTNAME} in Kubernetes). Change it at runtime with {@code PUT /shard/ring}.
+ *
+ * Ids must be unique across instances, so the {@code snowflake} or {@code leased} id
+ * strategy is required, as is the in-memory store. Sharding and replication are
+ * alternatives: each shard holds one copy of its books. Off unless
+ * {@code library.sharding.enabled} is set.
+ */
+@Configuration
+@Slf4j
+@ConditionalOnProperty(name = "library.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    // The primary BookCatalog, so the REST API answers from every shard
+    @Bean(destroyMethod = "close")
+    @Primary
+    public ShardRouter shardRouter(BookService bookService, IdAllocator idAllocator, ObjectMapper objectMapper,
+                                   @Value("${library.store:memory}") String store,
+                                   @Value("${library.ids.strategy:sequential}") String idStrategy,
+                                   @Value("${library.replication.enabled:false}") boolean replication,
+                                   @Value("${library.sharding.node-name:}") String nodeName,
+                                   @Value("${library.sharding.nodes:}") String nodes,
+                                   @Value("${library.sharding.virtual-nodes:128}") int virtualNodes,
+                                   @Value("${library.sharding.timeout-millis:5000}") long timeoutMillis) {
+        if (!"memory".equals(store)) {
+            throw new IllegalStateException("Sharding requires library.store=memory, not " + store);
+        }
+        if ("sequential".equals(idStrategy)) {
+            throw new IllegalStateException("Sharding requires library.ids.strategy=snowflake or leased");
+        }
+        if (replication) {
+            throw new IllegalStateException("Sharding and replication cannot both be enabled");
+        }
+        Map<String, String> ring = parseNodes(nodes);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(timeoutMillis))
+                .build();
+        Duration timeout = Duration.ofMillis(timeoutMillis);
+        Shard local = new LocalShard(bookService);
+        log.info("Sharding the catalog as {} over {}", nodeName, ring.keySet());
+        return new ShardRouter(nodeName, ring, virtualNodes, idAllocator,
+                (node, url) -> node.equals(nodeName) ? local : new HttpShard(url, objectMapper, client, timeout));
+    }
+
+    @Bean
+    public MeterBinder shardingMetrics(ShardRouter shardRouter) {
+        return registry -> {
+            Gauge.builder("library.sharding.nodes", shardRouter, router -> router.nodes().size())
+                    .description("Nodes in the shard ring")
+                    .register(registry);
+            Gauge.builder("library.sharding.rebalancing", shardRouter, router -> router.isRebalancing() ? 1 : 0)
+                    .description("Whether this instance is moving books to their new owners")
+                    .register(registry);
+            FunctionCounter.builder("library.sharding.moved", shardRouter, ShardRouter::movedBooks)
+                    .description("Books moved from this instance to other shards")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Parses {@code name=url,name=url,...}.
+     */
+    static Map<String, String> parseNodes(String nodes) {
+        Map<String, String> parsed = new LinkedHashMap<>();
+        for (String entry : nodes.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int equals = entry.indexOf('=');
+            if (equals < 1 || equals == entry.length() - 1) {
+                throw new IllegalArgumentException("Expected name=url in library.sharding.nodes, got '" + entry.trim() + "'");
+            }
+            parsed.put(entry.substring(0, equals).trim(), entry.substring(equals + 1).trim());
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalStateException("library.sharding.nodes lists no nodes");
+        }
+        return parsed;
+    }
+}
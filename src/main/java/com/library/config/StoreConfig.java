@@ -0,0 +1,126 @@
+package com.library.config;
+
+import com.library.ids.IdAllocator;
+import com.library.persistence.BookJournal;
+import com.library.replication.ReplicationLog;
+import com.library.repository.BookRepository;
+import com.library.repository.CompactBookRepository;
+import com.library.repository.InMemoryBookRepository;
+import com.library.repository.JdbcBookRepository;
+import com.library.repository.MvccBookRepository;
+import com.library.repository.TieredBookRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the storage engine behind {@code BookService} from {@code library.store}. The
+ * {@code jdbc} profile switches to the database-backed store; {@code compact} keeps books
+ * in primitive columns to cut heap per book; {@code tiered} bounds the heap to a hot set and
+ * spills the rest of the catalog to local disk; {@code mvcc} publishes immutable versions of
+ * the catalog so listings and paged reads see consistent snapshots.
+ */
+@Configuration
+@Slf4j
+public class StoreConfig {
+
+    /**
+     * On a replication leader the journal is wrapped so every write is also numbered in
+     * the replication log.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "library.store", havingValue = "memory", matchIfMissing = true)
+    public BookRepository inMemoryBookRepository(BookJournal bookJournal, IdAllocator idAllocator,
+                                                 ObjectProvider<ReplicationLog> replicationLog) {
+        log.info("Using in-memory book store");
+        ReplicationLog leaderLog = replicationLog.getIfAvailable();
+        return new InMemoryBookRepository(leaderLog != null ? leaderLog.wrap(bookJournal) : bookJournal, idAllocator);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "library.store", havingValue = "jdbc")
+    public BookRepository jdbcBookRepository(JdbcTemplate jdbcTemplate) {
+        log.info("Using JDBC book store");
+        return new JdbcBookRepository(jdbcTemplate);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "library.store", havingValue = "compact")
+    public BookRepository compactBookRepository(@Value("${library.compact.off-heap-titles:false}") boolean offHeapTitles,
+                                                @Value("${library.compact.initial-capacity:1024}") int initialCapacity) {
+        log.info("Using compact book store (off-heap titles: {})", offHeapTitles);
+        return new CompactBookRepository(offHeapTitles, initialCapacity);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "library.store", havingValue = "tiered")
+    public TieredBookRepository tieredBookRepository(@Value("${library.tiered.directory:data/tiered}") String directory,
+                                                     @Value("${library.tiered.hot-capacity:100000}") int hotCapacity) {
+        log.info("Using tiered book store ({} hot books, disk tier in {})", hotCapacity, directory);
+        return new TieredBookRepository(Path.of(directory), hotCapacity);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "library.store", havingValue = "mvcc")
+    public MvccBookRepository mvccBookRepository(BookJournal bookJournal, IdAllocator idAllocator,
+                                                 @Value("${library.mvcc.snapshot-ttl-millis:60000}") long snapshotTtlMillis,
+                                                 @Value("${library.mvcc.max-snapshots:1000}") int maxSnapshots) {
+        log.info("Using multi-version book store (snapshots kept {} ms, at most {})", snapshotTtlMillis, maxSnapshots);
+        return new MvccBookRepository(bookJournal, idAllocator, Duration.ofMillis(snapshotTtlMillis), maxSnapshots);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "library.store", havingValue = "mvcc")
+    public MeterBinder mvccStoreMetrics(MvccBookRepository store) {
+        return registry -> Gauge.builder("library.store.snapshots", store, MvccBookRepository::retainedSnapshots)
+                .description("Catalog snapshots retained for paging")
+                .register(registry);
+    }
+
+    /**
+     * Heap tier effectiveness, for sizing pods by working set rather than catalog size.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "library.store", havingValue = "tiered")
+    public MeterBinder tieredStoreMetrics(TieredBookRepository store) {
+        return registry -> {
+            FunctionCounter.builder("library.store.reads", store, TieredBookRepository::hits)
+                    .tag("tier", "heap")
+                    .description("Reads served from the heap tier")
+                    .register(registry);
+            FunctionCounter.builder("library.store.reads", store, TieredBookRepository::faultIns)
+                    .tag("tier", "disk")
+                    .description("Reads faulted in from the disk tier")
+                    .register(registry);
+            Gauge.builder("library.store.hit.ratio", store, TieredBookRepository::hitRatio)
+                    .description("Share of reads served from the heap tier")
+                    .register(registry);
+            FunctionCounter.builder("library.store.evictions", store, TieredBookRepository::evictions)
+                    .description("Books dropped from the heap tier")
+                    .register(registry);
+            FunctionTimer.builder("library.store.fault.in", store, TieredBookRepository::faultIns,
+                            TieredBookRepository::faultInNanos, TimeUnit.NANOSECONDS)
+                    .description("Time to load a book from the disk tier")
+                    .register(registry);
+            Gauge.builder("library.store.hot.size", store, TieredBookRepository::hotSize)
+                    .description("Books held in the heap tier")
+                    .register(registry);
+            Gauge.builder("library.store.disk.bytes", store, TieredBookRepository::diskBytes)
+                    .baseUnit("bytes")
+                    .description("Live record bytes in the disk tier")
+                    .register(registry);
+        };
+    }
+}
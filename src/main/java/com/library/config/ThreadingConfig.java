@@ -0,0 +1,37 @@
+package com.library.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Reports which threads serve requests. With {@code spring.threads.virtual.enabled} on a
+ * Java 21 runtime, Spring Boot hands every Tomcat request (and {@code @Scheduled}/async
+ * work) to a virtual thread, so requests blocked on the store no longer hold one of the
+ * pool's {@code server.tomcat.threads.max} platform threads. On older runtimes the
+ * property is ignored and the pool is used as before.
+ */
+@Configuration
+@Slf4j
+public class ThreadingConfig {
+
+    private final Environment environment;
+
+    public ThreadingConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    @PostConstruct
+    public void logThreading() {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Serving requests on virtual threads");
+        } else if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            log.warn("Virtual threads requested, but Java {} does not support them; serving requests on platform threads",
+                    Runtime.version().feature());
+        } else {
+            log.info("Serving requests on platform threads");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.library.config;
+
+import com.library.controller.BookWireHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Registers the binary book format for content negotiation. It goes after the default
+ * converters so that clients accepting any media type keep getting JSON; only an explicit
+ * {@code application/x-library-books} selects it.
+ */
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new BookWireHttpMessageConverter());
+    }
+}
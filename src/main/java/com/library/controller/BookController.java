@@ -1,48 +1,453 @@
 package com.library.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.library.cache.BookResponseCache;
+import com.library.model.AuthorStats;
+import com.library.model.BatchFailure;
+import com.library.model.BatchResult;
+import com.library.model.BookPage;
 import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import com.library.exception.VersionMismatchException;
+import com.library.service.BookCatalog;
 import com.library.service.BookService;
+import com.library.sharding.ShardRouter;
+import com.library.stats.AuthorStatistics;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/books")
 public class BookController {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    // Token of the catalog snapshot a page was read from; sent back as ?snapshot= with the cursor
+    public static final String SNAPSHOT_HEADER = "X-Snapshot";
+    public static final int BATCH_CHUNK_SIZE = 1000;
+    // Longest record the batch endpoints accept, in characters
+    public static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    // The shard router when the catalog is sharded, otherwise this instance's BookService
+    @Autowired
+    private BookCatalog catalog;
+
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectProvider<BookResponseCache> responseCache;
+
     @PostMapping
     public ResponseEntity<BookVO> addBook(@Valid @RequestBody BookVO book) {
-        BookVO createdBook = bookService.addBook(book);
-        return new ResponseEntity<>(createdBook, HttpStatus.CREATED);
+        BookVO createdBook = catalog().addBook(book);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(etag(createdBook)).body(createdBook);
     }
 
+    /**
+     * Lists books as JSON, or in the binary book format when the client asks for it. A
+     * listing without {@code limit} that names {@code application/x-library-books} in its
+     * Accept header streams the catalog from {@code after} with the same memory behaviour
+     * as the NDJSON stream; accepting {@code *}{@code /*} keeps getting a JSON array.
+     */
     @GetMapping
-    public ResponseEntity<List<BookVO>> getAllBooks() {
-        List<BookVO> books = bookService.getAllBooks();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<?> getAllBooks(@RequestParam(required = false) String author,
+                                         @RequestParam(required = false) String title,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) Long after,
+                                         @RequestParam(required = false) Double minPrice,
+                                         @RequestParam(required = false) Double maxPrice,
+                                         @RequestParam(required = false) String sort,
+                                         @RequestParam(required = false) Long snapshot,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        BookCatalog catalog = catalog();
+        if (minPrice != null || maxPrice != null || sort != null) {
+            if (author != null || title != null || after != null) {
+                throw new IllegalArgumentException("Price queries cannot be combined with author, title or after");
+            }
+            boolean descending = isDescendingPriceSort(sort);
+            return ResponseEntity.ok(catalog.findBooksByPrice(minPrice, maxPrice, descending, checkLimit(limit)));
+        }
+        if (author != null || title != null) {
+            return ResponseEntity.ok(catalog.findBooks(author, title));
+        }
+        if (limit == null && snapshot == null && acceptsWireFormat(accept)) {
+            // Written book by book by BookWireHttpMessageConverter, which closes the stream
+            return ResponseEntity.ok()
+                    .contentType(BookWireHttpMessageConverter.MEDIA_TYPE)
+                    .body(catalog.streamBooks(after));
+        }
+        if (limit == null && after == null && snapshot == null) {
+            return ResponseEntity.ok(catalog.getAllBooks());
+        }
+        int pageSize = limit != null ? limit : BookService.MAX_PAGE_SIZE;
+        BookPage page = catalog.getBooksPage(after, checkLimit(pageSize), snapshot);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor().toString());
+        }
+        if (page.getSnapshot() != null) {
+            response.header(SNAPSHOT_HEADER, page.getSnapshot().toString());
+        }
+        return response.body(page.getItems());
+    }
+
+    /**
+     * Books whose title or author best match the query, ranked with BM25. Misspelled words
+     * and an unfinished last word still match.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<BookVO>> searchBooks(@RequestParam String q,
+                                                    @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(catalog().searchBooks(q, limit));
+    }
+
+    /**
+     * Count, sum and average of the prices within the inclusive bounds.
+     */
+    @GetMapping("/stats/prices")
+    public ResponseEntity<PriceSummary> getPriceStats(@RequestParam(required = false) Double minPrice,
+                                                      @RequestParam(required = false) Double maxPrice) {
+        return ResponseEntity.ok(catalog().summarizePrices(minPrice, maxPrice));
+    }
+
+    /**
+     * Book count and average, minimum and maximum price per author: all authors
+     * alphabetically, or the top {@code limit} by book count ({@code sort=count}) or by
+     * average price ({@code sort=averagePrice}).
+     */
+    @GetMapping("/stats/authors")
+    public ResponseEntity<List<AuthorStats>> getAuthorStats(@RequestParam(required = false) String sort,
+                                                            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(catalog().getAuthorStats(authorOrder(sort), checkLimit(limit)));
+    }
+
+    /**
+     * Streams the catalog as newline-delimited JSON in id order. Books are serialized one
+     * at a time while the store is iterated, so memory per request does not grow with the
+     * catalog. {@code after} resumes an interrupted download.
+     */
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBooks(@RequestParam(required = false) Long after) {
+        BookCatalog catalog = catalog();
+        StreamingResponseBody body = out -> {
+            // Let the servlet buffer decide when to flush instead of flushing per book
+            ObjectWriter writer = objectMapper.writerFor(BookVO.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (Stream<BookVO> books = catalog.streamBooks(after);
+                 JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                Iterator<BookVO> it = books.iterator();
+                while (it.hasNext()) {
+                    writer.writeValue(generator, it.next());
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    /**
+     * Bulk-adds books sent as newline-delimited JSON. The body is consumed in chunks of
+     * {@link #BATCH_CHUNK_SIZE} records: each chunk is parsed and validated in parallel and
+     * its valid records are added with a single id-range reservation. Invalid records,
+     * including ones longer than {@link #MAX_RECORD_LENGTH}, are reported by their position
+     * in the body and do not abort the batch. The ids given to the added records are
+     * returned in body order.
+     */
+    @PostMapping(value = "/batch", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchResult> addBatchBooks(InputStream body) throws IOException {
+        BookCatalog catalog = catalog();
+        List<Long> ids = new ArrayList<>();
+        BatchResult result = ingest(body, BookVO.class, chunk -> {
+            List<BookVO> added = catalog.addBatchBooks(chunk);
+            added.forEach(book -> ids.add(book.getId()));
+            return new BatchResult(added.size(), List.of());
+        });
+        return ResponseEntity.ok(new BatchResult(result.getSucceeded(), result.getFailures(), ids));
+    }
+
+    /**
+     * Bulk-updates books sent as newline-delimited JSON; every record must carry its id.
+     */
+    @PutMapping(value = "/batch", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchResult> updateBatchBooks(InputStream body) throws IOException {
+        return ResponseEntity.ok(ingest(body, BookVO.class, catalog()::updateBatchBooks));
     }
 
+    /**
+     * Bulk-deletes the ids sent one per line.
+     */
+    @DeleteMapping(value = "/batch", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchResult> deleteBatchBooks(InputStream body) throws IOException {
+        return ResponseEntity.ok(ingest(body, Long.class, catalog()::deleteBatchBooks));
+    }
+
+    /**
+     * The book's version is its {@code ETag}. Spring answers a matching
+     * {@code If-None-Match} with 304 and no body, so polling clients only pay for changes.
+     */
     @GetMapping("/{id}")
     public ResponseEntity<BookVO> getBookById(@PathVariable Long id) {
-        BookVO book = bookService.getBookById(id);
-        return ResponseEntity.ok(book);
+        BookVO book = catalog().getBookById(id);
+        return ResponseEntity.ok().eTag(etag(book)).body(book);
     }
 
+    /**
+     * The JSON variant of {@link #getBookById}, answered from the {@link BookResponseCache}
+     * when it is enabled: a book is serialized once per version and every other read of
+     * it writes the cached bytes.
+     */
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getBookByIdJson(@PathVariable Long id) {
+        ResponseEntity<BookVO> response = getBookById(id);
+        BookResponseCache cache = responseCache.getIfAvailable();
+        if (cache == null) {
+            return response;
+        }
+        BookVO book = response.getBody();
+        return ResponseEntity.ok()
+                .eTag(etag(book))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cache.get(book));
+    }
+
+    /**
+     * With {@code If-Match}, the update only applies if the book is still at that version;
+     * otherwise it fails with 412 and the client should re-read the book.
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<BookVO> updateBook(@PathVariable Long id, @Valid @RequestBody BookVO book) {
-        BookVO updatedBook = bookService.updateBook(id, book);
-        return ResponseEntity.ok(updatedBook);
+    public ResponseEntity<BookVO> updateBook(@PathVariable Long id, @Valid @RequestBody BookVO book,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        BookVO updatedBook = catalog().updateBook(id, book, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(etag(updatedBook)).body(updatedBook);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteBook(@PathVariable Long id) {
-        bookService.deleteBook(id);
+    public ResponseEntity<Void> deleteBook(@PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        catalog().deleteBook(id, expectedVersion(ifMatch));
         return ResponseEntity.noContent().build();
     }
+
+    static String etag(BookVO book) {
+        return book.getVersion() == null ? null : "\"" + book.getVersion() + "\"";
+    }
+
+    /**
+     * Parses an {@code If-Match} value into the version it requires, or null when absent or
+     * {@code *}. Weak tags never match, as If-Match uses strong comparison.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ex) {
+                // Not one of our tags, so it can't match
+            }
+        }
+        throw new VersionMismatchException("If-Match " + ifMatch + " does not match the current version");
+    }
+
+    /**
+     * The catalog to answer from: this instance's store for a request another instance's
+     * router forwarded here, so it is not routed again.
+     */
+    private BookCatalog catalog() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes
+                && ((ServletRequestAttributes) attributes).getRequest().getHeader(ShardRouter.HOP_HEADER) != null) {
+            return bookService;
+        }
+        return catalog;
+    }
+
+    /**
+     * Validates a limit before it is fanned out, so a bad one fails once instead of on
+     * every shard.
+     */
+    private static Integer checkLimit(Integer limit) {
+        if (limit != null && (limit < 1 || limit > BookService.MAX_PAGE_SIZE)) {
+            throw new IllegalArgumentException("limit must be between 1 and " + BookService.MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    /**
+     * True when the Accept header names the binary book format itself; wildcards do not
+     * count, so browsers and generic clients keep getting JSON.
+     */
+    private static boolean acceptsWireFormat(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(type -> type.equalsTypeAndSubtype(BookWireHttpMessageConverter.MEDIA_TYPE)
+                            && type.getQualityValue() > 0);
+        } catch (InvalidMediaTypeException e) {
+            // Left to the regular content negotiation to reject
+            return false;
+        }
+    }
+
+    /**
+     * Accepts {@code price}, {@code price,asc} and {@code price,desc}; a price range
+     * without a sort is listed cheapest first.
+     */
+    private static boolean isDescendingPriceSort(String sort) {
+        if (sort == null || sort.equals("price") || sort.equals("price,asc")) {
+            return false;
+        }
+        if (sort.equals("price,desc")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Unsupported sort: " + sort);
+    }
+
+    private static AuthorStatistics.Order authorOrder(String sort) {
+        if (sort == null || sort.equals("author")) {
+            return AuthorStatistics.Order.AUTHOR;
+        }
+        if (sort.equals("count")) {
+            return AuthorStatistics.Order.COUNT;
+        }
+        if (sort.equals("averagePrice")) {
+            return AuthorStatistics.Order.AVERAGE_PRICE;
+        }
+        throw new IllegalArgumentException("Unsupported sort: " + sort);
+    }
+
+    private <T> BatchResult ingest(InputStream body, Class<T> type,
+                                   Function<List<T>, BatchResult> apply) throws IOException {
+        List<BatchFailure> failures = new ArrayList<>();
+        long succeeded = 0;
+        long offset = 0;
+        List<String> lines = new ArrayList<>(BATCH_CHUNK_SIZE);
+        try (NdjsonLineReader reader = new NdjsonLineReader(
+                new InputStreamReader(body, StandardCharsets.UTF_8), MAX_RECORD_LENGTH)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (reader.wasOversized()) {
+                    // Fails at its position in the body, without being parsed
+                    lines.add(null);
+                } else if (line.isBlank()) {
+                    continue;
+                } else {
+                    lines.add(line);
+                }
+                if (lines.size() == BATCH_CHUNK_SIZE) {
+                    succeeded += applyChunk(lines, offset, type, apply, failures);
+                    offset += lines.size();
+                    lines.clear();
+                }
+            }
+        }
+        if (!lines.isEmpty()) {
+            succeeded += applyChunk(lines, offset, type, apply, failures);
+        }
+        failures.sort(Comparator.comparingLong(BatchFailure::getIndex));
+        return new BatchResult(succeeded, failures);
+    }
+
+    private <T> long applyChunk(List<String> lines, long offset, Class<T> type,
+                                Function<List<T>, BatchResult> apply, List<BatchFailure> failures) {
+        int size = lines.size();
+        List<T> values = new ArrayList<>(size);
+        String[] errors = new String[size];
+        for (int i = 0; i < size; i++) {
+            values.add(null);
+        }
+        // Parsing and bean validation dominate ingest cost and are independent per record
+        IntStream.range(0, size).parallel().forEach(i -> {
+            if (lines.get(i) == null) {
+                errors[i] = "Record is longer than " + MAX_RECORD_LENGTH + " characters";
+                return;
+            }
+            try {
+                T value = objectMapper.readValue(lines.get(i), type);
+                errors[i] = value == null ? "Record is empty" : violations(value);
+                values.set(i, value);
+            } catch (JsonProcessingException ex) {
+                errors[i] = "Malformed record: " + ex.getOriginalMessage();
+            }
+        });
+
+        // Keep the valid records in body order and remember where each one came from
+        List<T> valid = new ArrayList<>(size);
+        int[] positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (errors[i] == null) {
+                positions[valid.size()] = i;
+                valid.add(values.get(i));
+            } else {
+                T value = values.get(i);
+                Long id = value instanceof BookVO ? ((BookVO) value).getId() : null;
+                failures.add(new BatchFailure(offset + i, id, errors[i]));
+            }
+        }
+        if (valid.isEmpty()) {
+            return 0;
+        }
+
+        BatchResult result = apply.apply(valid);
+        for (BatchFailure failure : result.getFailures()) {
+            failures.add(new BatchFailure(offset + positions[(int) failure.getIndex()],
+                    failure.getId(), failure.getMessage()));
+        }
+        return result.getSucceeded();
+    }
+
+    private <T> String violations(T value) {
+        Set<ConstraintViolation<T>> violations = validator.validate(value);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
 }
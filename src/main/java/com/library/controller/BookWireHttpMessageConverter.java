@@ -0,0 +1,133 @@
+package com.library.controller;
+
+import com.library.codec.BookWireCodec;
+import com.library.model.BookVO;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads and writes a {@link BookVO} or a collection of them as {@link BookWireCodec}
+ * records, for clients that send {@code Accept: application/x-library-books}. A
+ * {@code Stream} of books is written as it is consumed, and closed afterwards.
+ */
+public class BookWireHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(BookWireCodec.MEDIA_TYPE_VALUE);
+
+    public BookWireHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == BookVO.class;
+    }
+
+    /**
+     * Also advertised for collections and streams, which Spring asks about by class alone
+     * when it collects the media types a result can be written as; whether the elements
+     * are books is checked by {@link #canWrite(Type, Class, MediaType)} and on write.
+     */
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return isBooks(clazz) ? getSupportedMediaTypes() : List.of();
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isBooks(type) && !Stream.class.isAssignableFrom(ResolvableType.forType(type).toClass())
+                && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return (type != null && !isUndeclared(type) ? isBooks(type) : isBooks(clazz)) && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        List<BookVO> books = BookWireCodec.decodeAll(inputMessage.getBody());
+        // As with JSON bodies, the version is the store's to assign, not the client's
+        books.forEach(book -> book.setVersion(null));
+        if (ResolvableType.forType(type).resolve() != BookVO.class) {
+            return books;
+        }
+        if (books.size() != 1) {
+            throw new HttpMessageNotReadableException("Expected one book but found " + books.size(), inputMessage);
+        }
+        return books.get(0);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        try (BookWireCodec.Writer writer = new BookWireCodec.Writer(outputMessage.getBody())) {
+            if (value instanceof BookVO book) {
+                writer.write(book);
+                return;
+            }
+            if (value instanceof Stream<?> stream) {
+                try (stream) {
+                    Iterator<?> it = stream.iterator();
+                    while (it.hasNext()) {
+                        writer.write(book(it.next()));
+                    }
+                }
+                return;
+            }
+            for (Object element : (Collection<?>) value) {
+                writer.write(book(element));
+            }
+        }
+    }
+
+    private static BookVO book(Object element) {
+        if (!(element instanceof BookVO book)) {
+            throw new HttpMessageNotWritableException("Cannot encode " + element + " as a book");
+        }
+        return book;
+    }
+
+    /**
+     * True for a handler declaring {@code ResponseEntity<?>}; the value's class is all there
+     * is to go by, and {@link #writeInternal} checks that the elements are books.
+     */
+    private static boolean isUndeclared(Type type) {
+        return ResolvableType.forType(type).resolve(Object.class) == Object.class;
+    }
+
+    /**
+     * True for {@code BookVO} and for collections declared with {@code BookVO} elements,
+     * or, given a raw class, for any collection or stream (written only, never read).
+     */
+    private static boolean isBooks(Type type) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        if (resolved.resolve() == BookVO.class) {
+            return true;
+        }
+        if (type instanceof Class<?> clazz && Stream.class.isAssignableFrom(clazz)) {
+            return true;
+        }
+        ResolvableType collection = resolved.asCollection();
+        if (collection == ResolvableType.NONE) {
+            return false;
+        }
+        return type instanceof Class<?> || collection.resolveGeneric(0) == BookVO.class;
+    }
+}
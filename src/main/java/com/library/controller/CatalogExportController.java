@@ -0,0 +1,157 @@
+package com.library.controller;
+
+import com.library.export.CatalogExporter;
+import com.library.export.CatalogSnapshot;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Serves the latest {@link CatalogExporter} snapshot: the whole catalog as gzip-compressed
+ * NDJSON, compressed once per change set rather than once per download.
+ *
+ * The file goes out without passing through the JVM heap. On Tomcat the request is handed
+ * to the connector's sendfile support, which copies straight from the page cache to the
+ * socket; elsewhere the body is written with {@link FileChannel#transferTo}. A single
+ * {@code Range} is honoured so an interrupted download can resume, guarded by
+ * {@code If-Range} against the snapshot having been replaced in the meantime.
+ */
+@RestController
+public class CatalogExportController {
+
+    public static final String BOOK_COUNT_HEADER = "X-Book-Count";
+    public static final MediaType APPLICATION_GZIP = MediaType.parseMediaType("application/gzip");
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    private final ObjectProvider<CatalogExporter> exporter;
+
+    public CatalogExportController(ObjectProvider<CatalogExporter> exporter) {
+        this.exporter = exporter;
+    }
+
+    @GetMapping("/books/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            HttpServletRequest request,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CatalogExporter catalogExporter = exporter.getIfAvailable();
+        if (catalogExporter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        CatalogSnapshot snapshot = catalogExporter.current();
+        if (snapshot == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+
+        String etag = "\"" + snapshot.getTag() + "\"";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setLastModified(snapshot.getCreatedMillis());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.set(BOOK_COUNT_HEADER, Long.toString(snapshot.getBooks()));
+        if (ifNoneMatch != null && (ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(etag))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        headers.setContentType(APPLICATION_GZIP);
+        headers.setContentDisposition(ContentDisposition.attachment().filename("catalog.ndjson.gz").build());
+
+        long size = snapshot.getSize();
+        long start = 0;
+        long end = size;
+        HttpStatus status = HttpStatus.OK;
+        if (range != null && (ifRange == null || ifRange.trim().equals(etag))) {
+            long[] bounds = parseRange(range, size);
+            if (bounds == UNSATISFIABLE) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                status = HttpStatus.PARTIAL_CONTENT;
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + size);
+            }
+        }
+        headers.setContentLength(end - start);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat sends the file itself once the headers are written
+            request.setAttribute(SENDFILE_FILENAME, snapshot.getFile().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return ResponseEntity.status(status).headers(headers).build();
+        }
+        long from = start;
+        long to = end;
+        StreamingResponseBody body = out -> {
+            try (FileChannel file = FileChannel.open(snapshot.getFile(), StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(out);
+                for (long position = from; position < to; ) {
+                    position += file.transferTo(position, to - position, target);
+                }
+            }
+        };
+        return ResponseEntity.status(status).headers(headers).body(body);
+    }
+
+    /**
+     * Parses a single {@code bytes=} range into an inclusive start and exclusive end. Returns
+     * null for anything to be ignored in favour of the whole file (a malformed header, other
+     * units, several ranges) and {@link #UNSATISFIABLE} when the range misses the file.
+     */
+    static long[] parseRange(String range, long size) {
+        String value = range.trim();
+        if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = value.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String lastText = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the final n bytes
+                long length = Long.parseLong(lastText);
+                if (length <= 0 || size == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new long[] {Math.max(0, size - length), size};
+            }
+            long start = Long.parseLong(first);
+            long last = lastText.isEmpty() ? Long.MAX_VALUE : Long.parseLong(lastText);
+            if (last < start) {
+                return null;
+            }
+            if (start >= size) {
+                return UNSATISFIABLE;
+            }
+            long end = last >= size - 1 ? size : last + 1;
+            return new long[] {start, end};
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
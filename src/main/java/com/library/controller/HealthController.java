@@ -2,19 +2,32 @@ package com.library.controller;
 
 import com.library.config.EnvironmentConfig;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 @RestController
 @Slf4j
 public class HealthController {
 
     private final EnvironmentConfig environmentConfig;
+    private final long logEvery;
+    private final AtomicLong probes = new AtomicLong();
 
-    public HealthController(EnvironmentConfig environmentConfig) {
+    /**
+     * @param logEvery log one in this many probes at INFO; 0 (the default) logs them only
+     *                 at DEBUG, as Kubernetes probes every few seconds on every pod
+     */
+    public HealthController(EnvironmentConfig environmentConfig,
+                            @Value("${library.health.log-every:0}") long logEvery) {
+        if (logEvery < 0) {
+            throw new IllegalArgumentException("library.health.log-every must not be negative");
+        }
         this.environmentConfig = environmentConfig;
+        this.logEvery = logEvery;
     }
 
     @GetMapping("/health")
@@ -24,7 +37,12 @@ public class HealthController {
                 "status", "UP",
                 "environment", env
         );
-        log.info("Health check: {}", response);
+        long probe = probes.incrementAndGet();
+        if (logEvery > 0 && probe % logEvery == 0) {
+            log.info("Health check #{}: {}", probe, response);
+        } else {
+            log.debug("Health check: {}", response);
+        }
         return response;
     }
 }
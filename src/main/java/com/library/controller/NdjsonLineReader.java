@@ -0,0 +1,98 @@
+package com.library.controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a newline-delimited body into lines ending in {@code \n} or {@code \r\n}, like
+ * {@link java.io.BufferedReader#readLine}, but never holds more than {@code maxLength}
+ * characters of one line: the rest of a longer line is skipped unread into memory, and
+ * {@link #wasOversized} reports it, so one line without a newline cannot make the server
+ * buffer the whole body.
+ */
+final class NdjsonLineReader implements Closeable {
+
+    private final Reader in;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+    private int limit;
+    private boolean oversized;
+
+    NdjsonLineReader(Reader in, int maxLength) {
+        this.in = in;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return the next line without its terminator, an empty string for a line that was
+     * too long, or null at the end of the body
+     */
+    String readLine() throws IOException {
+        line.setLength(0);
+        oversized = false;
+        boolean any = false;
+        while (true) {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit < 0) {
+                    limit = 0;
+                    return any ? finish() : null;
+                }
+            }
+            any = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            append(start, position);
+            if (position < limit) {
+                position++;
+                return finish();
+            }
+        }
+    }
+
+    /**
+     * Whether the line last returned was longer than {@code maxLength} and dropped.
+     */
+    boolean wasOversized() {
+        return oversized;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void append(int from, int to) {
+        if (oversized) {
+            return;
+        }
+        // One spare character for a \r that finish() strips
+        if (line.length() + (to - from) > maxLength + 1) {
+            oversized = true;
+            line.setLength(0);
+            return;
+        }
+        line.append(buffer, from, to - from);
+    }
+
+    private String finish() {
+        if (oversized) {
+            return "";
+        }
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        if (line.length() > maxLength) {
+            oversized = true;
+            return "";
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,146 @@
+package com.library.controller;
+
+import com.library.exception.BookNotFoundException;
+import com.library.exception.GlobalExceptionHandler.ErrorResponse;
+import com.library.exception.VersionMismatchException;
+import com.library.model.BookVO;
+import com.library.service.ReactiveBookService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reactive counterpart of {@link BookController} as WebFlux functional routes, served on
+ * their own port by {@code ReactiveConfig} while the MVC controller keeps serving the main
+ * one. Paths, status codes, ETags and error bodies match the MVC API.
+ *
+ * {@code GET /books} returns a {@link Flux}: a JSON array by default, or one book per line
+ * with {@code Accept: application/x-ndjson}. Either way books are encoded as the store
+ * yields them and only as fast as the connection drains, so memory per request stays flat.
+ */
+public class ReactiveBookRoutes {
+
+    private final ReactiveBookService bookService;
+    private final Validator validator;
+
+    public ReactiveBookRoutes(ReactiveBookService bookService, Validator validator) {
+        this.bookService = bookService;
+        this.validator = validator;
+    }
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/books", deferred(this::listBooks))
+                .POST("/books", deferred(this::addBook))
+                .GET("/books/{id}", deferred(this::getBookById))
+                .PUT("/books/{id}", deferred(this::updateBook))
+                .DELETE("/books/{id}", deferred(this::deleteBook))
+                .onError(BookNotFoundException.class, (ex, request) -> error(HttpStatus.NOT_FOUND, ex.getMessage()))
+                .onError(VersionMismatchException.class, (ex, request) -> error(HttpStatus.PRECONDITION_FAILED, ex.getMessage()))
+                .onError(IllegalArgumentException.class, (ex, request) -> error(HttpStatus.BAD_REQUEST, ex.getMessage()))
+                .onError(ServerWebInputException.class,
+                        (ex, request) -> error(HttpStatus.BAD_REQUEST, ((ServerWebInputException) ex).getReason()))
+                .build();
+    }
+
+    private Mono<ServerResponse> listBooks(ServerRequest request) {
+        String author = request.queryParam("author").orElse(null);
+        String title = request.queryParam("title").orElse(null);
+        Long after = request.queryParam("after").map(Long::valueOf).orElse(null);
+        if (after != null && (author != null || title != null)) {
+            return Mono.error(new IllegalArgumentException("after cannot be combined with author or title"));
+        }
+        Flux<BookVO> books = author != null || title != null
+                ? bookService.findBooks(author, title)
+                : bookService.streamBooks(after);
+        boolean ndjson = request.headers().accept().stream()
+                .anyMatch(type -> type.equalsTypeAndSubtype(MediaType.APPLICATION_NDJSON));
+        return ServerResponse.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(books, BookVO.class);
+    }
+
+    private Mono<ServerResponse> addBook(ServerRequest request) {
+        return withValidBook(request, book -> bookService.addBook(book)
+                .flatMap(created -> withETag(ServerResponse.status(HttpStatus.CREATED), created)));
+    }
+
+    /**
+     * A matching {@code If-None-Match} is answered with 304 and no body.
+     */
+    private Mono<ServerResponse> getBookById(ServerRequest request) {
+        return bookService.getBookById(id(request)).flatMap(book -> {
+            String etag = BookController.etag(book);
+            if (etag == null) {
+                return ServerResponse.ok().bodyValue(book);
+            }
+            return request.checkNotModified(etag)
+                    .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().eTag(etag).bodyValue(book)));
+        });
+    }
+
+    private Mono<ServerResponse> updateBook(ServerRequest request) {
+        Long id = id(request);
+        Long expectedVersion = BookController.expectedVersion(request.headers().firstHeader(HttpHeaders.IF_MATCH));
+        return withValidBook(request, book -> bookService.updateBook(id, book, expectedVersion)
+                .flatMap(updated -> withETag(ServerResponse.ok(), updated)));
+    }
+
+    private Mono<ServerResponse> deleteBook(ServerRequest request) {
+        Long id = id(request);
+        Long expectedVersion = BookController.expectedVersion(request.headers().firstHeader(HttpHeaders.IF_MATCH));
+        return bookService.deleteBook(id, expectedVersion).then(ServerResponse.noContent().build());
+    }
+
+    /**
+     * Decodes and validates the body, answering 400 with the failing fields (as the MVC
+     * API does) instead of calling {@code handler}.
+     */
+    private Mono<ServerResponse> withValidBook(ServerRequest request, Function<BookVO, Mono<ServerResponse>> handler) {
+        return request.bodyToMono(BookVO.class)
+                .switchIfEmpty(Mono.error(new ServerWebInputException("Request body is required")))
+                .flatMap(book -> {
+                    Map<String, String> errors = new HashMap<>();
+                    for (ConstraintViolation<BookVO> violation : validator.validate(book)) {
+                        errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+                    }
+                    return errors.isEmpty() ? handler.apply(book) : ServerResponse.badRequest().bodyValue(errors);
+                });
+    }
+
+    private static Mono<ServerResponse> withETag(ServerResponse.BodyBuilder response, BookVO book) {
+        String etag = BookController.etag(book);
+        return (etag == null ? response : response.eTag(etag)).bodyValue(book);
+    }
+
+    /**
+     * Handlers parse ids, query parameters and {@code If-Match} up front; deferring them
+     * turns a bad value into an error signal that the {@code onError} mappings see.
+     */
+    private static HandlerFunction<ServerResponse> deferred(HandlerFunction<ServerResponse> handler) {
+        return request -> Mono.defer(() -> handler.handle(request));
+    }
+
+    private static Long id(ServerRequest request) {
+        return Long.valueOf(request.pathVariable("id"));
+    }
+
+    private static Mono<ServerResponse> error(HttpStatus status, String message) {
+        return ServerResponse.status(status).bodyValue(new ErrorResponse(status.value(), message, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,58 @@
+package com.library.controller;
+
+import com.library.replication.ReplicationLog;
+import com.library.replication.ResyncRequiredException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * The leader's side of replication: followers stream {@code /replication/log} from the
+ * last entry they applied and load {@code /replication/snapshot} when they start or fall
+ * too far behind. Both answer 404 on instances that are not the replication leader, and
+ * the log answers 410 Gone when the follower has to resync from a snapshot instead.
+ */
+@RestController
+public class ReplicationController {
+
+    private final ObjectProvider<ReplicationLog> replicationLog;
+
+    public ReplicationController(ObjectProvider<ReplicationLog> replicationLog) {
+        this.replicationLog = replicationLog;
+    }
+
+    @GetMapping("/replication/log")
+    public ResponseEntity<StreamingResponseBody> log(@RequestParam long epoch, @RequestParam long after) {
+        ReplicationLog log = replicationLog.getIfAvailable();
+        if (log == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!log.canResume(epoch, after)) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                log.writeLog(epoch, after, out);
+            } catch (ResyncRequiredException ex) {
+                // Fell out of the retention window mid-stream; ending the stream is enough,
+                // as the follower's next request gets the 410 above
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(body);
+    }
+
+    @GetMapping("/replication/snapshot")
+    public ResponseEntity<StreamingResponseBody> snapshot() {
+        ReplicationLog log = replicationLog.getIfAvailable();
+        if (log == null) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = log::writeSnapshot;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(body);
+    }
+}
@@ -0,0 +1,138 @@
+package com.library.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.model.BookVO;
+import com.library.service.BookService;
+import com.library.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shard membership and the internal import used to place and move books. All of it
+ * answers 404 unless sharding is enabled.
+ *
+ * {@code PUT /shard/ring} takes the new ring as a {@code name -> url} object, applies it
+ * here and passes it on to every node of the old and the new ring, each of which then
+ * moves the books it no longer owns.
+ */
+@RestController
+@Slf4j
+public class ShardController {
+
+    private static final Duration BROADCAST_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ObjectProvider<ShardRouter> shardRouter;
+    private final BookService bookService;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(BROADCAST_TIMEOUT)
+            .build();
+
+    public ShardController(ObjectProvider<ShardRouter> shardRouter, BookService bookService, ObjectMapper objectMapper) {
+        this.shardRouter = shardRouter;
+        this.bookService = bookService;
+        // Imported books keep the version they had on the shard they come from
+        this.objectMapper = objectMapper.copy().addMixIn(BookVO.class, BookVO.StoredVersion.class);
+    }
+
+    @GetMapping("/shard/ring")
+    public ResponseEntity<Map<String, String>> getRing() {
+        ShardRouter router = shardRouter.getIfAvailable();
+        if (router == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(router.nodes());
+    }
+
+    @PutMapping(value = "/shard/ring", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, String>> putRing(@RequestBody Map<String, String> nodes,
+                                                       @RequestHeader(value = ShardRouter.HOP_HEADER, required = false) String hop)
+            throws IOException {
+        ShardRouter router = shardRouter.getIfAvailable();
+        if (router == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Set<String> peers = new LinkedHashSet<>(router.nodes().values());
+        peers.addAll(nodes.values());
+        router.reconfigure(nodes);
+        if (hop == null) {
+            broadcast(peers, objectMapper.writeValueAsBytes(nodes));
+        }
+        return ResponseEntity.ok(router.nodes());
+    }
+
+    /**
+     * Stores books placed here by another instance's router, one JSON book per line, keeping
+     * their ids and versions.
+     */
+    @PostMapping(value = "/shard/books", consumes = BookController.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Void> importBooks(InputStream body) throws IOException {
+        if (shardRouter.getIfAvailable() == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    bookService.applyReplicatedPut(objectMapper.readValue(line, BookVO.class));
+                }
+            }
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Sends the ring to the other nodes. A node that can't be reached is logged and skipped;
+     * sending the same ring to it again later is harmless.
+     */
+    private void broadcast(Set<String> peers, byte[] ring) {
+        Map<String, Exception> failures = new HashMap<>();
+        for (String peer : peers) {
+            String url = peer.endsWith("/") ? peer.substring(0, peer.length() - 1) : peer;
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/shard/ring"))
+                    .timeout(BROADCAST_TIMEOUT)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .header(ShardRouter.HOP_HEADER, "1")
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(ring))
+                    .build();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 300) {
+                    failures.put(url, new IOException("status " + response.statusCode()));
+                }
+            } catch (IOException ex) {
+                failures.put(url, ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failures.put(url, ex);
+                break;
+            }
+        }
+        failures.forEach((url, ex) -> log.warn("Could not send the shard ring to {}: {}", url, ex.toString()));
+    }
+}
@@ -0,0 +1,11 @@
+package com.library.exception;
+
+public class ShardUnavailableException extends RuntimeException {
+    public ShardUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ShardUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.library.exception;
+
+public class SnapshotExpiredException extends RuntimeException {
+    public SnapshotExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,178 @@
+package com.library.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.library.model.BookVO;
+import com.library.service.BookService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps a gzip-compressed NDJSON snapshot of the whole catalog on disk, so bulk consumers
+ * download a file that was serialized and compressed once instead of re-serializing the
+ * catalog per request.
+ *
+ * A background thread rebuilds the snapshot once {@code changeThreshold} books have been
+ * added, updated or deleted since the last one, or once it is older than
+ * {@code maxAgeMillis} and anything changed at all. The catalog is streamed while it is
+ * written, so a snapshot is weakly consistent with writes made during the rebuild; those
+ * count towards the next one. Each snapshot goes to a new file that is published with an
+ * atomic move, and the previous file is kept until the next rebuild so downloads already
+ * handed to the container can finish.
+ */
+@Slf4j
+public class CatalogExporter implements Closeable {
+
+    private static final String FILE_PREFIX = "catalog-";
+    private static final String FILE_SUFFIX = ".ndjson.gz";
+
+    private final BookService bookService;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final long changeThreshold;
+    private final long maxAgeMillis;
+    private final long tickMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "catalog-export");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private long sequence;
+    private Path published;
+    private Path superseded;
+
+    private volatile CatalogSnapshot current;
+
+    /**
+     * @param changeThreshold changes after which the snapshot is rebuilt
+     * @param maxAgeMillis    age after which any change at all triggers a rebuild
+     * @param tickMillis      how often the background thread checks whether a rebuild is due
+     */
+    public CatalogExporter(BookService bookService, ObjectMapper objectMapper, Path directory,
+                           long changeThreshold, long maxAgeMillis, long tickMillis) throws IOException {
+        if (changeThreshold < 1 || maxAgeMillis < 1 || tickMillis < 1) {
+            throw new IllegalArgumentException("changeThreshold, maxAgeMillis and tickMillis must be positive");
+        }
+        this.bookService = bookService;
+        this.objectMapper = objectMapper;
+        this.directory = Files.createDirectories(directory);
+        this.changeThreshold = changeThreshold;
+        this.maxAgeMillis = maxAgeMillis;
+        this.tickMillis = tickMillis;
+
+        // Snapshots are derived from the store, so leftovers from an earlier run are stale
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Builds the first snapshot and starts watching the catalog for changes.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::tick, 0, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The latest published snapshot, or null until the first one is written.
+     */
+    public CatalogSnapshot current() {
+        return current;
+    }
+
+    /**
+     * Writes a new snapshot and publishes it. Normally driven by the background thread.
+     */
+    public synchronized CatalogSnapshot rebuild() throws IOException {
+        long start = System.nanoTime();
+        // Read before streaming, so changes racing with the rebuild trigger the next one
+        long changeCount = bookService.changeCount();
+        long createdMillis = System.currentTimeMillis();
+        Path target = directory.resolve(FILE_PREFIX + String.format("%020d", ++sequence) + FILE_SUFFIX);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+
+        CRC32 checksum = new CRC32();
+        long books = 0;
+        ObjectWriter writer = objectMapper.writerFor(BookVO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try {
+            try (Stream<BookVO> catalog = bookService.streamBooks(null);
+                 OutputStream out = new GZIPOutputStream(new CheckedOutputStream(
+                         new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16), checksum), 1 << 16);
+                 JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                Iterator<BookVO> it = catalog.iterator();
+                while (it.hasNext()) {
+                    writer.writeValue(generator, it.next());
+                    generator.writeRaw('\n');
+                    books++;
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+
+        CatalogSnapshot snapshot = new CatalogSnapshot(target, Files.size(target),
+                Long.toHexString(checksum.getValue()) + "-" + Long.toHexString(sequence),
+                createdMillis, books, changeCount);
+        current = snapshot;
+        if (superseded != null) {
+            Files.deleteIfExists(superseded);
+        }
+        superseded = published;
+        published = target;
+        log.info("Exported {} books to {} ({} bytes) in {} ms", books, target.getFileName(),
+                snapshot.getSize(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void tick() {
+        try {
+            if (isDue(current)) {
+                rebuild();
+            }
+        } catch (IOException | RuntimeException ex) {
+            // Keep serving the previous snapshot and retry on the next tick
+            log.error("Catalog export to {} failed", directory, ex);
+        }
+    }
+
+    private boolean isDue(CatalogSnapshot snapshot) {
+        if (snapshot == null) {
+            return true;
+        }
+        long changed = bookService.changeCount() - snapshot.getChangeCount();
+        return changed >= changeThreshold
+                || (changed > 0 && System.currentTimeMillis() - snapshot.getCreatedMillis() >= maxAgeMillis);
+    }
+}
@@ -0,0 +1,56 @@
+package com.library.export;
+
+import java.nio.file.Path;
+
+/**
+ * A published catalog export. The file never changes once published, so {@link #getTag()}
+ * identifies its bytes and is safe to use as a strong entity tag.
+ */
+public final class CatalogSnapshot {
+
+    private final Path file;
+    private final long size;
+    private final String tag;
+    private final long createdMillis;
+    private final long books;
+    private final long changeCount;
+
+    CatalogSnapshot(Path file, long size, String tag, long createdMillis, long books, long changeCount) {
+        this.file = file;
+        this.size = size;
+        this.tag = tag;
+        this.createdMillis = createdMillis;
+        this.books = books;
+        this.changeCount = changeCount;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Compressed size in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    public long getBooks() {
+        return books;
+    }
+
+    /**
+     * {@link com.library.service.BookService#changeCount()} when the export started.
+     */
+    public long getChangeCount() {
+        return changeCount;
+    }
+}
@@ -0,0 +1,39 @@
+package com.library.ids;
+
+/**
+ * Hands out book ids. Every id is handed out at most once, including across the
+ * instances that share a strategy's coordination (a node id or a lease table), and
+ * allocation needs no round trip to other instances on the common path.
+ */
+public interface IdAllocator {
+
+    /**
+     * Returns a new, unique, positive id.
+     */
+    long next();
+
+    /**
+     * Returns {@code count} new ids in ascending order, cheaper than as many calls to
+     * {@link #next()} where the strategy can reserve them in one step.
+     */
+    default long[] next(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = next();
+        }
+        return ids;
+    }
+
+    /**
+     * Makes sure no id below {@code nextId} is handed out from now on; called with ids
+     * recovered from a journal or replicated from another instance.
+     */
+    void skipTo(long nextId);
+
+    /**
+     * A lower bound for the ids handed out from now on: with {@link SequentialIdAllocator}
+     * exactly the next id, with the other strategies the position of this instance's
+     * clock or lease.
+     */
+    long peek();
+}
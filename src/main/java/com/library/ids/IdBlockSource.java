@@ -0,0 +1,14 @@
+package com.library.ids;
+
+/**
+ * Shared authority that {@link LeasedIdAllocator}s lease id blocks from.
+ */
+public interface IdBlockSource {
+
+    /**
+     * Reserves the ids {@code [first, first + size)} for the caller alone.
+     *
+     * @return {@code first}
+     */
+    long lease(int size);
+}
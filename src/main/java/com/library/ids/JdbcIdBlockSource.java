@@ -0,0 +1,44 @@
+package com.library.ids;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Leases id blocks from a counter row in a database shared by all instances. Each lease
+ * is a compare-and-set on the row, retried on conflict, so it needs neither a
+ * transaction nor database-specific sequence syntax.
+ */
+public class JdbcIdBlockSource implements IdBlockSource {
+
+    private static final String SELECT = "SELECT next_id FROM id_leases WHERE name = ?";
+    private static final String ADVANCE = "UPDATE id_leases SET next_id = ? WHERE name = ? AND next_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String name;
+
+    /**
+     * @param name the counter to lease from, so several id spaces can share the table
+     */
+    public JdbcIdBlockSource(JdbcTemplate jdbcTemplate, String name) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.name = name;
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS id_leases ("
+                + "name VARCHAR(64) PRIMARY KEY, "
+                + "next_id BIGINT NOT NULL)");
+        try {
+            jdbcTemplate.update("INSERT INTO id_leases (name, next_id) VALUES (?, 1)", name);
+        } catch (DuplicateKeyException ex) {
+            // Created by another instance or an earlier run
+        }
+    }
+
+    @Override
+    public long lease(int size) {
+        while (true) {
+            long first = jdbcTemplate.queryForObject(SELECT, Long.class, name);
+            if (jdbcTemplate.update(ADVANCE, first + size, name, first) == 1) {
+                return first;
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.library.ids;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dense ids leased from a shared {@link IdBlockSource} in blocks of {@code blockSize}, so
+ * instances coordinate once per block rather than once per id, and ids stay small and
+ * roughly increasing across the cluster.
+ *
+ * Within the instance the block is split further: threads take ids from one of several
+ * stripes, each refilled with {@code stripeSize} ids at a time from the instance's block,
+ * so concurrent inserts don't all increment the same counter. Ids are therefore unique
+ * but not handed out in order, and the unused rest of each block is skipped when the
+ * instance restarts.
+ */
+@Slf4j
+public class LeasedIdAllocator implements IdAllocator {
+
+    private final IdBlockSource source;
+    private final int blockSize;
+    private final int stripeSize;
+    private final Stripe[] stripes;
+
+    // The instance's current block, guarded by this
+    private long leaseNext;
+    private long leaseEnd;
+    private volatile long floor = 1;
+
+    /**
+     * @param blockSize  ids leased from the source at a time
+     * @param stripeSize ids a stripe takes from the block at a time; at most blockSize
+     */
+    public LeasedIdAllocator(IdBlockSource source, int blockSize, int stripeSize) {
+        if (blockSize < 1 || stripeSize < 1 || stripeSize > blockSize) {
+            throw new IllegalArgumentException("blockSize and stripeSize must be positive, stripeSize at most blockSize");
+        }
+        this.source = source;
+        this.blockSize = blockSize;
+        this.stripeSize = stripeSize;
+        // A power of two, at least twice the CPUs, so a thread id maps to a stripe with a mask
+        int count = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public long next() {
+        Stripe stripe = stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+        synchronized (stripe) {
+            while (true) {
+                if (stripe.next == stripe.end) {
+                    refill(stripe);
+                }
+                long id = stripe.next++;
+                if (id >= floor) {
+                    return id;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void skipTo(long nextId) {
+        synchronized (this) {
+            floor = Math.max(floor, nextId);
+        }
+    }
+
+    /**
+     * The start of the instance's unused block; stripes may still hold lower ids.
+     */
+    @Override
+    public synchronized long peek() {
+        return Math.max(leaseNext, floor);
+    }
+
+    private synchronized void refill(Stripe stripe) {
+        while (leaseNext >= leaseEnd) {
+            long first = source.lease(blockSize);
+            log.debug("Leased ids {} to {}", first, first + blockSize - 1);
+            // A block entirely below the floor is skipped
+            leaseNext = Math.max(first, floor);
+            leaseEnd = first + blockSize;
+        }
+        stripe.next = leaseNext;
+        stripe.end = Math.min(leaseNext + stripeSize, leaseEnd);
+        leaseNext = stripe.end;
+    }
+
+    /**
+     * Ids {@code [next, end)} held for the threads mapped to it; padded so stripes don't
+     * share a cache line.
+     */
+    @SuppressWarnings("unused")
+    private static final class Stripe {
+        long p1, p2, p3, p4, p5, p6, p7;
+        long next;
+        long end;
+        long q1, q2, q3, q4, q5, q6, q7;
+    }
+}
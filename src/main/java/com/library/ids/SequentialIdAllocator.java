@@ -0,0 +1,38 @@
+package com.library.ids;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dense ids 1, 2, 3, ... from one counter. Unique within a process only, so replicas
+ * that each accept writes would hand out the same ids; the default for a single writer.
+ */
+public class SequentialIdAllocator implements IdAllocator {
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    @Override
+    public long next() {
+        return nextId.getAndIncrement();
+    }
+
+    @Override
+    public long[] next(int count) {
+        // Reserve the whole range in one atomic step instead of one increment per id
+        long first = nextId.getAndAdd(count);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = first + i;
+        }
+        return ids;
+    }
+
+    @Override
+    public void skipTo(long next) {
+        nextId.accumulateAndGet(next, Math::max);
+    }
+
+    @Override
+    public long peek() {
+        return nextId.get();
+    }
+}
@@ -0,0 +1,108 @@
+package com.library.ids;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered ids unique across up to {@value #MAX_NODES} instances without any
+ * coordination beyond a distinct node id per instance:
+ * {@code [41 bits milliseconds since 2024-01-01][10 bits node][12 bits sequence]}.
+ * Ids sort roughly by creation time across instances, and strictly within one.
+ *
+ * The timestamp and sequence live in one counter that is advanced to
+ * {@code max(previous + 1, now)} with a single CAS. Running out of sequence numbers within
+ * a millisecond therefore borrows the next millisecond instead of spinning until the
+ * clock gets there, and a clock stepped backwards makes ids continue from the last one
+ * handed out rather than repeat. Either way the ids run ahead of the clock only until it
+ * catches up. Ids are 63-bit, beyond what JavaScript numbers represent exactly.
+ */
+public class SnowflakeIdAllocator implements IdAllocator {
+
+    public static final int MAX_NODES = 1024;
+    /** 2024-01-01T00:00:00Z */
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private final LongSupplier clock;
+    // Milliseconds since EPOCH_MILLIS << SEQUENCE_BITS | sequence of the last id handed out
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdAllocator(int node) {
+        this(node, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdAllocator(int node, LongSupplier clock) {
+        if (node < 0 || node >= MAX_NODES) {
+            throw new IllegalArgumentException("node must be between 0 and " + (MAX_NODES - 1));
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    @Override
+    public long next() {
+        return id(advance(1));
+    }
+
+    @Override
+    public long[] next(int count) {
+        long last = advance(count);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = id(last - count + 1 + i);
+        }
+        return ids;
+    }
+
+    @Override
+    public void skipTo(long nextId) {
+        long timestamp = nextId >>> (NODE_BITS + SEQUENCE_BITS);
+        state.accumulateAndGet(timestamp << SEQUENCE_BITS | (nextId & SEQUENCE_MASK), Math::max);
+    }
+
+    @Override
+    public long peek() {
+        return id(Math.max(state.get() + 1, now()));
+    }
+
+    /**
+     * The node an id was allocated on.
+     */
+    public static int nodeOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS & (MAX_NODES - 1));
+    }
+
+    /**
+     * Wall-clock time an id was allocated at, to the millisecond (later if the node ran
+     * out of sequence numbers or its clock went backwards).
+     */
+    public static long timeOf(long id) {
+        return EPOCH_MILLIS + (id >>> (NODE_BITS + SEQUENCE_BITS));
+    }
+
+    /**
+     * Reserves {@code count} consecutive states and returns the last.
+     */
+    private long advance(int count) {
+        long now = now();
+        while (true) {
+            long previous = state.get();
+            long last = Math.max(previous + 1, now) + count - 1;
+            if (state.compareAndSet(previous, last)) {
+                return last;
+            }
+        }
+    }
+
+    private long now() {
+        return (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+    }
+
+    private long id(long value) {
+        return (value >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | (value & SEQUENCE_MASK);
+    }
+}
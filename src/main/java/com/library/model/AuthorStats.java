@@ -0,0 +1,22 @@
+package com.library.model;
+
+import lombok.Data;
+
+/**
+ * Books by one author and the prices among them; books without a price are counted in
+ * {@code count} but not in the price figures. {@code pricedCount} and {@code priceSum} let
+ * statistics from several shards be merged.
+ */
+@Data
+public class AuthorStats {
+    private final String author;
+    private final long count;
+    private final long pricedCount;
+    private final double priceSum;
+    private final Double minPrice;
+    private final Double maxPrice;
+
+    public Double getAveragePrice() {
+        return pricedCount == 0 ? null : priceSum / pricedCount;
+    }
+}
@@ -0,0 +1,14 @@
+package com.library.model;
+
+import lombok.Data;
+
+/**
+ * A record rejected by a bulk operation. {@code index} is the zero-based position of the
+ * record in the submitted batch; {@code id} is set when the record carried one.
+ */
+@Data
+public class BatchFailure {
+    private final long index;
+    private final Long id;
+    private final String message;
+}
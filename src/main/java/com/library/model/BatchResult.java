@@ -0,0 +1,31 @@
+package com.library.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk operation: how many records were applied, and why the others were
+ * rejected. A failed record never aborts the rest of the batch. A bulk add also lists the
+ * id given to each added record, in the order the records were sent, so together with
+ * the failures' indexes every record can be matched to its id.
+ */
+@Data
+public class BatchResult {
+    private final long succeeded;
+    private final List<BatchFailure> failures;
+    // Only set by bulk adds
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final List<Long> ids;
+
+    public BatchResult(long succeeded, List<BatchFailure> failures) {
+        this(succeeded, failures, null);
+    }
+
+    public BatchResult(long succeeded, List<BatchFailure> failures, List<Long> ids) {
+        this.succeeded = succeeded;
+        this.failures = failures;
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,18 @@
+package com.library.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of an id-ordered catalog listing. {@code nextCursor} is the id to pass as
+ * {@code after} for the following page, or null once the end of the catalog is reached.
+ * {@code snapshot}, when set, is the token of the catalog snapshot the page was read from,
+ * to pass along with the cursor so the following pages come from the same snapshot.
+ */
+@Data
+public class BookPage {
+    private final List<BookVO> items;
+    private final Long nextCursor;
+    private Long snapshot;
+}
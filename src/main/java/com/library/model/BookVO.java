@@ -1,5 +1,7 @@
 package com.library.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -19,6 +21,12 @@ public class BookVO {
     @PositiveOrZero(message = "Price must be non-negative")
     private Double price;
 
+    // Assigned by the store: 1 on insert, incremented on every update. Never taken from
+    // a client's body; conditional writes send it in If-Match instead
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     public BookVO() {}
 
     public BookVO(Long id, String title, String author, Double price) {
@@ -27,4 +35,13 @@ public class BookVO {
         this.author = author;
         this.price = price;
     }
+
+    /**
+     * Jackson mix-in for instances passing stored books to each other, such as shards,
+     * where the version is the owning store's and has to be read back.
+     */
+    public abstract static class StoredVersion {
+        @JsonProperty(access = JsonProperty.Access.READ_WRITE)
+        abstract void setVersion(Long version);
+    }
 }
@@ -0,0 +1,16 @@
+package com.library.model;
+
+import lombok.Data;
+
+/**
+ * Count and sum of the prices falling in a range; books without a price are not counted.
+ */
+@Data
+public class PriceSummary {
+    private final long count;
+    private final double sum;
+
+    public Double getAverage() {
+        return count == 0 ? null : sum / count;
+    }
+}
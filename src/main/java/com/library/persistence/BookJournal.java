@@ -0,0 +1,82 @@
+package com.library.persistence;
+
+import com.library.model.BookVO;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Write-ahead log for the book store. {@code BookService} appends every mutation while it
+ * holds the per-id lock for that book, so the log order matches the order in which the
+ * store applied the changes, and calls {@link #commit()} once per public operation.
+ */
+public interface BookJournal extends Closeable {
+
+    /**
+     * Journal used when persistence is disabled: nothing is recorded or recovered.
+     */
+    BookJournal NONE = new BookJournal() {
+        @Override
+        public long recover(Consumer<BookVO> onPut, LongConsumer onDelete) {
+            return 1;
+        }
+
+        @Override
+        public void start(LongSupplier nextId, Iterable<BookVO> books) {
+        }
+
+        @Override
+        public void appendPut(BookVO book) {
+        }
+
+        @Override
+        public void appendDelete(long id) {
+        }
+
+        @Override
+        public void commit() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * Replays the latest snapshot followed by the log tail, in log order.
+     *
+     * @return the lowest id the id generator may hand out next
+     */
+    long recover(Consumer<BookVO> onPut, LongConsumer onDelete);
+
+    /**
+     * Begins accepting appends. {@code books} must be a live view of the store; it is
+     * iterated in the background whenever a compacted snapshot is taken.
+     */
+    void start(LongSupplier nextId, Iterable<BookVO> books);
+
+    /**
+     * Runs one store mutation that appends to the journal and then makes the change visible
+     * in the view passed to {@link #start}. A snapshot waits for mutations in progress
+     * before it rotates, so every record in the segments it drops is in the view it writes.
+     */
+    default <T> T mutate(Supplier<T> mutation) {
+        return mutation.get();
+    }
+
+    void appendPut(BookVO book);
+
+    void appendDelete(long id);
+
+    /**
+     * Marks the end of one logical operation; under {@link FsyncPolicy#BATCH} this is the
+     * point at which everything appended so far becomes durable.
+     */
+    void commit();
+
+    @Override
+    void close();
+}
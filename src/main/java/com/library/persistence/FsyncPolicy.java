@@ -0,0 +1,13 @@
+package com.library.persistence;
+
+/**
+ * When appended journal records are forced to the storage device.
+ */
+public enum FsyncPolicy {
+    /** Every record is durable before the mutation returns. */
+    WRITE,
+    /** Every operation (a single book or a whole batch) is durable before it returns. */
+    BATCH,
+    /** Records are forced on a fixed interval; a crash may lose the last interval. */
+    INTERVAL
+}
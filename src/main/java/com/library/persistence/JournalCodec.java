@@ -0,0 +1,98 @@
+package com.library.persistence;
+
+import com.library.model.BookVO;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Binary encoding of journal and snapshot records.
+ *
+ * Each record is framed as {@code [int payloadLength][int crc32][payload]}; a zero length
+ * marks the end of the written part of a segment. Payloads start with a type byte.
+ * {@link #PUT} records predate book versions and are still read, as version 1.
+ */
+final class JournalCodec {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final byte NEXT_ID = 3;
+    static final byte VERSIONED_PUT = 4;
+
+    static final int HEADER_BYTES = 8;
+
+    private JournalCodec() {
+    }
+
+    static byte[] encodePut(BookVO book) {
+        byte[] title = utf8(book.getTitle());
+        byte[] author = utf8(book.getAuthor());
+        int size = 1 + 8 + stringBytes(title) + stringBytes(author) + 1 + 8 + 8;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSIONED_PUT).putLong(book.getId());
+        putString(buffer, title);
+        putString(buffer, author);
+        if (book.getPrice() == null) {
+            buffer.put((byte) 0).putDouble(0);
+        } else {
+            buffer.put((byte) 1).putDouble(book.getPrice());
+        }
+        buffer.putLong(book.getVersion() == null ? 1L : book.getVersion());
+        return buffer.array();
+    }
+
+    static byte[] encodeDelete(long id) {
+        return ByteBuffer.allocate(9).put(DELETE).putLong(id).array();
+    }
+
+    static byte[] encodeNextId(long nextId) {
+        return ByteBuffer.allocate(9).put(NEXT_ID).putLong(nextId).array();
+    }
+
+    static void decode(ByteBuffer payload, Consumer<BookVO> onPut, LongConsumer onDelete, LongConsumer onNextId) {
+        byte type = payload.get();
+        long id = payload.getLong();
+        switch (type) {
+            case PUT, VERSIONED_PUT -> {
+                String title = getString(payload);
+                String author = getString(payload);
+                boolean hasPrice = payload.get() != 0;
+                double price = payload.getDouble();
+                BookVO book = new BookVO(id, title, author, hasPrice ? price : null);
+                book.setVersion(type == VERSIONED_PUT ? payload.getLong() : 1L);
+                onPut.accept(book);
+            }
+            case DELETE -> onDelete.accept(id);
+            case NEXT_ID -> onNextId.accept(id);
+            default -> throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringBytes(byte[] value) {
+        return 4 + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,435 @@
+package com.library.persistence;
+
+import com.library.model.BookVO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal written through memory-mapped, fixed-size segment files, with
+ * periodic compacted snapshots.
+ *
+ * A snapshot is taken by first rotating to a fresh segment and then writing the whole store
+ * next to it; recovery loads the newest snapshot and replays only the segments from that
+ * rotation onwards. Records appended while the snapshot is being written land in the new
+ * segment, and replaying them over the snapshot is idempotent. The rotation waits for the
+ * writers inside {@link #mutate}, whose records would otherwise sit in a dropped segment
+ * without their change being in the store yet; writers are held up only for the rotation,
+ * not for the writing of the snapshot.
+ *
+ * Concurrent writers share forces: a writer whose record was already covered by another
+ * writer's {@code force()} returns without forcing again (group commit).
+ */
+@Slf4j
+public class MappedBookJournal implements BookJournal {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long tickMillis;
+    private final int segmentBytes;
+    private final long snapshotThreshold;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "book-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private final CRC32 crc = new CRC32();
+    private long lastSequence;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long appended;
+    private long recordsSinceSnapshot;
+
+    // Guarded by syncLock. A lock rather than a monitor: writers queue on it for the
+    // length of a force(), and a virtual thread blocked on a monitor pins its carrier
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private long synced;
+
+    // Read side held by store mutations from their append until the change is visible;
+    // write side taken by a snapshot to rotate
+    private final ReentrantReadWriteLock rotationLock = new ReentrantReadWriteLock();
+
+    private volatile LongSupplier nextId;
+    private volatile Iterable<BookVO> books;
+
+    /**
+     * @param tickMillis        how often the background thread forces the log under
+     *                          {@link FsyncPolicy#INTERVAL} and checks whether a snapshot is due
+     * @param segmentBytes      size of each mapped log segment
+     * @param snapshotThreshold number of appended records after which a snapshot is taken
+     */
+    public MappedBookJournal(Path directory, FsyncPolicy fsyncPolicy, long tickMillis,
+                             int segmentBytes, long snapshotThreshold) throws IOException {
+        if (segmentBytes <= JournalCodec.HEADER_BYTES) {
+            throw new IllegalArgumentException("segmentBytes must be greater than " + JournalCodec.HEADER_BYTES);
+        }
+        if (tickMillis < 1 || snapshotThreshold < 1) {
+            throw new IllegalArgumentException("tickMillis and snapshotThreshold must be positive");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.fsyncPolicy = fsyncPolicy;
+        this.tickMillis = tickMillis;
+        this.segmentBytes = segmentBytes;
+        this.snapshotThreshold = snapshotThreshold;
+
+        for (Path file : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            lastSequence = Math.max(lastSequence, sequenceOf(file, SEGMENT_PREFIX, SEGMENT_SUFFIX));
+        }
+        for (Path file : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            lastSequence = Math.max(lastSequence, sequenceOf(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX));
+        }
+    }
+
+    @Override
+    public long recover(Consumer<BookVO> onPut, LongConsumer onDelete) {
+        long[] nextId = {1};
+        long[] records = {0};
+        Consumer<BookVO> put = book -> {
+            nextId[0] = Math.max(nextId[0], book.getId() + 1);
+            records[0]++;
+            onPut.accept(book);
+        };
+        LongConsumer delete = id -> {
+            nextId[0] = Math.max(nextId[0], id + 1);
+            records[0]++;
+            onDelete.accept(id);
+        };
+        LongConsumer next = id -> nextId[0] = Math.max(nextId[0], id);
+
+        long start = System.nanoTime();
+        try {
+            long from = 0;
+            List<Path> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            if (!snapshots.isEmpty()) {
+                Path snapshot = snapshots.get(snapshots.size() - 1);
+                from = sequenceOf(snapshot, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+                readSnapshot(snapshot, put, delete, next);
+            }
+            for (Path file : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+                if (sequenceOf(file, SEGMENT_PREFIX, SEGMENT_SUFFIX) >= from) {
+                    replaySegment(file, put, delete, next);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to recover book journal from " + directory, ex);
+        }
+        log.info("Recovered {} journal records from {} in {} ms", records[0], directory,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return nextId[0];
+    }
+
+    @Override
+    public void start(LongSupplier nextId, Iterable<BookVO> books) {
+        this.nextId = nextId;
+        this.books = books;
+        synchronized (this) {
+            try {
+                openSegment(lastSequence + 1);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to open book journal in " + directory, ex);
+            }
+        }
+        scheduler.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public <T> T mutate(Supplier<T> mutation) {
+        rotationLock.readLock().lock();
+        try {
+            return mutation.get();
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void appendPut(BookVO book) {
+        append(JournalCodec.encodePut(book));
+    }
+
+    @Override
+    public void appendDelete(long id) {
+        append(JournalCodec.encodeDelete(id));
+    }
+
+    @Override
+    public void commit() {
+        if (fsyncPolicy == FsyncPolicy.BATCH) {
+            long target;
+            synchronized (this) {
+                target = appended;
+            }
+            sync(target);
+        }
+    }
+
+    /**
+     * Writes a compacted snapshot of the store and drops the segments and snapshots it
+     * supersedes. Normally driven by the background thread once enough records accumulate.
+     */
+    public void snapshot() throws IOException {
+        long sequence;
+        rotationLock.writeLock().lock();
+        try {
+            synchronized (this) {
+                rotate();
+                sequence = lastSequence;
+                recordsSinceSnapshot = 0;
+            }
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+
+        Path target = directory.resolve(fileName(SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        long count = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(out), 1 << 16))) {
+            CRC32 checksum = new CRC32();
+            writeFrame(data, checksum, JournalCodec.encodeNextId(nextId.getAsLong()));
+            for (BookVO book : books) {
+                writeFrame(data, checksum, JournalCodec.encodePut(book));
+                count++;
+            }
+            data.writeInt(0);
+            data.flush();
+            out.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (Path file : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (sequenceOf(file, SEGMENT_PREFIX, SEGMENT_SUFFIX) < sequence) {
+                Files.deleteIfExists(file);
+            }
+        }
+        for (Path file : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (sequenceOf(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < sequence) {
+                Files.deleteIfExists(file);
+            }
+        }
+        log.info("Wrote snapshot {} with {} books", target.getFileName(), count);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        synchronized (this) {
+            try {
+                closeSegment();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to close book journal in " + directory, ex);
+            }
+        }
+    }
+
+    private void append(byte[] payload) {
+        int required = JournalCodec.HEADER_BYTES + payload.length;
+        if (required > segmentBytes) {
+            throw new IllegalArgumentException("Journal record of " + required + " bytes exceeds the segment size");
+        }
+        long end;
+        synchronized (this) {
+            if (segment == null) {
+                throw new IllegalStateException("Book journal is not started");
+            }
+            try {
+                if (segment.remaining() < required) {
+                    rotate();
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to rotate book journal in " + directory, ex);
+            }
+            crc.reset();
+            crc.update(payload);
+            // The length goes first, so a torn write shows up as a checksum mismatch on replay
+            segment.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            appended += required;
+            recordsSinceSnapshot++;
+            end = appended;
+        }
+        if (fsyncPolicy == FsyncPolicy.WRITE) {
+            sync(end);
+        }
+    }
+
+    private void sync(long target) {
+        syncLock.lock();
+        try {
+            if (synced >= target) {
+                // Another writer's force already covered this record
+                return;
+            }
+            long upTo;
+            MappedByteBuffer current;
+            synchronized (this) {
+                upTo = appended;
+                current = segment;
+            }
+            // Earlier segments were forced when they were rotated out
+            if (current != null) {
+                current.force();
+            }
+            synced = upTo;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void tick() {
+        try {
+            if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+                long target;
+                synchronized (this) {
+                    target = appended;
+                }
+                sync(target);
+            }
+            boolean due;
+            synchronized (this) {
+                due = recordsSinceSnapshot >= snapshotThreshold;
+            }
+            if (due) {
+                snapshot();
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Book journal maintenance failed", ex);
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeSegment();
+        openSegment(lastSequence + 1);
+    }
+
+    private void openSegment(long sequence) throws IOException {
+        Path path = directory.resolve(fileName(SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        lastSequence = sequence;
+    }
+
+    private void closeSegment() throws IOException {
+        if (segment != null) {
+            segment.force();
+            channel.close();
+            segment = null;
+            channel = null;
+        }
+    }
+
+    private void replaySegment(Path file, Consumer<BookVO> onPut, LongConsumer onDelete,
+                               LongConsumer onNextId) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            CRC32 checksum = new CRC32();
+            while (buffer.remaining() >= JournalCodec.HEADER_BYTES) {
+                int length = buffer.getInt();
+                int expected = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                if (!apply(payload, expected, checksum, onPut, onDelete, onNextId)) {
+                    log.warn("Ignoring torn record at offset {} of {}", buffer.position() - JournalCodec.HEADER_BYTES, file);
+                    break;
+                }
+                buffer.position(buffer.position() + length);
+            }
+        }
+    }
+
+    private void readSnapshot(Path file, Consumer<BookVO> onPut, LongConsumer onDelete,
+                              LongConsumer onNextId) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            CRC32 checksum = new CRC32();
+            int length;
+            while ((length = in.readInt()) > 0) {
+                int expected = in.readInt();
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (!apply(ByteBuffer.wrap(payload), expected, checksum, onPut, onDelete, onNextId)) {
+                    throw new IOException("Corrupt record in snapshot " + file);
+                }
+            }
+        } catch (EOFException ex) {
+            throw new IOException("Truncated snapshot " + file, ex);
+        }
+    }
+
+    private static boolean apply(ByteBuffer payload, int expected, CRC32 checksum, Consumer<BookVO> onPut,
+                                 LongConsumer onDelete, LongConsumer onNextId) {
+        checksum.reset();
+        checksum.update(payload.duplicate());
+        if ((int) checksum.getValue() != expected) {
+            return false;
+        }
+        JournalCodec.decode(payload, onPut, onDelete, onNextId);
+        return true;
+    }
+
+    private static void writeFrame(DataOutputStream out, CRC32 checksum, byte[] payload) throws IOException {
+        checksum.reset();
+        checksum.update(payload);
+        out.writeInt(payload.length);
+        out.writeInt((int) checksum.getValue());
+        out.write(payload);
+    }
+
+    private List<Path> list(String prefix, String suffix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(directory)) {
+            entries.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(suffix);
+            }).forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(path -> sequenceOf(path, prefix, suffix)));
+        return files;
+    }
+
+    private static long sequenceOf(Path file, String prefix, String suffix) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    private static String fileName(String prefix, long sequence, String suffix) {
+        return String.format("%s%020d%s", prefix, sequence, suffix);
+    }
+}
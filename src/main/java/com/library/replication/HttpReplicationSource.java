@@ -0,0 +1,57 @@
+package com.library.replication;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Reads the leader's {@code /replication/log} and {@code /replication/snapshot} endpoints.
+ */
+public class HttpReplicationSource implements ReplicationSource {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final String leaderUrl;
+    private final HttpClient client;
+
+    public HttpReplicationSource(String leaderUrl) {
+        this.leaderUrl = leaderUrl.endsWith("/") ? leaderUrl.substring(0, leaderUrl.length() - 1) : leaderUrl;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build();
+    }
+
+    @Override
+    public InputStream openLog(long epoch, long after) throws IOException {
+        return get("/replication/log?epoch=" + epoch + "&after=" + after);
+    }
+
+    @Override
+    public InputStream openSnapshot() throws IOException {
+        return get("/replication/snapshot");
+    }
+
+    private InputStream get(String path) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(leaderUrl + path)).GET().build();
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while connecting to " + leaderUrl, ex);
+        }
+        if (response.statusCode() == 200) {
+            return response.body();
+        }
+        response.body().close();
+        if (response.statusCode() == 410) {
+            throw new ResyncRequiredException("Leader at " + leaderUrl + " asked for a resync");
+        }
+        throw new IOException("GET " + path + " on " + leaderUrl + " returned " + response.statusCode());
+    }
+}
@@ -0,0 +1,44 @@
+package com.library.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * On the leader, tags every write response with {@value #SEQUENCE_HEADER}: a log sequence
+ * number at or after the write. A follower that forwarded the write waits until it has
+ * applied that entry before answering, so clients read their own writes from any pod.
+ * The body is buffered so the header can still be set once the write has happened.
+ */
+public class LeaderSequenceFilter extends OncePerRequestFilter {
+
+    public static final String SEQUENCE_HEADER = "X-Replication-Sequence";
+
+    private final ReplicationLog log;
+
+    public LeaderSequenceFilter(ReplicationLog log) {
+        this.log = log;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !WriteForwardingFilter.isWrite(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, buffered);
+        } finally {
+            buffered.setHeader(SEQUENCE_HEADER, Long.toString(log.sequence()));
+            buffered.copyBodyToResponse();
+        }
+    }
+}
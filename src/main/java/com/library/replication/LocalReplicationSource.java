@@ -0,0 +1,54 @@
+package com.library.replication;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+
+/**
+ * Reads from a {@link ReplicationLog} in the same JVM, through the same byte streams as
+ * over HTTP, so several instances can replicate within one process, e.g. in tests.
+ */
+public class LocalReplicationSource implements ReplicationSource {
+
+    private static final int PIPE_BYTES = 64 * 1024;
+
+    private final ReplicationLog log;
+
+    public LocalReplicationSource(ReplicationLog log) {
+        this.log = log;
+    }
+
+    @Override
+    public InputStream openLog(long epoch, long after) throws IOException {
+        if (!log.canResume(epoch, after)) {
+            throw new ResyncRequiredException("Cannot resume epoch " + epoch + " at " + after);
+        }
+        return pipe(out -> log.writeLog(epoch, after, out));
+    }
+
+    @Override
+    public InputStream openSnapshot() throws IOException {
+        return pipe(log::writeSnapshot);
+    }
+
+    private static InputStream pipe(Writer writer) throws IOException {
+        PipedInputStream in = new PipedInputStream(PIPE_BYTES);
+        PipedOutputStream out = new PipedOutputStream(in);
+        Thread thread = new Thread(() -> {
+            try (out) {
+                writer.write(out);
+            } catch (IOException ex) {
+                // The reader closed the pipe or the log asked for a resync; either way the
+                // reader sees the stream end and reconnects
+            }
+        }, "replication-local-source");
+        thread.setDaemon(true);
+        thread.start();
+        return in;
+    }
+
+    private interface Writer {
+        void write(PipedOutputStream out) throws IOException;
+    }
+}
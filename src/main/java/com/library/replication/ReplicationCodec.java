@@ -0,0 +1,80 @@
+package com.library.replication;
+
+import com.library.codec.BookWireCodec;
+import com.library.model.BookVO;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Framing of the replication log stream.
+ *
+ * A stream is a sequence of batches, each
+ * {@code [int entryCount][long leaderSequence][long leaderTimeMillis]} followed by its
+ * entries; an empty batch is a heartbeat. An entry is
+ * {@code [long sequence][long timeMillis][byte type]} followed by a
+ * {@code [int length][book record]} for {@link #PUT}, in the {@link BookWireCodec} record
+ * format, or a {@code [long id]} for {@link #DELETE}.
+ */
+final class ReplicationCodec {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+
+    private ReplicationCodec() {
+    }
+
+    static void writeBatch(DataOutputStream out, long leaderSequence, long leaderTimeMillis,
+                           List<ReplicationEntry> entries) throws IOException {
+        out.writeInt(entries.size());
+        out.writeLong(leaderSequence);
+        out.writeLong(leaderTimeMillis);
+        for (ReplicationEntry entry : entries) {
+            out.writeLong(entry.getSequence());
+            out.writeLong(entry.getTimeMillis());
+            if (entry.getBook() != null) {
+                byte[] record = BookWireCodec.encode(entry.getBook());
+                out.writeByte(PUT);
+                out.writeInt(record.length);
+                out.write(record);
+            } else {
+                out.writeByte(DELETE);
+                out.writeLong(entry.getId());
+            }
+        }
+    }
+
+    /**
+     * Reads the next batch into {@code entries}.
+     *
+     * @return the batch header as {@code {leaderSequence, leaderTimeMillis}}, or null at a
+     * clean end of stream
+     */
+    static long[] readBatch(DataInputStream in, List<ReplicationEntry> entries) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        int count = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8 | in.readUnsignedByte();
+        long leaderSequence = in.readLong();
+        long leaderTimeMillis = in.readLong();
+        for (int i = 0; i < count; i++) {
+            long sequence = in.readLong();
+            long timeMillis = in.readLong();
+            byte type = in.readByte();
+            if (type == PUT) {
+                byte[] record = new byte[in.readInt()];
+                in.readFully(record);
+                BookVO book = BookWireCodec.decode(record);
+                entries.add(new ReplicationEntry(sequence, timeMillis, book.getId(), book));
+            } else if (type == DELETE) {
+                entries.add(new ReplicationEntry(sequence, timeMillis, in.readLong(), null));
+            } else {
+                throw new IOException("Unknown replication entry type " + type);
+            }
+        }
+        return new long[] {leaderSequence, leaderTimeMillis};
+    }
+}
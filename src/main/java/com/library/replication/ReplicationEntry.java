@@ -0,0 +1,38 @@
+package com.library.replication;
+
+import com.library.model.BookVO;
+
+/**
+ * One mutation in the {@link ReplicationLog}: a book as stored, or the id of a deleted one.
+ */
+final class ReplicationEntry {
+
+    private final long sequence;
+    private final long timeMillis;
+    private final long id;
+    // Null for a delete
+    private final BookVO book;
+
+    ReplicationEntry(long sequence, long timeMillis, long id, BookVO book) {
+        this.sequence = sequence;
+        this.timeMillis = timeMillis;
+        this.id = id;
+        this.book = book;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    long getTimeMillis() {
+        return timeMillis;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    BookVO getBook() {
+        return book;
+    }
+}
@@ -0,0 +1,305 @@
+package com.library.replication;
+
+import com.library.codec.BookWireCodec;
+import com.library.model.BookVO;
+import com.library.service.BookService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the local store a replica of the leader's: a background thread streams the
+ * leader's {@link ReplicationLog} and applies each entry through {@link BookService}, so
+ * the search index and change count follow along as for local writes.
+ *
+ * A follower starts, and restarts whenever the leader can no longer resume its position,
+ * from a snapshot of the leader's store; books it holds that are missing from the
+ * snapshot are deleted. It then follows the log from the sequence the snapshot was taken
+ * at. When the connection drops it retries every {@code retryMillis} from the last
+ * applied entry.
+ */
+@Slf4j
+public class ReplicationFollower implements Closeable {
+
+    private final BookService bookService;
+    private final ReplicationSource source;
+    private final long retryMillis;
+
+    private volatile boolean running;
+    private volatile Thread thread;
+    private volatile InputStream current;
+
+    // Written by the follower thread only; guarded by this for awaitApplied()
+    private long epoch;
+    private long appliedSequence;
+    private volatile long leaderSequence;
+    private volatile long appliedLeaderMillis;
+    private volatile long leaderMillis;
+    private volatile boolean connected;
+    private volatile long snapshots;
+    private volatile long reconnects;
+
+    /**
+     * @param retryMillis pause before reconnecting after the stream failed
+     */
+    public ReplicationFollower(BookService bookService, ReplicationSource source, long retryMillis) {
+        if (retryMillis < 1) {
+            throw new IllegalArgumentException("retryMillis must be positive");
+        }
+        this.bookService = bookService;
+        this.source = source;
+        this.retryMillis = retryMillis;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "replication-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Thread follower = thread;
+        if (follower != null) {
+            follower.interrupt();
+            closeQuietly(current);
+            try {
+                follower.join(retryMillis + 1000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Sequence number of the last leader entry applied locally.
+     */
+    public synchronized long appliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * The leader's latest sequence number as of the last batch or heartbeat.
+     */
+    public long leaderSequence() {
+        return leaderSequence;
+    }
+
+    /**
+     * Entries the leader has that this follower has not applied yet.
+     */
+    public long lagEntries() {
+        return Math.max(0, leaderSequence - appliedSequence());
+    }
+
+    /**
+     * How far behind the leader the local store is: the age, by the leader's clock, of the
+     * oldest entry not applied yet. Zero when caught up.
+     */
+    public long lagMillis() {
+        if (lagEntries() == 0) {
+            return 0;
+        }
+        return Math.max(0, leaderMillis - appliedLeaderMillis);
+    }
+
+    /**
+     * Whether a log stream from the leader is currently open.
+     */
+    public boolean connected() {
+        return connected;
+    }
+
+    /**
+     * Snapshots loaded so far, including the initial one.
+     */
+    public long snapshots() {
+        return snapshots;
+    }
+
+    /**
+     * Times the log stream had to be reopened after failing.
+     */
+    public long reconnects() {
+        return reconnects;
+    }
+
+    /**
+     * Waits until the entry with the given sequence number has been applied locally.
+     *
+     * @return false when it was not applied within the timeout
+     */
+    public synchronized boolean awaitApplied(long sequence, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (long remaining = timeoutMillis; appliedSequence < sequence; remaining = deadline - System.currentTimeMillis()) {
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (epoch == 0) {
+                    loadSnapshot();
+                }
+                follow();
+            } catch (ResyncRequiredException ex) {
+                log.info("Resyncing from a leader snapshot: {}", ex.getMessage());
+                epoch = 0;
+            } catch (IOException | RuntimeException ex) {
+                connected = false;
+                if (!running) {
+                    break;
+                }
+                reconnects++;
+                log.warn("Replication stream failed, retrying in {} ms: {}", retryMillis, ex.toString());
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+        connected = false;
+    }
+
+    private void follow() throws IOException {
+        List<ReplicationEntry> batch = new ArrayList<>();
+        try (InputStream in = open(source.openLog(epoch, appliedSequence()))) {
+            DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+            connected = true;
+            long[] header;
+            while (running && (header = ReplicationCodec.readBatch(data, batch)) != null) {
+                for (ReplicationEntry entry : batch) {
+                    if (entry.getBook() != null) {
+                        bookService.applyReplicatedPut(entry.getBook());
+                    } else {
+                        bookService.applyReplicatedDelete(entry.getId());
+                    }
+                    appliedLeaderMillis = entry.getTimeMillis();
+                }
+                leaderSequence = header[0];
+                leaderMillis = header[1];
+                if (!batch.isEmpty()) {
+                    applied(batch.get(batch.size() - 1).getSequence());
+                    batch.clear();
+                }
+            }
+        } finally {
+            connected = false;
+        }
+    }
+
+    private void loadSnapshot() throws IOException {
+        long start = System.nanoTime();
+        // Local ids in ascending order, with the version held for each
+        List<long[]> held = localBooks();
+        long[] ids = held.get(0);
+        long[] versions = held.get(1);
+        boolean[] kept = new boolean[ids.length];
+        long books = 0;
+        long snapshotEpoch;
+        long snapshotSequence;
+        try (InputStream in = open(source.openSnapshot())) {
+            BufferedInputStream buffered = new BufferedInputStream(in, 64 * 1024);
+            DataInputStream data = new DataInputStream(buffered);
+            snapshotEpoch = data.readLong();
+            snapshotSequence = data.readLong();
+            BookWireCodec.Reader reader = new BookWireCodec.Reader(buffered);
+            for (BookVO book = reader.read(); book != null; book = reader.read()) {
+                int local = Arrays.binarySearch(ids, book.getId());
+                if (local >= 0) {
+                    kept[local] = true;
+                    if (versions[local] > book.getVersion()) {
+                        // Left over from an earlier leader; the current leader's copy wins
+                        bookService.applyReplicatedDelete(book.getId());
+                    }
+                }
+                bookService.applyReplicatedPut(book);
+                books++;
+            }
+        }
+        long deleted = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (!kept[i]) {
+                bookService.applyReplicatedDelete(ids[i]);
+                deleted++;
+            }
+        }
+        epoch = snapshotEpoch;
+        leaderSequence = Math.max(leaderSequence, snapshotSequence);
+        appliedLeaderMillis = leaderMillis;
+        snapshots++;
+        resetApplied(snapshotSequence);
+        log.info("Loaded a snapshot of {} books at sequence {} and deleted {} stale books in {} ms",
+                books, snapshotSequence, deleted, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private List<long[]> localBooks() {
+        long[] ids = new long[64];
+        long[] versions = new long[64];
+        int count = 0;
+        // Streamed in id order, so the ids come out sorted
+        try (Stream<BookVO> books = bookService.streamBooks(null)) {
+            Iterator<BookVO> it = books.iterator();
+            while (it.hasNext()) {
+                BookVO book = it.next();
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                    versions = Arrays.copyOf(versions, count * 2);
+                }
+                ids[count] = book.getId();
+                versions[count++] = book.getVersion();
+            }
+        }
+        return List.of(Arrays.copyOf(ids, count), Arrays.copyOf(versions, count));
+    }
+
+    private InputStream open(InputStream in) throws IOException {
+        current = in;
+        if (!running) {
+            in.close();
+            throw new IOException("Follower closed");
+        }
+        return in;
+    }
+
+    private synchronized void applied(long sequence) {
+        appliedSequence = sequence;
+        notifyAll();
+    }
+
+    private synchronized void resetApplied(long sequence) {
+        // A new epoch starts its sequence numbers over, so this may move backwards
+        appliedSequence = sequence;
+        notifyAll();
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // Only used to unblock the follower thread
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.library.replication;
+
+import com.library.codec.BookWireCodec;
+import com.library.model.BookVO;
+import com.library.persistence.BookJournal;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The replication leader's log: every mutation of the store gets the next sequence number
+ * and is kept in a ring of the last {@code retention} entries, from which followers stream
+ * everything after the last entry they applied.
+ *
+ * The log sits in front of the persistence journal (see {@link #wrap}), so the store hands
+ * it each change while holding that book's lock. Sequence order therefore matches the
+ * order in which the store applied changes to any one book; changes to different books
+ * commute, so that is all a follower needs to converge.
+ *
+ * A stream sends whatever has accumulated as one batch, up to {@code batchSize} entries,
+ * and goes straight on to the next without waiting for the follower, so under load
+ * batches grow and the per-entry cost shrinks. An idle stream sends an empty batch every
+ * {@code heartbeatMillis} to carry the leader's position for lag measurement. Each stream
+ * ends after {@code streamMillis} and the follower resumes with a new request, which keeps
+ * connections within servlet async timeouts and rebalances them after restarts.
+ *
+ * The log lives in memory and is identified by a random epoch. A follower that asks for
+ * another epoch, or for entries already overwritten in the ring, is told to resync from a
+ * {@link #writeSnapshot snapshot} instead.
+ */
+public class ReplicationLog {
+
+    private final long epoch;
+    private final int batchSize;
+    private final long heartbeatMillis;
+    private final long streamMillis;
+    private final AtomicInteger streams = new AtomicInteger();
+
+    // Guarded by this
+    private final ReplicationEntry[] ring;
+    private long sequence;
+    private boolean waiting;
+    // First sequence of every operation still being applied, see stableSequence()
+    private final TreeSet<Long> unfinished = new TreeSet<>();
+    private final ThreadLocal<long[]> operation = ThreadLocal.withInitial(() -> new long[1]);
+
+    // Live view of the store, handed over by the store through the journal
+    private volatile Iterable<BookVO> books;
+
+    /**
+     * @param retention       entries kept for followers that fall behind
+     * @param batchSize       entries sent in one batch, at most
+     * @param heartbeatMillis longest gap between batches on an idle stream
+     * @param streamMillis    how long one log request streams before the follower reconnects
+     */
+    public ReplicationLog(int retention, int batchSize, long heartbeatMillis, long streamMillis) {
+        if (retention < 1 || batchSize < 1 || heartbeatMillis < 1 || streamMillis < 1) {
+            throw new IllegalArgumentException("retention, batchSize, heartbeatMillis and streamMillis must be positive");
+        }
+        long random = ThreadLocalRandom.current().nextLong();
+        this.epoch = random == 0 ? 1 : random;
+        this.ring = new ReplicationEntry[retention];
+        this.batchSize = batchSize;
+        this.heartbeatMillis = heartbeatMillis;
+        this.streamMillis = streamMillis;
+    }
+
+    /**
+     * Returns a journal that records every mutation in this log before passing it on to
+     * {@code journal}. Recovery replays bypass it, so they are not replicated again.
+     */
+    public BookJournal wrap(BookJournal journal) {
+        return new BookJournal() {
+            @Override
+            public long recover(Consumer<BookVO> onPut, LongConsumer onDelete) {
+                return journal.recover(onPut, onDelete);
+            }
+
+            @Override
+            public void start(LongSupplier nextId, Iterable<BookVO> storeBooks) {
+                books = storeBooks;
+                journal.start(nextId, storeBooks);
+            }
+
+            @Override
+            public <T> T mutate(Supplier<T> mutation) {
+                return journal.mutate(mutation);
+            }
+
+            @Override
+            public void appendPut(BookVO book) {
+                // The store may hand the same instance back to callers, so keep a copy
+                BookVO copy = new BookVO(book.getId(), book.getTitle(), book.getAuthor(), book.getPrice());
+                copy.setVersion(book.getVersion());
+                append(copy.getId(), copy);
+                journal.appendPut(book);
+            }
+
+            @Override
+            public void appendDelete(long id) {
+                append(id, null);
+                journal.appendDelete(id);
+            }
+
+            @Override
+            public void commit() {
+                finish();
+                journal.commit();
+            }
+
+            @Override
+            public void close() {
+                journal.close();
+            }
+        };
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    /**
+     * Sequence number of the latest entry; 0 before the first.
+     */
+    public synchronized long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Log requests currently streaming, i.e. connected followers.
+     */
+    public int streams() {
+        return streams.get();
+    }
+
+    /**
+     * Whether a follower at {@code after} in {@code followerEpoch} can resume from this log
+     * rather than resync from a snapshot.
+     */
+    public synchronized boolean canResume(long followerEpoch, long after) {
+        return followerEpoch == epoch && after <= sequence && after >= sequence - ring.length;
+    }
+
+    /**
+     * Streams the entries after {@code after} to {@code out} for up to {@code streamMillis},
+     * waiting for new ones as they are appended.
+     *
+     * @throws ResyncRequiredException when the follower cannot resume from this log
+     */
+    public void writeLog(long followerEpoch, long after, OutputStream out) throws IOException {
+        if (!canResume(followerEpoch, after)) {
+            throw new ResyncRequiredException("Cannot resume epoch " + followerEpoch + " at " + after);
+        }
+        streams.incrementAndGet();
+        try {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+            List<ReplicationEntry> batch = new ArrayList<>();
+            long position = after;
+            long deadline = System.currentTimeMillis() + streamMillis;
+            for (long now = System.currentTimeMillis(); now < deadline; now = System.currentTimeMillis()) {
+                batch.clear();
+                long head = collect(position, batch, Math.min(heartbeatMillis, deadline - now));
+                ReplicationCodec.writeBatch(data, head, System.currentTimeMillis(), batch);
+                data.flush();
+                if (!batch.isEmpty()) {
+                    position = batch.get(batch.size() - 1).getSequence();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while streaming the replication log", ex);
+        } finally {
+            streams.decrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the whole store as {@code [long epoch][long sequence]} followed by
+     * {@link BookWireCodec} records. The store is read while writes continue, so the
+     * snapshot is only consistent once the follower has also applied the log after
+     * {@code sequence}. That replay overlaps changes the snapshot may already contain,
+     * which is safe because applying a version no newer than the stored one is a no-op.
+     */
+    public void writeSnapshot(OutputStream out) throws IOException {
+        Iterable<BookVO> view = books;
+        if (view == null) {
+            throw new IllegalStateException("The store has not started the journal yet");
+        }
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeLong(epoch);
+        data.writeLong(stableSequence());
+        data.flush();
+        BookWireCodec.Writer writer = new BookWireCodec.Writer(out);
+        for (BookVO book : view) {
+            writer.write(book);
+        }
+        writer.flush();
+    }
+
+    private synchronized void append(long id, BookVO book) {
+        sequence++;
+        ring[(int) (sequence % ring.length)] = new ReplicationEntry(sequence, System.currentTimeMillis(), id, book);
+        long[] first = operation.get();
+        if (first[0] == 0) {
+            first[0] = sequence;
+            unfinished.add(sequence);
+        }
+    }
+
+    private synchronized void finish() {
+        long[] first = operation.get();
+        if (first[0] != 0) {
+            unfinished.remove(first[0]);
+            first[0] = 0;
+        }
+        if (waiting) {
+            waiting = false;
+            notifyAll();
+        }
+    }
+
+    /**
+     * The store journals a change just before publishing it, so the latest entries may not
+     * be visible yet; everything up to the returned sequence is.
+     */
+    private synchronized long stableSequence() {
+        return unfinished.isEmpty() ? sequence : unfinished.first() - 1;
+    }
+
+    /**
+     * Adds the entries after {@code after} to {@code batch}, waiting up to
+     * {@code waitMillis} for one if there are none yet.
+     *
+     * @return the latest sequence number
+     */
+    private synchronized long collect(long after, List<ReplicationEntry> batch, long waitMillis)
+            throws InterruptedException, ResyncRequiredException {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        for (long remaining = waitMillis; sequence == after && remaining > 0;
+             remaining = deadline - System.currentTimeMillis()) {
+            waiting = true;
+            wait(remaining);
+        }
+        if (after < sequence - ring.length) {
+            throw new ResyncRequiredException("Entries after " + after + " are no longer retained");
+        }
+        for (long next = after + 1; next <= sequence && batch.size() < batchSize; next++) {
+            batch.add(ring[(int) (next % ring.length)]);
+        }
+        return sequence;
+    }
+}
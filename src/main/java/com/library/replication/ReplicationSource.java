@@ -0,0 +1,23 @@
+package com.library.replication;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Where a {@link ReplicationFollower} reads the leader's log and snapshots from.
+ */
+public interface ReplicationSource {
+
+    /**
+     * Opens a log stream of the entries after {@code after} in {@code epoch}, framed as
+     * described in {@code ReplicationCodec}.
+     *
+     * @throws ResyncRequiredException when the leader cannot resume from there
+     */
+    InputStream openLog(long epoch, long after) throws IOException;
+
+    /**
+     * Opens a snapshot stream, as written by {@link ReplicationLog#writeSnapshot}.
+     */
+    InputStream openSnapshot() throws IOException;
+}
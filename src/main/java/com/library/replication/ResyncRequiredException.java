@@ -0,0 +1,15 @@
+package com.library.replication;
+
+import java.io.IOException;
+
+/**
+ * The leader can no longer serve the log from where a follower left off, because the
+ * entries have dropped out of its retention window or the leader restarted with a new
+ * log; the follower has to start again from a snapshot.
+ */
+public class ResyncRequiredException extends IOException {
+
+    public ResyncRequiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,133 @@
+package com.library.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * On a follower, proxies writes to {@code /books} to the leader, which is the only
+ * instance that accepts them, and relays the leader's response. Before answering it waits
+ * up to {@code readYourWritesMillis} for the write to be replicated here, so the client's
+ * next read on this pod sees it. When the leader cannot be reached the write is refused
+ * with 503 and {@code Retry-After} rather than applied locally, which would let the
+ * replicas diverge.
+ */
+@Slf4j
+public class WriteForwardingFilter extends OncePerRequestFilter {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    // Set by HttpClient itself, or hop-by-hop and not to be forwarded
+    private static final Set<String> SKIPPED_HEADERS = Set.of("host", "content-length", "connection", "expect",
+            "upgrade", "transfer-encoding", "keep-alive", "te", "trailer", "http2-settings");
+
+    private final String leaderUrl;
+    private final ReplicationFollower follower;
+    private final long readYourWritesMillis;
+    private final HttpClient client;
+
+    /**
+     * @param readYourWritesMillis longest wait for a forwarded write to be replicated here
+     */
+    public WriteForwardingFilter(String leaderUrl, ReplicationFollower follower, long readYourWritesMillis) {
+        this.leaderUrl = leaderUrl.endsWith("/") ? leaderUrl.substring(0, leaderUrl.length() - 1) : leaderUrl;
+        this.follower = follower;
+        this.readYourWritesMillis = readYourWritesMillis;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build();
+    }
+
+    /**
+     * Whether the request may change the catalog.
+     */
+    static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !method.equals("GET") && !method.equals("HEAD") && !method.equals("OPTIONS")
+                && request.getRequestURI().startsWith(request.getContextPath() + "/books");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !isWrite(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String query = request.getQueryString();
+        HttpRequest.Builder forwarded = HttpRequest.newBuilder(URI.create(leaderUrl + path + (query != null ? "?" + query : "")))
+                .timeout(REQUEST_TIMEOUT)
+                .method(request.getMethod(), HttpRequest.BodyPublishers.ofByteArray(request.getInputStream().readAllBytes()));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase())) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    forwarded.header(name, value);
+                }
+            }
+        }
+
+        HttpResponse<InputStream> leaderResponse;
+        try {
+            leaderResponse = client.send(forwarded.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException ex) {
+            log.warn("Could not forward {} {} to the leader at {}: {}", request.getMethod(), path, leaderUrl, ex.toString());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Replication leader unavailable");
+            return;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        response.setStatus(leaderResponse.statusCode());
+        for (Map.Entry<String, List<String>> header : leaderResponse.headers().map().entrySet()) {
+            if (!SKIPPED_HEADERS.contains(header.getKey().toLowerCase()) && !header.getKey().startsWith(":")) {
+                for (String value : header.getValue()) {
+                    response.addHeader(header.getKey(), value);
+                }
+            }
+        }
+        byte[] body;
+        try (InputStream in = leaderResponse.body()) {
+            body = in.readAllBytes();
+        }
+
+        String sequence = leaderResponse.headers().firstValue(LeaderSequenceFilter.SEQUENCE_HEADER).orElse(null);
+        if (sequence != null) {
+            try {
+                if (!follower.awaitApplied(Long.parseLong(sequence), readYourWritesMillis)) {
+                    log.debug("Write {} not replicated within {} ms", sequence, readYourWritesMillis);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        response.setContentLength(body.length);
+        try (OutputStream out = response.getOutputStream()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.library.repository;
+
+import com.library.model.BookVO;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Secondary index mapping a normalized book attribute (author, title, ...) to the ids of
+ * the books carrying that value.
+ *
+ * Lookups are case-insensitive and ignore surrounding whitespace. The index may briefly
+ * contain ids whose book has just changed, so callers must re-check the attribute against
+ * the stored book before returning it.
+ */
+class AttributeIndex {
+
+    private final Function<BookVO, String> attribute;
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    AttributeIndex(Function<BookVO, String> attribute) {
+        this.attribute = attribute;
+    }
+
+    void add(BookVO book) {
+        String key = normalize(attribute.apply(book));
+        if (key == null) {
+            return;
+        }
+        postings.compute(key, (k, ids) -> {
+            Set<Long> target = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            target.add(book.getId());
+            return target;
+        });
+    }
+
+    void remove(BookVO book) {
+        String key = normalize(attribute.apply(book));
+        if (key == null) {
+            return;
+        }
+        // Drop the posting set once empty so removed values don't accumulate
+        postings.computeIfPresent(key, (k, ids) -> {
+            ids.remove(book.getId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Returns a live, read-only view of the ids indexed under the given value.
+     */
+    Set<Long> lookup(String value) {
+        String key = normalize(value);
+        Set<Long> ids = key == null ? null : postings.get(key);
+        return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    boolean matches(BookVO book, String value) {
+        String key = normalize(value);
+        return key != null && key.equals(normalize(attribute.apply(book)));
+    }
+
+    static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
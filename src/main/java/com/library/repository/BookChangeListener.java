@@ -0,0 +1,20 @@
+package com.library.repository;
+
+import com.library.model.BookVO;
+
+/**
+ * Told of every book a {@link BookRepository} adds, replaces or removes, with the book it
+ * replaced, so state derived from the catalog can be updated by difference.
+ */
+@FunctionalInterface
+public interface BookChangeListener {
+
+    BookChangeListener NONE = (before, after) -> {
+    };
+
+    /**
+     * @param before the book as stored until now, or null when it was added
+     * @param after  the book as stored now, or null when it was removed
+     */
+    void changed(BookVO before, BookVO after);
+}
@@ -0,0 +1,27 @@
+package com.library.repository;
+
+import com.library.model.BookVO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes a store made under its lock, held back until the lock is released and then
+ * reported to its {@link BookChangeListener}. Not thread-safe.
+ */
+final class BookChanges {
+
+    private final List<BookVO> before = new ArrayList<>();
+    private final List<BookVO> after = new ArrayList<>();
+
+    void add(BookVO before, BookVO after) {
+        this.before.add(before);
+        this.after.add(after);
+    }
+
+    void report(BookChangeListener listener) {
+        for (int i = 0; i < before.size(); i++) {
+            listener.changed(before.get(i), after.get(i));
+        }
+    }
+}
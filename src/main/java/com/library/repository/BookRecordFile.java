@@ -0,0 +1,383 @@
+package com.library.repository;
+
+import com.library.model.BookVO;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Append-only file of book records, addressed by id through an in-heap table of packed
+ * {@code (offset, length)} longs: eight bytes of heap per id instead of a whole
+ * {@link BookVO}. Ids are dense, so the table is a chunked array indexed by id, with a
+bitmap of the ids that have a record alongside it so scans can skip runs of deleted ids
+64 at a time.
+ *
+ * Record layout: {@code [long version][byte hasPrice][double price][int titleLength][title]
+ * [int authorLength][author]}, strings as UTF-8 with -1 for null. Replaced and deleted
+ * records stay in the file as garbage until a {@link Compaction} rewrites it.
+ *
+ * Reads use positional I/O and may run concurrently with each other; writes must be
+ * serialized by the caller against everything else. Compaction is split so that only its
+ * first and last steps need the caller's locks, see {@link #startCompaction()}.
+ */
+final class BookRecordFile implements AutoCloseable {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int LENGTH_BITS = 24;
+    private static final int MAX_RECORD_BYTES = (1 << LENGTH_BITS) - 1;
+    private static final long COMPACTION_MIN_BYTES = 4L << 20;
+
+    private final Path path;
+    private FileChannel channel;
+    private long[][] locations = new long[16][];
+    private long[][] present = new long[16][];
+    private Compaction compaction;
+    private long end;
+    private long liveBytes;
+
+    BookRecordFile(Path path) {
+        this.path = path;
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            // The disk tier is spill space for this process, not a durable store
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open disk tier " + path, ex);
+        }
+    }
+
+    boolean contains(long id) {
+        return location(id) != 0;
+    }
+
+    /**
+     * @return the smallest id above {@code after} that has a record, or -1 when there is none
+     */
+    long nextId(long after) {
+        long id = Math.max(after, 0) + 1;
+        if (id <= 0 || id >>> CHUNK_BITS >= present.length) {
+            return -1;
+        }
+        int chunk = (int) (id >>> CHUNK_BITS);
+        int word = (int) (id & (CHUNK_SIZE - 1)) >>> 6;
+        long mask = -1L << id;
+        for (; chunk < present.length; chunk++, word = 0, mask = -1L) {
+            long[] bits = present[chunk];
+            if (bits == null) {
+                continue;
+            }
+            for (; word < bits.length; word++, mask = -1L) {
+                long live = bits[word] & mask;
+                if (live != 0) {
+                    return (long) chunk << CHUNK_BITS | (long) word << 6 | Long.numberOfTrailingZeros(live);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Appends the book as the current record for its id.
+     */
+    void write(BookVO book) {
+        ByteBuffer record = encode(book);
+        int length = record.remaining();
+        long offset = end;
+        try {
+            while (record.hasRemaining()) {
+                end += channel.write(record, end);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot write to disk tier " + path, ex);
+        }
+        release(book.getId());
+        setLocation(book.getId(), offset << LENGTH_BITS | length);
+        liveBytes += length;
+    }
+
+    /**
+     * @return the stored book, or null when the id has no record
+     */
+    BookVO read(long id) {
+        long location = location(id);
+        if (location == 0) {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.allocate((int) (location & MAX_RECORD_BYTES));
+        readFully(record, location >>> LENGTH_BITS);
+        record.flip();
+        return decode(id, record);
+    }
+
+    void delete(long id) {
+        release(id);
+        setLocation(id, 0);
+    }
+
+    long liveBytes() {
+        return liveBytes;
+    }
+
+    long fileBytes() {
+        return end;
+    }
+
+    /**
+     * Whether garbage outweighs the live records enough to be worth a compaction.
+     */
+    boolean isWasteful() {
+        return end >= COMPACTION_MIN_BYTES && end - liveBytes >= liveBytes;
+    }
+
+    /**
+     * Snapshots the location table for a compaction. The caller must exclude writes for
+     * this call, then run {@link Compaction#copy()} without any lock and hand the result
+     * to {@link #finishCompaction} while excluding everything.
+     */
+    Compaction startCompaction() {
+        long[][] snapshot = new long[locations.length][];
+        for (int i = 0; i < locations.length; i++) {
+            snapshot[i] = locations[i] == null ? null : locations[i].clone();
+        }
+        Path compactedPath = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            compaction = new Compaction(compactedPath, channel, snapshot, end);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot compact disk tier " + path, ex);
+        }
+        return compaction;
+    }
+
+    /**
+     * Copies the records written since the snapshot, then swaps the compacted file in.
+     * Only the location table is walked here; the bulk of the copying was done unlocked.
+     */
+    void finishCompaction(Compaction finished) {
+        if (finished != compaction) {
+            return;
+        }
+        compaction = null;
+        try {
+            long[][] relocated = finished.locations;
+            if (relocated.length < locations.length) {
+                relocated = Arrays.copyOf(relocated, locations.length);
+            }
+            for (int c = 0; c < locations.length; c++) {
+                long[] current = locations[c];
+                if (current == null) {
+                    continue;
+                }
+                if (relocated[c] == null) {
+                    relocated[c] = new long[CHUNK_SIZE];
+                }
+                for (int i = 0; i < CHUNK_SIZE; i++) {
+                    if (current[i] == 0) {
+                        relocated[c][i] = 0;
+                    } else if (current[i] >>> LENGTH_BITS >= finished.end) {
+                        // Appended during the copy, so not in the snapshot
+                        relocated[c][i] = finished.append(current[i]);
+                    }
+                    // Otherwise unchanged since the snapshot, and already copied
+                }
+            }
+            Files.move(finished.path, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = finished.target;
+            locations = relocated;
+            end = finished.written;
+        } catch (IOException ex) {
+            finished.abandon();
+            throw new UncheckedIOException("Cannot compact disk tier " + path, ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (compaction != null) {
+            compaction.abandon();
+            compaction = null;
+        }
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) {
+        try {
+            readFully(channel, buffer, position);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read from disk tier " + path, ex);
+        }
+    }
+
+    private static void readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file at " + position);
+            }
+        }
+    }
+
+    private void release(long id) {
+        long previous = location(id);
+        if (previous != 0) {
+            liveBytes -= previous & MAX_RECORD_BYTES;
+        }
+    }
+
+    private long location(long id) {
+        int chunk = (int) (id >>> CHUNK_BITS);
+        long[] locationsChunk = chunk < locations.length ? locations[chunk] : null;
+        return locationsChunk == null ? 0 : locationsChunk[(int) (id & (CHUNK_SIZE - 1))];
+    }
+
+    private void setLocation(long id, long location) {
+        int chunk = (int) (id >>> CHUNK_BITS);
+        if (chunk >= locations.length) {
+            if (location == 0) {
+                return;
+            }
+            locations = Arrays.copyOf(locations, Math.max(chunk + 1, locations.length * 2));
+            present = Arrays.copyOf(present, locations.length);
+        }
+        if (locations[chunk] == null) {
+            if (location == 0) {
+                return;
+            }
+            locations[chunk] = new long[CHUNK_SIZE];
+            present[chunk] = new long[CHUNK_SIZE >>> 6];
+        }
+        int index = (int) (id & (CHUNK_SIZE - 1));
+        locations[chunk][index] = location;
+        if (location == 0) {
+            present[chunk][index >>> 6] &= ~(1L << index);
+        } else {
+            present[chunk][index >>> 6] |= 1L << index;
+        }
+    }
+
+    private static ByteBuffer encode(BookVO book) {
+        byte[] title = utf8(book.getTitle());
+        byte[] author = utf8(book.getAuthor());
+        int size = 8 + 1 + 8 + 4 + (title == null ? 0 : title.length) + 4 + (author == null ? 0 : author.length);
+        if (size > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Book " + book.getId() + " is too large for the disk tier");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(book.getVersion());
+        buffer.put((byte) (book.getPrice() == null ? 0 : 1));
+        buffer.putDouble(book.getPrice() == null ? 0 : book.getPrice());
+        putString(buffer, title);
+        putString(buffer, author);
+        return buffer.flip();
+    }
+
+    private static BookVO decode(long id, ByteBuffer buffer) {
+        long version = buffer.getLong();
+        boolean hasPrice = buffer.get() != 0;
+        double price = buffer.getDouble();
+        String title = getString(buffer);
+        String author = getString(buffer);
+        BookVO book = new BookVO(id, title, author, hasPrice ? price : null);
+        book.setVersion(version);
+        return book;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * A rewrite of the live records into a fresh file. The records in the snapshot are
+     * immutable once written, so {@link #copy()} can read them through the old channel
+     * while readers and writers carry on; writers only append past {@link #end}.
+     */
+    static final class Compaction {
+
+        private final Path path;
+        private final FileChannel source;
+        private final FileChannel target;
+        private final long[][] locations;
+        private final long end;
+        private long written;
+
+        private Compaction(Path path, FileChannel source, long[][] locations, long end) throws IOException {
+            this.path = path;
+            this.source = source;
+            this.target = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.locations = locations;
+            this.end = end;
+        }
+
+        /**
+         * Copies every record in the snapshot, rewriting the snapshot to the new locations.
+         * On failure the compaction is abandoned and the disk tier keeps its current file.
+         */
+        void copy() {
+            try {
+                for (long[] chunk : locations) {
+                    if (chunk == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < CHUNK_SIZE; i++) {
+                        if (chunk[i] != 0) {
+                            chunk[i] = append(chunk[i]);
+                        }
+                    }
+                }
+            } catch (IOException ex) {
+                abandon();
+                throw new UncheckedIOException("Cannot compact disk tier " + path, ex);
+            }
+        }
+
+        private long append(long location) throws IOException {
+            int length = (int) (location & MAX_RECORD_BYTES);
+            ByteBuffer record = ByteBuffer.allocate(length);
+            readFully(source, record, location >>> LENGTH_BITS);
+            record.flip();
+            long offset = written;
+            while (record.hasRemaining()) {
+                written += target.write(record, written);
+            }
+            return offset << LENGTH_BITS | length;
+        }
+
+        private void abandon() {
+            try {
+                target.close();
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // Spill space; the next compaction truncates it anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.library.repository;
+
+import com.library.exception.SnapshotExpiredException;
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage engine behind {@code BookService}. Implementations assign ids and versions on
+ * insert, bump the version on every update, and keep listings in id order so they can be
+ * paged with an {@code after} cursor.
+ */
+public interface BookRepository {
+
+    /**
+     * Stores a new book and assigns its id; the version starts at 1.
+     */
+    BookVO insert(BookVO book);
+
+    /**
+     * Stores new books and assigns their ids, in list order.
+     */
+    List<BookVO> insertAll(List<BookVO> books);
+
+    Optional<BookVO> findById(long id);
+
+    /**
+     * The stored version of the book, or null when there is no such book. Stores override
+     * this where they can answer without reading the whole book.
+     */
+    default Long versionOf(long id) {
+        return findById(id).map(BookVO::getVersion).orElse(null);
+    }
+
+    /**
+     * Replaces the book with the given id and bumps its version.
+     *
+     * @return false when no such book exists
+     */
+    default boolean update(long id, BookVO book) {
+        return update(id, book, null) == WriteStatus.APPLIED;
+    }
+
+    /**
+     * Replaces the book with the given id if its version still equals
+     * {@code expectedVersion} (any version when null). The check and the write are one
+     * atomic step, and on success the new version is set on {@code book}.
+     */
+    WriteStatus update(long id, BookVO book, Long expectedVersion);
+
+    /**
+     * Replaces each book by its (non-null) id, setting its new version on each book
+     * replaced.
+     *
+     * @return for each book, whether it existed and was replaced
+     */
+    boolean[] updateAll(List<BookVO> books);
+
+    /**
+     * Stores a copy of a book replicated from another instance under its own id and
+     * version, unless the stored copy is already at that version or newer. Later inserts
+     * are assigned ids above it.
+     *
+     * @return whether the book was stored
+     */
+    default boolean putReplica(BookVO book) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support replication");
+    }
+
+    /**
+     * @return false when no such book exists
+     */
+    default boolean delete(long id) {
+        return delete(id, null) == WriteStatus.APPLIED;
+    }
+
+    /**
+     * Deletes the book if its version still equals {@code expectedVersion} (any version
+     * when null), atomically.
+     */
+    WriteStatus delete(long id, Long expectedVersion);
+
+    /**
+     * @return for each id, whether a book existed and was deleted
+     */
+    boolean[] deleteAll(List<Long> ids);
+
+    List<BookVO> findAll();
+
+    /**
+     * Returns up to {@code limit} books with an id greater than {@code after} (or from the
+     * start when null), in id order.
+     */
+    List<BookVO> findPage(Long after, int limit);
+
+    /**
+     * Lazily streams books in id order, starting after the given id (or from the start when
+     * null). Callers must close the stream.
+     */
+    Stream<BookVO> stream(Long after);
+
+    /**
+     * An O(1) immutable view of the current catalog, for paging that does not see writes
+     * made in between pages; null when the store cannot take one.
+     */
+    default PagingSnapshot snapshot() {
+        return null;
+    }
+
+    /**
+     * A snapshot retained earlier with {@link PagingSnapshot#retain()}.
+     *
+     * @throws SnapshotExpiredException when no snapshot with that token is retained
+     */
+    default PagingSnapshot snapshot(long token) {
+        throw new SnapshotExpiredException("Snapshot " + token + " not found");
+    }
+
+    /**
+     * Finds books matching every non-null criterion (case-insensitive exact match), in id
+     * order. At least one criterion is non-null.
+     */
+    List<BookVO> findByAuthorAndTitle(String author, String title);
+
+    /**
+     * Returns up to {@code limit} books priced within the inclusive bounds (null means
+     * unbounded), ordered by price and then id, or the reverse when descending. Books
+     * without a price never match.
+     */
+    List<BookVO> findByPriceRange(Double minPrice, Double maxPrice, int limit, boolean descending);
+
+    /**
+     * Counts and sums the prices within the inclusive bounds (null means unbounded).
+     */
+    PriceSummary summarizePrices(Double minPrice, Double maxPrice);
+
+    /**
+     * Sets the listener told of every book this store adds, replaces or removes from now
+     * on. It is called once the change is applied, outside the store's locks, so changes to
+     * one book may reach it in another order than they were made. Replicated writes
+     * count as changes; books already stored when the listener is set do not.
+     */
+    void setChangeListener(BookChangeListener listener);
+
+    /**
+     * Number of books currently stored.
+     */
+    long count();
+
+    /**
+     * The id the next insert will be assigned; every id below it has been handed out.
+     * Stores with a non-sequential {@code IdAllocator} return a lower bound instead.
+     */
+    long nextId();
+}
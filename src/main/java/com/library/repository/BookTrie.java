@@ -0,0 +1,374 @@
+package com.library.repository;
+
+import com.library.model.BookVO;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable map from book id to book: a bitmapped trie in the style of a HAMT, but indexed
+ * by the id's own bits from the most significant end instead of by a hash, so iteration
+ * runs in id order and can start after any id. Every node has up to 32 slots selected by
+ * five bits of the id; a slot holds either a book or a child node, and a book sits at the
+ * shallowest level where no other id shares its prefix. The root only covers the bits in
+ * use, so sequential ids below a million are at most four levels deep.
+ *
+ * Updates copy the path from the root to the changed slot and share everything else, so a
+ * reader holding an older trie keeps an unchanging view at no cost. {@link #edit()} batches
+ * many updates: nodes it has already copied are changed in place instead of being copied
+ * again, and the result is immutable once {@link Editor#build()} returns.
+ *
+ * Ids must be positive.
+ */
+final class BookTrie {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    // Shift of the level holding bits 60..63, the highest a positive long needs
+    private static final int MAX_SHIFT = 60;
+
+    static final BookTrie EMPTY = new BookTrie(Node.EMPTY, 0, 0);
+
+    private final Node root;
+    private final int shift;
+    private final int size;
+
+    private BookTrie(Node root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    BookVO get(long id) {
+        return get(root, shift, id);
+    }
+
+    private static BookVO get(Node root, int shift, long id) {
+        if (!covers(shift, id)) {
+            return null;
+        }
+        Node node = root;
+        for (int s = shift; ; s -= BITS) {
+            int bit = bit(id, s);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[node.index(bit)];
+            if (slot instanceof BookVO) {
+                BookVO book = (BookVO) slot;
+                return book.getId() == id ? book : null;
+            }
+            node = (Node) slot;
+        }
+    }
+
+    BookTrie put(BookVO book) {
+        Editor editor = new Editor(this, null);
+        editor.put(book);
+        return editor.build();
+    }
+
+    BookTrie remove(long id) {
+        Editor editor = new Editor(this, null);
+        editor.remove(id);
+        return editor.build();
+    }
+
+    Editor edit() {
+        return new Editor(this, new Object());
+    }
+
+    /**
+     * Books with an id greater than {@code after} (all books when null), in id order.
+     */
+    Iterator<BookVO> iterator(Long after) {
+        return new Cursor(after == null ? 0 : after + 1);
+    }
+
+    private static boolean covers(int shift, long id) {
+        return shift >= MAX_SHIFT || (id >>> (shift + BITS)) == 0;
+    }
+
+    private static int bit(long id, int shift) {
+        return 1 << (int) ((id >>> shift) & MASK);
+    }
+
+    /**
+     * Applies a series of updates to a trie. Without an edit token every update copies its
+     * path; with one, nodes created by this editor are reused.
+     */
+    static final class Editor {
+        private final Object edit;
+        private Node root;
+        private int shift;
+        private int size;
+        private boolean built;
+
+        private Editor(BookTrie trie, Object edit) {
+            this.root = trie.root;
+            this.shift = trie.shift;
+            this.size = trie.size;
+            this.edit = edit;
+        }
+
+        /**
+         * Looks the id up with the updates made so far applied.
+         */
+        BookVO get(long id) {
+            return BookTrie.get(root, shift, id);
+        }
+
+        /**
+         * Adds the book, or replaces the one with the same id.
+         */
+        void put(BookVO book) {
+            check();
+            long id = book.getId();
+            if (id <= 0) {
+                throw new IllegalArgumentException("Book ids must be positive: " + id);
+            }
+            while (!covers(shift, id)) {
+                // Everything stored so far has zeros above the root's bits
+                if (root.bitmap != 0) {
+                    root = new Node(edit, 1, new Object[]{root});
+                }
+                shift += BITS;
+            }
+            boolean[] added = {false};
+            root = put(root, shift, book, added);
+            if (added[0]) {
+                size++;
+            }
+        }
+
+        void remove(long id) {
+            check();
+            if (!covers(shift, id)) {
+                return;
+            }
+            boolean[] removed = {false};
+            Node updated = remove(root, shift, id, removed);
+            if (removed[0]) {
+                root = updated != null ? updated : Node.EMPTY;
+                size--;
+            }
+        }
+
+        BookTrie build() {
+            check();
+            built = true;
+            return new BookTrie(root, shift, size);
+        }
+
+        private void check() {
+            if (built) {
+                throw new IllegalStateException("Editor already built");
+            }
+        }
+
+        private Node put(Node node, int s, BookVO book, boolean[] added) {
+            int bit = bit(book.getId(), s);
+            int index = node.index(bit);
+            if ((node.bitmap & bit) == 0) {
+                added[0] = true;
+                return node.insert(edit, bit, index, book);
+            }
+            Object slot = node.slots[index];
+            if (slot instanceof BookVO) {
+                BookVO present = (BookVO) slot;
+                if (present.getId().equals(book.getId())) {
+                    return node.set(edit, index, book);
+                }
+                added[0] = true;
+                return node.set(edit, index, pair(s - BITS, present, book));
+            }
+            Node child = (Node) slot;
+            Node updated = put(child, s - BITS, book, added);
+            return updated == child ? node : node.set(edit, index, updated);
+        }
+
+        /**
+         * @return the node without the id (the same node when the id is absent), or null
+         *         when the node would be left empty
+         */
+        private Node remove(Node node, int s, long id, boolean[] removed) {
+            int bit = bit(id, s);
+            if ((node.bitmap & bit) == 0) {
+                return node;
+            }
+            int index = node.index(bit);
+            Object slot = node.slots[index];
+            if (slot instanceof BookVO) {
+                if (((BookVO) slot).getId() != id) {
+                    return node;
+                }
+                removed[0] = true;
+                return node.delete(edit, bit, index);
+            }
+            Node child = (Node) slot;
+            Node updated = remove(child, s - BITS, id, removed);
+            if (!removed[0]) {
+                return node;
+            }
+            if (updated == null) {
+                return node.delete(edit, bit, index);
+            }
+            // A child left with a single book gives it back, keeping books at the
+            // shallowest level where their prefix is unique
+            if (updated.slots.length == 1 && updated.slots[0] instanceof BookVO) {
+                return node.set(edit, index, updated.slots[0]);
+            }
+            // An editable child was changed in place
+            return updated == child ? node : node.set(edit, index, updated);
+        }
+
+        private Node pair(int s, BookVO first, BookVO second) {
+            int firstBit = bit(first.getId(), s);
+            int secondBit = bit(second.getId(), s);
+            if (firstBit == secondBit) {
+                return new Node(edit, firstBit, new Object[]{pair(s - BITS, first, second)});
+            }
+            Object[] slots = Integer.compareUnsigned(firstBit, secondBit) < 0
+                    ? new Object[]{first, second}
+                    : new Object[]{second, first};
+            return new Node(edit, firstBit | secondBit, slots);
+        }
+    }
+
+    private static final class Node {
+        static final Node EMPTY = new Node(null, 0, new Object[0]);
+
+        // Editor that created the node and may still change it in place
+        final Object edit;
+        int bitmap;
+        Object[] slots;
+
+        Node(Object edit, int bitmap, Object[] slots) {
+            this.edit = edit;
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private boolean editable(Object edit) {
+            return edit != null && this.edit == edit;
+        }
+
+        Node set(Object edit, int index, Object value) {
+            if (editable(edit)) {
+                slots[index] = value;
+                return this;
+            }
+            Object[] copy = slots.clone();
+            copy[index] = value;
+            return new Node(edit, bitmap, copy);
+        }
+
+        Node insert(Object edit, int bit, int index, Object value) {
+            Object[] copy = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, copy, 0, index);
+            copy[index] = value;
+            System.arraycopy(slots, index, copy, index + 1, slots.length - index);
+            if (editable(edit)) {
+                bitmap |= bit;
+                slots = copy;
+                return this;
+            }
+            return new Node(edit, bitmap | bit, copy);
+        }
+
+        /**
+         * @return null when the removed slot was the last one
+         */
+        Node delete(Object edit, int bit, int index) {
+            if (slots.length == 1) {
+                return null;
+            }
+            Object[] copy = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, copy, 0, index);
+            System.arraycopy(slots, index + 1, copy, index, copy.length - index);
+            if (editable(edit)) {
+                bitmap &= ~bit;
+                slots = copy;
+                return this;
+            }
+            return new Node(edit, bitmap & ~bit, copy);
+        }
+    }
+
+    /**
+     * Depth-first walk over the slots in order, which is id order. Positioned once at the
+     * start id; from there every slot to the right holds larger ids.
+     */
+    private final class Cursor implements Iterator<BookVO> {
+        private final Node[] nodes = new Node[MAX_SHIFT / BITS + 1];
+        private final int[] positions = new int[nodes.length];
+        private int depth = -1;
+        private BookVO next;
+
+        Cursor(long from) {
+            // from overflows to negative after the largest id
+            if (from < 0 || !covers(shift, from)) {
+                return;
+            }
+            Node node = root;
+            for (int s = shift; ; s -= BITS) {
+                nodes[++depth] = node;
+                int bit = bit(from, s);
+                int index = node.index(bit);
+                if ((node.bitmap & bit) == 0) {
+                    positions[depth] = index;
+                    break;
+                }
+                Object slot = node.slots[index];
+                if (slot instanceof BookVO) {
+                    positions[depth] = ((BookVO) slot).getId() >= from ? index : index + 1;
+                    break;
+                }
+                positions[depth] = index + 1;
+                node = (Node) slot;
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                if (positions[depth] == node.slots.length) {
+                    nodes[depth--] = null;
+                    continue;
+                }
+                Object slot = node.slots[positions[depth]++];
+                if (slot instanceof BookVO) {
+                    next = (BookVO) slot;
+                    return;
+                }
+                nodes[++depth] = (Node) slot;
+                positions[depth] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public BookVO next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            BookVO book = next;
+            advance();
+            return book;
+        }
+    }
+}
@@ -0,0 +1,525 @@
+package com.library.repository;
+
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Column-oriented store that keeps books in primitive arrays instead of one object graph
+ * per book: ids and versions in {@code long[]}s, prices in a {@code double[]}, authors as dictionary
+ * codes in an {@code int[]} and titles as UTF-8 bytes in a {@link TitleArena} (optionally
+ * off-heap). {@link BookVO} instances are only created when a book leaves the repository.
+ *
+ * Ids are handed out under the write lock and slots are appended, so the id column stays
+ * sorted and doubles as the primary index: point reads and cursor pages are binary
+ * searches, with no per-book hash entry. Deleted slots are tombstoned and squeezed out
+ * once they make up a quarter of the store.
+ */
+public class CompactBookRepository implements BookRepository {
+
+    static final int STREAM_PAGE_SIZE = 256;
+
+    private static final int DELETED = -1;
+    private static final int NO_AUTHOR = -2;
+    private static final int NO_TITLE = -1;
+    private static final int COMPACTION_MIN_SLOTS = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Columns, one entry per slot; everything below is guarded by lock
+    private long[] ids;
+    private long[] versions;
+    private int[] authorCodes;
+    private double[] prices;
+    private long[] titleOffsets;
+    private int[] titleLengths;
+    private int size;
+    private int deleted;
+    private long nextId = 1;
+
+    private TitleArena titles;
+    private final StringDictionary authors = new StringDictionary();
+    // Author index: normalized author -> sorted ids; exact author code -> normalized code
+    private final StringDictionary authorKeys = new StringDictionary();
+    private int[] authorKeyOf = new int[16];
+    private long[][] authorPostings = new long[16][];
+    private int[] authorPostingSizes = new int[16];
+    // Title index: hash of the normalized title -> ids, verified against the stored title
+    private final IntLongMultimap titleIndex;
+    private final PriceIndex priceIndex = new PriceIndex();
+    private volatile BookChangeListener changeListener = BookChangeListener.NONE;
+
+    public CompactBookRepository(boolean offHeapTitles) {
+        this(offHeapTitles, 1024);
+    }
+
+    public CompactBookRepository(boolean offHeapTitles, int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        ids = new long[capacity];
+        versions = new long[capacity];
+        authorCodes = new int[capacity];
+        prices = new double[capacity];
+        titleOffsets = new long[capacity];
+        titleLengths = new int[capacity];
+        titles = new TitleArena(offHeapTitles);
+        titleIndex = new IntLongMultimap(capacity);
+    }
+
+    @Override
+    public BookVO insert(BookVO book) {
+        lock.writeLock().lock();
+        try {
+            book.setId(nextId++);
+            append(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changeListener.changed(null, book);
+        return book;
+    }
+
+    @Override
+    public List<BookVO> insertAll(List<BookVO> books) {
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(size + books.size());
+            for (BookVO book : books) {
+                book.setId(nextId++);
+                append(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        books.forEach(book -> changeListener.changed(null, book));
+        return books;
+    }
+
+    @Override
+    public Optional<BookVO> findById(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(id);
+            return slot < 0 ? Optional.empty() : Optional.of(materialize(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Long versionOf(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(id);
+            return slot < 0 ? null : versions[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public WriteStatus update(long id, BookVO book, Long expectedVersion) {
+        BookChanges changes = new BookChanges();
+        WriteStatus status;
+        lock.writeLock().lock();
+        try {
+            status = replace(id, book, expectedVersion, changes);
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changes.report(changeListener);
+        return status;
+    }
+
+    @Override
+    public boolean[] updateAll(List<BookVO> books) {
+        boolean[] updated = new boolean[books.size()];
+        BookChanges changes = new BookChanges();
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < updated.length; i++) {
+                BookVO book = books.get(i);
+                updated[i] = replace(book.getId(), book, null, changes) == WriteStatus.APPLIED;
+            }
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changes.report(changeListener);
+        return updated;
+    }
+
+    @Override
+    public WriteStatus delete(long id, Long expectedVersion) {
+        BookChanges changes = new BookChanges();
+        WriteStatus status;
+        lock.writeLock().lock();
+        try {
+            status = remove(id, expectedVersion, changes);
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changes.report(changeListener);
+        return status;
+    }
+
+    @Override
+    public boolean[] deleteAll(List<Long> idList) {
+        boolean[] removed = new boolean[idList.size()];
+        BookChanges changes = new BookChanges();
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < removed.length; i++) {
+                removed[i] = remove(idList.get(i), null, changes) == WriteStatus.APPLIED;
+            }
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changes.report(changeListener);
+        return removed;
+    }
+
+    @Override
+    public List<BookVO> findAll() {
+        lock.readLock().lock();
+        try {
+            List<BookVO> all = new ArrayList<>(size - deleted);
+            for (int slot = 0; slot < size; slot++) {
+                if (authorCodes[slot] != DELETED) {
+                    all.add(materialize(slot));
+                }
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BookVO> findPage(Long after, int limit) {
+        lock.readLock().lock();
+        try {
+            List<BookVO> items = new ArrayList<>(Math.min(limit, 64));
+            for (int slot = after == null ? 0 : firstSlotAfter(after); slot < size && items.size() < limit; slot++) {
+                if (authorCodes[slot] != DELETED) {
+                    items.add(materialize(slot));
+                }
+            }
+            return items;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Stream<BookVO> stream(Long after) {
+        return PagedStream.of(after, STREAM_PAGE_SIZE, this::findPage);
+    }
+
+    @Override
+    public List<BookVO> findByAuthorAndTitle(String author, String title) {
+        String authorKey = AttributeIndex.normalize(author);
+        String titleKey = AttributeIndex.normalize(title);
+        lock.readLock().lock();
+        try {
+            long[] candidates;
+            int count;
+            long[] byTitle = titleKey == null ? null : titleIndex.get(titleKey.hashCode());
+            if (authorKey != null) {
+                int key = authorKeys.find(authorKey);
+                if (key < 0) {
+                    return List.of();
+                }
+                candidates = authorPostings[key];
+                count = authorPostingSizes[key];
+                // Scan whichever side is more selective
+                if (byTitle != null && byTitle.length < count) {
+                    candidates = byTitle;
+                    count = byTitle.length;
+                }
+            } else {
+                candidates = byTitle;
+                count = byTitle.length;
+            }
+
+            List<BookVO> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int slot = slotOf(candidates[i]);
+                if (slot >= 0
+                        && (authorKey == null || authorKey.equals(AttributeIndex.normalize(authorAt(slot))))
+                        && (titleKey == null || titleKey.equals(AttributeIndex.normalize(titleAt(slot))))) {
+                    result.add(materialize(slot));
+                }
+            }
+            if (candidates == byTitle) {
+                result.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BookVO> findByPriceRange(Double minPrice, Double maxPrice, int limit, boolean descending) {
+        lock.readLock().lock();
+        try {
+            long[] matches = priceIndex.range(minPrice, maxPrice, limit, descending);
+            List<BookVO> result = new ArrayList<>(matches.length);
+            for (long id : matches) {
+                result.add(materialize(slotOf(id)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public PriceSummary summarizePrices(Double minPrice, Double maxPrice) {
+        return priceIndex.summarize(minPrice, maxPrice);
+    }
+
+    @Override
+    public void setChangeListener(BookChangeListener listener) {
+        changeListener = listener;
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return size - deleted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long nextId() {
+        lock.readLock().lock();
+        try {
+            return nextId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Live title bytes held by the arena; off-heap when the store was created that way.
+     */
+    public long titleBytes() {
+        lock.readLock().lock();
+        try {
+            return titles.liveBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void append(BookVO book) {
+        ensureCapacity(size + 1);
+        int slot = size++;
+        ids[slot] = book.getId();
+        versions[slot] = 1;
+        book.setVersion(1L);
+        write(slot, book);
+        index(slot, book);
+    }
+
+    private WriteStatus replace(long id, BookVO book, Long expectedVersion, BookChanges changes) {
+        book.setId(id);
+        int slot = slotOf(id);
+        if (slot < 0) {
+            return WriteStatus.NOT_FOUND;
+        }
+        if (expectedVersion != null && expectedVersion != versions[slot]) {
+            return WriteStatus.VERSION_MISMATCH;
+        }
+        changes.add(materialize(slot), book);
+        book.setVersion(++versions[slot]);
+        unindex(slot);
+        if (titleLengths[slot] != NO_TITLE) {
+            titles.release(titleLengths[slot]);
+        }
+        write(slot, book);
+        index(slot, book);
+        return WriteStatus.APPLIED;
+    }
+
+    private WriteStatus remove(long id, Long expectedVersion, BookChanges changes) {
+        int slot = slotOf(id);
+        if (slot < 0) {
+            return WriteStatus.NOT_FOUND;
+        }
+        if (expectedVersion != null && expectedVersion != versions[slot]) {
+            return WriteStatus.VERSION_MISMATCH;
+        }
+        changes.add(materialize(slot), null);
+        unindex(slot);
+        if (titleLengths[slot] != NO_TITLE) {
+            titles.release(titleLengths[slot]);
+        }
+        authorCodes[slot] = DELETED;
+        deleted++;
+        return WriteStatus.APPLIED;
+    }
+
+    private void write(int slot, BookVO book) {
+        authorCodes[slot] = book.getAuthor() == null ? NO_AUTHOR : encodeAuthor(book.getAuthor());
+        prices[slot] = book.getPrice() == null ? Double.NaN : book.getPrice();
+        if (book.getTitle() == null) {
+            titleOffsets[slot] = 0;
+            titleLengths[slot] = NO_TITLE;
+        } else {
+            byte[] bytes = book.getTitle().getBytes(StandardCharsets.UTF_8);
+            titleOffsets[slot] = titles.append(bytes);
+            titleLengths[slot] = bytes.length;
+        }
+    }
+
+    private BookVO materialize(int slot) {
+        double price = prices[slot];
+        BookVO book = new BookVO(ids[slot], titleAt(slot), authorAt(slot), Double.isNaN(price) ? null : price);
+        book.setVersion(versions[slot]);
+        return book;
+    }
+
+    private String titleAt(int slot) {
+        int length = titleLengths[slot];
+        return length == NO_TITLE ? null : titles.read(titleOffsets[slot], length);
+    }
+
+    private String authorAt(int slot) {
+        int code = authorCodes[slot];
+        return code < 0 ? null : authors.decode(code);
+    }
+
+    private int encodeAuthor(String author) {
+        int code = authors.encode(author);
+        if (code >= authorKeyOf.length) {
+            authorKeyOf = Arrays.copyOf(authorKeyOf, authorKeyOf.length * 2);
+        }
+        authorKeyOf[code] = authorKeys.encode(AttributeIndex.normalize(author));
+        return code;
+    }
+
+    private void index(int slot, BookVO book) {
+        int code = authorCodes[slot];
+        if (code >= 0) {
+            addPosting(authorKeyOf[code], book.getId());
+        }
+        String titleKey = AttributeIndex.normalize(book.getTitle());
+        if (titleKey != null) {
+            titleIndex.put(titleKey.hashCode(), book.getId());
+        }
+        priceIndex.add(book.getId(), book.getPrice());
+    }
+
+    private void unindex(int slot) {
+        int code = authorCodes[slot];
+        if (code >= 0) {
+            removePosting(authorKeyOf[code], ids[slot]);
+        }
+        String titleKey = AttributeIndex.normalize(titleAt(slot));
+        if (titleKey != null) {
+            titleIndex.remove(titleKey.hashCode(), ids[slot]);
+        }
+        priceIndex.remove(ids[slot], prices[slot]);
+    }
+
+    private void addPosting(int key, long id) {
+        if (key >= authorPostings.length) {
+            int capacity = Math.max(key + 1, authorPostings.length * 2);
+            authorPostings = Arrays.copyOf(authorPostings, capacity);
+            authorPostingSizes = Arrays.copyOf(authorPostingSizes, capacity);
+        }
+        long[] posting = authorPostings[key];
+        int count = authorPostingSizes[key];
+        if (posting == null) {
+            posting = new long[4];
+        } else if (count == posting.length) {
+            posting = Arrays.copyOf(posting, count + (count >> 1) + 1);
+        }
+        // New books carry the highest id so far, so this is almost always an append
+        int at = count == 0 || posting[count - 1] < id ? count : -Arrays.binarySearch(posting, 0, count, id) - 1;
+        System.arraycopy(posting, at, posting, at + 1, count - at);
+        posting[at] = id;
+        authorPostings[key] = posting;
+        authorPostingSizes[key] = count + 1;
+    }
+
+    private void removePosting(int key, long id) {
+        long[] posting = authorPostings[key];
+        int count = authorPostingSizes[key];
+        int at = Arrays.binarySearch(posting, 0, count, id);
+        if (at >= 0) {
+            System.arraycopy(posting, at + 1, posting, at, count - at - 1);
+            authorPostingSizes[key] = count - 1;
+        }
+    }
+
+    private int slotOf(long id) {
+        int slot = Arrays.binarySearch(ids, 0, size, id);
+        return slot >= 0 && authorCodes[slot] != DELETED ? slot : -1;
+    }
+
+    private int firstSlotAfter(long id) {
+        int slot = Arrays.binarySearch(ids, 0, size, id);
+        return slot >= 0 ? slot + 1 : -slot - 1;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        authorCodes = Arrays.copyOf(authorCodes, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        titleOffsets = Arrays.copyOf(titleOffsets, capacity);
+        titleLengths = Arrays.copyOf(titleLengths, capacity);
+    }
+
+    /**
+     * Drops tombstoned slots and rewrites the live titles into a fresh arena once deleted
+     * slots or replaced titles make up a large share of the store. Indexes hold ids rather
+     * than slots, so they survive compaction untouched.
+     */
+    private void maybeCompact() {
+        if (size < COMPACTION_MIN_SLOTS
+                || (deleted * 4L < size && titles.garbageBytes() < titles.liveBytes())) {
+            return;
+        }
+        TitleArena compacted = new TitleArena(titles.isOffHeap());
+        int live = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (authorCodes[slot] == DELETED) {
+                continue;
+            }
+            ids[live] = ids[slot];
+            versions[live] = versions[slot];
+            authorCodes[live] = authorCodes[slot];
+            prices[live] = prices[slot];
+            titleLengths[live] = titleLengths[slot];
+            titleOffsets[live] = titleLengths[slot] == NO_TITLE
+                    ? 0
+                    : compacted.append(titles.readBytes(titleOffsets[slot], titleLengths[slot]));
+            live++;
+        }
+        size = live;
+        deleted = 0;
+        titles = compacted;
+    }
+}
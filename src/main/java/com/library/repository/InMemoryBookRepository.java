@@ -0,0 +1,355 @@
+package com.library.repository;
+
+import com.library.ids.IdAllocator;
+import com.library.ids.SequentialIdAllocator;
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import com.library.persistence.BookJournal;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Heap-resident store: a {@link ConcurrentHashMap} for point access, an id-ordered skip list
+ * for cursor paging and streaming, and author/title/price indexes. Every mutation is optionally
+ * recorded in a {@link BookJournal}. Ids come from an {@link IdAllocator}, sequential unless
+ * several instances accept writes.
+ */
+public class InMemoryBookRepository implements BookRepository {
+
+    private final Map<Long, BookVO> books = new ConcurrentHashMap<>();
+    // Id-ordered view of the store so listings can be paged with a keyset cursor and
+    // streamed lazily; point reads and per-id compute() stay on the hash map
+    private final NavigableSet<Long> orderedIds = new ConcurrentSkipListSet<>();
+    private final IdAllocator ids;
+
+    // Secondary indexes, kept in sync by every mutation below
+    private final AttributeIndex authorIndex = new AttributeIndex(BookVO::getAuthor);
+    private final AttributeIndex titleIndex = new AttributeIndex(BookVO::getTitle);
+    // The price index is one treap behind one lock, so it is updated after compute()
+    // rather than inside it, where every writer would queue on it while holding a bin
+    // lock. Each write passes the price it replaced, so writes of the same book may
+    // reach it in any order.
+    private final PriceIndex priceIndex = new PriceIndex();
+
+    private final BookJournal journal;
+    private volatile BookChangeListener changeListener = BookChangeListener.NONE;
+
+    public InMemoryBookRepository() {
+        this(BookJournal.NONE);
+    }
+
+    /**
+     * Rebuilds the store from the journal before accepting writes. Replay bypasses the
+     * journal, so recovered records are not written back.
+     */
+    public InMemoryBookRepository(BookJournal journal) {
+        this(journal, new SequentialIdAllocator());
+    }
+
+    public InMemoryBookRepository(BookJournal journal, IdAllocator ids) {
+        this.journal = journal;
+        this.ids = ids;
+        ids.skipTo(journal.recover(this::restore, this::forget));
+        journal.start(ids::peek, books.values());
+    }
+
+    @Override
+    public BookVO insert(BookVO book) {
+        book.setId(ids.next());
+        add(book);
+        journal.commit();
+        return book;
+    }
+
+    @Override
+    public List<BookVO> insertAll(List<BookVO> bookList) {
+        long[] newIds = ids.next(bookList.size());
+        List<BookVO> addedBooks = new ArrayList<>(bookList.size());
+        int next = 0;
+        for (BookVO book : bookList) {
+            book.setId(newIds[next++]);
+            add(book);
+            addedBooks.add(book);
+        }
+        journal.commit();
+        return addedBooks;
+    }
+
+    @Override
+    public Optional<BookVO> findById(long id) {
+        return Optional.ofNullable(books.get(id));
+    }
+
+    @Override
+    public Long versionOf(long id) {
+        BookVO book = books.get(id);
+        return book == null ? null : book.getVersion();
+    }
+
+    @Override
+    public WriteStatus update(long id, BookVO book, Long expectedVersion) {
+        WriteStatus status = replace(id, book, expectedVersion);
+        journal.commit();
+        return status;
+    }
+
+    @Override
+    public boolean[] updateAll(List<BookVO> bookList) {
+        boolean[] updated = new boolean[bookList.size()];
+        for (int i = 0; i < updated.length; i++) {
+            BookVO book = bookList.get(i);
+            updated[i] = replace(book.getId(), book, null) == WriteStatus.APPLIED;
+        }
+        journal.commit();
+        return updated;
+    }
+
+    @Override
+    public boolean putReplica(BookVO book) {
+        boolean[] stored = {false};
+        BookVO[] previous = {null};
+        journal.mutate(() -> books.compute(book.getId(), (id, current) -> {
+            if (current != null && current.getVersion() >= book.getVersion()) {
+                return current;
+            }
+            journal.appendPut(book);
+            if (current != null) {
+                unindex(current);
+            }
+            index(book);
+            previous[0] = current;
+            stored[0] = true;
+            return book;
+        }));
+        if (stored[0]) {
+            priceIndex.replace(book.getId(), price(previous[0]), book.getPrice());
+            orderedIds.add(book.getId());
+            ids.skipTo(book.getId() + 1);
+            changeListener.changed(previous[0], book);
+        }
+        journal.commit();
+        return stored[0];
+    }
+
+    @Override
+    public WriteStatus delete(long id, Long expectedVersion) {
+        WriteStatus status = remove(id, expectedVersion);
+        journal.commit();
+        return status;
+    }
+
+    @Override
+    public boolean[] deleteAll(List<Long> ids) {
+        boolean[] deleted = new boolean[ids.size()];
+        for (int i = 0; i < deleted.length; i++) {
+            deleted[i] = remove(ids.get(i), null) == WriteStatus.APPLIED;
+        }
+        journal.commit();
+        return deleted;
+    }
+
+    @Override
+    public List<BookVO> findAll() {
+        return new ArrayList<>(books.values());
+    }
+
+    @Override
+    public List<BookVO> findPage(Long after, int limit) {
+        List<BookVO> items = new ArrayList<>(Math.min(limit, 64));
+        for (Long id : tail(after)) {
+            BookVO book = books.get(id);
+            if (book == null) {
+                continue;
+            }
+            items.add(book);
+            if (items.size() == limit) {
+                break;
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Nothing is copied up front; the stream is weakly consistent with concurrent writes.
+     */
+    @Override
+    public Stream<BookVO> stream(Long after) {
+        return tail(after).stream()
+                .map(books::get)
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Only the most selective index is scanned; the remaining criteria are checked
+     * against the candidate books, so the cost is proportional to the smallest posting
+     * set rather than to the catalog size.
+     */
+    @Override
+    public List<BookVO> findByAuthorAndTitle(String author, String title) {
+        Set<Long> candidates = mostSelective(author, title);
+        List<BookVO> result = new ArrayList<>(candidates.size());
+        for (Long id : candidates) {
+            BookVO book = books.get(id);
+            if (book != null
+                    && (author == null || authorIndex.matches(book, author))
+                    && (title == null || titleIndex.matches(book, title))) {
+                result.add(book);
+            }
+        }
+        result.sort(Comparator.comparing(BookVO::getId));
+        return result;
+    }
+
+    /**
+     * Books are re-read and re-checked against the range, so a concurrent price change can
+     * make the result shorter than {@code limit} but never wrong.
+     */
+    @Override
+    public List<BookVO> findByPriceRange(Double minPrice, Double maxPrice, int limit, boolean descending) {
+        long[] ids = priceIndex.range(minPrice, maxPrice, limit, descending);
+        List<BookVO> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            BookVO book = books.get(id);
+            if (book != null && book.getPrice() != null
+                    && (minPrice == null || book.getPrice() >= minPrice)
+                    && (maxPrice == null || book.getPrice() <= maxPrice)) {
+                result.add(book);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public PriceSummary summarizePrices(Double minPrice, Double maxPrice) {
+        return priceIndex.summarize(minPrice, maxPrice);
+    }
+
+    @Override
+    public void setChangeListener(BookChangeListener listener) {
+        changeListener = listener;
+    }
+
+    @Override
+    public long count() {
+        return books.size();
+    }
+
+    @Override
+    public long nextId() {
+        return ids.peek();
+    }
+
+    private void add(BookVO book) {
+        book.setVersion(1L);
+        // Index before publishing; lookups re-check the store, so an early index hit is harmless
+        index(book);
+        journal.mutate(() -> books.compute(book.getId(), (id, current) -> {
+            journal.appendPut(book);
+            return book;
+        }));
+        priceIndex.add(book.getId(), book.getPrice());
+        orderedIds.add(book.getId());
+        changeListener.changed(null, book);
+    }
+
+    private WriteStatus replace(long id, BookVO updatedBook, Long expectedVersion) {
+        updatedBook.setId(id);
+        WriteStatus[] status = {WriteStatus.NOT_FOUND};
+        BookVO[] previous = {null};
+        // compute() serializes writers per id, so the version check, the index swap and the
+        // journal record below can't interleave with another update or a delete of the same
+        // book, and a book deleted meanwhile is never resurrected
+        journal.mutate(() -> books.computeIfPresent(id, (key, current) -> {
+            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                status[0] = WriteStatus.VERSION_MISMATCH;
+                return current;
+            }
+            updatedBook.setVersion(current.getVersion() + 1);
+            journal.appendPut(updatedBook);
+            unindex(current);
+            index(updatedBook);
+            previous[0] = current;
+            status[0] = WriteStatus.APPLIED;
+            return updatedBook;
+        }));
+        if (status[0] == WriteStatus.APPLIED) {
+            priceIndex.replace(id, price(previous[0]), updatedBook.getPrice());
+            changeListener.changed(previous[0], updatedBook);
+        }
+        return status[0];
+    }
+
+    private WriteStatus remove(long id, Long expectedVersion) {
+        WriteStatus[] status = {WriteStatus.NOT_FOUND};
+        BookVO[] previous = {null};
+        journal.mutate(() -> books.computeIfPresent(id, (key, current) -> {
+            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                status[0] = WriteStatus.VERSION_MISMATCH;
+                return current;
+            }
+            journal.appendDelete(id);
+            unindex(current);
+            previous[0] = current;
+            status[0] = WriteStatus.APPLIED;
+            return null;
+        }));
+        if (status[0] == WriteStatus.APPLIED) {
+            priceIndex.remove(id, previous[0].getPrice());
+            orderedIds.remove(id);
+            changeListener.changed(previous[0], null);
+        }
+        return status[0];
+    }
+
+    private void restore(BookVO book) {
+        BookVO previous = books.put(book.getId(), book);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(book);
+        priceIndex.replace(book.getId(), price(previous), book.getPrice());
+        orderedIds.add(book.getId());
+    }
+
+    private void forget(long id) {
+        BookVO previous = books.remove(id);
+        if (previous != null) {
+            unindex(previous);
+            priceIndex.remove(id, previous.getPrice());
+        }
+        orderedIds.remove(id);
+    }
+
+    private NavigableSet<Long> tail(Long after) {
+        return after == null ? orderedIds : orderedIds.tailSet(after, false);
+    }
+
+    private Set<Long> mostSelective(String author, String title) {
+        if (author == null) {
+            return titleIndex.lookup(title);
+        }
+        if (title == null) {
+            return authorIndex.lookup(author);
+        }
+        Set<Long> byAuthor = authorIndex.lookup(author);
+        Set<Long> byTitle = titleIndex.lookup(title);
+        return byAuthor.size() <= byTitle.size() ? byAuthor : byTitle;
+    }
+
+    private void index(BookVO book) {
+        authorIndex.add(book);
+        titleIndex.add(book);
+    }
+
+    private void unindex(BookVO book) {
+        authorIndex.remove(book);
+        titleIndex.remove(book);
+    }
+
+    private static Double price(BookVO book) {
+        return book == null ? null : book.getPrice();
+    }
+}
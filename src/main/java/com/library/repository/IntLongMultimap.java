@@ -0,0 +1,96 @@
+package com.library.repository;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing multimap from an int key (typically a hash) to positive long values,
+ * stored in two parallel primitive arrays with linear probing. Not thread-safe.
+ */
+final class IntLongMultimap {
+
+    // Values are book ids, which start at 1, so 0 and -1 are free to mark slot states
+    private static final long EMPTY = 0;
+    private static final long TOMBSTONE = -1;
+
+    private int[] keys;
+    private long[] values;
+    private int size;
+    private int used;
+
+    IntLongMultimap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        keys = new int[capacity];
+        values = new long[capacity];
+    }
+
+    void put(int key, long value) {
+        if ((used + 1) * 2 > values.length) {
+            // Grow when live entries dominate, otherwise just sweep the tombstones
+            rehash(size * 4 > values.length ? values.length * 2 : values.length);
+        }
+        int mask = values.length - 1;
+        int index = mix(key) & mask;
+        while (values[index] != EMPTY && values[index] != TOMBSTONE) {
+            index = (index + 1) & mask;
+        }
+        if (values[index] == EMPTY) {
+            used++;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+    }
+
+    boolean remove(int key, long value) {
+        int mask = values.length - 1;
+        for (int index = mix(key) & mask; values[index] != EMPTY; index = (index + 1) & mask) {
+            if (values[index] == value && keys[index] == key) {
+                values[index] = TOMBSTONE;
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns every value stored under the key, in no particular order.
+     */
+    long[] get(int key) {
+        long[] found = new long[4];
+        int count = 0;
+        int mask = values.length - 1;
+        for (int index = mix(key) & mask; values[index] != EMPTY; index = (index + 1) & mask) {
+            if (values[index] != TOMBSTONE && keys[index] == key) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = values[index];
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new int[capacity];
+        values = new long[capacity];
+        size = 0;
+        used = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != EMPTY && oldValues[i] != TOMBSTONE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,386 @@
+package com.library.repository;
+
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+/**
+ * Relational store for books. Normalized author/title columns are indexed so filtered
+ * lookups use the same case-insensitive matching as the in-memory indexes, and every
+ * listing is an id-ordered keyset query ({@code WHERE id > ? ORDER BY id LIMIT ?}) so
+ * deep pages cost the same as the first one. Price queries are answered from an index on
+ * {@code (price, id)}.
+ *
+ * Bulk operations reuse one prepared statement per chunk and send it as a JDBC batch.
+ */
+public class JdbcBookRepository implements BookRepository {
+
+    static final int BATCH_SIZE = 1000;
+    static final int STREAM_PAGE_SIZE = 500;
+
+    private static final String COLUMNS = "id, title, author, price, version";
+    private static final String INSERT =
+            "INSERT INTO books (title, author, price, title_key, author_key) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE books SET title = ?, author = ?, price = ?, title_key = ?, "
+            + "author_key = ?, version = version + 1 WHERE id = ?";
+    private static final String DELETE = "DELETE FROM books WHERE id = ?";
+    private static final String SELECT_VERSION = "SELECT version FROM books WHERE id = ?";
+
+    private static final RowMapper<BookVO> ROW_MAPPER = (rs, rowNum) -> {
+        BookVO book = new BookVO(
+                rs.getLong("id"),
+                rs.getString("title"),
+                rs.getString("author"),
+                rs.getObject("price", Double.class));
+        book.setVersion(rs.getLong("version"));
+        return book;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile BookChangeListener changeListener = BookChangeListener.NONE;
+
+    public JdbcBookRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        createSchema();
+    }
+
+    @Override
+    public BookVO insert(BookVO book) {
+        return insertAll(List.of(book)).get(0);
+    }
+
+    @Override
+    public List<BookVO> insertAll(List<BookVO> books) {
+        jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < books.size(); from += BATCH_SIZE) {
+                    List<BookVO> chunk = books.subList(from, Math.min(from + BATCH_SIZE, books.size()));
+                    for (BookVO book : chunk) {
+                        bindBook(statement, book);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (BookVO book : chunk) {
+                            if (!keys.next()) {
+                                throw new IllegalStateException("Database returned fewer ids than inserted books");
+                            }
+                            book.setId(keys.getLong(1));
+                            book.setVersion(1L);
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+        books.forEach(book -> changeListener.changed(null, book));
+        return books;
+    }
+
+    @Override
+    public Optional<BookVO> findById(long id) {
+        List<BookVO> found = jdbcTemplate.query("SELECT " + COLUMNS + " FROM books WHERE id = ?", ROW_MAPPER, id);
+        return found.stream().findFirst();
+    }
+
+    @Override
+    public Long versionOf(long id) {
+        List<Long> versions = jdbcTemplate.queryForList(SELECT_VERSION, Long.class, id);
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    /**
+     * Compare-and-set on the version column: the update only applies to the row that was
+     * just read, and a concurrent writer makes it re-read and retry rather than block.
+     */
+    @Override
+    public WriteStatus update(long id, BookVO book, Long expectedVersion) {
+        book.setId(id);
+        while (true) {
+            BookVO current = findById(id).orElse(null);
+            if (current == null) {
+                return WriteStatus.NOT_FOUND;
+            }
+            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                return WriteStatus.VERSION_MISMATCH;
+            }
+            int updated = jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(UPDATE + " AND version = ?");
+                bindBook(statement, book);
+                statement.setLong(6, id);
+                statement.setLong(7, current.getVersion());
+                return statement;
+            });
+            if (updated > 0) {
+                book.setVersion(current.getVersion() + 1);
+                changeListener.changed(current, book);
+                return WriteStatus.APPLIED;
+            }
+        }
+    }
+
+    /**
+     * Each chunk locks its rows and reads them before updating them, in one transaction,
+     * so the new versions and the books replaced are known without another writer getting
+     * in between. A book whose row was not found is not updated.
+     */
+    @Override
+    public boolean[] updateAll(List<BookVO> books) {
+        boolean[] updated = new boolean[books.size()];
+        BookChanges changes = new BookChanges();
+        writeInChunks(books, (connection, from, chunk) -> {
+            List<Long> ids = new ArrayList<>(chunk.size());
+            chunk.forEach(book -> ids.add(book.getId()));
+            Map<Long, BookVO> stored = lockRows(connection, ids);
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    BookVO book = chunk.get(i);
+                    BookVO current = stored.get(book.getId());
+                    if (current == null) {
+                        continue;
+                    }
+                    bindBook(statement, book);
+                    statement.setLong(6, book.getId());
+                    statement.addBatch();
+                    book.setVersion(current.getVersion() + 1);
+                    // A later entry for the same book replaces this one
+                    stored.put(book.getId(), book);
+                    changes.add(current, book);
+                    updated[from + i] = true;
+                }
+                statement.executeBatch();
+            }
+        });
+        changes.report(changeListener);
+        return updated;
+    }
+
+    /**
+     * Compare-and-set on the version column, like {@link #update}, so the book deleted is
+     * the one just read.
+     */
+    @Override
+    public WriteStatus delete(long id, Long expectedVersion) {
+        while (true) {
+            BookVO current = findById(id).orElse(null);
+            if (current == null) {
+                return WriteStatus.NOT_FOUND;
+            }
+            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                return WriteStatus.VERSION_MISMATCH;
+            }
+            if (jdbcTemplate.update(DELETE + " AND version = ?", id, current.getVersion()) > 0) {
+                changeListener.changed(current, null);
+                return WriteStatus.APPLIED;
+            }
+        }
+    }
+
+    /**
+     * Locks and reads each chunk's rows before deleting them, as {@link #updateAll} does.
+     */
+    @Override
+    public boolean[] deleteAll(List<Long> ids) {
+        boolean[] deleted = new boolean[ids.size()];
+        BookChanges changes = new BookChanges();
+        writeInChunks(ids, (connection, from, chunk) -> {
+            Map<Long, BookVO> stored = lockRows(connection, chunk);
+            try (PreparedStatement statement = connection.prepareStatement(DELETE)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    BookVO current = stored.remove(chunk.get(i));
+                    if (current == null) {
+                        continue;
+                    }
+                    statement.setLong(1, current.getId());
+                    statement.addBatch();
+                    changes.add(current, null);
+                    deleted[from + i] = true;
+                }
+                statement.executeBatch();
+            }
+        });
+        changes.report(changeListener);
+        return deleted;
+    }
+
+    @Override
+    public List<BookVO> findAll() {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM books ORDER BY id", ROW_MAPPER);
+    }
+
+    @Override
+    public List<BookVO> findPage(Long after, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM books WHERE id > ? ORDER BY id LIMIT ?",
+                ROW_MAPPER, after == null ? 0L : after, limit);
+    }
+
+    /**
+     * Streams by issuing one keyset page query at a time, so no connection is held open
+     * while the caller writes books to a slow client.
+     */
+    @Override
+    public Stream<BookVO> stream(Long after) {
+        return PagedStream.of(after, STREAM_PAGE_SIZE, this::findPage);
+    }
+
+    @Override
+    public List<BookVO> findByAuthorAndTitle(String author, String title) {
+        if (author == null) {
+            return jdbcTemplate.query("SELECT " + COLUMNS + " FROM books WHERE title_key = ? ORDER BY id",
+                    ROW_MAPPER, AttributeIndex.normalize(title));
+        }
+        if (title == null) {
+            return jdbcTemplate.query("SELECT " + COLUMNS + " FROM books WHERE author_key = ? ORDER BY id",
+                    ROW_MAPPER, AttributeIndex.normalize(author));
+        }
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM books WHERE author_key = ? AND title_key = ? ORDER BY id",
+                ROW_MAPPER, AttributeIndex.normalize(author), AttributeIndex.normalize(title));
+    }
+
+    @Override
+    public List<BookVO> findByPriceRange(Double minPrice, Double maxPrice, int limit, boolean descending) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + COLUMNS + " FROM books" + priceFilter(minPrice, maxPrice, args)
+                + (descending ? " ORDER BY price DESC, id DESC" : " ORDER BY price, id") + " LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    @Override
+    public PriceSummary summarizePrices(Double minPrice, Double maxPrice) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT COUNT(price), COALESCE(SUM(price), 0) FROM books" + priceFilter(minPrice, maxPrice, args);
+        return jdbcTemplate.queryForObject(sql,
+                (rs, rowNum) -> new PriceSummary(rs.getLong(1), rs.getDouble(2)), args.toArray());
+    }
+
+    @Override
+    public void setChangeListener(BookChangeListener listener) {
+        changeListener = listener;
+    }
+
+    @Override
+    public long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Long.class);
+    }
+
+    /**
+     * One past the highest id in the table. The identity column may be further ahead if
+     * the latest inserts were deleted or rolled back.
+     */
+    @Override
+    public long nextId() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM books", Long.class);
+    }
+
+    private static String priceFilter(Double minPrice, Double maxPrice, List<Object> args) {
+        StringBuilder where = new StringBuilder(" WHERE price IS NOT NULL");
+        if (minPrice != null) {
+            where.append(" AND price >= ?");
+            args.add(minPrice);
+        }
+        if (maxPrice != null) {
+            where.append(" AND price <= ?");
+            args.add(maxPrice);
+        }
+        return where.toString();
+    }
+
+    /**
+     * Reads the rows with the given ids, locking them until the transaction ends.
+     */
+    private static Map<Long, BookVO> lockRows(Connection connection, List<Long> ids) throws SQLException {
+        StringJoiner placeholders = new StringJoiner(", ", "SELECT " + COLUMNS + " FROM books WHERE id IN (", ") FOR UPDATE");
+        ids.forEach(id -> placeholders.add("?"));
+        Map<Long, BookVO> rows = new HashMap<>(ids.size() * 2);
+        try (PreparedStatement statement = connection.prepareStatement(placeholders.toString())) {
+            for (int i = 0; i < ids.size(); i++) {
+                statement.setLong(i + 1, ids.get(i));
+            }
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    BookVO book = ROW_MAPPER.mapRow(result, rows.size());
+                    rows.put(book.getId(), book);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private void createSchema() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS books ("
+                + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "title VARCHAR(1024), "
+                + "author VARCHAR(1024), "
+                + "price DOUBLE PRECISION, "
+                + "title_key VARCHAR(1024), "
+                + "author_key VARCHAR(1024), "
+                + "version BIGINT DEFAULT 1 NOT NULL)");
+        jdbcTemplate.execute("ALTER TABLE books ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 1 NOT NULL");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS books_author_key ON books (author_key)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS books_title_key ON books (title_key)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS books_price ON books (price, id)");
+    }
+
+    /**
+     * Hands the items to the writer in chunks of {@link #BATCH_SIZE}, committing each chunk
+     * as one transaction; within a caller's transaction, the caller commits.
+     */
+    private <T> void writeInChunks(List<T> items, ChunkWriter<T> writer) {
+        jdbcTemplate.execute((Connection connection) -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (int from = 0; from < items.size(); from += BATCH_SIZE) {
+                    writer.write(connection, from, items.subList(from, Math.min(from + BATCH_SIZE, items.size())));
+                    if (autoCommit) {
+                        connection.commit();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (autoCommit) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private static void bindBook(PreparedStatement statement, BookVO book) throws SQLException {
+        statement.setString(1, book.getTitle());
+        statement.setString(2, book.getAuthor());
+        if (book.getPrice() == null) {
+            statement.setNull(3, Types.DOUBLE);
+        } else {
+            statement.setDouble(3, book.getPrice());
+        }
+        statement.setString(4, AttributeIndex.normalize(book.getTitle()));
+        statement.setString(5, AttributeIndex.normalize(book.getAuthor()));
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        /**
+         * @param from position of the chunk's first item in the whole list
+         */
+        void write(Connection connection, int from, List<T> chunk) throws SQLException;
+    }
+}
@@ -0,0 +1,444 @@
+package com.library.repository;
+
+import com.library.exception.SnapshotExpiredException;
+import com.library.ids.IdAllocator;
+import com.library.ids.SequentialIdAllocator;
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import com.library.persistence.BookJournal;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Heap-resident store with multi-version reads. The catalog is an immutable
+ * {@link BookTrie}; writers take one lock, build the next version off to the side and
+ * publish it with a single volatile write, so a batch becomes visible all at once and
+ * readers never block or see a half-applied change. Every read of the listing works on the
+ * version current when it started: {@link #findAll()} and {@link #stream} are consistent
+ * snapshots, and {@link #snapshot()} hands out that version for paging.
+ *
+ * Retained snapshots are kept for {@code snapshotTtl} after their last use, up to
+ * {@code maxSnapshots}; retaining one more drops the one expiring soonest. A snapshot
+ * costs only the trie nodes written since it was taken.
+ *
+ * Author, title and price lookups use the same mutable indexes as
+ * {@link InMemoryBookRepository} and re-check their candidates against the current version.
+ */
+public class MvccBookRepository implements BookRepository {
+
+    public static final Duration DEFAULT_SNAPSHOT_TTL = Duration.ofMinutes(1);
+    public static final int DEFAULT_MAX_SNAPSHOTS = 1000;
+
+    private final IdAllocator ids;
+    private final BookJournal journal;
+    private final long snapshotTtlMillis;
+    private final int maxSnapshots;
+
+    private final Object writeLock = new Object();
+    private volatile BookChangeListener changeListener = BookChangeListener.NONE;
+    private volatile Version current;
+    private final Map<Long, Retained> retained = new ConcurrentHashMap<>();
+
+    private final AttributeIndex authorIndex = new AttributeIndex(BookVO::getAuthor);
+    private final AttributeIndex titleIndex = new AttributeIndex(BookVO::getTitle);
+    private final PriceIndex priceIndex = new PriceIndex();
+
+    public MvccBookRepository() {
+        this(BookJournal.NONE, new SequentialIdAllocator(), DEFAULT_SNAPSHOT_TTL, DEFAULT_MAX_SNAPSHOTS);
+    }
+
+    /**
+     * Rebuilds the store from the journal before accepting writes, as
+     * {@link InMemoryBookRepository} does.
+     */
+    public MvccBookRepository(BookJournal journal, IdAllocator ids, Duration snapshotTtl, int maxSnapshots) {
+        if (maxSnapshots < 1) {
+            throw new IllegalArgumentException("maxSnapshots must be positive");
+        }
+        this.journal = journal;
+        this.ids = ids;
+        this.snapshotTtlMillis = snapshotTtl.toMillis();
+        this.maxSnapshots = maxSnapshots;
+        BookTrie.Editor recovered = BookTrie.EMPTY.edit();
+        ids.skipTo(journal.recover(recovered::put, recovered::remove));
+        // Versions are numbered from the clock so tokens handed out before a restart
+        // can't name a snapshot of this run
+        current = new Version(recovered.build(), System.currentTimeMillis() * 1000);
+        current.books.iterator(null).forEachRemaining(this::index);
+        journal.start(ids::peek, () -> current.books.iterator(null));
+    }
+
+    @Override
+    public BookVO insert(BookVO book) {
+        write(() -> {
+            book.setId(ids.next());
+            BookTrie.Editor editor = current.books.edit();
+            add(editor, book);
+            publish(editor);
+            return book;
+        });
+        journal.commit();
+        changeListener.changed(null, book);
+        return book;
+    }
+
+    @Override
+    public List<BookVO> insertAll(List<BookVO> bookList) {
+        List<BookVO> addedBooks = new ArrayList<>(bookList.size());
+        write(() -> {
+            long[] newIds = ids.next(bookList.size());
+            BookTrie.Editor editor = current.books.edit();
+            int next = 0;
+            for (BookVO book : bookList) {
+                book.setId(newIds[next++]);
+                add(editor, book);
+                addedBooks.add(book);
+            }
+            publish(editor);
+            return addedBooks;
+        });
+        journal.commit();
+        addedBooks.forEach(book -> changeListener.changed(null, book));
+        return addedBooks;
+    }
+
+    @Override
+    public Optional<BookVO> findById(long id) {
+        return Optional.ofNullable(current.books.get(id));
+    }
+
+    @Override
+    public Long versionOf(long id) {
+        BookVO book = current.books.get(id);
+        return book == null ? null : book.getVersion();
+    }
+
+    @Override
+    public WriteStatus update(long id, BookVO book, Long expectedVersion) {
+        BookChanges changes = new BookChanges();
+        WriteStatus status = write(() -> {
+            BookTrie.Editor editor = current.books.edit();
+            WriteStatus result = replace(editor, id, book, expectedVersion, changes);
+            if (result == WriteStatus.APPLIED) {
+                publish(editor);
+            }
+            return result;
+        });
+        journal.commit();
+        changes.report(changeListener);
+        return status;
+    }
+
+    @Override
+    public boolean[] updateAll(List<BookVO> bookList) {
+        boolean[] updated = new boolean[bookList.size()];
+        BookChanges changes = new BookChanges();
+        write(() -> {
+            BookTrie.Editor editor = current.books.edit();
+            for (int i = 0; i < updated.length; i++) {
+                BookVO book = bookList.get(i);
+                updated[i] = replace(editor, book.getId(), book, null, changes) == WriteStatus.APPLIED;
+            }
+            publish(editor);
+            return updated;
+        });
+        journal.commit();
+        changes.report(changeListener);
+        return updated;
+    }
+
+    @Override
+    public WriteStatus delete(long id, Long expectedVersion) {
+        BookChanges changes = new BookChanges();
+        WriteStatus status = write(() -> {
+            BookTrie.Editor editor = current.books.edit();
+            WriteStatus result = remove(editor, id, expectedVersion, changes);
+            if (result == WriteStatus.APPLIED) {
+                publish(editor);
+            }
+            return result;
+        });
+        journal.commit();
+        changes.report(changeListener);
+        return status;
+    }
+
+    @Override
+    public boolean[] deleteAll(List<Long> idList) {
+        boolean[] deleted = new boolean[idList.size()];
+        BookChanges changes = new BookChanges();
+        write(() -> {
+            BookTrie.Editor editor = current.books.edit();
+            for (int i = 0; i < deleted.length; i++) {
+                deleted[i] = remove(editor, idList.get(i), null, changes) == WriteStatus.APPLIED;
+            }
+            publish(editor);
+            return deleted;
+        });
+        journal.commit();
+        changes.report(changeListener);
+        return deleted;
+    }
+
+    @Override
+    public List<BookVO> findAll() {
+        BookTrie books = current.books;
+        List<BookVO> all = new ArrayList<>(books.size());
+        books.iterator(null).forEachRemaining(all::add);
+        return all;
+    }
+
+    @Override
+    public List<BookVO> findPage(Long after, int limit) {
+        return page(current.books, after, limit);
+    }
+
+    /**
+     * Streams the version current when the stream is created, however long it is consumed.
+     */
+    @Override
+    public Stream<BookVO> stream(Long after) {
+        BookTrie books = current.books;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(books.iterator(after),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    @Override
+    public PagingSnapshot snapshot() {
+        return new Snapshot(current);
+    }
+
+    @Override
+    public PagingSnapshot snapshot(long token) {
+        Retained entry = retained.get(token);
+        long now = System.currentTimeMillis();
+        if (entry == null || entry.expiresAt < now) {
+            throw new SnapshotExpiredException("Snapshot " + token + " has expired; start again from the first page");
+        }
+        entry.expiresAt = now + snapshotTtlMillis;
+        return new Snapshot(entry.version);
+    }
+
+    /**
+     * Number of snapshots currently retained for paging.
+     */
+    public int retainedSnapshots() {
+        return retained.size();
+    }
+
+    @Override
+    public List<BookVO> findByAuthorAndTitle(String author, String title) {
+        Set<Long> candidates = mostSelective(author, title);
+        BookTrie books = current.books;
+        List<BookVO> result = new ArrayList<>(candidates.size());
+        for (Long id : candidates) {
+            BookVO book = books.get(id);
+            if (book != null
+                    && (author == null || authorIndex.matches(book, author))
+                    && (title == null || titleIndex.matches(book, title))) {
+                result.add(book);
+            }
+        }
+        result.sort(Comparator.comparing(BookVO::getId));
+        return result;
+    }
+
+    @Override
+    public List<BookVO> findByPriceRange(Double minPrice, Double maxPrice, int limit, boolean descending) {
+        long[] matches = priceIndex.range(minPrice, maxPrice, limit, descending);
+        BookTrie books = current.books;
+        List<BookVO> result = new ArrayList<>(matches.length);
+        for (long id : matches) {
+            BookVO book = books.get(id);
+            if (book != null && book.getPrice() != null
+                    && (minPrice == null || book.getPrice() >= minPrice)
+                    && (maxPrice == null || book.getPrice() <= maxPrice)) {
+                result.add(book);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public PriceSummary summarizePrices(Double minPrice, Double maxPrice) {
+        return priceIndex.summarize(minPrice, maxPrice);
+    }
+
+    @Override
+    public void setChangeListener(BookChangeListener listener) {
+        changeListener = listener;
+    }
+
+    @Override
+    public long count() {
+        return current.books.size();
+    }
+
+    @Override
+    public long nextId() {
+        return ids.peek();
+    }
+
+    /**
+     * Runs a change under the write lock, inside {@link BookJournal#mutate} so a journal
+     * snapshot can't rotate between its records and the version that publishes them.
+     */
+    private <T> T write(Supplier<T> change) {
+        return journal.mutate(() -> {
+            synchronized (writeLock) {
+                return change.get();
+            }
+        });
+    }
+
+    private void publish(BookTrie.Editor editor) {
+        current = new Version(editor.build(), current.number + 1);
+    }
+
+    private void add(BookTrie.Editor editor, BookVO book) {
+        book.setVersion(1L);
+        // Index before publishing; lookups re-check the store, so an early index hit is harmless
+        index(book);
+        journal.appendPut(book);
+        editor.put(book);
+    }
+
+    private WriteStatus replace(BookTrie.Editor editor, long id, BookVO updatedBook, Long expectedVersion,
+                                BookChanges changes) {
+        // Earlier changes of the same batch are in the editor, not yet in the current version
+        BookVO present = editor.get(id);
+        if (present == null) {
+            return WriteStatus.NOT_FOUND;
+        }
+        if (expectedVersion != null && !expectedVersion.equals(present.getVersion())) {
+            return WriteStatus.VERSION_MISMATCH;
+        }
+        updatedBook.setId(id);
+        updatedBook.setVersion(present.getVersion() + 1);
+        journal.appendPut(updatedBook);
+        unindex(present);
+        index(updatedBook);
+        editor.put(updatedBook);
+        changes.add(present, updatedBook);
+        return WriteStatus.APPLIED;
+    }
+
+    private WriteStatus remove(BookTrie.Editor editor, long id, Long expectedVersion, BookChanges changes) {
+        BookVO present = editor.get(id);
+        if (present == null) {
+            return WriteStatus.NOT_FOUND;
+        }
+        if (expectedVersion != null && !expectedVersion.equals(present.getVersion())) {
+            return WriteStatus.VERSION_MISMATCH;
+        }
+        journal.appendDelete(id);
+        unindex(present);
+        editor.remove(id);
+        changes.add(present, null);
+        return WriteStatus.APPLIED;
+    }
+
+    private void retain(Version version) {
+        long now = System.currentTimeMillis();
+        retained.compute(version.number, (number, entry) -> {
+            Retained kept = entry != null ? entry : new Retained(version);
+            kept.expiresAt = now + snapshotTtlMillis;
+            return kept;
+        });
+        if (retained.size() > maxSnapshots) {
+            retained.values().removeIf(entry -> entry.expiresAt < now);
+        }
+        while (retained.size() > maxSnapshots) {
+            Optional<Map.Entry<Long, Retained>> oldest = retained.entrySet().stream()
+                    .filter(entry -> entry.getKey() != version.number)
+                    .min(Comparator.comparingLong(entry -> entry.getValue().expiresAt));
+            if (oldest.isEmpty()) {
+                break;
+            }
+            retained.remove(oldest.get().getKey(), oldest.get().getValue());
+        }
+    }
+
+    private static List<BookVO> page(BookTrie books, Long after, int limit) {
+        List<BookVO> items = new ArrayList<>(Math.min(limit, 64));
+        Iterator<BookVO> it = books.iterator(after);
+        while (items.size() < limit && it.hasNext()) {
+            items.add(it.next());
+        }
+        return items;
+    }
+
+    private Set<Long> mostSelective(String author, String title) {
+        if (author == null) {
+            return titleIndex.lookup(title);
+        }
+        if (title == null) {
+            return authorIndex.lookup(author);
+        }
+        Set<Long> byAuthor = authorIndex.lookup(author);
+        Set<Long> byTitle = titleIndex.lookup(title);
+        return byAuthor.size() <= byTitle.size() ? byAuthor : byTitle;
+    }
+
+    private void index(BookVO book) {
+        authorIndex.add(book);
+        titleIndex.add(book);
+        priceIndex.add(book.getId(), book.getPrice());
+    }
+
+    private void unindex(BookVO book) {
+        authorIndex.remove(book);
+        titleIndex.remove(book);
+        priceIndex.remove(book.getId(), book.getPrice());
+    }
+
+    /**
+     * One published state of the catalog, numbered in publication order.
+     */
+    private static final class Version {
+        final BookTrie books;
+        final long number;
+
+        Version(BookTrie books, long number) {
+            this.books = books;
+            this.number = number;
+        }
+    }
+
+    private static final class Retained {
+        final Version version;
+        volatile long expiresAt;
+
+        Retained(Version version) {
+            this.version = version;
+        }
+    }
+
+    private final class Snapshot implements PagingSnapshot {
+        private final Version version;
+
+        Snapshot(Version version) {
+            this.version = version;
+        }
+
+        @Override
+        public long token() {
+            return version.number;
+        }
+
+        @Override
+        public List<BookVO> findPage(Long after, int limit) {
+            return page(version.books, after, limit);
+        }
+
+        @Override
+        public void retain() {
+            MvccBookRepository.this.retain(version);
+        }
+    }
+}
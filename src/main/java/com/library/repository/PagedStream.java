@@ -0,0 +1,62 @@
+package com.library.repository;
+
+import com.library.model.BookVO;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily streams a store by fetching one keyset page at a time, so no lock or connection
+ * is held while the consumer is busy writing books to a slow client.
+ */
+final class PagedStream {
+
+    private PagedStream() {
+    }
+
+    /**
+     * @param pager returns up to the given number of books with an id greater than the
+     *              given cursor (or from the start when null), in id order
+     */
+    static Stream<BookVO> of(Long after, int pageSize, BiFunction<Long, Integer, List<BookVO>> pager) {
+        Iterator<BookVO> books = new Iterator<>() {
+            private List<BookVO> page = List.of();
+            private int position;
+            private Long cursor = after;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (position < page.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+                page = pager.apply(cursor, pageSize);
+                position = 0;
+                exhausted = page.size() < pageSize;
+                if (!page.isEmpty()) {
+                    cursor = page.get(page.size() - 1).getId();
+                }
+                return !page.isEmpty();
+            }
+
+            @Override
+            public BookVO next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(position++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(books,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
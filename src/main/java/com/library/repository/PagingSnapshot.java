@@ -0,0 +1,30 @@
+package com.library.repository;
+
+import com.library.model.BookVO;
+
+import java.util.List;
+
+/**
+ * An unchanging view of the whole catalog as of one point in time, taken by
+ * {@link BookRepository#snapshot()} for paging. Writes made after it was taken are not
+ * visible through it. Unrelated to the export's
+ * {@link com.library.export.CatalogSnapshot}, which is a serialized copy of the catalog.
+ */
+public interface PagingSnapshot {
+
+    /**
+     * Identifies the snapshot to {@link BookRepository#snapshot(long)} once retained.
+     */
+    long token();
+
+    /**
+     * Like {@link BookRepository#findPage}, read from this snapshot.
+     */
+    List<BookVO> findPage(Long after, int limit);
+
+    /**
+     * Keeps the snapshot available by its token for a while, so a client can read its
+     * following pages in later requests.
+     */
+    void retain();
+}
@@ -0,0 +1,273 @@
+package com.library.repository;
+
+import com.library.model.PriceSummary;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Secondary index ordering book ids by (price, id), for price range queries, cheapest /
+ * most expensive top-K and range aggregates.
+ *
+ * The index is a treap whose nodes also carry the size and price sum of their subtree,
+ * so a range listing costs O(log n + k) and a range count or sum costs O(log n): only the
+ * two boundary paths are walked and every subtree in between is taken whole. Sums are
+ * recomputed from the children on every change, so deletes never accumulate rounding
+ * drift. Books without a price are not indexed.
+ *
+ * A store may apply the changes of one book here in another order than it made them, as
+ * long as each change names the price it replaced. The entries then form a multiset:
+ * a removal that overtakes the add it undoes is parked until that add arrives, and an
+ * add that overtakes the removal of the same entry is kept alongside it, so once every
+ * change has been applied the index holds exactly the latest prices.
+ */
+class PriceIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private Node root;
+    // Removals waiting for their add, by entry; empty unless writes are in flight
+    private final Map<Entry, Integer> pending = new HashMap<>();
+
+    void add(long id, Double price) {
+        replace(id, null, price);
+    }
+
+    void remove(long id, Double price) {
+        replace(id, price, null);
+    }
+
+    /**
+     * Moves the book from the price it was indexed at to its new price (either null when
+     * it has none), in one step.
+     */
+    void replace(long id, Double previous, Double price) {
+        boolean removing = previous != null && !previous.isNaN();
+        boolean adding = price != null && !price.isNaN();
+        if (!removing && !adding || removing && adding && previous.equals(price)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (removing) {
+                int size = size(root);
+                root = delete(root, previous, id);
+                if (size(root) == size) {
+                    pending.merge(new Entry(previous, id), 1, Integer::sum);
+                }
+            }
+            if (adding && !unpark(new Entry(price, id))) {
+                root = insert(root, new Node(price, id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of up to {@code limit} books priced within the inclusive bounds (null
+     * means unbounded), ordered by price and then id, or the reverse when descending.
+     */
+    long[] range(Double minPrice, Double maxPrice, int limit, boolean descending) {
+        double lo = minPrice == null ? Double.NEGATIVE_INFINITY : minPrice;
+        double hi = maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice;
+        lock.readLock().lock();
+        try {
+            long[] ids = new long[Math.min(limit, size(root))];
+            int count = 0;
+            // The stack holds the pending in-order successors, so only the path to the
+            // first match plus the k returned nodes are visited
+            Deque<Node> stack = new ArrayDeque<>();
+            for (Node node = root; node != null; ) {
+                if (descending ? node.price <= hi : node.price >= lo) {
+                    stack.push(node);
+                    node = descending ? node.right : node.left;
+                } else {
+                    node = descending ? node.left : node.right;
+                }
+            }
+            while (!stack.isEmpty() && count < ids.length) {
+                Node node = stack.pop();
+                if (descending ? node.price < lo : node.price > hi) {
+                    break;
+                }
+                ids[count++] = node.id;
+                for (Node next = descending ? node.left : node.right; next != null;
+                     next = descending ? next.right : next.left) {
+                    stack.push(next);
+                }
+            }
+            return count == ids.length ? ids : Arrays.copyOf(ids, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts and sums the prices within the inclusive bounds (null means unbounded).
+     */
+    PriceSummary summarize(Double minPrice, Double maxPrice) {
+        double lo = minPrice == null ? Double.NEGATIVE_INFINITY : minPrice;
+        double hi = maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice;
+        lock.readLock().lock();
+        try {
+            // Descend to the highest node inside the range; everything else in range lies
+            // in its subtrees, where only one bound still has to be checked
+            Node split = root;
+            while (split != null && (split.price < lo || split.price > hi)) {
+                split = split.price < lo ? split.right : split.left;
+            }
+            if (split == null) {
+                return new PriceSummary(0, 0);
+            }
+            long count = 1;
+            double sum = split.price;
+            for (Node node = split.left; node != null; ) {
+                if (node.price >= lo) {
+                    count += 1 + size(node.right);
+                    sum += node.price + sum(node.right);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            for (Node node = split.right; node != null; ) {
+                if (node.price <= hi) {
+                    count += 1 + size(node.left);
+                    sum += node.price + sum(node.left);
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            }
+            return new PriceSummary(count, sum);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cancels a parked removal of the entry against its add.
+     */
+    private boolean unpark(Entry entry) {
+        Integer count = pending.get(entry);
+        if (count == null) {
+            return false;
+        }
+        if (count == 1) {
+            pending.remove(entry);
+        } else {
+            pending.put(entry, count - 1);
+        }
+        return true;
+    }
+
+    private static Node insert(Node node, Node fresh) {
+        if (node == null) {
+            return fresh;
+        }
+        if (compare(fresh.price, fresh.id, node) < 0) {
+            node.left = insert(node.left, fresh);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, fresh);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        return update(node);
+    }
+
+    private static Node delete(Node node, double price, long id) {
+        if (node == null) {
+            return null;
+        }
+        int c = compare(price, id, node);
+        if (c == 0) {
+            return merge(node.left, node.right);
+        }
+        if (c < 0) {
+            node.left = delete(node.left, price, id);
+        } else {
+            node.right = delete(node.right, price, id);
+        }
+        return update(node);
+    }
+
+    // Joins two treaps where every key in left is smaller than every key in right
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = update(node);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = update(node);
+        return right;
+    }
+
+    private static Node update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        node.sum = node.price + sum(node.left) + sum(node.right);
+        return node;
+    }
+
+    private static int compare(double price, long id, Node node) {
+        int c = Double.compare(price, node.price);
+        return c != 0 ? c : Long.compare(id, node.id);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static double sum(Node node) {
+        return node == null ? 0 : node.sum;
+    }
+
+    private record Entry(double price, long id) {
+    }
+
+    private static final class Node {
+        final double price;
+        final long id;
+        // Derived from the key so the shape is reproducible, yet well spread across ids
+        final int priority;
+        Node left;
+        Node right;
+        int size = 1;
+        double sum;
+
+        Node(double price, long id) {
+            this.price = price;
+            this.id = id;
+            this.priority = Long.hashCode((id ^ Double.doubleToLongBits(price)) * 0x9E3779B97F4A7C15L);
+            this.sum = price;
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package com.library.repository;
+
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Memory-bounded store: a fixed-size heap tier of hot books in front of a local disk tier
+ * that holds every book in a compact record format.
+ *
+ * Writes go through to disk, so evicting a book from the heap tier is free. Reads are
+ * served from the heap tier when possible and otherwise fault the book in from disk;
+ * {@link TinyLfuCache} decides whether it displaces something hotter. The heap holds the
+ * hot set plus per-book index entries (record location, author/title hashes and the
+ * price index), not the books themselves, so pods can be sized for the working set.
+ *
+ * Listing, paging and streaming read books the heap tier doesn't have straight from disk,
+ * without admitting them or counting them as fault-ins, so scans neither displace the hot
+ * set nor skew its hit ratio.
+ *
+ * Reads share a read lock and writes take the write lock. Once replaced and deleted
+ * records outweigh the live ones, a background thread rewrites the disk tier: it copies
+ * the live records without holding the lock and only takes the write lock at the end to
+ * pick up records written meanwhile and swap the files.
+ */
+@Slf4j
+public class TieredBookRepository implements BookRepository, AutoCloseable {
+
+    static final int STREAM_PAGE_SIZE = 256;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TinyLfuCache<BookVO> hot;
+    private final BookRecordFile disk;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "tiered-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private volatile boolean closed;
+
+    // Secondary indexes over the whole catalog; author and title are indexed by hash of
+    // the normalized value and verified against the book
+    private final IntLongMultimap authorIndex = new IntLongMultimap(1024);
+    private final IntLongMultimap titleIndex = new IntLongMultimap(1024);
+    private final PriceIndex priceIndex = new PriceIndex();
+    private long nextId = 1;
+    private long count;
+    private volatile BookChangeListener changeListener = BookChangeListener.NONE;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder faultIns = new LongAdder();
+    private final LongAdder faultInNanos = new LongAdder();
+
+    /**
+     * @param directory   where the disk tier file is created; its contents are replaced
+     * @param hotCapacity maximum number of books kept on the heap
+     */
+    public TieredBookRepository(Path directory, int hotCapacity) {
+        this.hot = new TinyLfuCache<>(hotCapacity);
+        this.disk = new BookRecordFile(directory.resolve("books.dat"));
+    }
+
+    @Override
+    public BookVO insert(BookVO book) {
+        lock.writeLock().lock();
+        try {
+            append(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changeListener.changed(null, book);
+        return book;
+    }
+
+    @Override
+    public List<BookVO> insertAll(List<BookVO> books) {
+        lock.writeLock().lock();
+        try {
+            for (BookVO book : books) {
+                append(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        books.forEach(book -> changeListener.changed(null, book));
+        return books;
+    }
+
+    @Override
+    public Optional<BookVO> findById(long id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(load(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read like a scan, so checking a book does not admit it to the heap tier.
+     */
+    @Override
+    public Long versionOf(long id) {
+        lock.readLock().lock();
+        try {
+            BookVO book = scan(id);
+            return book == null ? null : book.getVersion();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public WriteStatus update(long id, BookVO book, Long expectedVersion) {
+        BookChanges changes = new BookChanges();
+        WriteStatus status;
+        lock.writeLock().lock();
+        try {
+            status = replace(id, book, expectedVersion, changes);
+            scheduleCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changes.report(changeListener);
+        return status;
+    }
+
+    @Override
+    public boolean[] updateAll(List<BookVO> books) {
+        boolean[] updated = new boolean[books.size()];
+        BookChanges changes = new BookChanges();
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < updated.length; i++) {
+                BookVO book = books.get(i);
+                updated[i] = replace(book.getId(), book, null, changes) == WriteStatus.APPLIED;
+            }
+            scheduleCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changes.report(changeListener);
+        return updated;
+    }
+
+    @Override
+    public WriteStatus delete(long id, Long expectedVersion) {
+        BookChanges changes = new BookChanges();
+        WriteStatus status;
+        lock.writeLock().lock();
+        try {
+            status = remove(id, expectedVersion, changes);
+            scheduleCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changes.report(changeListener);
+        return status;
+    }
+
+    @Override
+    public boolean[] deleteAll(List<Long> ids) {
+        boolean[] removed = new boolean[ids.size()];
+        BookChanges changes = new BookChanges();
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < removed.length; i++) {
+                removed[i] = remove(ids.get(i), null, changes) == WriteStatus.APPLIED;
+            }
+            scheduleCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changes.report(changeListener);
+        return removed;
+    }
+
+    @Override
+    public List<BookVO> findAll() {
+        return findPage(null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<BookVO> findPage(Long after, int limit) {
+        lock.readLock().lock();
+        try {
+            List<BookVO> items = new ArrayList<>(Math.min(limit, 64));
+            // Every book has a disk record, so the record file's id bitmap drives the scan
+            for (long id = disk.nextId(after == null ? 0 : after); id > 0 && items.size() < limit; id = disk.nextId(id)) {
+                items.add(scan(id));
+            }
+            return items;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Stream<BookVO> stream(Long after) {
+        return PagedStream.of(after, STREAM_PAGE_SIZE, this::findPage);
+    }
+
+    @Override
+    public List<BookVO> findByAuthorAndTitle(String author, String title) {
+        String authorKey = AttributeIndex.normalize(author);
+        String titleKey = AttributeIndex.normalize(title);
+        lock.readLock().lock();
+        try {
+            long[] candidates;
+            if (authorKey == null) {
+                candidates = titleIndex.get(titleKey.hashCode());
+            } else if (titleKey == null) {
+                candidates = authorIndex.get(authorKey.hashCode());
+            } else {
+                long[] byAuthor = authorIndex.get(authorKey.hashCode());
+                long[] byTitle = titleIndex.get(titleKey.hashCode());
+                candidates = byAuthor.length <= byTitle.length ? byAuthor : byTitle;
+            }
+
+            List<BookVO> result = new ArrayList<>(candidates.length);
+            for (long id : candidates) {
+                BookVO book = load(id);
+                if (book != null
+                        && (authorKey == null || authorKey.equals(AttributeIndex.normalize(book.getAuthor())))
+                        && (titleKey == null || titleKey.equals(AttributeIndex.normalize(book.getTitle())))) {
+                    result.add(book);
+                }
+            }
+            result.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BookVO> findByPriceRange(Double minPrice, Double maxPrice, int limit, boolean descending) {
+        lock.readLock().lock();
+        try {
+            long[] matches = priceIndex.range(minPrice, maxPrice, limit, descending);
+            List<BookVO> result = new ArrayList<>(matches.length);
+            for (long id : matches) {
+                result.add(load(id));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public PriceSummary summarizePrices(Double minPrice, Double maxPrice) {
+        return priceIndex.summarize(minPrice, maxPrice);
+    }
+
+    @Override
+    public void setChangeListener(BookChangeListener listener) {
+        changeListener = listener;
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long nextId() {
+        lock.readLock().lock();
+        try {
+            return nextId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads answered by the heap tier.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Reads that had to fault the book in from the disk tier.
+     */
+    public long faultIns() {
+        return faultIns.sum();
+    }
+
+    public long faultInNanos() {
+        return faultInNanos.sum();
+    }
+
+    public double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + faultIns.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public long evictions() {
+        return hot.evictions();
+    }
+
+    public int hotSize() {
+        return hot.size();
+    }
+
+    /**
+     * Whether a disk tier compaction is queued or running.
+     */
+    public boolean isCompacting() {
+        return compacting.get();
+    }
+
+    /**
+     * Size of the live records in the disk tier.
+     */
+    public long diskBytes() {
+        lock.readLock().lock();
+        try {
+            return disk.liveBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+            compactor.shutdown();
+            disk.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void scheduleCompaction() {
+        if (!closed && disk.isWasteful() && compacting.compareAndSet(false, true)) {
+            compactor.execute(this::compact);
+        }
+    }
+
+    private void compact() {
+        try {
+            BookRecordFile.Compaction compaction;
+            lock.readLock().lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                compaction = disk.startCompaction();
+            } finally {
+                lock.readLock().unlock();
+            }
+            compaction.copy();
+            lock.writeLock().lock();
+            try {
+                if (!closed) {
+                    disk.finishCompaction(compaction);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (UncheckedIOException ex) {
+            if (!closed) {
+                log.warn("Disk tier compaction failed", ex);
+            }
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    private BookVO load(long id) {
+        BookVO book = hot.get(id);
+        if (book != null) {
+            hits.increment();
+            return book;
+        }
+        if (!disk.contains(id)) {
+            return null;
+        }
+        long start = System.nanoTime();
+        book = disk.read(id);
+        faultInNanos.add(System.nanoTime() - start);
+        faultIns.increment();
+        hot.put(id, book);
+        return book;
+    }
+
+    /**
+     * Reads the book for a scan, leaving the heap tier and the read counters alone.
+     */
+    private BookVO scan(long id) {
+        BookVO book = hot.peek(id);
+        if (book != null) {
+            return book;
+        }
+        return disk.contains(id) ? disk.read(id) : null;
+    }
+
+    private void append(BookVO book) {
+        book.setId(nextId++);
+        book.setVersion(1L);
+        disk.write(book);
+        index(book);
+        hot.put(book.getId(), book);
+        count++;
+    }
+
+    private WriteStatus replace(long id, BookVO book, Long expectedVersion, BookChanges changes) {
+        book.setId(id);
+        BookVO current = load(id);
+        if (current == null) {
+            return WriteStatus.NOT_FOUND;
+        }
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            return WriteStatus.VERSION_MISMATCH;
+        }
+        book.setVersion(current.getVersion() + 1);
+        disk.write(book);
+        unindex(current);
+        index(book);
+        hot.replace(id, book);
+        changes.add(current, book);
+        return WriteStatus.APPLIED;
+    }
+
+    private WriteStatus remove(long id, Long expectedVersion, BookChanges changes) {
+        // Not worth faulting in a book about to be dropped
+        BookVO current = scan(id);
+        if (current == null) {
+            return WriteStatus.NOT_FOUND;
+        }
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            return WriteStatus.VERSION_MISMATCH;
+        }
+        disk.delete(id);
+        unindex(current);
+        hot.remove(id);
+        count--;
+        changes.add(current, null);
+        return WriteStatus.APPLIED;
+    }
+
+    private void index(BookVO book) {
+        String authorKey = AttributeIndex.normalize(book.getAuthor());
+        if (authorKey != null) {
+            authorIndex.put(authorKey.hashCode(), book.getId());
+        }
+        String titleKey = AttributeIndex.normalize(book.getTitle());
+        if (titleKey != null) {
+            titleIndex.put(titleKey.hashCode(), book.getId());
+        }
+        priceIndex.add(book.getId(), book.getPrice());
+    }
+
+    private void unindex(BookVO book) {
+        String authorKey = AttributeIndex.normalize(book.getAuthor());
+        if (authorKey != null) {
+            authorIndex.remove(authorKey.hashCode(), book.getId());
+        }
+        String titleKey = AttributeIndex.normalize(book.getTitle());
+        if (titleKey != null) {
+            titleIndex.remove(titleKey.hashCode(), book.getId());
+        }
+        priceIndex.remove(book.getId(), book.getPrice());
+    }
+}
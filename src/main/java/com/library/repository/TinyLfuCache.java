@@ -0,0 +1,344 @@
+package com.library.repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache keyed by book id with W-TinyLFU eviction.
+ *
+ * New entries land in a small LRU window (1% of capacity). An entry leaving the window is
+ * only admitted to the main region if a frequency sketch says it is accessed more often
+ * than the main region's eviction victim, so one-off reads such as a catalog scan cannot
+ * flush the hot set. The main region is a segmented LRU: entries hit again while on
+ * probation move to the protected segment (80% of the main region).
+ *
+ Lookups never block: entries live in a concurrent map and each access is only recorded
+ * in a bounded ring buffer. Writes take the eviction lock and first replay the buffered
+ * accesses into the sketch and the LRU lists; a reader that finds the buffer full replays
+ * it itself if the lock is free and otherwise drops the access, so under contention some
+ * go uncounted rather than making readers wait.
+ */
+final class TinyLfuCache<V> {
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    private static final int READ_BUFFER_SIZE = 128;
+
+    private final Map<Long, Node<V>> nodes = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicReferenceArray<Node<V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readTail = new AtomicLong();
+    private volatile long readHead;
+    private final FrequencySketch sketch;
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final int protectedCapacity;
+
+    // Each segment is a circular doubly linked list; head.next is the least recently used
+    private final Node<V> window = sentinel();
+    private final Node<V> probation = sentinel();
+    private final Node<V> protectedSegment = sentinel();
+    private int windowSize;
+    private int probationSize;
+    private int protectedSize;
+    private volatile long evictions;
+
+    TinyLfuCache(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        windowCapacity = Math.max(1, capacity / 100);
+        mainCapacity = capacity - windowCapacity;
+        protectedCapacity = mainCapacity * 4 / 5;
+        sketch = new FrequencySketch(capacity);
+    }
+
+    /**
+     * Returns the cached value, recording the access whether or not it is a hit.
+     */
+    V get(long key) {
+        Node<V> node = nodes.get(key);
+        if (node == null) {
+            // An unlinked node only feeds the sketch when the buffer is replayed
+            recordRead(new Node<>(key, null));
+            return null;
+        }
+        recordRead(node);
+        return node.value;
+    }
+
+    /**
+     * Returns the cached value without counting it as an access, for scans.
+     */
+    V peek(long key) {
+        Node<V> node = nodes.get(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Caches a value, typically one just faulted in from disk or newly written.
+     */
+    void put(long key, V value) {
+        evictionLock.lock();
+        try {
+            drainReads();
+            Node<V> node = nodes.get(key);
+            if (node != null) {
+                node.value = value;
+                onHit(node);
+                return;
+            }
+            node = new Node<>(key, value);
+            nodes.put(key, node);
+            node.segment = WINDOW;
+            link(window, node);
+            windowSize++;
+            if (windowSize > windowCapacity) {
+                admitFromWindow();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the value only if the key is cached, without counting it as an access.
+     */
+    void replace(long key, V value) {
+        evictionLock.lock();
+        try {
+            Node<V> node = nodes.get(key);
+            if (node != null) {
+                node.value = value;
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    void remove(long key) {
+        evictionLock.lock();
+        try {
+            drainReads();
+            Node<V> node = nodes.remove(key);
+            if (node != null) {
+                unlink(node);
+                shrink(node.segment);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    long evictions() {
+        return evictions;
+    }
+
+    private void recordRead(Node<V> node) {
+        long tail = readTail.get();
+        long buffered = tail - readHead;
+        if (buffered < READ_BUFFER_SIZE) {
+            if (!readTail.compareAndSet(tail, tail + 1)) {
+                // Lost the slot to another reader; dropping the hit beats spinning
+                return;
+            }
+            readBuffer.lazySet((int) tail & (READ_BUFFER_SIZE - 1), node);
+            if (buffered + 1 < READ_BUFFER_SIZE) {
+                return;
+            }
+        }
+        // The buffer is full: replay it unless another thread already is
+        if (evictionLock.tryLock()) {
+            try {
+                drainReads();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    // Caller holds the eviction lock
+    private void drainReads() {
+        long head = readHead;
+        long tail = readTail.get();
+        for (; head < tail; head++) {
+            int index = (int) head & (READ_BUFFER_SIZE - 1);
+            Node<V> node = readBuffer.get(index);
+            if (node == null) {
+                // Claimed by a reader that has not stored it yet; pick it up next time
+                break;
+            }
+            readBuffer.lazySet(index, null);
+            sketch.increment(node.key);
+            // Skip misses and entries evicted or removed since the read
+            if (node.prev != null) {
+                onHit(node);
+            }
+        }
+        readHead = head;
+    }
+
+    private void onHit(Node<V> node) {
+        unlink(node);
+        if (node.segment == PROBATION) {
+            probationSize--;
+            node.segment = PROTECTED;
+            link(protectedSegment, node);
+            protectedSize++;
+            if (protectedSize > protectedCapacity) {
+                // Demote the coldest protected entry back to probation
+                Node<V> demoted = protectedSegment.next;
+                unlink(demoted);
+                protectedSize--;
+                demoted.segment = PROBATION;
+                link(probation, demoted);
+                probationSize++;
+            }
+        } else {
+            link(node.segment == WINDOW ? window : protectedSegment, node);
+        }
+    }
+
+    private void admitFromWindow() {
+        Node<V> candidate = window.next;
+        unlink(candidate);
+        windowSize--;
+        if (probationSize + protectedSize < mainCapacity) {
+            candidate.segment = PROBATION;
+            link(probation, candidate);
+            probationSize++;
+            return;
+        }
+        Node<V> victim = probationSize > 0 ? probation.next : protectedSegment.next;
+        if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            evict(victim);
+            candidate.segment = PROBATION;
+            link(probation, candidate);
+            probationSize++;
+        } else {
+            nodes.remove(candidate.key);
+            evictions++;
+        }
+    }
+
+    private void evict(Node<V> node) {
+        unlink(node);
+        shrink(node.segment);
+        nodes.remove(node.key);
+        evictions++;
+    }
+
+    private void shrink(byte segment) {
+        if (segment == WINDOW) {
+            windowSize--;
+        } else if (segment == PROBATION) {
+            probationSize--;
+        } else {
+            protectedSize--;
+        }
+    }
+
+    // Appends at the most recently used end
+    private static <V> void link(Node<V> head, Node<V> node) {
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+    }
+
+    private static <V> void unlink(Node<V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    private static <V> Node<V> sentinel() {
+        Node<V> head = new Node<>(0, null);
+        head.prev = head;
+        head.next = head;
+        return head;
+    }
+
+    private static final class Node<V> {
+        final long key;
+        volatile V value;
+        byte segment;
+        Node<V> prev;
+        Node<V> next;
+
+        Node(long key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, four per key. All counters are halved after
+     * ten accesses per cached entry so the estimates follow shifts in popularity.
+     */
+    static final class FrequencySketch {
+
+        private static final long[] SEEDS = {
+                0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            // Sixteen counters per long, at least one counter per cached entry per row
+            int longs = Integer.highestOneBit(Math.max(16, capacity / 4) - 1) << 1;
+            table = new long[longs];
+            sampleSize = 10 * Math.max(capacity, 16);
+        }
+
+        void increment(long key) {
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int counter = counterIndex(key, i);
+                int word = counter >>> 4;
+                int shift = (counter & 15) << 2;
+                if (((table[word] >>> shift) & 15) < 15) {
+                    table[word] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(long key) {
+            int min = 15;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int counter = counterIndex(key, i);
+                min = Math.min(min, (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & 15));
+            }
+            return min;
+        }
+
+        private int counterIndex(long key, int row) {
+            long h = (key + SEEDS[row]) * SEEDS[(row + 1) & 3];
+            h ^= h >>> 29;
+            return (int) h & ((table.length << 4) - 1);
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions /= 2;
+        }
+    }
+}
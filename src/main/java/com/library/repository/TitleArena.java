@@ -0,0 +1,68 @@
+package com.library.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only UTF-8 string storage in fixed-size chunks, optionally allocated off-heap.
+ * Strings are addressed by (offset, length); replaced strings are only counted as garbage
+ * until the owner copies the live ones into a fresh arena. Not thread-safe.
+ */
+final class TitleArena {
+
+    static final int CHUNK_BYTES = 1 << 22;
+
+    private final boolean offHeap;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int position = CHUNK_BYTES;
+    private long liveBytes;
+    private long garbageBytes;
+
+    TitleArena(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    long append(byte[] bytes) {
+        if (bytes.length > CHUNK_BYTES) {
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes exceeds the arena chunk size");
+        }
+        if (position + bytes.length > CHUNK_BYTES) {
+            chunks.add(offHeap ? ByteBuffer.allocateDirect(CHUNK_BYTES) : ByteBuffer.allocate(CHUNK_BYTES));
+            position = 0;
+        }
+        long offset = (long) (chunks.size() - 1) * CHUNK_BYTES + position;
+        chunks.get(chunks.size() - 1).put(position, bytes);
+        position += bytes.length;
+        liveBytes += bytes.length;
+        return offset;
+    }
+
+    byte[] readBytes(long offset, int length) {
+        byte[] bytes = new byte[length];
+        chunks.get((int) (offset / CHUNK_BYTES)).get((int) (offset % CHUNK_BYTES), bytes);
+        return bytes;
+    }
+
+    String read(long offset, int length) {
+        return new String(readBytes(offset, length), StandardCharsets.UTF_8);
+    }
+
+    void release(int length) {
+        liveBytes -= length;
+        garbageBytes += length;
+    }
+
+    boolean isOffHeap() {
+        return offHeap;
+    }
+
+    long liveBytes() {
+        return liveBytes;
+    }
+
+    long garbageBytes() {
+        return garbageBytes;
+    }
+}
@@ -0,0 +1,10 @@
+package com.library.repository;
+
+/**
+ * Outcome of a conditional write against a book's version.
+ */
+public enum WriteStatus {
+    APPLIED,
+    NOT_FOUND,
+    VERSION_MISMATCH
+}
@@ -0,0 +1,660 @@
+package com.library.search;
+
+import com.library.model.BookVO;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant full-text index over book titles and authors, ranked with BM25.
+ *
+ * Both fields are indexed together as one document, with a {@link Postings} list per
+ * distinct word. Typos and partly typed words are handled on the vocabulary side rather
+ * than in the postings: each query word is first expanded, through the {@link Vocabulary},
+ * to the indexed words it may stand for (itself, words it is a prefix of, and words
+ * within one or two edits) before any posting list is read. A
+ * query then reads a handful of word lists instead of the long trigram lists a
+ * gram-per-book index would have to intersect, and the cost of fuzzy matching grows with
+ * the vocabulary rather than the catalog.
+ *
+ * Books are numbered with dense internal ordinals so that posting lists hold small,
+ * increasing ints as delta varints. Updating a book indexes it under a fresh ordinal and
+ * tombstones the old one; once a quarter of the ordinals are dead, every list is rewritten
+ * without them and words no longer used are dropped. Document frequencies still count
+ * dead entries until then, which skews scores slightly but never returns a removed book.
+ * Nothing is kept for a removed book, so a writer that updated a book just before it was
+ * deleted may index it again afterwards; callers check such a late put against the store
+ * and remove the book again (see {@code BookService}).
+ *
+ * Queries take the read lock and read the rarest lists first. Words present in much of
+ * the catalog carry little weight under BM25, so lists that would take the entries decoded
+ * past {@link #POSTINGS_BUDGET} take on no new books: they only score the books
+ * already found, by probing for them through skip pointers or by a scan, whichever is
+ * cheaper, until {@link #WORK_LIMIT} is reached. This bounds the cost of a query
+ * regardless of catalog size or how common its words are, at the price of ranking only
+ * the first books indexed under a word when the query has nothing rarer to go on.
+ */
+public class BookSearchIndex {
+
+    static final float K1 = 1.2f;
+    static final float B = 0.75f;
+    // Entries decoded while finding new books, at most
+    static final int POSTINGS_BUDGET = 50_000;
+    // Entries decoded, or candidates probed, while scoring books already found, at most
+    static final int WORK_LIMIT = 4 * POSTINGS_BUDGET;
+    static final int MAX_QUERY_WORDS = 16;
+    // Indexed words a query word may expand to
+    static final int MAX_EXPANSIONS = 16;
+    // Words starting with the last query word considered for expansion, at most
+    static final int MAX_PREFIX_SCAN = 256;
+    // Typo candidates checked by edit distance per query word, at most, most similar first
+    static final int MAX_TYPO_CHECKS = 256;
+    // Score multipliers for a query word matching an indexed word other than itself
+    static final float PREFIX_WEIGHT = 0.8f;
+    static final float ONE_EDIT_WEIGHT = 0.7f;
+    static final float TWO_EDITS_WEIGHT = 0.5f;
+
+    private static final int DEAD = -1;
+    private static final int COMPACTION_MIN_ORDINALS = 1024;
+    private static final int WEIGHT_TABLE_SIZE = 256;
+    // Rough cost of probing one candidate relative to decoding one entry
+    private static final int PROBE_COST = 16;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Everything below is guarded by lock
+    private Vocabulary vocabulary = new Vocabulary();
+    private final LongIntMap ordinals;
+    // Per ordinal: book id, indexed version and word count (DEAD once superseded)
+    private long[] ids;
+    private long[] versions;
+    private int[] lengths;
+    private int size;
+    private int dead;
+    private long totalLength;
+
+    // Per-query scratch arrays, reused across queries
+    private final Queue<Accumulator> accumulators = new ConcurrentLinkedQueue<>();
+
+    public BookSearchIndex() {
+        this(1024);
+    }
+
+    public BookSearchIndex(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        ids = new long[capacity];
+        versions = new long[capacity];
+        lengths = new int[capacity];
+        ordinals = new LongIntMap(capacity);
+    }
+
+    /**
+     * Indexes the book under its id, replacing what was indexed for it before. A book older
+     * than the indexed one (by version) is ignored, so concurrent writers can call this in
+     * any order and the index still ends up with the latest version.
+     */
+    public void put(BookVO book) {
+        List<String> words = words(book.getTitle(), new ArrayList<>());
+        words(book.getAuthor(), words);
+        String[] sorted = words.toArray(new String[0]);
+        Arrays.sort(sorted);
+        long version = book.getVersion() == null ? 0 : book.getVersion();
+        lock.writeLock().lock();
+        try {
+            int previous = ordinals.get(book.getId());
+            if (previous >= 0) {
+                if (versions[previous] > version) {
+                    return;
+                }
+                kill(previous);
+            }
+            append(book.getId(), version, sorted);
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinals.get(id);
+            if (ordinal >= 0) {
+                kill(ordinal);
+                ordinals.remove(id);
+                maybeCompact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of books indexed.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - dead;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} books matching the query, best first. A book must match
+     * at least half of the query words, each exactly, as a prefix or with a typo. Ties go
+     * to the lower id.
+     */
+    public List<SearchHit> search(String query, int limit) {
+        Set<String> distinct = new LinkedHashSet<>(words(query, new ArrayList<>()));
+        String[] queryWords = distinct.stream().limit(MAX_QUERY_WORDS).toArray(String[]::new);
+        if (queryWords.length == 0 || limit < 1) {
+            return List.of();
+        }
+        Accumulator accumulator = accumulators.poll();
+        lock.readLock().lock();
+        try {
+            int live = size - dead;
+            if (live == 0) {
+                return List.of();
+            }
+            if (accumulator == null) {
+                accumulator = new Accumulator();
+            }
+            accumulator.ensureCapacity(size, vocabulary.size);
+
+            List<Expansion> expansions = new ArrayList<>();
+            for (int word = 0; word < queryWords.length; word++) {
+                expand(queryWords[word], word, word == queryWords.length - 1, accumulator, expansions);
+            }
+            if (expansions.isEmpty()) {
+                return List.of();
+            }
+            expansions.sort(Comparator.comparingInt(expansion -> vocabulary.postings[expansion.term].count));
+
+            float averageLength = (float) totalLength / live;
+            // Weights of a word occurring once, by document length, for the common case
+            float[] singleWeights = new float[WEIGHT_TABLE_SIZE];
+            for (int length = 0; length < singleWeights.length; length++) {
+                singleWeights[length] = weight(1, length, averageLength);
+            }
+
+            int budget = POSTINGS_BUDGET;
+            long work = 0;
+            for (int rank = 0; rank < expansions.size(); rank++) {
+                Expansion expansion = expansions.get(rank);
+                Postings list = vocabulary.postings[expansion.term];
+                float idf = idf(list, live) * expansion.weight;
+                int wordBit = 1 << expansion.word;
+                if (list.count <= budget || accumulator.touchedCount == 0) {
+                    // A list too long for the budget adds books only while nothing else has
+                    int entries = Math.min(list.count, Math.max(budget, 1));
+                    scan(list, idf, wordBit, averageLength, singleWeights, accumulator, entries);
+                    budget -= entries;
+                    continue;
+                }
+                long probeCost = (long) accumulator.touchedCount * PROBE_COST;
+                if (work + Math.min(probeCost, list.count) > WORK_LIMIT) {
+                    continue;
+                }
+                if (probeCost < list.count) {
+                    probe(list, idf, wordBit, averageLength, singleWeights, accumulator);
+                } else {
+                    scan(list, idf, wordBit, averageLength, singleWeights, accumulator, 0);
+                }
+                work += Math.min(probeCost, list.count);
+            }
+            int required = (queryWords.length + 1) / 2;
+            return accumulator.top(limit, required, ids);
+        } finally {
+            lock.readLock().unlock();
+            if (accumulator != null) {
+                accumulator.clear();
+                accumulators.offer(accumulator);
+            }
+        }
+    }
+
+    /**
+     * Adds the indexed words the query word may stand for: the word itself, words within
+     * {@link #maxEdits} edits of it and, for the last word of the query, which may still be
+     * being typed, words it is a prefix of. Typo candidates are the words of about the same
+     * length sharing enough trigrams with the query word, as each edit changes at most three;
+     * those sharing the most are checked first.
+     */
+    private void expand(String word, int wordIndex, boolean last, Accumulator accumulator,
+                        List<Expansion> expansions) {
+        int exact = vocabulary.idOf(word);
+        if (exact >= 0) {
+            expansions.add(new Expansion(exact, wordIndex, 1f));
+        }
+        int maxEdits = maxEdits(word.length());
+        if (maxEdits == 0) {
+            return;
+        }
+        List<Expansion> matches = new ArrayList<>();
+        if (last) {
+            int scanned = 0;
+            for (Map.Entry<String, Integer> extension : vocabulary.extensionsOf(word)) {
+                if (++scanned > MAX_PREFIX_SCAN) {
+                    break;
+                }
+                matches.add(new Expansion(extension.getValue(), wordIndex, PREFIX_WEIGHT));
+            }
+        }
+
+        long[] grams = Vocabulary.distinctGrams(word);
+        int[] counts = accumulator.termCounts;
+        Vocabulary.IntList candidates = accumulator.termsTouched;
+        for (long gram : grams) {
+            for (int length = word.length() - maxEdits; length <= word.length() + maxEdits; length++) {
+                Vocabulary.IntList terms = vocabulary.termsWith(gram, length);
+                if (terms == null) {
+                    continue;
+                }
+                for (int i = 0; i < terms.size; i++) {
+                    int term = terms.values[i];
+                    if (counts[term]++ == 0) {
+                        candidates.add(term);
+                    }
+                }
+            }
+        }
+        // Raise the bar on shared grams until few enough candidates are left to check
+        int[] histogram = new int[grams.length + 1];
+        for (int i = 0; i < candidates.size; i++) {
+            histogram[counts[candidates.values[i]]]++;
+        }
+        int threshold = grams.length;
+        for (int above = histogram[threshold];
+             threshold > Math.max(1, grams.length - 3 * maxEdits) && above + histogram[threshold - 1] <= MAX_TYPO_CHECKS; ) {
+            above += histogram[--threshold];
+        }
+        for (int i = 0; i < candidates.size; i++) {
+            int term = candidates.values[i];
+            int shared = counts[term];
+            counts[term] = 0;
+            String candidate = vocabulary.terms[term];
+            // The word itself and, for the last word, its extensions are already in
+            if (shared < threshold || (last ? candidate.startsWith(word) : candidate.equals(word))) {
+                continue;
+            }
+            int edits = Vocabulary.distance(word, candidate, maxEdits);
+            if (edits <= maxEdits) {
+                matches.add(new Expansion(term, wordIndex, edits == 1 ? ONE_EDIT_WEIGHT : TWO_EDITS_WEIGHT));
+            }
+        }
+        candidates.size = 0;
+        // Closest and then most common words first, as the likeliest to be meant
+        matches.sort(Comparator.comparingDouble((Expansion expansion) -> -expansion.weight)
+                .thenComparingInt(expansion -> -vocabulary.postings[expansion.term].count));
+        int room = exact >= 0 ? MAX_EXPANSIONS - 1 : MAX_EXPANSIONS;
+        expansions.addAll(matches.subList(0, Math.min(room, matches.size())));
+    }
+
+    /**
+     * Typos tolerated in a query word of the given length: none for one or two letters,
+     * where almost any edit gives another real word.
+     */
+    static int maxEdits(int length) {
+        return length <= 2 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    private static float idf(Postings list, int live) {
+        int df = Math.min(list.count, live);
+        return (float) Math.log(1 + (live - df + 0.5) / (df + 0.5));
+    }
+
+    /**
+     * Scores the live books among the first {@code newEntries} entries of the list or, with
+     * {@code newEntries} zero, the books anywhere in it already matched by an earlier list.
+     */
+    private void scan(Postings list, float idf, int wordBit, float averageLength, float[] singleWeights,
+                      Accumulator accumulator, int newEntries) {
+        byte[] data = list.data;
+        int end = list.length;
+        int ordinal = -1;
+        boolean addCandidates = newEntries > 0;
+        int limit = addCandidates ? newEntries : list.count;
+        for (int position = 0, entries = 0; position < end && entries < limit; entries++) {
+            // Varints decoded inline; nearly every entry is a single byte
+            int b = data[position++];
+            int entry = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = data[position++];
+                entry |= (b & 0x7F) << shift;
+            }
+            ordinal += entry >>> 1;
+            int frequency = 1;
+            if ((entry & 1) != 0) {
+                b = data[position++];
+                frequency = b & 0x7F;
+                for (int shift = 7; b < 0; shift += 7) {
+                    b = data[position++];
+                    frequency |= (b & 0x7F) << shift;
+                }
+            }
+            int length = lengths[ordinal];
+            if (length == DEAD || (!addCandidates && accumulator.words[ordinal] == 0)) {
+                continue;
+            }
+            float weight = frequency == 1 && length < singleWeights.length
+                    ? singleWeights[length]
+                    : weight(frequency, length, averageLength);
+            accumulator.add(ordinal, idf * weight, wordBit);
+        }
+    }
+
+    /**
+     * Scores the books already matched that also appear in the list, jumping through the
+     * list's skip pointers instead of decoding all of it.
+     */
+    private void probe(Postings list, float idf, int wordBit, float averageLength, float[] singleWeights,
+                       Accumulator accumulator) {
+        int[] candidates = accumulator.sortedCandidates();
+        int candidateCount = accumulator.touchedCount;
+        int blocks = (list.count + Postings.SKIP_INTERVAL - 1) / Postings.SKIP_INTERVAL;
+        byte[] data = list.data;
+        int position = 0;
+        int ordinal = -1;
+        int frequency = 0;
+        int block = 0;
+        for (int c = 0; c < candidateCount; c++) {
+            int candidate = candidates[c];
+            if (ordinal < candidate) {
+                // Jump to the last block starting before the candidate, if that is ahead
+                int target = block;
+                int low = block + 1;
+                int high = blocks - 1;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    if (list.skipOrdinals[mid] < candidate) {
+                        target = mid;
+                        low = mid + 1;
+                    } else {
+                        high = mid - 1;
+                    }
+                }
+                if (target > block) {
+                    block = target;
+                    if (list.skipOrdinals[block] > ordinal) {
+                        position = list.skipOffsets[block];
+                        ordinal = list.skipOrdinals[block];
+                    }
+                }
+                while (ordinal < candidate && position < list.length) {
+                    int b = data[position++];
+                    int entry = b & 0x7F;
+                    for (int shift = 7; b < 0; shift += 7) {
+                        b = data[position++];
+                        entry |= (b & 0x7F) << shift;
+                    }
+                    ordinal += entry >>> 1;
+                    frequency = 1;
+                    if ((entry & 1) != 0) {
+                        b = data[position++];
+                        frequency = b & 0x7F;
+                        for (int shift = 7; b < 0; shift += 7) {
+                            b = data[position++];
+                            frequency |= (b & 0x7F) << shift;
+                        }
+                    }
+                }
+                if (position >= list.length && ordinal < candidate) {
+                    return;
+                }
+            }
+            if (ordinal == candidate) {
+                int length = lengths[ordinal];
+                float weight = frequency == 1 && length < singleWeights.length
+                        ? singleWeights[length]
+                        : weight(frequency, length, averageLength);
+                accumulator.add(ordinal, idf * weight, wordBit);
+            }
+        }
+    }
+
+    /**
+     * BM25 term weight without the idf factor.
+     */
+    private static float weight(int frequency, int length, float averageLength) {
+        return frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+    }
+
+    private void append(long id, long version, String[] sortedWords) {
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        int ordinal = size++;
+        ids[ordinal] = id;
+        versions[ordinal] = version;
+        lengths[ordinal] = sortedWords.length;
+        totalLength += sortedWords.length;
+        ordinals.put(id, ordinal);
+        for (int i = 0; i < sortedWords.length; ) {
+            int j = i;
+            while (j < sortedWords.length && sortedWords[j].equals(sortedWords[i])) {
+                j++;
+            }
+            int term = vocabulary.add(sortedWords[i]);
+            vocabulary.postings[term].add(ordinal, j - i);
+            i = j;
+        }
+    }
+
+    private void kill(int ordinal) {
+        totalLength -= lengths[ordinal];
+        lengths[ordinal] = DEAD;
+        dead++;
+    }
+
+    private void maybeCompact() {
+        if (size < COMPACTION_MIN_ORDINALS || dead * 4 < size) {
+            return;
+        }
+        int[] remap = new int[size];
+        int live = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (lengths[ordinal] == DEAD) {
+                remap[ordinal] = -1;
+            } else {
+                remap[ordinal] = live;
+                ids[live] = ids[ordinal];
+                versions[live] = versions[ordinal];
+                lengths[live] = lengths[ordinal];
+                ordinals.put(ids[live], live);
+                live++;
+            }
+        }
+        size = live;
+        dead = 0;
+        vocabulary = vocabulary.compact(remap);
+    }
+
+    /**
+     * Appends the words of the text to {@code into}, lower-cased and stripped of accents.
+     * Anything other than letters and digits separates words.
+     */
+    static List<String> words(String text, List<String> into) {
+        if (text == null) {
+            return into;
+        }
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                into.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return into;
+    }
+
+    static String normalize(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) >= 0x80) {
+                return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * An indexed word standing in for one query word, with its score multiplier.
+     */
+    private static final class Expansion {
+
+        final int term;
+        final int word;
+        final float weight;
+
+        Expansion(int term, int word, float weight) {
+            this.term = term;
+            this.word = word;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Per-query scratch space: a score and a bit set of matched query words per ordinal,
+     * the ordinals touched so that only those need resetting, and shared-gram counts per
+     * vocabulary word for query expansion.
+     */
+    private static final class Accumulator {
+
+        float[] scores = new float[0];
+        char[] words = new char[0];
+        int[] touched = new int[1024];
+        int touchedCount;
+        int[] termCounts = new int[0];
+        final Vocabulary.IntList termsTouched = new Vocabulary.IntList();
+        private boolean sorted;
+
+        void ensureCapacity(int ordinals, int terms) {
+            if (scores.length < ordinals) {
+                scores = new float[ordinals + ordinals / 4];
+                words = new char[scores.length];
+            }
+            if (termCounts.length < terms) {
+                termCounts = new int[terms + terms / 4];
+            }
+        }
+
+        void add(int ordinal, float score, int wordBit) {
+            if (words[ordinal] == 0) {
+                if (touchedCount == touched.length) {
+                    touched = Arrays.copyOf(touched, touched.length * 2);
+                }
+                touched[touchedCount++] = ordinal;
+            }
+            scores[ordinal] += score;
+            words[ordinal] |= (char) wordBit;
+        }
+
+        /**
+         * Collects the best books matching at least {@code required} query words.
+         * Candidates are kept in a primitive min-heap of ordinals, so only the final hits
+         * are allocated.
+         */
+        List<SearchHit> top(int limit, int required, long[] ids) {
+            int[] heap = new int[Math.min(limit, touchedCount) + 1];
+            int heapSize = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int ordinal = touched[i];
+                if (Integer.bitCount(words[ordinal]) >= required) {
+                    if (heapSize < limit) {
+                        heap[heapSize] = ordinal;
+                        siftUp(heap, heapSize++, ids);
+                    } else if (better(ordinal, heap[0], ids)) {
+                        heap[0] = ordinal;
+                        siftDown(heap, heapSize, ids);
+                    }
+                }
+            }
+            List<SearchHit> hits = new ArrayList<>(heapSize);
+            for (int i = 0; i < heapSize; i++) {
+                hits.add(new SearchHit(ids[heap[i]], scores[heap[i]]));
+            }
+            hits.sort(SearchHit.RANKING);
+            return hits;
+        }
+
+        /**
+         * The matched ordinals in increasing order. Only valid until another ordinal is
+         * added, so callers may add scores to these but not match new books.
+         */
+        int[] sortedCandidates() {
+            if (!sorted) {
+                Arrays.sort(touched, 0, touchedCount);
+                sorted = true;
+            }
+            return touched;
+        }
+
+        void clear() {
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0;
+                words[touched[i]] = 0;
+            }
+            touchedCount = 0;
+            sorted = false;
+        }
+
+        private boolean better(int a, int b, long[] ids) {
+            return scores[a] > scores[b] || (scores[a] == scores[b] && ids[a] < ids[b]);
+        }
+
+        // The heap keeps the worst candidate at the root
+        private void siftUp(int[] heap, int index, long[] ids) {
+            int ordinal = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!better(heap[parent], ordinal, ids)) {
+                    break;
+                }
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = ordinal;
+        }
+
+        private void siftDown(int[] heap, int size, long[] ids) {
+            int ordinal = heap[0];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && better(heap[child], heap[child + 1], ids)) {
+                    child++;
+                }
+                if (!better(ordinal, heap[child], ids)) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = ordinal;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.library.search;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from a positive long key (a book id) to a non-negative int, stored
+ * in two parallel primitive arrays with linear probing. Not thread-safe.
+ */
+final class LongIntMap {
+
+    private static final int EMPTY = -1;
+    private static final int TOMBSTONE = -2;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int used;
+
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+    }
+
+    /**
+     * @return the value for the key, or -1 when absent
+     */
+    int get(long key) {
+        int mask = values.length - 1;
+        for (int index = mix(key) & mask; values[index] != EMPTY; index = (index + 1) & mask) {
+            if (values[index] != TOMBSTONE && keys[index] == key) {
+                return values[index];
+            }
+        }
+        return -1;
+    }
+
+    void put(long key, int value) {
+        if ((used + 1) * 2 > values.length) {
+            // Grow when live entries dominate, otherwise just sweep the tombstones
+            rehash(size * 4 > values.length ? values.length * 2 : values.length);
+        }
+        int mask = values.length - 1;
+        int free = -1;
+        int index = mix(key) & mask;
+        for (; values[index] != EMPTY; index = (index + 1) & mask) {
+            if (values[index] == TOMBSTONE) {
+                if (free < 0) {
+                    free = index;
+                }
+            } else if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+        }
+        if (free < 0) {
+            free = index;
+            used++;
+        }
+        keys[free] = key;
+        values[free] = value;
+        size++;
+    }
+
+    void remove(long key) {
+        int mask = values.length - 1;
+        for (int index = mix(key) & mask; values[index] != EMPTY; index = (index + 1) & mask) {
+            if (values[index] != TOMBSTONE && keys[index] == key) {
+                values[index] = TOMBSTONE;
+                size--;
+                return;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        size = 0;
+        used = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] >= 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,111 @@
+package com.library.search;
+
+import java.util.Arrays;
+
+/**
+ * Posting list for one word: the ordinals of the books containing it, in increasing order,
+ * with the number of times the word occurs in each.
+ *
+ * Entries are delta-encoded varints. The delta is shifted left by one and the low bit says
+ * whether a frequency follows; most words occur once per book, so a typical entry takes one
+ * or two bytes. Every {@link #SKIP_INTERVAL} entries a skip pointer records the byte offset
+ * of the block and the ordinal preceding it, so a reader can jump close to a given ordinal
+ * instead of decoding the list from the start. Lists are append-only because ordinals only
+ * grow; dead ordinals are dropped when the index is compacted. Not thread-safe.
+ */
+final class Postings {
+
+    static final int SKIP_INTERVAL = 64;
+
+    byte[] data = new byte[4];
+    int length;
+    // Entries, including ones whose book has since died
+    int count;
+    // Per block of SKIP_INTERVAL entries: the ordinal before it and where it starts. Left
+    // null while the list fits in one block, as most lists do
+    int[] skipOrdinals;
+    int[] skipOffsets;
+    private int last = -1;
+
+    void add(int ordinal, int frequency) {
+        if (data.length - length < 10) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+        }
+        if (count > 0 && count % SKIP_INTERVAL == 0) {
+            int block = count / SKIP_INTERVAL;
+            if (skipOrdinals == null) {
+                skipOrdinals = new int[] {-1, 0, 0, 0};
+                skipOffsets = new int[4];
+            } else if (block == skipOrdinals.length) {
+                skipOrdinals = Arrays.copyOf(skipOrdinals, block * 2);
+                skipOffsets = Arrays.copyOf(skipOffsets, block * 2);
+            }
+            skipOrdinals[block] = last;
+            skipOffsets[block] = length;
+        }
+        int delta = ordinal - last;
+        last = ordinal;
+        if (frequency > 1) {
+            length = putVarInt(data, length, delta << 1 | 1);
+            length = putVarInt(data, length, frequency);
+        } else {
+            length = putVarInt(data, length, delta << 1);
+        }
+        count++;
+    }
+
+    /**
+     * Rewrites the list through {@code remap} (old ordinal to new, or negative to drop).
+     *
+     * @return the rewritten list, or null when no entry survives
+     */
+    Postings compact(int[] remap) {
+        Postings compacted = new Postings();
+        int ordinal = -1;
+        for (int position = 0; position < length; ) {
+            int entry = getVarInt(data, position);
+            position = skipVarInt(data, position);
+            ordinal += entry >>> 1;
+            int frequency = 1;
+            if ((entry & 1) != 0) {
+                frequency = getVarInt(data, position);
+                position = skipVarInt(data, position);
+            }
+            if (remap[ordinal] >= 0) {
+                compacted.add(remap[ordinal], frequency);
+            }
+        }
+        if (compacted.count == 0) {
+            return null;
+        }
+        compacted.data = Arrays.copyOf(compacted.data, compacted.length);
+        return compacted;
+    }
+
+    static int putVarInt(byte[] buffer, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    static int getVarInt(byte[] buffer, int position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    static int skipVarInt(byte[] buffer, int position) {
+        while (buffer[position++] < 0) {
+            // Continuation byte
+        }
+        return position;
+    }
+}
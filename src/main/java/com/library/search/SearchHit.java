@@ -0,0 +1,36 @@
+package com.library.search;
+
+import java.util.Comparator;
+
+/**
+ * A book matched by {@link BookSearchIndex#search}, with its BM25 score.
+ */
+public final class SearchHit {
+
+    /**
+     * Best first: higher score, then lower id.
+     */
+    static final Comparator<SearchHit> RANKING = Comparator.comparingDouble((SearchHit hit) -> -hit.score)
+            .thenComparingLong(hit -> hit.id);
+
+    private final long id;
+    private final float score;
+
+    SearchHit(long id, float score) {
+        this.id = id;
+        this.score = score;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchHit(id=" + id + ", score=" + score + ")";
+    }
+}
@@ -0,0 +1,163 @@
+package com.library.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The distinct words of the indexed books, each with its {@link Postings}. Words are kept
+ * sorted, so the words starting with a prefix are a range, and indexed by character
+ * trigram and length, so the words within a few edits of a misspelled one are found among
+ * the words of about its length sharing enough trigrams with it. Not thread-safe.
+ */
+final class Vocabulary {
+
+    private final NavigableMap<String, Integer> ids = new TreeMap<>();
+    // Keyed by gram and word length
+    private final Map<Long, IntList> termsByGram = new HashMap<>();
+    String[] terms = new String[1024];
+    Postings[] postings = new Postings[1024];
+    int size;
+
+    int idOf(String term) {
+        Integer id = ids.get(term);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the id of the term, adding it if new.
+     */
+    int add(String term) {
+        Integer existing = ids.get(term);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == terms.length) {
+            terms = Arrays.copyOf(terms, size * 2);
+            postings = Arrays.copyOf(postings, size * 2);
+        }
+        int id = size++;
+        terms[id] = term;
+        postings[id] = new Postings();
+        ids.put(term, id);
+        for (long gram : distinctGrams(term)) {
+            termsByGram.computeIfAbsent(key(gram, term.length()), k -> new IntList()).add(id);
+        }
+        return id;
+    }
+
+    /**
+     * Ids of the terms of the given length containing the gram, or null.
+     */
+    IntList termsWith(long gram, int length) {
+        return termsByGram.get(key(gram, length));
+    }
+
+    /**
+     * Terms longer than the prefix that start with it, in order, with their ids.
+     */
+    Iterable<Map.Entry<String, Integer>> extensionsOf(String prefix) {
+        return ids.subMap(prefix, false, prefix + Character.MAX_VALUE, false).entrySet();
+    }
+
+    /**
+     * Rebuilds the vocabulary with every posting list rewritten through {@code remap},
+     * leaving out the terms no live book uses any more.
+     */
+    Vocabulary compact(int[] remap) {
+        Vocabulary compacted = new Vocabulary();
+        for (int id = 0; id < size; id++) {
+            Postings list = postings[id].compact(remap);
+            if (list != null) {
+                int compactedId = compacted.add(terms[id]);
+                compacted.postings[compactedId] = list;
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Distinct trigrams of the word padded with boundary markers, so that {@code "java"}
+     * gives {@code $ja jav ava va$} and one-letter words still get a gram.
+     */
+    static long[] distinctGrams(String word) {
+        int n = word.length();
+        long[] grams = new long[n];
+        for (int i = 0; i < n; i++) {
+            grams[i] = (long) charAt(word, i - 1) << 32 | (long) word.charAt(i) << 16 | charAt(word, i + 1);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Optimal string alignment distance (edits counting adjacent transpositions as one), or
+     * {@code max + 1} as soon as it is known to exceed {@code max}.
+     */
+    static int distance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+
+    private static long key(long gram, int length) {
+        return gram << 8 | Math.min(length, 255);
+    }
+
+    private static char charAt(String word, int index) {
+        return index < 0 || index >= word.length() ? '$' : word.charAt(index);
+    }
+
+    /**
+     * Growable list of ints.
+     */
+    static final class IntList {
+
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.library.service;
+
+import com.library.model.AuthorStats;
+import com.library.model.BatchResult;
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import com.library.stats.AuthorStatistics;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The catalog as the REST API sees it. {@link BookService} answers from this instance's
+ * store; when the catalog is sharded, {@link com.library.sharding.ShardRouter} is the
+ * primary catalog and answers from every shard, so the controller does not need to know
+ * which one it has.
+ */
+public interface BookCatalog {
+
+    BookVO addBook(BookVO book);
+
+    /**
+     * Adds the books and returns them with their ids, in the order given.
+     */
+    List<BookVO> addBatchBooks(List<BookVO> books);
+
+    BatchResult updateBatchBooks(List<BookVO> books);
+
+    BatchResult deleteBatchBooks(List<Long> ids);
+
+    BookVO getBookById(Long id);
+
+    /**
+     * Replaces the book only if it is still at {@code expectedVersion} (any version when
+     * null).
+     */
+    BookVO updateBook(Long id, BookVO book, Long expectedVersion);
+
+    /**
+     * Deletes the book only if it is still at {@code expectedVersion} (any version when
+     * null).
+     */
+    void deleteBook(Long id, Long expectedVersion);
+
+    List<BookVO> getAllBooks();
+
+    /**
+     * Up to {@code limit} books after the cursor in id order, read from {@code snapshot}
+     * when the catalog can pin one.
+     */
+    BookPage getBooksPage(Long after, int limit, Long snapshot);
+
+    Stream<BookVO> streamBooks(Long after);
+
+    List<BookVO> findBooks(String author, String title);
+
+    List<BookVO> findBooksByPrice(Double minPrice, Double maxPrice, boolean descending, Integer limit);
+
+    PriceSummary summarizePrices(Double minPrice, Double maxPrice);
+
+    List<AuthorStats> getAuthorStats(AuthorStatistics.Order order, Integer limit);
+
+    List<BookVO> searchBooks(String query, Integer limit);
+}
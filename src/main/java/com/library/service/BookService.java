@@ -1,57 +1,440 @@
 package com.library.service;
 
 import com.library.exception.BookNotFoundException;
+import com.library.exception.SnapshotExpiredException;
+import com.library.exception.VersionMismatchException;
+import com.library.model.AuthorStats;
+import com.library.model.BatchFailure;
+import com.library.model.BatchResult;
+import com.library.model.BookPage;
 import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import com.library.repository.BookRepository;
+import com.library.repository.PagingSnapshot;
+import com.library.repository.InMemoryBookRepository;
+import com.library.repository.WriteStatus;
+import com.library.search.BookSearchIndex;
+import com.library.search.SearchHit;
+import com.library.stats.AuthorStatistics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 @Service
-public class BookService {
-    private final Map<Long, BookVO> books = new ConcurrentHashMap<>();
-    private final AtomicLong idGenerator = new AtomicLong(1);
+public class BookService implements BookCatalog {
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int DEFAULT_SEARCH_LIMIT = 10;
+    public static final int MAX_SEARCH_LIMIT = 100;
+    public static final int MAX_QUERY_LENGTH = 256;
 
+    private final BookRepository repository;
+    private final BookServiceMetrics metrics;
+    private final LongAdder changes = new LongAdder();
+    private final BookSearchIndex searchIndex = new BookSearchIndex();
+    private final AuthorStatistics authorStats = new AuthorStatistics();
+    private final List<LongConsumer> changeListeners = new CopyOnWriteArrayList<>();
+
+    public BookService() {
+        this(new InMemoryBookRepository());
+    }
+
+    /**
+     * Creates a service whose metrics are discarded.
+     */
+    public BookService(BookRepository repository) {
+        this(repository, new CompositeMeterRegistry());
+    }
+
+    @Autowired
+    public BookService(BookRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.metrics = new BookServiceMetrics(meterRegistry, repository);
+        // Books already in a persistent store; later writes keep the index and statistics current
+        try (Stream<BookVO> books = repository.stream(null)) {
+            books.forEach(book -> {
+                searchIndex.put(book);
+                authorStats.add(book.getAuthor(), book.getPrice());
+            });
+        }
+        repository.setChangeListener(this::bookChanged);
+    }
+
+    @Override
     public BookVO addBook(BookVO book) {
-        Long id = idGenerator.getAndIncrement();
-        book.setId(id);
-        books.put(id, book);
-        return book;
+        BookVO added = metrics.add.record(() -> repository.insert(book));
+        changes.increment();
+        return added;
     }
 
+    @Override
     public List<BookVO> addBatchBooks(List<BookVO> bookList) {
-        List<BookVO> addedBooks = new ArrayList<>();
-        for (BookVO book : bookList) {
-            addedBooks.add(addBook(book));
+        List<BookVO> added = metrics.addBatch.record(() -> repository.insertAll(bookList));
+        changes.add(added.size());
+        return added;
+    }
+
+    /**
+     * Updates every book in the list by its id. Books without an id or with an unknown id
+     * are reported as failures; the rest of the batch is still applied.
+     */
+    @Override
+    public BatchResult updateBatchBooks(List<BookVO> bookList) {
+        return metrics.updateBatch.record(() -> applyUpdateBatch(bookList));
+    }
+
+    private BatchResult applyUpdateBatch(List<BookVO> bookList) {
+        List<BatchFailure> failures = new ArrayList<>();
+        List<BookVO> withId = new ArrayList<>(bookList.size());
+        int[] positions = new int[bookList.size()];
+        for (int i = 0; i < bookList.size(); i++) {
+            BookVO book = bookList.get(i);
+            if (book.getId() == null) {
+                failures.add(new BatchFailure(i, null, "Id is required"));
+            } else {
+                positions[withId.size()] = i;
+                withId.add(book);
+            }
         }
-        return addedBooks;
+
+        boolean[] updated = repository.updateAll(withId);
+        long succeeded = 0;
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i]) {
+                changed(withId.get(i).getId());
+                succeeded++;
+            } else {
+                Long id = withId.get(i).getId();
+                failures.add(new BatchFailure(positions[i], id, notFoundMessage(id)));
+            }
+        }
+        changes.add(succeeded);
+        failures.sort(Comparator.comparingLong(BatchFailure::getIndex));
+        return new BatchResult(succeeded, failures);
+    }
+
+    /**
+     * Deletes every listed id. Unknown ids are reported as failures without aborting the
+     * rest of the batch.
+     */
+    @Override
+    public BatchResult deleteBatchBooks(List<Long> ids) {
+        return metrics.deleteBatch.record(() -> applyDeleteBatch(ids));
     }
 
+    private BatchResult applyDeleteBatch(List<Long> ids) {
+        List<BatchFailure> failures = new ArrayList<>();
+        List<Long> present = new ArrayList<>(ids.size());
+        int[] positions = new int[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (id == null) {
+                failures.add(new BatchFailure(i, null, "Id is required"));
+            } else {
+                positions[present.size()] = i;
+                present.add(id);
+            }
+        }
+
+        boolean[] deleted = repository.deleteAll(present);
+        long succeeded = 0;
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i]) {
+                changed(present.get(i));
+                succeeded++;
+            } else {
+                failures.add(new BatchFailure(positions[i], present.get(i), notFoundMessage(present.get(i))));
+            }
+        }
+        changes.add(succeeded);
+        failures.sort(Comparator.comparingLong(BatchFailure::getIndex));
+        return new BatchResult(succeeded, failures);
+    }
+
+    /**
+     * Applies a book replicated from the leader, keeping its id and version; a copy no
+     * newer than the stored one is ignored. Not timed, as replicated writes are measured
+     * on the leader.
+     */
+    public void applyReplicatedPut(BookVO book) {
+        if (repository.putReplica(book)) {
+            changed(book.getId());
+            changes.increment();
+        }
+    }
+
+    /**
+     * Applies a delete replicated from the leader; an unknown id is ignored.
+     */
+    public void applyReplicatedDelete(long id) {
+        if (repository.delete(id)) {
+            changed(id);
+            changes.increment();
+        }
+    }
+
+    /**
+     * Registers a listener that is given the id of every book updated or deleted through
+     * this service, once the change is applied, so it can drop anything derived from the
+     * previous copy.
+     */
+    public void onBookChanged(LongConsumer listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Number of books added, updated or deleted through this service so far. Consumers that
+     * derive data from the whole catalog compare it against the value they last saw to
+     * decide whether the catalog has moved on enough to rebuild.
+     */
+    public long changeCount() {
+        return changes.sum();
+    }
+
+    @Override
     public List<BookVO> getAllBooks() {
-        return new ArrayList<>(books.values());
+        return metrics.getAll.record(repository::findAll);
+    }
+
+    /**
+     * Returns up to {@code limit} books with an id greater than {@code after}, in id order.
+     *
+     * The cursor is the id itself, so pages stay stable while books are added or removed
+     * elsewhere in the catalog and each call only touches the entries it returns.
+     */
+    public BookPage getBooksPage(Long after, int limit) {
+        return getBooksPage(after, limit, null);
     }
 
+    /**
+     * Like {@link #getBooksPage(Long, int)}, but on a store that takes snapshots every page
+     * is read from one: a page that has a successor carries the token of the snapshot it was
+     * read from, and passing that token back reads the next page from the same snapshot, so
+     * a client paging through the catalog sees it as of its first page.
+     *
+     * @throws SnapshotExpiredException when {@code snapshot} is no longer retained
+     */
+    @Override
+    public BookPage getBooksPage(Long after, int limit, Long snapshot) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        PagingSnapshot view = snapshot != null ? repository.snapshot(snapshot) : repository.snapshot();
+        // Fetch one extra book to learn whether another page follows
+        List<BookVO> items = metrics.getPage.record(() -> view != null
+                ? view.findPage(after, limit + 1)
+                : repository.findPage(after, limit + 1));
+        Long nextCursor = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            nextCursor = items.get(limit - 1).getId();
+        }
+        BookPage page = new BookPage(items, nextCursor);
+        if (view != null && nextCursor != null) {
+            view.retain();
+            page.setSnapshot(view.token());
+        }
+        return page;
+    }
+
+    /**
+     * Lazily streams the catalog in id order, starting after the given id (or from the
+     * beginning when null). Nothing is copied up front; the stream is weakly consistent
+     * with concurrent writes. Not timed, as the work happens while the caller consumes it.
+     */
+    @Override
+    public Stream<BookVO> streamBooks(Long after) {
+        return repository.stream(after);
+    }
+
+    /**
+     * Finds books matching every non-null criterion (case-insensitive exact match).
+     *
+     * The repository answers from its author/title indexes, so the cost is proportional
+     * to the matching books rather than to the catalog size.
+     */
+    @Override
+    public List<BookVO> findBooks(String author, String title) {
+        if (author == null && title == null) {
+            return getAllBooks();
+        }
+        return metrics.find.record(() -> repository.findByAuthorAndTitle(author, title));
+    }
+
+    /**
+     * Lists books priced within the inclusive bounds (null means unbounded), cheapest
+     * first or most expensive first. With a limit this is a top-K query.
+     *
+     * The repository walks a sorted price index, so the cost is O(log n + k) for k
+     * returned books instead of a scan and sort of the whole catalog.
+     */
+    @Override
+    public List<BookVO> findBooksByPrice(Double minPrice, Double maxPrice, boolean descending, Integer limit) {
+        checkPriceRange(minPrice, maxPrice);
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        int max = limit != null ? limit : Integer.MAX_VALUE;
+        return metrics.findByPrice.record(() -> repository.findByPriceRange(minPrice, maxPrice, max, descending));
+    }
+
+    /**
+     * Counts and sums the prices within the inclusive bounds (null means unbounded) in
+     * O(log n), without touching the matching books.
+     */
+    @Override
+    public PriceSummary summarizePrices(Double minPrice, Double maxPrice) {
+        checkPriceRange(minPrice, maxPrice);
+        return metrics.summarizePrices.record(() -> repository.summarizePrices(minPrice, maxPrice));
+    }
+
+    /**
+     * Book count and average, minimum and maximum price per author, for the first
+     * {@code limit} authors (all when null) alphabetically, by book count or by average
+     * price. Read from statistics every write keeps current, so the cost grows with the
+     * authors returned rather than with the catalog.
+     */
+    @Override
+    public List<AuthorStats> getAuthorStats(AuthorStatistics.Order order, Integer limit) {
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return metrics.authorStats.record(() -> authorStats.top(order, limit != null ? limit : Integer.MAX_VALUE));
+    }
+
+    /**
+     * Ranks books by how well their title and author match the query, best first, with
+     * typos and an unfinished last word tolerated; see {@link BookSearchIndex}. Hits are
+     * read back from the repository, so a book deleted meanwhile is left out.
+     */
+    @Override
+    public List<BookVO> searchBooks(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("q must not be blank");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("q must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        int max = limit != null ? limit : DEFAULT_SEARCH_LIMIT;
+        if (max < 1 || max > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        return metrics.search.record(() -> {
+            List<SearchHit> hits = searchIndex.search(query, max);
+            List<BookVO> books = new ArrayList<>(hits.size());
+            for (SearchHit hit : hits) {
+                repository.findById(hit.getId()).ifPresent(books::add);
+            }
+            return books;
+        });
+    }
+
+    @Override
     public BookVO getBookById(Long id) {
-        BookVO book = books.get(id);
-        if (book == null) {
-            throw new BookNotFoundException("Book with id " + id + " not found");
+        Optional<BookVO> book = metrics.get.record(() -> repository.findById(id));
+        if (book.isEmpty()) {
+            metrics.getNotFound.increment();
+            throw new BookNotFoundException(notFoundMessage(id));
         }
-        return book;
+        return book.get();
     }
 
     public BookVO updateBook(Long id, BookVO updatedBook) {
-        if (!books.containsKey(id)) {
-            throw new BookNotFoundException("Book with id " + id + " not found");
+        return updateBook(id, updatedBook, null);
+    }
+
+    /**
+     * Replaces the book only if it is still at {@code expectedVersion} (any version when
+     * null). The check and the write are a single atomic step per book, so concurrent
+     * writers can't lose each other's updates or bring back a deleted book.
+     */
+    @Override
+    public BookVO updateBook(Long id, BookVO updatedBook, Long expectedVersion) {
+        WriteStatus status = metrics.update.record(() -> repository.update(id, updatedBook, expectedVersion));
+        if (status == WriteStatus.NOT_FOUND) {
+            metrics.updateNotFound.increment();
         }
-        updatedBook.setId(id);
-        books.put(id, updatedBook);
+        checkWrite(status, id);
+        changed(id);
+        changes.increment();
         return updatedBook;
     }
 
     public void deleteBook(Long id) {
-        if (!books.containsKey(id)) {
-            throw new BookNotFoundException("Book with id " + id + " not found");
+        deleteBook(id, null);
+    }
+
+    @Override
+    public void deleteBook(Long id, Long expectedVersion) {
+        WriteStatus status = metrics.delete.record(() -> repository.delete(id, expectedVersion));
+        if (status == WriteStatus.NOT_FOUND) {
+            metrics.deleteNotFound.increment();
+        }
+        checkWrite(status, id);
+        changed(id);
+        changes.increment();
+    }
+
+    /**
+     * Told by the repository of every book it adds, replaces or removes, with the book it
+     * replaced, so the author statistics can move the book between authors and prices
+     * without remembering it.
+     *
+     * Changes of one book can arrive out of order. The search index keeps the newest
+     * version it is given, but keeps nothing for a removed book, so a change that arrives
+     * after the delete that followed it would index the book again: the store is checked
+     * after every put, and a book it no longer holds at that version or a newer one is
+     * taken out again.
+     */
+    private void bookChanged(BookVO before, BookVO after) {
+        if (after == null) {
+            searchIndex.remove(before.getId());
+        } else {
+            searchIndex.put(after);
+            Long stored = repository.versionOf(after.getId());
+            if (stored == null || stored < after.getVersion()) {
+                searchIndex.remove(after.getId());
+            }
         }
-        books.remove(id);
+        if (before == null) {
+            authorStats.add(after.getAuthor(), after.getPrice());
+        } else if (after == null) {
+            authorStats.remove(before.getAuthor(), before.getPrice());
+        } else {
+            authorStats.replace(before.getAuthor(), before.getPrice(), after.getAuthor(), after.getPrice());
+        }
+    }
+
+    private void changed(long id) {
+        for (LongConsumer listener : changeListeners) {
+            listener.accept(id);
+        }
+    }
+
+    private static void checkWrite(WriteStatus status, Long id) {
+        if (status == WriteStatus.NOT_FOUND) {
+            throw new BookNotFoundException(notFoundMessage(id));
+        }
+        if (status == WriteStatus.VERSION_MISMATCH) {
+            throw new VersionMismatchException("Book with id " + id + " has been modified");
+        }
+    }
+
+    private static void checkPriceRange(Double minPrice, Double maxPrice) {
+        if ((minPrice != null && minPrice.isNaN()) || (maxPrice != null && maxPrice.isNaN())) {
+            throw new IllegalArgumentException("minPrice and maxPrice must be numbers");
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("minPrice must not exceed maxPrice");
+        }
+    }
+
+    private static String notFoundMessage(Long id) {
+        return "Book with id " + id + " not found";
     }
 }
@@ -0,0 +1,92 @@
+package com.library.service;
+
+import com.library.repository.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+
+/**
+ * Meters published for {@link BookService}, all registered up front so recording is a
+ * field read plus a bucket increment.
+ *
+ * <ul>
+ *   <li>{@code library.books.operations} (tag {@code operation}): latency of each
+ *   operation with a percentile histogram, so p99 can be aggregated across pods</li>
+ *   <li>{@code library.books.not.found} (tag {@code operation}): lookups and writes that
+ *   failed with {@code BookNotFoundException}, i.e. 404s</li>
+ *   <li>{@code library.books.count} and {@code library.books.next.id}: store size and
+ *   id-generator position, read from the store when scraped</li>
+ * </ul>
+ */
+final class BookServiceMetrics {
+
+    static final String OPERATIONS = "library.books.operations";
+    static final String NOT_FOUND = "library.books.not.found";
+
+    final Timer add;
+    final Timer addBatch;
+    final Timer updateBatch;
+    final Timer deleteBatch;
+    final Timer getAll;
+    final Timer getPage;
+    final Timer find;
+    final Timer findByPrice;
+    final Timer summarizePrices;
+    final Timer authorStats;
+    final Timer search;
+    final Timer get;
+    final Timer update;
+    final Timer delete;
+
+    final Counter getNotFound;
+    final Counter updateNotFound;
+    final Counter deleteNotFound;
+
+    BookServiceMetrics(MeterRegistry registry, BookRepository repository) {
+        add = timer(registry, "add");
+        addBatch = timer(registry, "addBatch");
+        updateBatch = timer(registry, "updateBatch");
+        deleteBatch = timer(registry, "deleteBatch");
+        getAll = timer(registry, "getAll");
+        getPage = timer(registry, "getPage");
+        find = timer(registry, "find");
+        findByPrice = timer(registry, "findByPrice");
+        summarizePrices = timer(registry, "summarizePrices");
+        authorStats = timer(registry, "authorStats");
+        search = timer(registry, "search");
+        get = timer(registry, "get");
+        update = timer(registry, "update");
+        delete = timer(registry, "delete");
+
+        getNotFound = notFoundCounter(registry, "get");
+        updateNotFound = notFoundCounter(registry, "update");
+        deleteNotFound = notFoundCounter(registry, "delete");
+
+        Gauge.builder("library.books.count", repository, BookRepository::count)
+                .description("Books in the store")
+                .register(registry);
+        Gauge.builder("library.books.next.id", repository, BookRepository::nextId)
+                .description("Id the next inserted book will get")
+                .register(registry);
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder(OPERATIONS)
+                .description("BookService operation latency")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry);
+    }
+
+    private static Counter notFoundCounter(MeterRegistry registry, String operation) {
+        return Counter.builder(NOT_FOUND)
+                .description("Operations that failed because the book does not exist")
+                .tag("operation", operation)
+                .register(registry);
+    }
+}
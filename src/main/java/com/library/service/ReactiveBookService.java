@@ -0,0 +1,69 @@
+package com.library.service;
+
+import com.library.model.BookVO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Non-blocking facade over {@link BookService} for the reactive routes.
+ *
+ * The stores may block (a JDBC round trip, a disk-tier fault-in, a journal fsync), so every
+ * call runs on a bounded worker scheduler and never on the event loop that serves the
+ * connections. Callers get a {@link Mono} or {@link Flux} that completes when the store
+ * answers.
+ */
+public class ReactiveBookService {
+
+    private final BookService bookService;
+    private final Scheduler scheduler;
+
+    public ReactiveBookService(BookService bookService) {
+        this(bookService, Schedulers.boundedElastic());
+    }
+
+    public ReactiveBookService(BookService bookService, Scheduler scheduler) {
+        this.bookService = bookService;
+        this.scheduler = scheduler;
+    }
+
+    public Mono<BookVO> addBook(BookVO book) {
+        return call(() -> bookService.addBook(book));
+    }
+
+    public Mono<BookVO> getBookById(Long id) {
+        return call(() -> bookService.getBookById(id));
+    }
+
+    public Mono<BookVO> updateBook(Long id, BookVO book, Long expectedVersion) {
+        return call(() -> bookService.updateBook(id, book, expectedVersion));
+    }
+
+    public Mono<Void> deleteBook(Long id, Long expectedVersion) {
+        return Mono.<Void>fromRunnable(() -> bookService.deleteBook(id, expectedVersion)).subscribeOn(scheduler);
+    }
+
+    /**
+     * Streams the catalog in id order, starting after the given id. Books are pulled from
+     * the store only as the subscriber requests them, so a slow client holds back the
+     * iteration (and the page queries behind it) instead of having the catalog buffered
+     * for it. Cancelling closes the underlying stream.
+     */
+    public Flux<BookVO> streamBooks(Long after) {
+        return Flux.fromStream(() -> bookService.streamBooks(after)).subscribeOn(scheduler);
+    }
+
+    /**
+     * Books matching every non-null criterion, in id order.
+     */
+    public Flux<BookVO> findBooks(String author, String title) {
+        return call(() -> bookService.findBooks(author, title)).flatMapIterable(books -> books);
+    }
+
+    private <T> Mono<T> call(Callable<T> operation) {
+        return Mono.fromCallable(operation).subscribeOn(scheduler);
+    }
+}
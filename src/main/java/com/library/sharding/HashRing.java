@@ -0,0 +1,90 @@
+package com.library.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Consistent-hash ring that assigns every book id to one node. Each node is placed on the
+ * ring at {@code virtualNodes} pseudo-random points and owns the ids hashing into the arcs
+ * ending at its points, so load spreads evenly and a node joining or leaving only moves
+ * the arcs next to its own points: about {@code 1/n} of the ids, all to or from that node.
+ * Immutable; a membership change builds a new ring.
+ */
+public final class HashRing {
+
+    private final List<String> nodes;
+    // Ring positions in ascending order, and the node at each
+    private final long[] points;
+    private final String[] owners;
+
+    public HashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A ring needs at least one node and one virtual node per node");
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(nodes)));
+        int size = this.nodes.size() * virtualNodes;
+        long[] keys = new long[size];
+        int[] nodeIndexes = new int[size];
+        for (int node = 0; node < this.nodes.size(); node++) {
+            long seed = hash(this.nodes.get(node));
+            for (int v = 0; v < virtualNodes; v++) {
+                int slot = node * virtualNodes + v;
+                keys[slot] = mix(seed + v * 0x9E3779B97F4A7C15L);
+                nodeIndexes[slot] = node;
+            }
+        }
+        // Sort slots by position; ties between nodes resolve by node name order
+        Integer[] slots = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = i;
+        }
+        Arrays.sort(slots, (a, b) -> keys[a] != keys[b]
+                ? Long.compare(keys[a], keys[b]) : Integer.compare(nodeIndexes[a], nodeIndexes[b]));
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = keys[slots[i]];
+            owners[i] = this.nodes.get(nodeIndexes[slots[i]]);
+        }
+    }
+
+    /**
+     * Node names in ascending order.
+     */
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    public String owner(long id) {
+        int index = Arrays.binarySearch(points, mix(id));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * 64-bit FNV-1a of the name, spread with {@link #mix}.
+     */
+    private static long hash(String name) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * MurmurHash3's 64-bit finalizer: sequential ids land far apart on the ring.
+     */
+    static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+}
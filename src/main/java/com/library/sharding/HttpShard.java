@@ -0,0 +1,263 @@
+package com.library.sharding;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.exception.BookNotFoundException;
+import com.library.exception.ShardUnavailableException;
+import com.library.exception.VersionMismatchException;
+import com.library.model.BatchFailure;
+import com.library.model.AuthorStats;
+import com.library.model.BatchResult;
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * A shard on another instance, reached through its {@code /books} API with the
+ * {@link ShardRouter#HOP_HEADER} set so that instance answers from its own store instead
+ * of routing again. Imports go to {@code POST /shard/books}.
+ */
+public class HttpShard implements Shard {
+
+    private static final String JSON = "application/json";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final TypeReference<List<BookVO>> BOOK_LIST = new TypeReference<>() {
+    };
+
+    private final String url;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client;
+    private final Duration timeout;
+
+    public HttpShard(String url, ObjectMapper objectMapper, HttpClient client, Duration timeout) {
+        this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        this.objectMapper = objectMapper.copy().addMixIn(BookVO.class, BookVO.StoredVersion.class);
+        this.client = client;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public BookVO getBookById(long id) {
+        return read(send(request("/books/" + id).GET()), BookVO.class);
+    }
+
+    @Override
+    public BookVO updateBook(long id, BookVO book, Long expectedVersion) {
+        HttpRequest.Builder request = request("/books/" + id)
+                .header("Content-Type", JSON)
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(json(book)));
+        if (expectedVersion != null) {
+            request.header("If-Match", "\"" + expectedVersion + "\"");
+        }
+        return read(send(request), BookVO.class);
+    }
+
+    @Override
+    public void deleteBook(long id, Long expectedVersion) {
+        HttpRequest.Builder request = request("/books/" + id).DELETE();
+        if (expectedVersion != null) {
+            request.header("If-Match", "\"" + expectedVersion + "\"");
+        }
+        send(request);
+    }
+
+    @Override
+    public void importBooks(List<BookVO> books) {
+        send(request("/shard/books")
+                .header("Content-Type", NDJSON)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(ndjson(books))));
+    }
+
+    @Override
+    public BatchResult updateBatchBooks(List<BookVO> books) {
+        return batchResult(send(request("/books/batch")
+                .header("Content-Type", NDJSON)
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(ndjson(books)))));
+    }
+
+    @Override
+    public BatchResult deleteBatchBooks(List<Long> ids) {
+        return batchResult(send(request("/books/batch")
+                .header("Content-Type", NDJSON)
+                .method("DELETE", HttpRequest.BodyPublishers.ofByteArray(ndjson(ids)))));
+    }
+
+    @Override
+    public List<BookVO> getAllBooks() {
+        return read(send(request("/books").GET()), BOOK_LIST);
+    }
+
+    @Override
+    public BookPage getBooksPage(Long after, int limit) {
+        HttpResponse<byte[]> response = send(request("/books" + query("limit", limit, "after", after)).GET());
+        Long nextCursor = response.headers().firstValue("X-Next-Cursor").map(Long::valueOf).orElse(null);
+        return new BookPage(read(response, BOOK_LIST), nextCursor);
+    }
+
+    @Override
+    public List<BookVO> findBooks(String author, String title) {
+        return read(send(request("/books" + query("author", author, "title", title)).GET()), BOOK_LIST);
+    }
+
+    @Override
+    public List<BookVO> findBooksByPrice(Double minPrice, Double maxPrice, boolean descending, Integer limit) {
+        String query = query("minPrice", minPrice, "maxPrice", maxPrice,
+                "sort", descending ? "price,desc" : "price", "limit", limit);
+        return read(send(request("/books" + query).GET()), BOOK_LIST);
+    }
+
+    @Override
+    public PriceSummary summarizePrices(Double minPrice, Double maxPrice) {
+        JsonNode summary = read(send(request("/books/stats/prices" + query("minPrice", minPrice, "maxPrice", maxPrice)).GET()),
+                JsonNode.class);
+        return new PriceSummary(summary.path("count").asLong(), summary.path("sum").asDouble());
+    }
+
+    @Override
+    public List<BookVO> searchBooks(String query, Integer limit) {
+        return read(send(request("/books/search" + query("q", query, "limit", limit)).GET()), BOOK_LIST);
+    }
+
+    @Override
+    public List<AuthorStats> getAuthorStats() {
+        JsonNode authors = read(send(request("/books/stats/authors").GET()), JsonNode.class);
+        List<AuthorStats> stats = new ArrayList<>(authors.size());
+        for (JsonNode author : authors) {
+            stats.add(new AuthorStats(author.path("author").asText(), author.path("count").asLong(),
+                    author.path("pricedCount").asLong(), author.path("priceSum").asDouble(),
+                    price(author.path("minPrice")), price(author.path("maxPrice"))));
+        }
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(url + path))
+                .timeout(timeout)
+                .header("Accept", JSON)
+                .header(ShardRouter.HOP_HEADER, "1");
+    }
+
+    /**
+     * Sends the request and maps error statuses to the exceptions {@code BookService}
+     * throws for them.
+     */
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) {
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException ex) {
+            throw new ShardUnavailableException("Shard " + url + " is unreachable", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ShardUnavailableException("Interrupted while calling shard " + url, ex);
+        }
+        int status = response.statusCode();
+        if (status < 300) {
+            return response;
+        }
+        String message = message(response);
+        if (status == 404) {
+            throw new BookNotFoundException(message);
+        }
+        if (status == 412) {
+            throw new VersionMismatchException(message);
+        }
+        if (status == 400) {
+            throw new IllegalArgumentException(message);
+        }
+        throw new ShardUnavailableException("Shard " + url + " returned " + status + ": " + message);
+    }
+
+    private String message(HttpResponse<byte[]> response) {
+        try {
+            JsonNode error = objectMapper.readTree(response.body());
+            if (error != null && error.hasNonNull("message")) {
+                return error.get("message").asText();
+            }
+        } catch (IOException ex) {
+            // Not one of our error bodies
+        }
+        return new String(response.body(), StandardCharsets.UTF_8);
+    }
+
+    private BatchResult batchResult(HttpResponse<byte[]> response) {
+        JsonNode result = read(response, JsonNode.class);
+        List<BatchFailure> failures = new ArrayList<>();
+        for (JsonNode failure : result.path("failures")) {
+            failures.add(new BatchFailure(failure.path("index").asLong(),
+                    failure.hasNonNull("id") ? failure.get("id").asLong() : null,
+                    failure.path("message").asText()));
+        }
+        return new BatchResult(result.path("succeeded").asLong(), failures);
+    }
+
+    private <T> T read(HttpResponse<byte[]> response, Class<T> type) {
+        try {
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException ex) {
+            throw new ShardUnavailableException("Unreadable response from shard " + url, ex);
+        }
+    }
+
+    private <T> T read(HttpResponse<byte[]> response, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException ex) {
+            throw new ShardUnavailableException("Unreadable response from shard " + url, ex);
+        }
+    }
+
+    private byte[] json(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private byte[] ndjson(List<?> values) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(values.size() * 64);
+        for (Object value : values) {
+            out.writeBytes(json(value));
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Builds a query string from name/value pairs, leaving out null values.
+     */
+    private static Double price(JsonNode node) {
+        return node.isNumber() ? node.asDouble() : null;
+    }
+
+    private static String query(Object... pairs) {
+        StringJoiner query = new StringJoiner("&", "?", "").setEmptyValue("");
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (pairs[i + 1] != null) {
+                query.add(pairs[i] + "=" + URLEncoder.encode(pairs[i + 1].toString(), StandardCharsets.UTF_8));
+            }
+        }
+        return query.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.library.sharding;
+
+import com.library.model.AuthorStats;
+import com.library.model.BatchResult;
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import com.library.service.BookService;
+import com.library.stats.AuthorStatistics;
+
+import java.util.List;
+
+/**
+ * The shard held by this instance's own {@link BookService}, or by another one in the
+ * same JVM.
+ */
+public class LocalShard implements Shard {
+
+    private final BookService bookService;
+
+    public LocalShard(BookService bookService) {
+        this.bookService = bookService;
+    }
+
+    @Override
+    public BookVO getBookById(long id) {
+        return bookService.getBookById(id);
+    }
+
+    @Override
+    public BookVO updateBook(long id, BookVO book, Long expectedVersion) {
+        return bookService.updateBook(id, book, expectedVersion);
+    }
+
+    @Override
+    public void deleteBook(long id, Long expectedVersion) {
+        bookService.deleteBook(id, expectedVersion);
+    }
+
+    @Override
+    public void importBooks(List<BookVO> books) {
+        books.forEach(bookService::applyReplicatedPut);
+    }
+
+    @Override
+    public BatchResult updateBatchBooks(List<BookVO> books) {
+        return bookService.updateBatchBooks(books);
+    }
+
+    @Override
+    public BatchResult deleteBatchBooks(List<Long> ids) {
+        return bookService.deleteBatchBooks(ids);
+    }
+
+    @Override
+    public List<BookVO> getAllBooks() {
+        return bookService.getAllBooks();
+    }
+
+    @Override
+    public BookPage getBooksPage(Long after, int limit) {
+        return bookService.getBooksPage(after, limit);
+    }
+
+    @Override
+    public List<BookVO> findBooks(String author, String title) {
+        return bookService.findBooks(author, title);
+    }
+
+    @Override
+    public List<BookVO> findBooksByPrice(Double minPrice, Double maxPrice, boolean descending, Integer limit) {
+        return bookService.findBooksByPrice(minPrice, maxPrice, descending, limit);
+    }
+
+    @Override
+    public PriceSummary summarizePrices(Double minPrice, Double maxPrice) {
+        return bookService.summarizePrices(minPrice, maxPrice);
+    }
+
+    @Override
+    public List<AuthorStats> getAuthorStats() {
+        return bookService.getAuthorStats(AuthorStatistics.Order.AUTHOR, null);
+    }
+
+    @Override
+    public List<BookVO> searchBooks(String query, Integer limit) {
+        return bookService.searchBooks(query, limit);
+    }
+}
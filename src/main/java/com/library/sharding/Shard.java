@@ -0,0 +1,51 @@
+package com.library.sharding;
+
+import com.library.model.AuthorStats;
+import com.library.model.BatchResult;
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+
+import java.util.List;
+
+/**
+ * One shard's part of the catalog, as seen by a {@link ShardRouter}: the operations of
+ * {@code BookService} restricted to the books stored on that shard, which the router
+ * routes by owner or fans out to every shard and merges. Errors surface as the
+ * exceptions {@code BookService} throws.
+ */
+public interface Shard {
+
+    BookVO getBookById(long id);
+
+    BookVO updateBook(long id, BookVO book, Long expectedVersion);
+
+    void deleteBook(long id, Long expectedVersion);
+
+    /**
+     * Stores books whose id and version were assigned by the router or by the shard they
+     * move from; a copy no newer than the stored one is ignored.
+     */
+    void importBooks(List<BookVO> books);
+
+    BatchResult updateBatchBooks(List<BookVO> books);
+
+    BatchResult deleteBatchBooks(List<Long> ids);
+
+    List<BookVO> getAllBooks();
+
+    BookPage getBooksPage(Long after, int limit);
+
+    List<BookVO> findBooks(String author, String title);
+
+    List<BookVO> findBooksByPrice(Double minPrice, Double maxPrice, boolean descending, Integer limit);
+
+    PriceSummary summarizePrices(Double minPrice, Double maxPrice);
+
+    List<BookVO> searchBooks(String query, Integer limit);
+
+    /**
+     * Statistics of every author with books on the shard.
+     */
+    List<AuthorStats> getAuthorStats();
+}
@@ -0,0 +1,608 @@
+package com.library.sharding;
+
+import com.library.exception.BookNotFoundException;
+import com.library.exception.ShardUnavailableException;
+import com.library.exception.VersionMismatchException;
+import com.library.ids.IdAllocator;
+import com.library.model.AuthorStats;
+import com.library.model.BatchFailure;
+import com.library.model.BatchResult;
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import com.library.service.BookCatalog;
+import com.library.service.BookService;
+import com.library.stats.AuthorStatistics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Spreads the catalog over several shards by book id on a {@link HashRing}. Requests for
+ * one book go to the shard owning its id; listings, lookups and statistics are sent to
+ * every shard in parallel and their answers merged, so callers see one catalog.
+ *
+ * Ids are assigned here, from an {@link IdAllocator} that keeps them unique across the
+ * routing instances, so the owner is known before a book is stored.
+ *
+ * When the membership changes, each instance moves the books in its own shard that the
+ * new ring assigns elsewhere, in the background and only those: about {@code 1/n} of the
+ * catalog per joining or leaving node. As no instance knows when the others have finished,
+ * a book not found at its owner is looked up at its owner in the previous ring until the
+ * next change, and listings also ask the nodes that left while this instance is moving
+ * books. Apply one membership change at a time and let every instance finish moving
+ * before the next, or books may be briefly missing.
+ *
+ * An instance whose own name is not in the ring only routes, e.g. a new instance before
+ * it joins.
+ */
+@Slf4j
+public class ShardRouter implements BookCatalog, Closeable {
+
+    /**
+     * Marks requests sent by another instance's router, which the receiving instance must
+     * answer from its own shard instead of routing them again.
+     */
+    public static final String HOP_HEADER = "X-Shard-Hop";
+
+    static final int MOVE_CHUNK_SIZE = 1000;
+    private static final long RETRY_MILLIS = 1000;
+
+    private final String self;
+    private final int virtualNodes;
+    private final IdAllocator ids;
+    private final BiFunction<String, String, Shard> connector;
+    private final ExecutorService fanOut;
+    private final ScheduledExecutorService rebalancer;
+    private final LongAdder movedBooks = new LongAdder();
+    private volatile Topology topology;
+    private volatile boolean rebalancing;
+
+    /**
+     * @param self      this instance's node name; its shard is the one it rebalances
+     * @param nodes     node names and their base URLs
+     * @param connector opens the shard of a node from its name and URL
+     */
+    public ShardRouter(String self, Map<String, String> nodes, int virtualNodes, IdAllocator ids,
+                       BiFunction<String, String, Shard> connector) {
+        this.self = self;
+        this.virtualNodes = virtualNodes;
+        this.ids = ids;
+        this.connector = connector;
+        this.topology = new Topology(new HashRing(nodes.keySet(), virtualNodes), null, connect(nodes, Map.of()), nodes);
+        this.fanOut = Executors.newCachedThreadPool(daemonThreads("shard-fanout"));
+        this.rebalancer = Executors.newSingleThreadScheduledExecutor(daemonThreads("shard-rebalance"));
+    }
+
+    /**
+     * Node names and URLs of the current ring.
+     */
+    public Map<String, String> nodes() {
+        return topology.urls;
+    }
+
+    public HashRing ring() {
+        return topology.ring;
+    }
+
+    /**
+     * Whether this instance is still moving books it no longer owns.
+     */
+    public boolean isRebalancing() {
+        return rebalancing;
+    }
+
+    /**
+     * Books this instance has moved to other shards so far.
+     */
+    public long movedBooks() {
+        return movedBooks.sum();
+    }
+
+    /**
+     * Switches to a ring of the given nodes and starts moving this instance's books that
+     * it no longer owns.
+     */
+    public synchronized void reconfigure(Map<String, String> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one node");
+        }
+        Topology current = topology;
+        if (current.urls.equals(nodes)) {
+            return;
+        }
+        HashRing ring = new HashRing(nodes.keySet(), virtualNodes);
+        // Keep the shards of departing nodes, which may still hold books
+        Map<String, Shard> shards = connect(nodes, current.shards);
+        for (String node : current.ring.nodes()) {
+            shards.putIfAbsent(node, current.shards.get(node));
+        }
+        topology = new Topology(ring, current.ring, shards, nodes);
+        rebalancing = true;
+        log.info("Shard ring changed from {} to {}", current.ring.nodes(), ring.nodes());
+        rebalancer.execute(() -> rebalance(ring));
+    }
+
+    @Override
+    public BookVO addBook(BookVO book) {
+        book.setId(ids.next());
+        book.setVersion(1L);
+        owner(book.getId()).importBooks(List.of(book));
+        return book;
+    }
+
+    /**
+     * Assigns the books' ids in one reservation and stores each owner's share in parallel.
+     */
+    @Override
+    public List<BookVO> addBatchBooks(List<BookVO> books) {
+        long[] assigned = ids.next(books.size());
+        Topology topology = this.topology;
+        Map<String, List<BookVO>> byOwner = new HashMap<>();
+        for (int i = 0; i < books.size(); i++) {
+            BookVO book = books.get(i);
+            book.setId(assigned[i]);
+            book.setVersion(1L);
+            byOwner.computeIfAbsent(topology.ring.owner(assigned[i]), node -> new ArrayList<>()).add(book);
+        }
+        gather(byOwner.keySet(), node -> {
+            topology.shards.get(node).importBooks(byOwner.get(node));
+            return null;
+        });
+        return books;
+    }
+
+    @Override
+    public BatchResult updateBatchBooks(List<BookVO> books) {
+        return applyBatch(books, BookVO::getId, Shard::updateBatchBooks);
+    }
+
+    @Override
+    public BatchResult deleteBatchBooks(List<Long> ids) {
+        return applyBatch(ids, Function.identity(), Shard::deleteBatchBooks);
+    }
+
+    @Override
+    public BookVO getBookById(Long id) {
+        return onOwner(id, shard -> shard.getBookById(id));
+    }
+
+    @Override
+    public BookVO updateBook(Long id, BookVO book, Long expectedVersion) {
+        return onOwner(id, shard -> shard.updateBook(id, book, expectedVersion));
+    }
+
+    @Override
+    public void deleteBook(Long id, Long expectedVersion) {
+        onOwner(id, shard -> {
+            shard.deleteBook(id, expectedVersion);
+            return null;
+        });
+    }
+
+    @Override
+    public List<BookVO> getAllBooks() {
+        List<BookVO> books = new ArrayList<>(newest(scatter(Shard::getAllBooks)));
+        books.sort(Comparator.comparing(BookVO::getId));
+        return books;
+    }
+
+    /**
+     * Merges each shard's first {@code limit} books after the cursor. The page ends early
+     * only when no shard has more books.
+     */
+    public BookPage getBooksPage(Long after, int limit) {
+        return getBooksPage(after, limit, null);
+    }
+
+    /**
+     * Pages across shards are always read from the live catalog: no snapshot spans the
+     * shards, so {@code snapshot} is ignored and no page carries one.
+     */
+    @Override
+    public BookPage getBooksPage(Long after, int limit, Long snapshot) {
+        List<BookPage> pages = scatter(shard -> shard.getBooksPage(after, limit));
+        List<List<BookVO>> items = new ArrayList<>(pages.size());
+        boolean more = false;
+        for (BookPage page : pages) {
+            items.add(page.getItems());
+            more |= page.getNextCursor() != null;
+        }
+        List<BookVO> books = new ArrayList<>(newest(items));
+        books.sort(Comparator.comparing(BookVO::getId));
+        if (books.size() > limit) {
+            books = books.subList(0, limit);
+            more = true;
+        }
+        Long nextCursor = more && !books.isEmpty() ? books.get(books.size() - 1).getId() : null;
+        return new BookPage(books, nextCursor);
+    }
+
+    /**
+     * Lazily streams the whole catalog in id order, one merged page at a time.
+     */
+    @Override
+    public Stream<BookVO> streamBooks(Long after) {
+        return Stream.iterate(getBooksPage(after, BookService.MAX_PAGE_SIZE), Objects::nonNull,
+                        page -> page.getNextCursor() == null ? null
+                                : getBooksPage(page.getNextCursor(), BookService.MAX_PAGE_SIZE))
+                .flatMap(page -> page.getItems().stream());
+    }
+
+    @Override
+    public List<BookVO> findBooks(String author, String title) {
+        List<BookVO> books = new ArrayList<>(newest(scatter(shard -> shard.findBooks(author, title))));
+        books.sort(Comparator.comparing(BookVO::getId));
+        return books;
+    }
+
+    /**
+     * Each shard returns its own top {@code limit}, which together contain the overall top
+     * {@code limit}.
+     */
+    @Override
+    public List<BookVO> findBooksByPrice(Double minPrice, Double maxPrice, boolean descending, Integer limit) {
+        List<BookVO> books = new ArrayList<>(newest(
+                scatter(shard -> shard.findBooksByPrice(minPrice, maxPrice, descending, limit))));
+        Comparator<BookVO> order = Comparator.comparing(BookVO::getPrice).thenComparing(BookVO::getId);
+        books.sort(descending ? order.reversed() : order);
+        return limit != null && books.size() > limit ? books.subList(0, limit) : books;
+    }
+
+    /**
+     * Adds up the shards' summaries. While rebalancing, a book caught between two shards
+     * may be counted twice.
+     */
+    @Override
+    public PriceSummary summarizePrices(Double minPrice, Double maxPrice) {
+        long count = 0;
+        double sum = 0;
+        for (PriceSummary summary : scatter(shard -> shard.summarizePrices(minPrice, maxPrice))) {
+            count += summary.getCount();
+            sum += summary.getSum();
+        }
+        return new PriceSummary(count, sum);
+    }
+
+    /**
+     * Each author's books may sit on any shard, so every shard's statistics for all its
+     * authors are merged before ranking; the cost grows with the number of authors, not
+     * the catalog.
+     */
+    @Override
+    public List<AuthorStats> getAuthorStats(AuthorStatistics.Order order, Integer limit) {
+        return AuthorStatistics.merge(scatter(Shard::getAuthorStats), order, limit != null ? limit : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Interleaves the shards' results by rank: every shard's best hit first, then every
+     * shard's second best, and so on. Scores are relative to each shard's own statistics,
+     * so they are not compared across shards.
+     */
+    @Override
+    public List<BookVO> searchBooks(String query, Integer limit) {
+        int max = limit != null ? limit : BookService.DEFAULT_SEARCH_LIMIT;
+        List<List<BookVO>> results = scatter(shard -> shard.searchBooks(query, limit));
+        Map<Long, BookVO> merged = new LinkedHashMap<>();
+        for (int rank = 0; merged.size() < max; rank++) {
+            boolean any = false;
+            for (List<BookVO> result : results) {
+                if (rank < result.size()) {
+                    any = true;
+                    merged.putIfAbsent(result.get(rank).getId(), result.get(rank));
+                }
+            }
+            if (!any) {
+                break;
+            }
+        }
+        List<BookVO> books = new ArrayList<>(merged.values());
+        return books.size() > max ? books.subList(0, max) : books;
+    }
+
+    @Override
+    public void close() {
+        rebalancer.shutdownNow();
+        fanOut.shutdownNow();
+    }
+
+    private Shard owner(long id) {
+        Topology topology = this.topology;
+        return topology.shards.get(topology.ring.owner(id));
+    }
+
+    /**
+     * Runs the call on the owner of the id, and on its previous owner if the book has not
+     * moved yet.
+     */
+    private <T> T onOwner(long id, Function<Shard, T> call) {
+        Topology topology = this.topology;
+        String owner = topology.ring.owner(id);
+        try {
+            return call.apply(topology.shards.get(owner));
+        } catch (BookNotFoundException ex) {
+            String previous = topology.previousOwner(id);
+            if (previous == null || previous.equals(owner)) {
+                throw ex;
+            }
+            try {
+                return call.apply(topology.shards.get(previous));
+            } catch (ShardUnavailableException gone) {
+                // A node that left and has shut down after moving its books
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Splits a batch by owner, applies the parts in parallel and maps failures back to
+     * positions in the whole batch. Records a shard did not find are retried at their
+     * previous owner.
+     */
+    private <T> BatchResult applyBatch(List<T> items, Function<T, Long> idOf,
+                                       BiFunction<Shard, List<T>, BatchResult> apply) {
+        Topology topology = this.topology;
+        List<BatchFailure> failures = new ArrayList<>();
+        Map<String, Part<T>> parts = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            Long id = idOf.apply(items.get(i));
+            if (id == null) {
+                failures.add(new BatchFailure(i, null, "Id is required"));
+            } else {
+                parts.computeIfAbsent(topology.ring.owner(id), node -> new Part<>()).add(items.get(i), i);
+            }
+        }
+        long succeeded = applyParts(topology, parts, apply, failures);
+
+        if (topology.previous != null) {
+            Map<String, Part<T>> retries = new HashMap<>();
+            List<BatchFailure> retried = new ArrayList<>();
+            failures.removeIf(failure -> {
+                String previous = failure.getId() == null ? null : topology.previousOwner(failure.getId());
+                if (previous == null || previous.equals(topology.ring.owner(failure.getId()))) {
+                    return false;
+                }
+                int index = (int) failure.getIndex();
+                retries.computeIfAbsent(previous, node -> new Part<>()).add(items.get(index), index);
+                retried.add(failure);
+                return true;
+            });
+            try {
+                succeeded += applyParts(topology, retries, apply, failures);
+            } catch (ShardUnavailableException ex) {
+                failures.addAll(retried);
+            }
+        }
+        failures.sort(Comparator.comparingLong(BatchFailure::getIndex));
+        return new BatchResult(succeeded, failures);
+    }
+
+    private <T> long applyParts(Topology topology, Map<String, Part<T>> parts,
+                                BiFunction<Shard, List<T>, BatchResult> apply, List<BatchFailure> failures) {
+        List<String> nodes = new ArrayList<>(parts.keySet());
+        List<BatchResult> results = gather(nodes, node -> apply.apply(topology.shards.get(node), parts.get(node).items));
+        long succeeded = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            Part<T> part = parts.get(nodes.get(i));
+            BatchResult result = results.get(i);
+            succeeded += result.getSucceeded();
+            for (BatchFailure failure : result.getFailures()) {
+                failures.add(new BatchFailure(part.positions.get((int) failure.getIndex()),
+                        failure.getId(), failure.getMessage()));
+            }
+        }
+        return succeeded;
+    }
+
+    /**
+     * Calls every shard that may hold books: those of the current ring, and while
+     * moving books those that left the ring too.
+     */
+    private <T> List<T> scatter(Function<Shard, T> call) {
+        Topology topology = this.topology;
+        Set<String> nodes = new LinkedHashSet<>(topology.ring.nodes());
+        if (rebalancing && topology.previous != null) {
+            nodes.addAll(topology.previous.nodes());
+        }
+        return gather(nodes, node -> call.apply(topology.shards.get(node)));
+    }
+
+    /**
+     * Runs the call for each node in parallel and returns the results in node order. A
+     * failure on any node fails the whole call with that node's exception.
+     */
+    private <T> List<T> gather(Iterable<String> nodes, Function<String, T> call) {
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (String node : nodes) {
+            futures.add(CompletableFuture.supplyAsync(() -> call.apply(node), fanOut));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw ex;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Unions the shards' books by id; a book seen on two shards mid-move counts once, at
+     * its highest version.
+     */
+    private static Collection<BookVO> newest(List<List<BookVO>> results) {
+        if (results.size() == 1) {
+            return results.get(0);
+        }
+        Map<Long, BookVO> books = new HashMap<>();
+        for (List<BookVO> result : results) {
+            for (BookVO book : result) {
+                books.merge(book.getId(), book, (a, b) -> a.getVersion() >= b.getVersion() ? a : b);
+            }
+        }
+        return books.values();
+    }
+
+    /**
+     * Moves this instance's books that the ring assigns to other nodes, a chunk at a time.
+     * Each book is copied to its new owner and then deleted here only if it is still at
+     * the copied version; a book updated meanwhile is copied again.
+     */
+    private void rebalance(HashRing ring) {
+        try {
+            Topology topology = this.topology;
+            if (topology.ring != ring) {
+                return; // Superseded; the newer ring's rebalance moves the books
+            }
+            Shard local = topology.shards.get(self);
+            if (local == null) {
+                finishRebalance(ring);
+                return; // Only routing, so nothing stored here
+            }
+            long before = movedBooks.sum();
+            Long after = null;
+            do {
+                BookPage page = local.getBooksPage(after, MOVE_CHUNK_SIZE);
+                Map<String, List<BookVO>> leaving = new TreeMap<>();
+                for (BookVO book : page.getItems()) {
+                    String owner = ring.owner(book.getId());
+                    if (!owner.equals(self)) {
+                        leaving.computeIfAbsent(owner, node -> new ArrayList<>()).add(book);
+                    }
+                }
+                leaving.forEach((node, books) -> move(local, topology.shards.get(node), books));
+                after = page.getNextCursor();
+            } while (after != null);
+            finishRebalance(ring);
+            log.info("Moved {} books to other shards", movedBooks.sum() - before);
+        } catch (RuntimeException ex) {
+            log.warn("Rebalancing shards failed, retrying in {} ms: {}", RETRY_MILLIS, ex.toString());
+            rebalancer.schedule(() -> rebalance(ring), RETRY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void move(Shard local, Shard destination, List<BookVO> books) {
+        destination.importBooks(books);
+        for (BookVO book : books) {
+            BookVO copied = book;
+            while (true) {
+                try {
+                    local.deleteBook(copied.getId(), copied.getVersion());
+                    movedBooks.increment();
+                    break;
+                } catch (VersionMismatchException ex) {
+                    // Updated here since the copy was made
+                    try {
+                        copied = local.getBookById(copied.getId());
+                    } catch (BookNotFoundException gone) {
+                        discard(destination, copied);
+                        break;
+                    }
+                    destination.importBooks(List.of(copied));
+                } catch (BookNotFoundException ex) {
+                    discard(destination, copied);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a copy of a book that was deleted here after being copied, unless the new
+     * owner has updated it since.
+     */
+    private static void discard(Shard destination, BookVO copied) {
+        try {
+            destination.deleteBook(copied.getId(), copied.getVersion());
+        } catch (BookNotFoundException | VersionMismatchException ex) {
+            // Already gone, or written again after the delete
+        }
+    }
+
+    private synchronized void finishRebalance(HashRing ring) {
+        Topology topology = this.topology;
+        if (topology.ring == ring) {
+            rebalancing = false;
+        }
+    }
+
+    private Map<String, Shard> connect(Map<String, String> nodes, Map<String, Shard> existing) {
+        Map<String, Shard> shards = new HashMap<>();
+        Map<String, String> urls = topology == null ? Map.of() : topology.urls;
+        nodes.forEach((node, url) -> shards.put(node, existing.containsKey(node) && url.equals(urls.get(node))
+                ? existing.get(node) : connector.apply(node, url)));
+        return shards;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * One owner's share of a batch, with each record's position in the whole batch.
+     */
+    private static final class Part<T> {
+        final List<T> items = new ArrayList<>();
+        final List<Integer> positions = new ArrayList<>();
+
+        void add(T item, int position) {
+            items.add(item);
+            positions.add(position);
+        }
+    }
+
+    /**
+     * The ring, the ring before the last membership change, and the shards of the nodes
+     * in either.
+     */
+    private static final class Topology {
+        final HashRing ring;
+        final HashRing previous;
+        final Map<String, Shard> shards;
+        final Map<String, String> urls;
+
+        Topology(HashRing ring, HashRing previous, Map<String, Shard> shards, Map<String, String> urls) {
+            this.ring = ring;
+            this.previous = previous;
+            this.shards = Collections.unmodifiableMap(shards);
+            this.urls = Collections.unmodifiableMap(new TreeMap<>(urls));
+        }
+
+        String previousOwner(long id) {
+            return previous == null ? null : previous.owner(id);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.library.stats;
+
+import com.library.model.AuthorStats;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Book count and price statistics per author, maintained incrementally as books are added,
+ * replaced and removed, so no query has to read the catalog.
+ *
+ * Authors are matched case-insensitively, ignoring surrounding whitespace, and reported
+ * under the spelling first seen. Only per-author figures are kept: a count, a price sum
+ * and a sorted multiset of prices, so the minimum and maximum stay exact when the cheapest
+ * or dearest book goes away. Callers pass the author and price a book had before each
+ * change, so nothing is remembered per book.
+ *
+ * Every change is applied as a difference, and differences commute, so the changes of one
+ * book may arrive in any order: an author's figures can go negative for a moment, when
+ * the removal of a book overtakes its add, but are exact once every change has arrived.
+ * Authors without a positive count are left out of results meanwhile.
+ *
+ * Each author is updated under its own map entry, not a global lock. Authors are also kept
+ * in skip lists ordered by name, by count and by average price, as immutable copies of
+ * their figures, which makes a top-N query cost O(N) without locking and every write
+ * O(log n). A write adds an author's new copy before taking out the old one, so a query
+ * running meanwhile sees every author once, before or after the write.
+ */
+public class AuthorStatistics {
+
+    public enum Order {
+        AUTHOR, COUNT, AVERAGE_PRICE
+    }
+
+    // Ties between copies of the same author are broken by revision, so that an author's
+    // old and new copy can be in a list together
+    private static final Comparator<Ranked> BY_AUTHOR = Comparator.<Ranked, String>comparing(ranked -> ranked.key)
+            .thenComparingLong(ranked -> ranked.revision);
+    // Most books first, then alphabetically
+    private static final Comparator<Ranked> BY_COUNT = Comparator.<Ranked>comparingLong(ranked -> -ranked.stats.getCount())
+            .thenComparing(BY_AUTHOR);
+    // Highest average price first, then alphabetically; only authors with a priced book
+    private static final Comparator<Ranked> BY_AVERAGE_PRICE = Comparator.<Ranked>comparingDouble(ranked -> -ranked.stats.getAveragePrice())
+            .thenComparing(BY_AUTHOR);
+
+    private final ConcurrentMap<String, Author> authors = new ConcurrentHashMap<>();
+    private final NavigableSet<Ranked> byAuthor = new ConcurrentSkipListSet<>(BY_AUTHOR);
+    private final NavigableSet<Ranked> byCount = new ConcurrentSkipListSet<>(BY_COUNT);
+    private final NavigableSet<Ranked> byAveragePrice = new ConcurrentSkipListSet<>(BY_AVERAGE_PRICE);
+    // Authors with a positive count
+    private final AtomicInteger listed = new AtomicInteger();
+
+    /**
+     * Counts a book added with the given author and price (either may be null).
+     */
+    public void add(String author, Double price) {
+        apply(author, price, 1, null, 0);
+    }
+
+    /**
+     * Takes back a book removed, given the author and price it was stored with.
+     */
+    public void remove(String author, Double price) {
+        apply(author, price, -1, null, 0);
+    }
+
+    /**
+     * Moves a replaced book from the author and price it was stored with to its new ones.
+     */
+    public void replace(String previousAuthor, Double previousPrice, String author, Double price) {
+        String previousKey = normalize(previousAuthor);
+        if (previousKey != null && previousKey.equals(normalize(author))) {
+            // One step, so the author does not drop out of the lists in between
+            apply(author, price, 1, previousPrice, -1);
+            return;
+        }
+        apply(previousAuthor, previousPrice, -1, null, 0);
+        apply(author, price, 1, null, 0);
+    }
+
+    /**
+     * Statistics of the first {@code limit} authors in the given order: alphabetical, most
+     * books first, or highest average price first (authors without a priced book are left
+     * out of the latter).
+     */
+    public List<AuthorStats> top(Order order, int limit) {
+        NavigableSet<Ranked> ordered = order == Order.COUNT ? byCount
+                : order == Order.AVERAGE_PRICE ? byAveragePrice
+                : byAuthor;
+        List<AuthorStats> result = new ArrayList<>(Math.min(limit, 64));
+        Set<String> seen = new HashSet<>();
+        for (Ranked ranked : ordered) {
+            if (result.size() == limit) {
+                break;
+            }
+            // Skips the other copy of an author caught mid-write
+            if (seen.add(ranked.key)) {
+                result.add(ranked.stats);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of authors with at least one book.
+     */
+    public int authorCount() {
+        return listed.get();
+    }
+
+    /**
+     * Combines statistics computed separately for parts of the catalog, such as shards,
+     * matching authors the same way {@link #add} does, and returns the first
+     * {@code limit} in the given order.
+     */
+    public static List<AuthorStats> merge(Collection<List<AuthorStats>> parts, Order order, int limit) {
+        Map<String, AuthorStats> merged = new HashMap<>();
+        for (List<AuthorStats> part : parts) {
+            for (AuthorStats stats : part) {
+                merged.merge(normalize(stats.getAuthor()), stats, AuthorStatistics::combine);
+            }
+        }
+        Comparator<AuthorStats> alphabetical = Comparator.comparing(stats -> normalize(stats.getAuthor()));
+        Comparator<AuthorStats> comparator;
+        switch (order) {
+            case COUNT:
+                comparator = Comparator.<AuthorStats>comparingLong(stats -> -stats.getCount()).thenComparing(alphabetical);
+                break;
+            case AVERAGE_PRICE:
+                merged.values().removeIf(stats -> stats.getPricedCount() == 0);
+                comparator = Comparator.<AuthorStats>comparingDouble(stats -> -stats.getAveragePrice()).thenComparing(alphabetical);
+                break;
+            default:
+                comparator = alphabetical;
+        }
+        List<AuthorStats> sorted = new ArrayList<>(merged.values());
+        sorted.sort(comparator);
+        return sorted.size() > limit ? sorted.subList(0, limit) : sorted;
+    }
+
+    private static AuthorStats combine(AuthorStats a, AuthorStats b) {
+        return new AuthorStats(a.getAuthor(), a.getCount() + b.getCount(), a.getPricedCount() + b.getPricedCount(),
+                a.getPriceSum() + b.getPriceSum(), extreme(a.getMinPrice(), b.getMinPrice(), true),
+                extreme(a.getMaxPrice(), b.getMaxPrice(), false));
+    }
+
+    private static Double extreme(Double a, Double b, boolean min) {
+        if (a == null || b == null) {
+            return a != null ? a : b;
+        }
+        return min ? Math.min(a, b) : Math.max(a, b);
+    }
+
+    /**
+     * Adds {@code sign} books at {@code price} to the author, and {@code otherSign} at
+     * {@code otherPrice} when non-zero, and moves the author's copies in the ordered lists.
+     */
+    private void apply(String name, Double price, int sign, Double otherPrice, int otherSign) {
+        String key = normalize(name);
+        if (key == null) {
+            return;
+        }
+        authors.compute(key, (k, current) -> {
+            Author author = current != null ? current : new Author(k, name.trim());
+            Ranked previous = author.ranked;
+            author.add(price, sign);
+            if (otherSign != 0) {
+                author.add(otherPrice, otherSign);
+            }
+            Ranked ranked = author.isEmpty() ? null : new Ranked(k, author.stats(), author.revision++);
+            if (listed(ranked)) {
+                byAuthor.add(ranked);
+                byCount.add(ranked);
+                if (priced(ranked)) {
+                    byAveragePrice.add(ranked);
+                }
+                listed.incrementAndGet();
+            }
+            if (listed(previous)) {
+                byAuthor.remove(previous);
+                byCount.remove(previous);
+                if (priced(previous)) {
+                    byAveragePrice.remove(previous);
+                }
+                listed.decrementAndGet();
+            }
+            author.ranked = ranked;
+            return ranked == null ? null : author;
+        });
+    }
+
+    private static boolean listed(Ranked ranked) {
+        return ranked != null && ranked.stats.getCount() > 0;
+    }
+
+    private static boolean priced(Ranked ranked) {
+        return ranked.stats.getPricedCount() > 0;
+    }
+
+    private static String normalize(String author) {
+        if (author == null) {
+            return null;
+        }
+        String key = author.trim().toLowerCase(Locale.ROOT);
+        return key.isEmpty() ? null : key;
+    }
+
+    /**
+     * An immutable copy of an author's figures, as kept in the ordered lists.
+     */
+    private static final class Ranked {
+        final String key;
+        final AuthorStats stats;
+        final long revision;
+
+        Ranked(String key, AuthorStats stats, long revision) {
+            this.key = key;
+            this.stats = stats;
+            this.revision = revision;
+        }
+    }
+
+    /**
+     * An author's running figures; only touched inside its map entry's compute().
+     */
+    private static final class Author {
+        final String key;
+        final String name;
+        long count;
+        long priced;
+        double sum;
+        // Price -> number of books at that price; negative while a removal is ahead of its add
+        final TreeMap<Double, Integer> prices = new TreeMap<>();
+        long revision;
+        Ranked ranked;
+
+        Author(String key, String name) {
+            this.key = key;
+            this.name = name;
+        }
+
+        void add(Double price, int sign) {
+            count += sign;
+            if (price != null) {
+                priced += sign;
+                prices.merge(price, sign, (books, more) -> books + more == 0 ? null : books + more);
+                // Start again from zero rather than keep rounding error from the subtractions
+                sum = prices.isEmpty() ? 0 : sum + sign * price;
+            }
+        }
+
+        boolean isEmpty() {
+            return count == 0 && priced == 0 && prices.isEmpty();
+        }
+
+        AuthorStats stats() {
+            return new AuthorStats(name, count, priced, sum, lowest(prices), lowest(prices.descendingMap()));
+        }
+
+        private static Double lowest(NavigableMap<Double, Integer> prices) {
+            for (Map.Entry<Double, Integer> entry : prices.entrySet()) {
+                if (entry.getValue() > 0) {
+                    return entry.getKey();
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -5,8 +5,10 @@ package com.library;
  */
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -122,4 +124,52 @@ class PairSumSolutionTest {
 
         assertEquals(set1, set2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPrimitiveVariantsMatchOriginals() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int[] array = new int[random.nextInt(60)];
+            int bound = 1 + random.nextInt(40);
+            for (int i = 0; i < array.length; i++) {
+                array[i] = random.nextInt(bound) - bound / 2;
+            }
+            int target = random.nextInt(bound) - bound / 2;
+
+            assertArrayEquals(flatten(PairSumSolution.findPairsWithSum(array, target)),
+                    PairSumSolution.findPairsWithSumPrimitive(array, target));
+            assertArrayEquals(flatten(PairSumSolution.findPairsWithSumTwoPointers(array, target)),
+                    PairSumSolution.findPairsWithSumTwoPointersPrimitive(array, target));
+        }
+    }
+
+    @Test
+    void testPrimitiveVariantsWithZeroAndOverflow() {
+        int[] array = {0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE, -1, 1};
+        for (int target : new int[]{0, -1, Integer.MIN_VALUE + 1}) {
+            assertArrayEquals(flatten(PairSumSolution.findPairsWithSum(array, target)),
+                    PairSumSolution.findPairsWithSumPrimitive(array, target));
+            assertArrayEquals(flatten(PairSumSolution.findPairsWithSumTwoPointers(array, target)),
+                    PairSumSolution.findPairsWithSumTwoPointersPrimitive(array, target));
+        }
+        assertEquals(0, PairSumSolution.findPairsWithSumPrimitive(null, 5).length);
+    }
+
+    @Test
+    void testPrimitiveCallback() {
+        List<String> pairs = new ArrayList<>();
+        PairSumSolution.findPairsWithSumPrimitive(new int[]{2, 4, 3, 7, 1, 5}, 6,
+                (first, second) -> pairs.add(first + "," + second));
+
+        assertEquals(List.of("2,4", "1,5"), pairs);
+    }
+
+    private static int[] flatten(List<int[]> pairs) {
+        int[] flat = new int[pairs.size() * 2];
+        for (int i = 0; i < pairs.size(); i++) {
+            flat[2 * i] = pairs.get(i)[0];
+            flat[2 * i + 1] = pairs.get(i)[1];
+        }
+        return flat;
+    }
+}
@@ -0,0 +1,105 @@
+package com.library;
+
+/**
+ * Unit tests for the ParallelPairSum class
+ */
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelPairSumTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testBasicCase() throws IOException {
+        Path file = write(ByteOrder.BIG_ENDIAN, 2, 4, 3, 7, 1, 5);
+
+        List<String> pairs = new ArrayList<>();
+        ParallelPairSum.findPairsWithSum(file, 6, (first, second) -> pairs.add(first + "," + second));
+
+        assertEquals(Set.of("1,5", "2,4"), new HashSet<>(pairs));
+        assertEquals(2, pairs.size());
+    }
+
+    @Test
+    void testMatchesInMemorySolution() throws IOException {
+        Random random = new Random(11);
+        for (int round = 0; round < 100; round++) {
+            int range = round % 4 == 0 ? Integer.MAX_VALUE : 1 + random.nextInt(400);
+            int[] array = new int[random.nextInt(2000)];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = round % 5 == 0 ? random.nextInt() : random.nextInt(range) - range / 2;
+            }
+            int target = round % 7 == 0 ? random.nextInt() : random.nextInt(100) - 50;
+            ByteOrder order = round % 2 == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+            Path file = write(order, array);
+
+            Set<String> expected = new HashSet<>();
+            for (int[] pair : PairSumSolution.findPairsWithSum(array, target)) {
+                expected.add(pair[0] + "," + pair[1]);
+            }
+            // Tiny partitions and segments force many spill files and mapped windows
+            List<String> actual = new ArrayList<>();
+            ParallelPairSum.findPairsWithSum(file, order, target, 1 + round % 4, 256, tempDir, 1 + random.nextInt(500),
+                    (first, second) -> actual.add(first + "," + second));
+
+            assertEquals(expected.size(), actual.size(), "duplicate pairs in round " + round);
+            assertEquals(expected, new HashSet<>(actual), "round " + round);
+        }
+    }
+
+    @Test
+    void testSelfComplementNeedsTwoOccurrences() throws IOException {
+        List<String> once = new ArrayList<>();
+        ParallelPairSum.findPairsWithSum(write(ByteOrder.BIG_ENDIAN, 3, 0, 8), 6,
+                (first, second) -> once.add(first + "," + second));
+        assertTrue(once.isEmpty());
+
+        List<String> twice = new ArrayList<>();
+        ParallelPairSum.findPairsWithSum(write(ByteOrder.BIG_ENDIAN, 3, 0, 3, 0), 0,
+                (first, second) -> twice.add(first + "," + second));
+        assertEquals(List.of("0,0"), twice);
+    }
+
+    @Test
+    void testSpillFilesAreRemoved() throws IOException {
+        Path file = write(ByteOrder.BIG_ENDIAN, 1, 2, 3, 4, 5);
+        ParallelPairSum.findPairsWithSum(file, ByteOrder.BIG_ENDIAN, 5, 2, 8, tempDir, (first, second) -> { });
+
+        try (Stream<Path> entries = Files.list(tempDir)) {
+            assertEquals(List.of(file), entries.toList());
+        }
+    }
+
+    @Test
+    void testRejectsTruncatedFile() throws IOException {
+        Path file = tempDir.resolve("truncated.bin");
+        Files.write(file, new byte[]{0, 0, 0, 1, 0, 0});
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ParallelPairSum.findPairsWithSum(file, 1, (first, second) -> { }));
+    }
+
+    private Path write(ByteOrder order, int... values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES).order(order);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return Files.write(Files.createTempFile(tempDir, "ints-", ".bin"), buffer.array());
+    }
+}
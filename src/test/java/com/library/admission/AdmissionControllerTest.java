@@ -0,0 +1,73 @@
+package com.library.admission;
+
+import com.library.admission.AdmissionController.Permit;
+import com.library.admission.AdmissionController.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+
+    private static final long BASE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void testLimit_GrowsWhileLatencyHoldsAndShrinksWhenRequestsQueue() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 2, 200, 1.5, 0.2);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(BASE_NANOS, limit.getLimit());
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 50, "limit " + grown);
+
+        // Latency climbing well past the baseline: requests are queueing
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(BASE_NANOS * 10, limit.getLimit());
+        }
+        assertTrue(limit.getLimit() < grown / 4, "limit " + limit.getLimit());
+        assertTrue(limit.getLimit() >= 2);
+    }
+
+    @Test
+    void testLimit_IgnoresSamplesWhileMostlyIdle() {
+        AdaptiveLimit limit = new AdaptiveLimit(20, 2, 200, 1.5, 0.2);
+        for (int i = 0; i < 1000; i++) {
+            limit.onSample(BASE_NANOS, 1);
+        }
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    void testAdmission_ShedsBulkThenReadsThenWritesAndKeepsHealthChecks() {
+        AdmissionController admission = new AdmissionController(new AdaptiveLimit(10, 10, 10, 1.5, 0.2), 0.8, 0.5, 2);
+        List<Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            permits.add(admission.tryAcquire(Priority.BULK));
+        }
+        assertNull(admission.tryAcquire(Priority.BULK));
+        for (int i = 0; i < 3; i++) {
+            permits.add(admission.tryAcquire(Priority.READ));
+        }
+        assertNull(admission.tryAcquire(Priority.READ));
+        for (int i = 0; i < 2; i++) {
+            permits.add(admission.tryAcquire(Priority.WRITE));
+        }
+        assertNull(admission.tryAcquire(Priority.WRITE));
+        permits.add(admission.tryAcquire(Priority.HEALTH));
+        permits.add(admission.tryAcquire(Priority.HEALTH));
+        assertNull(admission.tryAcquire(Priority.HEALTH));
+        assertFalse(permits.contains(null));
+        assertEquals(12, admission.getInflight());
+        assertEquals(1, admission.rejected(Priority.BULK));
+        assertEquals(3, admission.admitted(Priority.READ));
+
+        permits.forEach(Permit::release);
+        // Releasing twice must not hand out extra permits
+        permits.get(0).release();
+        assertEquals(0, admission.getInflight());
+        assertNotNull(admission.tryAcquire(Priority.BULK));
+    }
+}
@@ -0,0 +1,121 @@
+package com.library.cache;
+
+import com.library.model.BookVO;
+import com.library.service.BookService;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookResponseCacheTest {
+
+    private final AtomicInteger encodings = new AtomicInteger();
+    private final Function<BookVO, byte[]> encoder = book -> {
+        encodings.incrementAndGet();
+        return (book.getId() + ":" + book.getVersion() + ":" + book.getTitle()).getBytes(StandardCharsets.UTF_8);
+    };
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testGet_EncodesEachVersionOnce() {
+        BookService service = new BookService();
+        BookResponseCache cache = new BookResponseCache(encoder, 100);
+        service.onBookChanged(cache::invalidate);
+        BookVO book = service.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("1:1:Effective Java", text(cache.get(service.getBookById(1L))));
+        }
+        assertEquals(1, encodings.get());
+        assertEquals(9, cache.hits());
+        assertEquals(0.9, cache.hitRatio(), 1e-9);
+
+        service.updateBook(book.getId(), new BookVO(null, "Effective Java 3rd", "Joshua Bloch", 45.50));
+        assertEquals(0, cache.size());
+        assertEquals("1:2:Effective Java 3rd", text(cache.get(service.getBookById(1L))));
+        service.deleteBook(1L);
+        assertEquals(0, cache.size());
+        assertEquals(2, encodings.get());
+    }
+
+    @Test
+    void testGet_NeverServesAnotherVersion() {
+        BookResponseCache cache = new BookResponseCache(encoder, 100);
+        BookVO first = new BookVO(1L, "Old", "Author", 1.0);
+        first.setVersion(1L);
+        BookVO second = new BookVO(1L, "New", "Author", 1.0);
+        second.setVersion(2L);
+
+        // Not invalidated, as when a write races with a read
+        assertEquals("1:1:Old", text(cache.get(first)));
+        assertEquals("1:2:New", text(cache.get(second)));
+        // A late read of the older copy does not replace the newer entry
+        assertEquals("1:1:Old", text(cache.get(first)));
+        assertEquals("1:2:New", text(cache.get(second)));
+        assertEquals(3, encodings.get());
+    }
+
+    @Test
+    void testGet_CoalescesConcurrentMisses() throws Exception {
+        CountDownLatch encoding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BookResponseCache cache = new BookResponseCache(book -> {
+            encoding.countDown();
+            try {
+                assertTrue(release.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+            return encoder.apply(book);
+        }, 100);
+        BookVO book = new BookVO(7L, "Hot", "Author", 1.0);
+        book.setVersion(3L);
+
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> reads = new ArrayList<>();
+            reads.add(readers.submit(() -> cache.get(book)));
+            assertTrue(encoding.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                reads.add(readers.submit(() -> cache.get(book)));
+            }
+            // Give the others time to find the encoding in flight; any that arrive after it
+            // completes hit instead, and neither encodes again
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<byte[]> read : reads) {
+                assertEquals("7:3:Hot", text(read.get(10, TimeUnit.SECONDS)));
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+        assertEquals(1, encodings.get());
+        assertEquals(1, cache.misses());
+        assertEquals(7, cache.coalesced() + cache.hits());
+    }
+
+    @Test
+    void testStore_StaysWithinCapacity() {
+        BookResponseCache cache = new BookResponseCache(encoder, 10);
+        for (long id = 1; id <= 100; id++) {
+            BookVO book = new BookVO(id, "Book " + id, "Author", 1.0);
+            book.setVersion(1L);
+            cache.get(book);
+        }
+        assertEquals(10, cache.size());
+        assertEquals(90, cache.evictions());
+    }
+}
@@ -0,0 +1,77 @@
+package com.library.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.model.BookVO;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookWireCodecTest {
+
+    @Test
+    void testRoundTripKeepsEveryField() throws IOException {
+        BookVO book = new BookVO(1L << 40, "Der Zauberberg – 魔の山", "Thomas Mann", 12.5);
+        book.setVersion(7L);
+        BookVO empty = new BookVO(null, null, "", null);
+
+        List<BookVO> decoded = BookWireCodec.decodeAll(new ByteArrayInputStream(
+                BookWireCodec.encodeAll(List.of(book, empty))));
+
+        assertEquals(List.of(book, empty), decoded);
+        assertNull(decoded.get(1).getVersion());
+        assertEquals(book, BookWireCodec.decode(BookWireCodec.encode(book)));
+    }
+
+    @Test
+    void testReaderStreamsLargeBodies() throws IOException {
+        List<BookVO> books = new ArrayList<>();
+        for (long i = 1; i <= 50_000; i++) {
+            BookVO book = new BookVO(i, "Title " + i, "Author " + (i % 100), i % 9 == 0 ? null : i / 4.0);
+            book.setVersion(1L);
+            books.add(book);
+        }
+        // Larger than the writer's buffer, with records spanning its boundaries
+        books.add(new BookVO(50_001L, "x".repeat(100_000), "Author", 1.0));
+
+        BookWireCodec.Reader reader = new BookWireCodec.Reader(new ByteArrayInputStream(BookWireCodec.encodeAll(books)));
+        for (BookVO expected : books) {
+            assertEquals(expected, reader.read());
+        }
+        assertNull(reader.read());
+    }
+
+    @Test
+    void testPayloadIsLessThanHalfOfJson() throws IOException {
+        List<BookVO> books = new ArrayList<>();
+        for (long i = 1; i <= 1000; i++) {
+            BookVO book = new BookVO(i, "Title " + i, "Author " + (i % 100), 5.0 + i % 100);
+            book.setVersion(1L);
+            books.add(book);
+        }
+
+        int binary = BookWireCodec.encodeAll(books).length;
+        int json = new ObjectMapper().writeValueAsBytes(books).length;
+        assertTrue(2 * binary <= json, "binary " + binary + " bytes vs JSON " + json);
+    }
+
+    @Test
+    void testMalformedBodiesAreRejected() {
+        byte[] body = BookWireCodec.encode(new BookVO(1L, "Title", "Author", 1.0));
+
+        assertThrows(EOFException.class, () ->
+                BookWireCodec.decodeAll(new ByteArrayInputStream(Arrays.copyOf(body, body.length - 1))));
+        byte[] lying = body.clone();
+        lying[0]--;
+        assertThrows(IOException.class, () -> BookWireCodec.decodeAll(new ByteArrayInputStream(lying)));
+        assertThrows(IOException.class, () -> BookWireCodec.decodeAll(new ByteArrayInputStream(
+                new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F})));
+        assertThrows(IOException.class, () -> BookWireCodec.decode(new byte[0]));
+    }
+}
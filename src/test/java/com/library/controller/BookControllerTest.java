@@ -1,8 +1,16 @@
 package com.library.controller;
 
+import com.library.codec.BookWireCodec;
+import com.library.model.AuthorStats;
+import com.library.model.BatchFailure;
+import com.library.model.BatchResult;
+import com.library.model.BookPage;
 import com.library.model.BookVO;
+import com.library.model.PriceSummary;
 import com.library.service.BookService;
+import com.library.stats.AuthorStatistics;
 import com.library.exception.BookNotFoundException;
+import com.library.exception.VersionMismatchException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,11 +19,21 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -58,6 +76,22 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.price").value(29.99));
     }
 
+    @Test
+    void testAddBook_IgnoresClientVersion() throws Exception {
+        BookVO savedBook = new BookVO(1L, "Test Book", "Test Author", 29.99);
+        savedBook.setVersion(1L);
+
+        when(bookService.addBook(any(BookVO.class))).thenReturn(savedBook);
+
+        mockMvc.perform(post("/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Test Book\",\"author\":\"Test Author\",\"price\":29.99,\"version\":99}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.version").value(1));
+
+        verify(bookService).addBook(argThat(book -> book.getVersion() == null));
+    }
+
     @Test
     void testAddBook_ValidationError() throws Exception {
         BookVO book = new BookVO(null, "", "Test Author", -10.0);
@@ -83,6 +117,181 @@ class BookControllerTest {
                 .andExpect(jsonPath("$[0].title").value("Book 1"))
                 .andExpect(jsonPath("$[1].id").value(2))
                 .andExpect(jsonPath("$[1].title").value("Book 2"));
+
+        // Accepting anything is not asking for the binary stream
+        mockMvc.perform(get("/books").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[1].id").value(2));
+    }
+
+    @Test
+    void testGetAllBooks_FilteredByAuthor() throws Exception {
+        List<BookVO> books = List.of(new BookVO(1L, "Book 1", "Author 1", 19.99));
+
+        when(bookService.findBooks("Author 1", null)).thenReturn(books);
+
+        mockMvc.perform(get("/books").param("author", "Author 1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].author").value("Author 1"));
+
+        verify(bookService).findBooks("Author 1", null);
+    }
+
+    @Test
+    void testGetAllBooks_Paged() throws Exception {
+        BookPage page = new BookPage(List.of(new BookVO(3L, "Book 3", "Author 3", 9.99)), 3L);
+
+        when(bookService.getBooksPage(2L, 1, null)).thenReturn(page);
+
+        mockMvc.perform(get("/books").param("limit", "1").param("after", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookController.NEXT_CURSOR_HEADER, "3"))
+                .andExpect(jsonPath("$[0].id").value(3));
+    }
+
+    @Test
+    void testGetAllBooks_InvalidLimit() throws Exception {
+        when(bookService.getBooksPage(null, 0, null)).thenThrow(new IllegalArgumentException("limit must be between 1 and 1000"));
+
+        mockMvc.perform(get("/books").param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("limit must be between 1 and 1000"));
+    }
+
+    @Test
+    void testGetAllBooks_MostExpensiveInRange() throws Exception {
+        List<BookVO> books = List.of(new BookVO(2L, "Book 2", "Author 2", 29.99));
+
+        when(bookService.findBooksByPrice(10.0, 30.0, true, 1)).thenReturn(books);
+
+        mockMvc.perform(get("/books").param("minPrice", "10").param("maxPrice", "30")
+                        .param("sort", "price,desc").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2));
+
+        mockMvc.perform(get("/books").param("sort", "title"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetPriceStats() throws Exception {
+        when(bookService.summarizePrices(null, 50.0)).thenReturn(new PriceSummary(2, 49.98));
+
+        mockMvc.perform(get("/books/stats/prices").param("maxPrice", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.sum").value(49.98))
+                .andExpect(jsonPath("$.average").value(24.99));
+    }
+
+    @Test
+    void testGetAuthorStats_TopByCount() throws Exception {
+        when(bookService.getAuthorStats(AuthorStatistics.Order.COUNT, 1)).thenReturn(List.of(
+                new AuthorStats("Joshua Bloch", 3, 2, 75.50, 30.0, 45.50)));
+
+        mockMvc.perform(get("/books/stats/authors").param("sort", "count").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].author").value("Joshua Bloch"))
+                .andExpect(jsonPath("$[0].count").value(3))
+                .andExpect(jsonPath("$[0].averagePrice").value(37.75))
+                .andExpect(jsonPath("$[0].minPrice").value(30.0))
+                .andExpect(jsonPath("$[0].maxPrice").value(45.50));
+
+        mockMvc.perform(get("/books/stats/authors").param("sort", "price"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSearchBooks() throws Exception {
+        when(bookService.searchBooks("efective jva", 5)).thenReturn(List.of(
+                new BookVO(1L, "Effective Java", "Joshua Bloch", 45.50)));
+
+        mockMvc.perform(get("/books/search").param("q", "efective jva").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Effective Java"));
+
+        when(bookService.searchBooks(" ", null)).thenThrow(new IllegalArgumentException("q must not be blank"));
+        mockMvc.perform(get("/books/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testStreamBooks_Ndjson() throws Exception {
+        when(bookService.streamBooks(null)).thenReturn(Stream.of(
+                new BookVO(1L, "Book 1", "Author 1", 19.99),
+                new BookVO(2L, "Book 2", "Author 2", 29.99)));
+
+        MvcResult result = mockMvc.perform(get("/books").accept(BookController.APPLICATION_NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookController.APPLICATION_NDJSON_VALUE))
+                .andExpect(content().string(
+                        "{\"id\":1,\"title\":\"Book 1\",\"author\":\"Author 1\",\"price\":19.99}\n"
+                                + "{\"id\":2,\"title\":\"Book 2\",\"author\":\"Author 2\",\"price\":29.99}\n"));
+    }
+
+    @Test
+    void testBinaryFormat_SingleBookAndFilteredList() throws Exception {
+        BookVO book = new BookVO(1L, "Test Book", "Test Author", 29.99);
+        book.setVersion(3L);
+
+        when(bookService.getBookById(1L)).thenReturn(book);
+        when(bookService.findBooks("Test Author", null)).thenReturn(List.of(book));
+
+        MvcResult single = mockMvc.perform(get("/books/1").accept(BookWireHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookWireHttpMessageConverter.MEDIA_TYPE))
+                .andReturn();
+        assertEquals(book, BookWireCodec.decode(single.getResponse().getContentAsByteArray()));
+
+        MvcResult list = mockMvc.perform(get("/books").param("author", "Test Author")
+                        .accept(BookWireHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(List.of(book), BookWireCodec.decodeAll(
+                new ByteArrayInputStream(list.getResponse().getContentAsByteArray())));
+    }
+
+    @Test
+    void testBinaryFormat_Stream() throws Exception {
+        List<BookVO> books = List.of(
+                new BookVO(1L, "Book 1", "Author 1", 19.99),
+                new BookVO(2L, "Book 2", "Author 2", 29.99));
+        AtomicBoolean closed = new AtomicBoolean();
+        when(bookService.streamBooks(null)).thenReturn(books.stream().onClose(() -> closed.set(true)));
+
+        MvcResult streamed = mockMvc.perform(get("/books").accept(BookWireHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookWireHttpMessageConverter.MEDIA_TYPE))
+                .andReturn();
+        assertEquals(books, BookWireCodec.decodeAll(
+                new ByteArrayInputStream(streamed.getResponse().getContentAsByteArray())));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void testBinaryFormat_AddBook() throws Exception {
+        BookVO book = new BookVO(null, "Test Book", "Test Author", 29.99);
+        BookVO savedBook = new BookVO(1L, "Test Book", "Test Author", 29.99);
+
+        when(bookService.addBook(book)).thenReturn(savedBook);
+
+        mockMvc.perform(post("/books")
+                        .contentType(BookWireHttpMessageConverter.MEDIA_TYPE)
+                        .content(BookWireCodec.encode(book)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1));
+
+        mockMvc.perform(post("/books")
+                        .contentType(BookWireHttpMessageConverter.MEDIA_TYPE)
+                        .content(BookWireCodec.encodeAll(List.of(book, book))))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -113,7 +322,7 @@ class BookControllerTest {
         BookVO bookToUpdate = new BookVO(null, "Updated Book", "Updated Author", 39.99);
         BookVO updatedBook = new BookVO(1L, "Updated Book", "Updated Author", 39.99);
 
-        when(bookService.updateBook(eq(1L), any(BookVO.class))).thenReturn(updatedBook);
+        when(bookService.updateBook(eq(1L), any(BookVO.class), isNull())).thenReturn(updatedBook);
 
         mockMvc.perform(put("/books/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -125,11 +334,64 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.price").value(39.99));
     }
 
+    @Test
+    void testGetBookById_NotModified() throws Exception {
+        BookVO book = new BookVO(1L, "Test Book", "Test Author", 29.99);
+        book.setVersion(3L);
+
+        when(bookService.getBookById(1L)).thenReturn(book);
+
+        mockMvc.perform(get("/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+
+        mockMvc.perform(get("/books/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/books/1").header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(3));
+    }
+
+    @Test
+    void testUpdateBook_IfMatch() throws Exception {
+        BookVO bookToUpdate = new BookVO(null, "Updated Book", "Updated Author", 39.99);
+        BookVO updatedBook = new BookVO(1L, "Updated Book", "Updated Author", 39.99);
+        updatedBook.setVersion(4L);
+
+        when(bookService.updateBook(eq(1L), any(BookVO.class), eq(3L))).thenReturn(updatedBook);
+        when(bookService.updateBook(eq(1L), any(BookVO.class), eq(2L)))
+                .thenThrow(new VersionMismatchException("Book with id 1 has been modified"));
+
+        mockMvc.perform(put("/books/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookToUpdate)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+
+        mockMvc.perform(put("/books/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookToUpdate)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("Book with id 1 has been modified"));
+    }
+
+    @Test
+    void testDeleteBook_IfMatchWeakTagFails() throws Exception {
+        mockMvc.perform(delete("/books/1").header("If-Match", "W/\"3\""))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(bookService, never()).deleteBook(eq(1L), any());
+    }
+
     @Test
     void testUpdateBook_NotFound() throws Exception {
         BookVO bookToUpdate = new BookVO(null, "Updated Book", "Updated Author", 39.99);
 
-        when(bookService.updateBook(eq(999L), any(BookVO.class)))
+        when(bookService.updateBook(eq(999L), any(BookVO.class), isNull()))
                 .thenThrow(new BookNotFoundException("Book with id 999 not found"));
 
         mockMvc.perform(put("/books/999")
@@ -141,21 +403,85 @@ class BookControllerTest {
 
     @Test
     void testDeleteBook_Success() throws Exception {
-        doNothing().when(bookService).deleteBook(1L);
+        doNothing().when(bookService).deleteBook(1L, null);
 
         mockMvc.perform(delete("/books/1"))
                 .andExpect(status().isNoContent());
 
-        verify(bookService).deleteBook(1L);
+        verify(bookService).deleteBook(1L, null);
     }
 
     @Test
     void testDeleteBook_NotFound() throws Exception {
         doThrow(new BookNotFoundException("Book with id 999 not found"))
-                .when(bookService).deleteBook(999L);
+                .when(bookService).deleteBook(999L, null);
 
         mockMvc.perform(delete("/books/999"))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.message").value("Book with id 999 not found"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testAddBatchBooks_ReportsInvalidRecords() throws Exception {
+        AtomicLong nextId = new AtomicLong(100);
+        when(bookService.addBatchBooks(anyList())).thenAnswer(inv -> {
+            List<BookVO> books = inv.getArgument(0);
+            books.forEach(book -> book.setId(nextId.getAndIncrement()));
+            return books;
+        });
+
+        String body = "{\"title\":\"Book 1\",\"author\":\"Author 1\",\"price\":19.99}\n"
+                + "{\"title\":\"\",\"author\":\"Author 2\",\"price\":29.99}\n"
+                + "not json\n"
+                + "{\"title\":\"Book 4\",\"author\":\"Author 4\",\"price\":9.99}\n";
+
+        mockMvc.perform(post("/books/batch")
+                        .contentType(BookController.APPLICATION_NDJSON_VALUE)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.failures.length()").value(2))
+                .andExpect(jsonPath("$.failures[0].index").value(1))
+                .andExpect(jsonPath("$.failures[0].message").value("title: Title is required"))
+                .andExpect(jsonPath("$.failures[1].index").value(2))
+                .andExpect(jsonPath("$.ids").value(contains(100, 101)));
+    }
+
+    @Test
+    void testAddBatchBooks_RejectsOversizedRecord() throws Exception {
+        when(bookService.addBatchBooks(anyList())).thenAnswer(inv -> {
+            List<BookVO> books = inv.getArgument(0);
+            books.forEach(book -> book.setId(7L));
+            return books;
+        });
+
+        String longTitle = "x".repeat(BookController.MAX_RECORD_LENGTH);
+        String body = "{\"title\":\"" + longTitle + "\",\"author\":\"Author 1\",\"price\":1.0}\r\n"
+                + "{\"title\":\"Book 2\",\"author\":\"Author 2\",\"price\":2.0}\r\n";
+
+        mockMvc.perform(post("/books/batch")
+                        .contentType(BookController.APPLICATION_NDJSON_VALUE)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failures[0].index").value(0))
+                .andExpect(jsonPath("$.failures[0].message")
+                        .value("Record is longer than " + BookController.MAX_RECORD_LENGTH + " characters"))
+                .andExpect(jsonPath("$.ids").value(contains(7)));
+    }
+
+    @Test
+    void testDeleteBatchBooks_MapsFailuresToBodyPosition() throws Exception {
+        when(bookService.deleteBatchBooks(List.of(1L, 9L)))
+                .thenReturn(new BatchResult(1, List.of(new BatchFailure(1, 9L, "Book with id 9 not found"))));
+
+        mockMvc.perform(delete("/books/batch")
+                        .contentType(BookController.APPLICATION_NDJSON_VALUE)
+                        .content("1\n\"x\"\n9\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failures[0].index").value(1))
+                .andExpect(jsonPath("$.failures[1].index").value(2))
+                .andExpect(jsonPath("$.failures[1].id").value(9));
+    }
+}
@@ -0,0 +1,133 @@
+package com.library.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.export.CatalogExporter;
+import com.library.export.CatalogSnapshot;
+import com.library.model.BookVO;
+import com.library.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(CatalogExportController.class)
+class CatalogExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CatalogExporter exporter;
+
+    private CatalogSnapshot snapshot;
+    private byte[] file;
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public BookService bookService() {
+            return new BookService();
+        }
+
+        @Bean(destroyMethod = "close")
+        public CatalogExporter catalogExporter(BookService bookService, ObjectMapper objectMapper) throws IOException {
+            return new CatalogExporter(bookService, objectMapper, Files.createTempDirectory("export"), 1, 60_000, 1000);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        if (bookService.getAllBooks().isEmpty()) {
+            for (int i = 0; i < 500; i++) {
+                bookService.addBook(new BookVO(null, "Title " + i, "Author " + i % 10, 5.0 + i));
+            }
+        }
+        snapshot = exporter.rebuild();
+        file = Files.readAllBytes(snapshot.getFile());
+    }
+
+    @Test
+    void testExport_WholeSnapshot() throws Exception {
+        MvcResult result = mockMvc.perform(get("/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult done = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CatalogExportController.APPLICATION_GZIP))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + snapshot.getTag() + "\""))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(CatalogExportController.BOOK_COUNT_HEADER, "500"))
+                .andReturn();
+        assertArrayEquals(file, done.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    void testExport_ResumesFromRange() throws Exception {
+        String etag = "\"" + snapshot.getTag() + "\"";
+        MvcResult result = mockMvc.perform(get("/books/export")
+                        .header(HttpHeaders.RANGE, "bytes=100-")
+                        .header(HttpHeaders.IF_RANGE, etag))
+                .andReturn();
+
+        MvcResult done = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                        "bytes 100-" + (file.length - 1) + "/" + file.length))
+                .andReturn();
+        assertArrayEquals(Arrays.copyOfRange(file, 100, file.length), done.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    void testExport_StaleIfRangeSendsWholeSnapshot() throws Exception {
+        MvcResult result = mockMvc.perform(get("/books/export")
+                        .header(HttpHeaders.RANGE, "bytes=100-199")
+                        .header(HttpHeaders.IF_RANGE, "\"replaced\""))
+                .andReturn();
+
+        MvcResult done = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(file.length, done.getResponse().getContentAsByteArray().length);
+    }
+
+    @Test
+    void testExport_ConditionalAndUnsatisfiable() throws Exception {
+        mockMvc.perform(get("/books/export").header(HttpHeaders.IF_NONE_MATCH, "\"" + snapshot.getTag() + "\""))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/books/export").header(HttpHeaders.RANGE, "bytes=" + file.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + file.length));
+    }
+
+    @Test
+    void testParseRange() {
+        assertArrayEquals(new long[] {0, 10}, CatalogExportController.parseRange("bytes=0-9", 100));
+        assertArrayEquals(new long[] {90, 100}, CatalogExportController.parseRange("bytes=90-", 100));
+        assertArrayEquals(new long[] {80, 100}, CatalogExportController.parseRange("bytes=-20", 100));
+        assertArrayEquals(new long[] {0, 100}, CatalogExportController.parseRange("bytes=-500", 100));
+        assertArrayEquals(new long[] {50, 100}, CatalogExportController.parseRange("bytes=50-999", 100));
+        assertNull(CatalogExportController.parseRange("bytes=0-9,20-29", 100));
+        assertNull(CatalogExportController.parseRange("bytes=9-0", 100));
+        assertNull(CatalogExportController.parseRange("items=0-9", 100));
+        assertEquals(0, CatalogExportController.parseRange("bytes=100-", 100).length);
+    }
+}
@@ -0,0 +1,149 @@
+package com.library.controller;
+
+import com.library.model.BookVO;
+import com.library.service.BookService;
+import com.library.service.ReactiveBookService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReactiveBookRoutesTest {
+
+    private BookService bookService;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        bookService = new BookService();
+        ReactiveBookRoutes routes = new ReactiveBookRoutes(new ReactiveBookService(bookService),
+                Validation.buildDefaultValidatorFactory().getValidator());
+        client = WebTestClient.bindToRouterFunction(routes.routes()).build();
+    }
+
+    @Test
+    void testAddGetUpdateAndDeleteBook() {
+        client.post().uri("/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BookVO(null, "Dune", "Frank Herbert", 9.99))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1)
+                .jsonPath("$.title").isEqualTo("Dune");
+
+        client.get().uri("/books/1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1\"")
+                .exchange()
+                .expectStatus().isNotModified();
+
+        client.put().uri("/books/1")
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BookVO(null, "Dune Messiah", "Frank Herbert", 10.99))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"")
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Dune Messiah");
+
+        client.delete().uri("/books/1")
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        client.delete().uri("/books/1")
+                .exchange()
+                .expectStatus().isNoContent();
+
+        client.get().uri("/books/1")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.message").isEqualTo("Book with id 1 not found");
+    }
+
+    @Test
+    void testInvalidRequestsAreRejected() {
+        client.post().uri("/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BookVO(null, "", "Frank Herbert", -1.0))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Title is required")
+                .jsonPath("$.price").isEqualTo("Price must be non-negative");
+
+        client.post().uri("/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{not json")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        client.get().uri("/books/abc")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testListBooksAsJsonArrayAndNdjson() {
+        for (int i = 1; i <= 5; i++) {
+            bookService.addBook(new BookVO(null, "Book " + i, i % 2 == 0 ? "Even" : "Odd", (double) i));
+        }
+
+        List<BookVO> all = client.get().uri("/books")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBodyList(BookVO.class)
+                .returnResult()
+                .getResponseBody();
+        assertEquals(5, all.size());
+
+        Flux<BookVO> streamed = client.get().uri("/books?after=2")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(BookVO.class)
+                .getResponseBody();
+        StepVerifier.create(streamed.map(BookVO::getId))
+                .expectNext(3L, 4L, 5L)
+                .verifyComplete();
+
+        client.get().uri("/books?author=even")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].id").isEqualTo(2);
+
+        client.get().uri("/books?author=even&after=1")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testStreamIsPulledOnDemand() {
+        for (int i = 1; i <= 1000; i++) {
+            bookService.addBook(new BookVO(null, "Book " + i, "Author", 1.0));
+        }
+        ReactiveBookService reactiveBookService = new ReactiveBookService(bookService);
+
+        // A subscriber that asks for three books gets three, and cancelling ends the stream
+        StepVerifier.create(reactiveBookService.streamBooks(null).map(BookVO::getId), 3)
+                .expectNext(1L, 2L, 3L)
+                .thenCancel()
+                .verify();
+    }
+}
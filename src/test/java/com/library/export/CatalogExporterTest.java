@@ -0,0 +1,105 @@
+package com.library.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.model.BookVO;
+import com.library.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogExporterTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BookService bookService;
+    private CatalogExporter exporter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        bookService = new BookService();
+        exporter = new CatalogExporter(bookService, objectMapper, directory, 2, 60_000, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        exporter.close();
+    }
+
+    @Test
+    void testSnapshotHoldsTheCatalogAsGzipNdjson() throws IOException {
+        bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        bookService.addBook(new BookVO(null, "Spring Boot in Action", "Craig Walls", 39.99));
+
+        CatalogSnapshot snapshot = exporter.rebuild();
+
+        assertSame(snapshot, exporter.current());
+        assertEquals(2, snapshot.getBooks());
+        assertEquals(2, snapshot.getChangeCount());
+        assertEquals(Files.size(snapshot.getFile()), snapshot.getSize());
+        assertEquals(bookService.getAllBooks(), read(snapshot.getFile()));
+    }
+
+    @Test
+    void testRebuildsInTheBackgroundOncePastTheThreshold() throws Exception {
+        exporter.start();
+        CatalogSnapshot first = await(null);
+        assertEquals(0, first.getBooks());
+
+        bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        Thread.sleep(100);
+        // One change is below the threshold of two
+        assertSame(first, exporter.current());
+
+        bookService.addBook(new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00));
+        CatalogSnapshot second = await(first);
+        assertEquals(2, second.getBooks());
+        assertNotEquals(first.getTag(), second.getTag());
+        // The superseded file stays for downloads in flight until the next rebuild
+        assertTrue(Files.exists(first.getFile()));
+
+        CatalogSnapshot third = exporter.rebuild();
+        assertFalse(Files.exists(first.getFile()));
+        assertTrue(Files.exists(second.getFile()));
+        assertTrue(Files.exists(third.getFile()));
+    }
+
+    private CatalogSnapshot await(CatalogSnapshot previous) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            CatalogSnapshot current = exporter.current();
+            if (current != null && current != previous) {
+                return current;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("No new snapshot was published");
+    }
+
+    private List<BookVO> read(Path file) throws IOException {
+        // Read back with the versions the export carries, which a client's body may not set
+        ObjectMapper stored = objectMapper.copy().addMixIn(BookVO.class, BookVO.StoredVersion.class);
+        List<BookVO> books = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                books.add(stored.readValue(line, BookVO.class));
+            }
+        }
+        return books;
+    }
+}
@@ -0,0 +1,134 @@
+package com.library.ids;
+
+import com.library.model.BookVO;
+import com.library.persistence.BookJournal;
+import com.library.repository.InMemoryBookRepository;
+import com.library.service.BookService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdAllocatorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 20_000;
+
+    @Test
+    void testSnowflake_UniqueAcrossNodesAndThreads() throws InterruptedException {
+        List<IdAllocator> nodes = List.of(new SnowflakeIdAllocator(0), new SnowflakeIdAllocator(1),
+                new SnowflakeIdAllocator(1023));
+        Set<Long> ids = allocateConcurrently(nodes);
+
+        assertEquals(nodes.size() * THREADS * IDS_PER_THREAD, ids.size());
+        long id = nodes.get(2).next();
+        assertEquals(1023, SnowflakeIdAllocator.nodeOf(id));
+        assertTrue(Math.abs(SnowflakeIdAllocator.timeOf(id) - System.currentTimeMillis()) < 60_000);
+    }
+
+    @Test
+    void testSnowflake_IncreasesWhenClockStallsOrGoesBack() {
+        long[] now = {SnowflakeIdAllocator.EPOCH_MILLIS + 1_000};
+        SnowflakeIdAllocator allocator = new SnowflakeIdAllocator(5, () -> now[0]);
+
+        // More ids than one millisecond has sequence numbers for
+        long previous = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long id = allocator.next();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        now[0] -= 500;
+        long afterStepBack = allocator.next();
+        assertTrue(afterStepBack > previous);
+        long[] batch = allocator.next(5000);
+        assertTrue(batch[0] > afterStepBack);
+        for (int i = 1; i < batch.length; i++) {
+            assertTrue(batch[i] > batch[i - 1]);
+            assertEquals(5, SnowflakeIdAllocator.nodeOf(batch[i]));
+        }
+        assertTrue(allocator.peek() > batch[batch.length - 1]);
+    }
+
+    @Test
+    void testLeased_UniqueAcrossInstancesSharingSource() throws InterruptedException {
+        AtomicLong counter = new AtomicLong(1);
+        AtomicLong leases = new AtomicLong();
+        IdBlockSource source = size -> {
+            leases.incrementAndGet();
+            return counter.getAndAdd(size);
+        };
+        List<IdAllocator> nodes = List.of(new LeasedIdAllocator(source, 1000, 16),
+                new LeasedIdAllocator(source, 1000, 16));
+        Set<Long> ids = allocateConcurrently(nodes);
+
+        assertEquals(nodes.size() * THREADS * IDS_PER_THREAD, ids.size());
+        // One trip to the source per block, not per id
+        assertTrue(leases.get() <= ids.size() / 1000 + nodes.size() * 2);
+        assertTrue(ids.stream().allMatch(id -> id > 0 && id < counter.get()));
+    }
+
+    @Test
+    void testLeased_SkipsIdsBelowFloor() {
+        AtomicLong counter = new AtomicLong(1);
+        LeasedIdAllocator allocator = new LeasedIdAllocator(size -> counter.getAndAdd(size), 100, 10);
+        allocator.skipTo(250);
+
+        long[] ids = allocator.next(30);
+        assertEquals(250, Arrays.stream(ids).min().getAsLong());
+        assertEquals(30, Arrays.stream(ids).distinct().count());
+    }
+
+    @Test
+    void testRepository_UsesAllocatorAndSkipsRecoveredIds() {
+        SnowflakeIdAllocator allocator = new SnowflakeIdAllocator(3);
+        BookService bookService = new BookService(new InMemoryBookRepository(BookJournal.NONE, allocator));
+        BookVO added = bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        List<BookVO> batch = bookService.addBatchBooks(List.of(
+                new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00),
+                new BookVO(null, "Spring Boot in Action", "Craig Walls", 39.99)));
+
+        assertEquals(3, SnowflakeIdAllocator.nodeOf(added.getId()));
+        assertTrue(batch.get(0).getId() > added.getId());
+        assertTrue(batch.get(1).getId() > batch.get(0).getId());
+        assertEquals("Java Puzzlers", bookService.getBookById(batch.get(0).getId()).getTitle());
+
+        SequentialIdAllocator sequential = new SequentialIdAllocator();
+        sequential.skipTo(42);
+        assertEquals(42, sequential.next());
+        assertArrayEquals(new long[] {43, 44, 45}, sequential.next(3));
+    }
+
+    private static Set<Long> allocateConcurrently(List<IdAllocator> nodes) throws InterruptedException {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (IdAllocator node : nodes) {
+            for (int t = 0; t < THREADS; t++) {
+                boolean batches = t % 2 == 0;
+                threads.add(new Thread(() -> {
+                    Set<Long> local = new HashSet<>();
+                    for (int i = 0; i < IDS_PER_THREAD; i += batches ? 10 : 1) {
+                        if (batches) {
+                            Arrays.stream(node.next(10)).forEach(local::add);
+                        } else {
+                            local.add(node.next());
+                        }
+                    }
+                    ids.addAll(local);
+                }));
+            }
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,63 @@
+package com.library.ids;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcIdBlockSourceTest {
+
+    private EmbeddedDatabase database;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testLease_DisjointBlocksAcrossInstances() throws InterruptedException {
+        // Two instances sharing one database, each leasing from several threads
+        List<JdbcIdBlockSource> sources = List.of(
+                new JdbcIdBlockSource(new JdbcTemplate(database), "books"),
+                new JdbcIdBlockSource(new JdbcTemplate(database), "books"));
+        Set<Long> firsts = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (JdbcIdBlockSource source : sources) {
+            for (int t = 0; t < 4; t++) {
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        firsts.add(source.lease(100));
+                    }
+                }));
+            }
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(400, firsts.size());
+        assertTrue(firsts.stream().allMatch(first -> (first - 1) % 100 == 0));
+        assertEquals(40_001, sources.get(0).lease(1));
+        // Another counter in the same table starts at 1
+        assertEquals(1, new JdbcIdBlockSource(new JdbcTemplate(database), "authors").lease(10));
+    }
+}
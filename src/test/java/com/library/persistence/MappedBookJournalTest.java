@@ -0,0 +1,156 @@
+package com.library.persistence;
+
+import com.library.exception.BookNotFoundException;
+import com.library.model.BookVO;
+import com.library.repository.InMemoryBookRepository;
+import com.library.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedBookJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private MappedBookJournal open() throws IOException {
+        return new MappedBookJournal(directory, FsyncPolicy.BATCH, 60_000, 1 << 16, Long.MAX_VALUE);
+    }
+
+    @Test
+    void testRecover_ReplaysLogAfterRestart() throws IOException {
+        MappedBookJournal journal = open();
+        BookService bookService = new BookService(new InMemoryBookRepository(journal));
+        bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        bookService.addBatchBooks(List.of(
+                new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00),
+                new BookVO(null, "Spring Boot in Action", "Craig Walls", 39.99)));
+        bookService.updateBook(2L, new BookVO(null, "Java Puzzlers 2", "Joshua Bloch", 35.00));
+        bookService.deleteBook(3L);
+        journal.close();
+
+        try (MappedBookJournal reopened = open()) {
+            BookService recovered = new BookService(new InMemoryBookRepository(reopened));
+
+            assertEquals(List.of(1L, 2L), ids(recovered));
+            assertEquals("Java Puzzlers 2", recovered.getBookById(2L).getTitle());
+            assertEquals(2L, recovered.getBookById(2L).getVersion());
+            assertEquals(2, recovered.findBooks("joshua bloch", null).size());
+            assertThrows(BookNotFoundException.class, () -> recovered.getBookById(3L));
+            // The id of the deleted book is not handed out again
+            assertEquals(4L, recovered.addBook(new BookVO(null, "New", "Author", 1.0)).getId());
+        }
+    }
+
+    @Test
+    void testSnapshot_CompactsLogAndKeepsTail() throws IOException {
+        MappedBookJournal journal = open();
+        BookService bookService = new BookService(new InMemoryBookRepository(journal));
+        for (int i = 1; i <= 100; i++) {
+            bookService.addBook(new BookVO(null, "Book " + i, "Author", (double) i));
+        }
+        journal.snapshot();
+        bookService.deleteBook(1L);
+        bookService.addBook(new BookVO(null, "Book 101", "Author", 101.0));
+        journal.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(p -> p.toString().endsWith(".snap")).count());
+        }
+
+        try (MappedBookJournal reopened = open()) {
+            BookService recovered = new BookService(new InMemoryBookRepository(reopened));
+
+            List<Long> ids = ids(recovered);
+            assertEquals(100, ids.size());
+            assertEquals(2L, ids.get(0));
+            assertEquals(101L, ids.get(99));
+        }
+    }
+
+    @Test
+    void testAppend_RotatesFullSegments() throws IOException {
+        MappedBookJournal journal = new MappedBookJournal(directory, FsyncPolicy.WRITE, 60_000, 256, Long.MAX_VALUE);
+        BookService bookService = new BookService(new InMemoryBookRepository(journal));
+        for (int i = 1; i <= 50; i++) {
+            bookService.addBook(new BookVO(null, "Book " + i, "Author", (double) i));
+        }
+        journal.close();
+
+        try (MappedBookJournal reopened = new MappedBookJournal(directory, FsyncPolicy.WRITE, 60_000, 256, Long.MAX_VALUE)) {
+            assertEquals(50, ids(new BookService(new InMemoryBookRepository(reopened))).size());
+        }
+    }
+
+    @Test
+    void testSnapshot_WaitsForWriterBetweenAppendAndPublish() throws Exception {
+        MappedBookJournal journal = open();
+        // Stands in for a store: the change becomes visible only after its record is appended
+        Map<Long, BookVO> store = new ConcurrentHashMap<>();
+        store.put(1L, new BookVO(1L, "Book 1", "Author", 1.0));
+        journal.start(() -> 3, store.values());
+        BookVO added = new BookVO(2L, "Book 2", "Author", 2.0);
+
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch publish = new CountDownLatch(1);
+        Thread writer = new Thread(() -> journal.mutate(() -> {
+            journal.appendPut(added);
+            journal.appendDelete(1L);
+            appended.countDown();
+            await(publish);
+            store.put(2L, added);
+            return store.remove(1L);
+        }));
+        writer.start();
+        appended.await();
+
+        Thread snapshot = new Thread(() -> {
+            try {
+                journal.snapshot();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        snapshot.start();
+        // Rotating now would leave both records in a segment the snapshot drops
+        snapshot.join(200);
+        assertTrue(snapshot.isAlive());
+        publish.countDown();
+        writer.join();
+        snapshot.join();
+        journal.commit();
+        journal.close();
+
+        Map<Long, BookVO> recovered = new HashMap<>();
+        try (MappedBookJournal reopened = open()) {
+            reopened.recover(book -> recovered.put(book.getId(), book), recovered::remove);
+        }
+        assertEquals(Set.of(2L), recovered.keySet());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<Long> ids(BookService bookService) {
+        return bookService.streamBooks(null).map(BookVO::getId).collect(Collectors.toList());
+    }
+}
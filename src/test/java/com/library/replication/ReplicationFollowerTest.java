@@ -0,0 +1,168 @@
+package com.library.replication;
+
+import com.library.exception.BookNotFoundException;
+import com.library.model.BookVO;
+import com.library.persistence.BookJournal;
+import com.library.repository.InMemoryBookRepository;
+import com.library.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicationFollowerTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private final List<ReplicationFollower> followers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        followers.forEach(ReplicationFollower::close);
+    }
+
+    private static BookService leader(ReplicationLog log) {
+        return new BookService(new InMemoryBookRepository(log.wrap(BookJournal.NONE)));
+    }
+
+    private ReplicationFollower follow(BookService replica, ReplicationLog log) {
+        ReplicationFollower follower = new ReplicationFollower(replica, new LocalReplicationSource(log), 50);
+        followers.add(follower);
+        follower.start();
+        return follower;
+    }
+
+    @Test
+    void testFollowers_ConvergeOnLeaderWrites() throws InterruptedException {
+        ReplicationLog log = new ReplicationLog(1000, 16, 20, 500);
+        BookService leader = leader(log);
+        leader.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+
+        BookService first = new BookService();
+        BookService second = new BookService();
+        ReplicationFollower firstFollower = follow(first, log);
+        ReplicationFollower secondFollower = follow(second, log);
+
+        leader.addBatchBooks(List.of(
+                new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00),
+                new BookVO(null, "Spring Boot in Action", "Craig Walls", 39.99)));
+        leader.updateBook(2L, new BookVO(null, "Java Puzzlers 2", "Joshua Bloch", 35.00));
+        leader.deleteBook(3L);
+        for (int i = 0; i < 200; i++) {
+            leader.addBook(new BookVO(null, "Book " + i, "Author", (double) i));
+        }
+
+        long sequence = log.sequence();
+        assertTrue(firstFollower.awaitApplied(sequence, TIMEOUT_MILLIS));
+        assertTrue(secondFollower.awaitApplied(sequence, TIMEOUT_MILLIS));
+        for (BookService replica : List.of(first, second)) {
+            assertEquals(books(leader), books(replica));
+            assertEquals(2L, replica.getBookById(2L).getVersion());
+            assertThrows(BookNotFoundException.class, () -> replica.getBookById(3L));
+            // The search index follows replicated writes too
+            assertEquals(2L, replica.searchBooks("puzzlers", 10).get(0).getId());
+        }
+        assertEquals(0, firstFollower.lagEntries());
+        assertEquals(0, firstFollower.lagMillis());
+        assertEquals(1, firstFollower.snapshots());
+    }
+
+    @Test
+    void testFollower_ReloadsSnapshotWhenBeyondRetention() throws InterruptedException {
+        ReplicationLog log = new ReplicationLog(8, 4, 20, 500);
+        BookService leader = leader(log);
+        BookService replica = new BookService();
+        ReplicationFollower follower = follow(replica, log);
+        leader.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        assertTrue(follower.awaitApplied(log.sequence(), TIMEOUT_MILLIS));
+        follower.close();
+
+        // Far more writes than the log retains while the follower is away
+        for (int i = 0; i < 100; i++) {
+            leader.addBook(new BookVO(null, "Book " + i, "Author", (double) i));
+        }
+        leader.deleteBook(1L);
+        assertFalse(log.canResume(log.epoch(), follower.appliedSequence()));
+
+        ReplicationFollower restarted = new ReplicationFollower(replica, new LocalReplicationSource(log), 50);
+        followers.add(restarted);
+        restarted.start();
+        assertTrue(restarted.awaitApplied(log.sequence(), TIMEOUT_MILLIS));
+        assertEquals(books(leader), books(replica));
+        assertThrows(BookNotFoundException.class, () -> replica.getBookById(1L));
+    }
+
+    @Test
+    void testFollower_ResyncsFromNewLeaderEpoch() throws InterruptedException {
+        BookService replica = new BookService();
+        replica.addBook(new BookVO(null, "Stale", "Nobody", 1.0));
+        replica.addBook(new BookVO(null, "Stale too", "Nobody", 2.0));
+        replica.updateBook(1L, new BookVO(null, "Stale again", "Nobody", 1.0));
+
+        // A leader that starts empty: the follower's own books are dropped or overwritten
+        ReplicationLog log = new ReplicationLog(100, 16, 20, 500);
+        BookService leader = leader(log);
+        leader.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        ReplicationFollower follower = follow(replica, log);
+        assertTrue(follower.awaitApplied(log.sequence(), TIMEOUT_MILLIS));
+
+        assertEquals(books(leader), books(replica));
+        assertEquals("Effective Java", replica.getBookById(1L).getTitle());
+        assertEquals(1L, replica.getBookById(1L).getVersion());
+    }
+
+    @Test
+    void testSnapshot_ConsistentWithConcurrentWrites() throws Exception {
+        ReplicationLog log = new ReplicationLog(100_000, 64, 20, 500);
+        BookService leader = leader(log);
+        for (int i = 0; i < 500; i++) {
+            leader.addBook(new BookVO(null, "Book " + i, "Author", (double) i));
+        }
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                long id = 1 + i % 500;
+                leader.updateBook(id, new BookVO(null, "Book " + id + " v" + i, "Author", (double) i));
+                if (i % 7 == 0) {
+                    leader.addBook(new BookVO(null, "Extra " + i, "Author", 1.0));
+                }
+            }
+        });
+        BookService replica = new BookService();
+        writer.start();
+        ReplicationFollower follower = follow(replica, log);
+        writer.join();
+
+        assertTrue(follower.awaitApplied(log.sequence(), TIMEOUT_MILLIS));
+        assertEquals(books(leader), books(replica));
+    }
+
+    @Test
+    void testLog_RejectsUnknownEpochAndExpiredEntries() {
+        ReplicationLog log = new ReplicationLog(4, 16, 20, 500);
+        BookService leader = leader(log);
+        for (int i = 0; i < 10; i++) {
+            leader.addBook(new BookVO(null, "Book " + i, "Author", (double) i));
+        }
+
+        assertEquals(10, log.sequence());
+        assertTrue(log.canResume(log.epoch(), 6));
+        assertTrue(log.canResume(log.epoch(), 10));
+        assertFalse(log.canResume(log.epoch(), 5));
+        assertFalse(log.canResume(log.epoch(), 11));
+        assertFalse(log.canResume(log.epoch() + 1, 10));
+        assertThrows(ResyncRequiredException.class,
+                () -> new LocalReplicationSource(log).openLog(log.epoch(), 2));
+    }
+
+    private static List<String> books(BookService service) {
+        try (Stream<BookVO> books = service.streamBooks(null)) {
+            return books.map(book -> book.getId() + ":" + book.getVersion() + ":" + book.getTitle())
+                    .collect(Collectors.toList());
+        }
+    }
+}
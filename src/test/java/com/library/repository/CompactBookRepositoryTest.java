@@ -0,0 +1,111 @@
+package com.library.repository;
+
+import com.library.exception.BookNotFoundException;
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactBookRepositoryTest {
+
+    private final BookService bookService = new BookService(new CompactBookRepository(true, 16));
+
+    @Test
+    void testCrudRoundTrip() {
+        BookVO book = bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        bookService.addBook(new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00));
+        bookService.addBook(new BookVO(null, "Untitled", "Anonymous", null));
+
+        BookVO stored = bookService.getBookById(book.getId());
+        assertEquals("Effective Java", stored.getTitle());
+        assertEquals("Joshua Bloch", stored.getAuthor());
+        assertEquals(45.50, stored.getPrice());
+        assertNull(bookService.getBookById(3L).getPrice());
+
+        bookService.updateBook(book.getId(), new BookVO(null, "Effective Java 3", "J. Bloch", 50.0));
+        assertEquals(List.of(2L), ids(bookService.findBooks("joshua bloch", null)));
+        assertEquals(List.of(1L), ids(bookService.findBooks("J. BLOCH", " effective java 3")));
+
+        bookService.deleteBook(2L);
+        assertThrows(BookNotFoundException.class, () -> bookService.getBookById(2L));
+        assertTrue(bookService.findBooks("Joshua Bloch", null).isEmpty());
+    }
+
+    @Test
+    void testPagingSurvivesCompaction() {
+        List<BookVO> batch = new ArrayList<>();
+        for (int i = 1; i <= 4000; i++) {
+            batch.add(new BookVO(null, "Book " + i, "Author " + (i % 7), (double) i));
+        }
+        bookService.addBatchBooks(batch);
+        // Delete every other book, enough to trigger compaction
+        List<Long> odd = new ArrayList<>();
+        for (long id = 1; id <= 4000; id += 2) {
+            odd.add(id);
+        }
+        assertEquals(2000, bookService.deleteBatchBooks(odd).getSucceeded());
+
+        BookPage page = bookService.getBooksPage(10L, 3);
+        assertEquals(List.of(12L, 14L, 16L), ids(page.getItems()));
+        assertEquals(2000, bookService.streamBooks(null).count());
+        assertEquals("Book 3998", bookService.getBookById(3998L).getTitle());
+        assertEquals(1, bookService.findBooks(null, "book 4000").size());
+        assertEquals(4001L, bookService.addBook(new BookVO(null, "New", "Author", 1.0)).getId());
+    }
+
+    /**
+     * Compares retained heap per book against the default in-memory store. Run with
+     * {@code mvn test -Dtest=CompactBookRepositoryTest -Dfootprint=true -DargLine=-Xmx8g}.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1_000_000, 10_000_000})
+    @EnabledIfSystemProperty(named = "footprint", matches = "true")
+    void testFootprint_AtLeastThreeTimesSmaller(int books) {
+        long compact = retainedBytesPerBook(() -> new CompactBookRepository(false, books), books);
+        long baseline = retainedBytesPerBook(InMemoryBookRepository::new, books);
+
+        System.out.printf("%,d books: in-memory %d bytes/book, compact %d bytes/book%n", books, baseline, compact);
+        assertTrue(baseline >= 3 * compact, "expected at least 3x fewer bytes per book");
+    }
+
+    private static long retainedBytesPerBook(Supplier<BookRepository> factory, int books) {
+        long before = usedHeap();
+        BookRepository repository = factory.get();
+        List<BookVO> chunk = new ArrayList<>(10_000);
+        for (int i = 0; i < books; i++) {
+            // Fresh strings per book, as they would arrive from JSON
+            chunk.add(new BookVO(null, "Title number " + i, "Author " + (i % 50_000), 10.0 + i % 100));
+            if (chunk.size() == 10_000) {
+                repository.insertAll(chunk);
+                chunk = new ArrayList<>(10_000);
+            }
+        }
+        repository.insertAll(chunk);
+        chunk = null;
+        long after = usedHeap();
+        assertTrue(repository.findById(books).isPresent());
+        return (after - before) / books;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static List<Long> ids(List<BookVO> books) {
+        return books.stream().map(BookVO::getId).collect(Collectors.toList());
+    }
+}
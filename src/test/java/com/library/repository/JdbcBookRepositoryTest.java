@@ -0,0 +1,166 @@
+package com.library.repository;
+
+import com.library.exception.BookNotFoundException;
+import com.library.exception.VersionMismatchException;
+import com.library.model.AuthorStats;
+import com.library.model.BatchResult;
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import com.library.service.BookService;
+import com.library.stats.AuthorStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcBookRepositoryTest {
+
+    private EmbeddedDatabase database;
+    private BookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        bookService = new BookService(new JdbcBookRepository(new JdbcTemplate(database)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testCrudAndIndexedLookup() {
+        BookVO book = bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        bookService.addBook(new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00));
+
+        assertEquals("Effective Java", bookService.getBookById(book.getId()).getTitle());
+        assertEquals(2, bookService.findBooks(" joshua bloch", null).size());
+        assertEquals(1, bookService.findBooks("Joshua Bloch", "EFFECTIVE JAVA").size());
+
+        bookService.updateBook(book.getId(), new BookVO(null, "Effective Java 3", "J. Bloch", 50.0));
+        assertEquals(1, bookService.findBooks("Joshua Bloch", null).size());
+        assertEquals(50.0, bookService.getBookById(book.getId()).getPrice());
+
+        bookService.deleteBook(book.getId());
+        assertThrows(BookNotFoundException.class, () -> bookService.getBookById(book.getId()));
+        assertThrows(BookNotFoundException.class, () -> bookService.deleteBook(book.getId()));
+    }
+
+    @Test
+    void testBatchOperationsAndKeysetPaging() {
+        List<BookVO> batch = new ArrayList<>();
+        for (int i = 1; i <= 2500; i++) {
+            batch.add(new BookVO(null, "Book " + i, "Author " + (i % 10), (double) i));
+        }
+        List<BookVO> added = bookService.addBatchBooks(batch);
+        assertEquals(2500, added.stream().map(BookVO::getId).distinct().count());
+
+        BatchResult updated = bookService.updateBatchBooks(List.of(
+                new BookVO(added.get(0).getId(), "Renamed", "Author", 1.0),
+                new BookVO(999_999L, "Missing", "Author", 1.0)));
+        assertEquals(1, updated.getSucceeded());
+        assertEquals(1L, updated.getFailures().get(0).getIndex());
+
+        BatchResult deleted = bookService.deleteBatchBooks(List.of(added.get(1).getId(), 999_999L));
+        assertEquals(1, deleted.getSucceeded());
+
+        BookPage page = bookService.getBooksPage(added.get(0).getId(), 2);
+        assertEquals(List.of(added.get(2).getId(), added.get(3).getId()),
+                page.getItems().stream().map(BookVO::getId).collect(Collectors.toList()));
+        assertEquals(added.get(3).getId(), page.getNextCursor());
+
+        assertEquals(2499, bookService.streamBooks(null).count());
+    }
+
+    @Test
+    void testBatchUpdateReachesStatisticsAndSearch() {
+        BookVO first = bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        BookVO second = bookService.addBook(new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00));
+
+        // A stale version on the input must neither get the update ignored nor outrank later ones
+        BookVO renamed = new BookVO(first.getId(), "Refactoring", "Martin Fowler", 47.0);
+        renamed.setVersion(99L);
+        bookService.updateBatchBooks(List.of(renamed, new BookVO(second.getId(), "Java Puzzlers", "Joshua Bloch", 35.0)));
+        assertEquals(2L, renamed.getVersion());
+        assertEquals(List.of(first.getId()), searchIds("fowler"));
+        assertEquals(35.0, authorStats("Joshua Bloch").getMaxPrice());
+        assertEquals(1, authorStats("Joshua Bloch").getCount());
+
+        bookService.updateBook(first.getId(), new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        assertEquals(3L, bookService.getBookById(first.getId()).getVersion());
+        assertEquals(List.of(first.getId()), searchIds("effective"));
+        assertTrue(searchIds("fowler").isEmpty());
+        assertEquals(2, authorStats("Joshua Bloch").getCount());
+
+        // A book listed twice in one batch is updated twice, each time from the copy before
+        bookService.updateBatchBooks(List.of(new BookVO(second.getId(), "Java Puzzlers", "Joshua Bloch", 20.0),
+                new BookVO(second.getId(), "Java Puzzlers", "Neal Gafter", 25.0)));
+        assertEquals(4L, bookService.getBookById(second.getId()).getVersion());
+        assertEquals(1, authorStats("Joshua Bloch").getCount());
+        assertEquals(25.0, authorStats("Neal Gafter").getMinPrice());
+
+        assertEquals(1, bookService.deleteBatchBooks(List.of(second.getId(), second.getId())).getSucceeded());
+        assertEquals(List.of("Joshua Bloch"), bookService.getAuthorStats(AuthorStatistics.Order.AUTHOR, null).stream()
+                .map(AuthorStats::getAuthor).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testPriceRangeAndSummary() {
+        bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        bookService.addBook(new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00));
+        bookService.addBook(new BookVO(null, "Spring Boot in Action", "Craig Walls", 39.99));
+
+        List<String> cheapest = bookService.findBooksByPrice(null, null, false, 2).stream()
+                .map(BookVO::getTitle).collect(Collectors.toList());
+        assertEquals(List.of("Java Puzzlers", "Spring Boot in Action"), cheapest);
+        assertEquals(List.of("Effective Java"), bookService.findBooksByPrice(40.0, null, true, null).stream()
+                .map(BookVO::getTitle).collect(Collectors.toList()));
+
+        PriceSummary summary = bookService.summarizePrices(30.0, 40.0);
+        assertEquals(2, summary.getCount());
+        assertEquals(69.99, summary.getSum(), 1e-9);
+        assertEquals(0, bookService.summarizePrices(100.0, null).getCount());
+    }
+
+    @Test
+    void testVersionedUpdateAndDelete() {
+        BookVO book = bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        assertEquals(1L, book.getVersion());
+
+        bookService.updateBook(book.getId(), new BookVO(null, "Effective Java 3", "Joshua Bloch", 45.50));
+        assertEquals(2L, bookService.getBookById(book.getId()).getVersion());
+
+        assertThrows(VersionMismatchException.class, () ->
+                bookService.updateBook(book.getId(), new BookVO(null, "Stale", "Joshua Bloch", 1.0), 1L));
+        assertThrows(VersionMismatchException.class, () -> bookService.deleteBook(book.getId(), 1L));
+        assertEquals(3L, bookService.updateBook(book.getId(),
+                new BookVO(null, "Effective Java 3", "Joshua Bloch", 49.0), 2L).getVersion());
+
+        bookService.deleteBook(book.getId(), 3L);
+        assertThrows(BookNotFoundException.class, () -> bookService.deleteBook(book.getId(), 3L));
+    }
+
+    private List<Long> searchIds(String query) {
+        return bookService.searchBooks(query, null).stream().map(BookVO::getId).collect(Collectors.toList());
+    }
+
+    private AuthorStats authorStats(String author) {
+        return bookService.getAuthorStats(AuthorStatistics.Order.AUTHOR, null).stream()
+                .filter(stats -> stats.getAuthor().equals(author))
+                .findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,188 @@
+package com.library.repository;
+
+import com.library.exception.BookNotFoundException;
+import com.library.exception.SnapshotExpiredException;
+import com.library.ids.SequentialIdAllocator;
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.persistence.BookJournal;
+import com.library.service.BookService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MvccBookRepositoryTest {
+
+    private final BookService bookService = new BookService(new MvccBookRepository());
+
+    @Test
+    void testTrieMatchesSortedMap() {
+        Random random = new Random(42);
+        TreeMap<Long, BookVO> expected = new TreeMap<>();
+        BookTrie trie = BookTrie.EMPTY;
+        for (int round = 0; round < 50; round++) {
+            // Alternate single copy-on-write updates with batches through one editor
+            BookTrie before = trie;
+            List<BookVO> beforeBooks = new ArrayList<>(expected.values());
+            BookTrie.Editor editor = round % 2 == 0 ? trie.edit() : null;
+            for (int op = 0; op < 200; op++) {
+                long id = randomId(random);
+                if (random.nextInt(3) == 0 && !expected.isEmpty()) {
+                    Long present = expected.ceilingKey(id);
+                    id = present != null ? present : expected.firstKey();
+                    expected.remove(id);
+                    if (editor != null) {
+                        editor.remove(id);
+                    } else {
+                        trie = trie.remove(id);
+                    }
+                } else {
+                    BookVO book = new BookVO(id, "Book " + id, "Author", 1.0);
+                    expected.put(id, book);
+                    if (editor != null) {
+                        editor.put(book);
+                    } else {
+                        trie = trie.put(book);
+                    }
+                }
+            }
+            if (editor != null) {
+                trie = editor.build();
+            }
+            assertEquals(expected.size(), trie.size());
+            assertEquals(new ArrayList<>(expected.values()), toList(trie.iterator(null)));
+            for (int probe = 0; probe < 20; probe++) {
+                long after = randomId(random);
+                List<BookVO> tail = new ArrayList<>(expected.tailMap(after, false).values());
+                assertEquals(tail, toList(trie.iterator(after)));
+                assertEquals(expected.get(after), trie.get(after));
+            }
+            // The previous version is untouched by the updates made on top of it
+            assertEquals(beforeBooks, toList(before.iterator(null)));
+        }
+        assertFalse(trie.iterator(Long.MAX_VALUE).hasNext());
+    }
+
+    @Test
+    void testCrudRoundTrip() {
+        BookVO book = bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        bookService.addBook(new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00));
+
+        bookService.updateBook(book.getId(), new BookVO(null, "Effective Java 3", "J. Bloch", 50.0));
+        assertEquals(2L, bookService.getBookById(1L).getVersion());
+        assertEquals(1, bookService.findBooks("joshua bloch", null).size());
+        assertEquals(1, bookService.findBooksByPrice(40.0, null, false, 10).size());
+
+        bookService.deleteBook(2L);
+        assertThrows(BookNotFoundException.class, () -> bookService.getBookById(2L));
+        assertTrue(bookService.findBooks("Joshua Bloch", null).isEmpty());
+    }
+
+    @Test
+    void testPagesComeFromOneSnapshot() {
+        bookService.addBatchBooks(books(10));
+
+        BookPage first = bookService.getBooksPage(null, 4);
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(first.getItems()));
+        assertNotNull(first.getSnapshot());
+
+        bookService.deleteBatchBooks(List.of(5L, 6L));
+        bookService.updateBook(7L, new BookVO(null, "Changed", "Author", 1.0));
+        bookService.addBatchBooks(books(5));
+
+        BookPage second = bookService.getBooksPage(first.getNextCursor(), 4, first.getSnapshot());
+        assertEquals(List.of(5L, 6L, 7L, 8L), ids(second.getItems()));
+        assertEquals("Book 7", second.getItems().get(2).getTitle());
+        BookPage last = bookService.getBooksPage(second.getNextCursor(), 4, second.getSnapshot());
+        assertEquals(List.of(9L, 10L), ids(last.getItems()));
+        assertNull(last.getNextCursor());
+        assertNull(last.getSnapshot());
+
+        // Without the token the listing shows the catalog as it is now
+        assertEquals(List.of(7L, 8L, 9L, 10L, 11L), ids(bookService.getBooksPage(4L, 5).getItems()));
+    }
+
+    @Test
+    void testSnapshotsExpireBeyondCapacity() {
+        MvccBookRepository repository = new MvccBookRepository(BookJournal.NONE, new SequentialIdAllocator(),
+                Duration.ofMinutes(1), 1);
+        BookService service = new BookService(repository);
+        service.addBatchBooks(books(10));
+        long first = service.getBooksPage(null, 2).getSnapshot();
+        // Reusing the version just extends the snapshot
+        assertEquals(first, service.getBooksPage(null, 2).getSnapshot());
+
+        service.addBook(new BookVO(null, "New", "Author", 1.0));
+        long second = service.getBooksPage(null, 2).getSnapshot();
+        assertNotEquals(first, second);
+        assertEquals(1, repository.retainedSnapshots());
+        assertThrows(SnapshotExpiredException.class, () -> service.getBooksPage(2L, 2, first));
+        assertEquals(List.of(3L, 4L), ids(service.getBooksPage(2L, 2, second).getItems()));
+    }
+
+    @Test
+    void testReadersSeeWholeBatches() throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger torn = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                bookService.addBatchBooks(books(100));
+            }
+            done.set(true);
+        });
+        writer.start();
+        try (Stream<BookVO> stream = bookService.streamBooks(null)) {
+            while (!done.get()) {
+                if (bookService.getAllBooks().size() % 100 != 0) {
+                    torn.incrementAndGet();
+                }
+            }
+            // A stream opened earlier keeps reading the version it started on
+            assertEquals(0, stream.count() % 100);
+        }
+        writer.join();
+        assertEquals(0, torn.get());
+        assertEquals(20_000, bookService.getAllBooks().size());
+    }
+
+    private static long randomId(Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return 1 + random.nextInt(2000);
+            case 1:
+                return 1 + random.nextInt(1 << 20);
+            default:
+                // Snowflake-sized ids sharing a long common prefix
+                return (1L << 62) + random.nextInt(5000);
+        }
+    }
+
+    private static List<BookVO> books(int count) {
+        List<BookVO> books = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            books.add(new BookVO(null, "Book " + i, "Author", (double) i));
+        }
+        return books;
+    }
+
+    private static List<BookVO> toList(Iterator<BookVO> it) {
+        List<BookVO> list = new ArrayList<>();
+        it.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static List<Long> ids(List<BookVO> books) {
+        return books.stream().map(BookVO::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,205 @@
+package com.library.repository;
+
+import com.library.exception.BookNotFoundException;
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredBookRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private TieredBookRepository repository;
+    private BookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        repository = new TieredBookRepository(directory, 64);
+        bookService = new BookService(repository);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Test
+    void testBooksFaultBackInFromDisk() {
+        List<BookVO> books = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            books.add(new BookVO(null, "Book " + i, "Author " + (i % 10), i % 7 == 0 ? null : (double) i));
+        }
+        bookService.addBatchBooks(books);
+
+        // Far more books than the heap tier holds, yet every one reads back intact
+        assertTrue(repository.hotSize() <= 64);
+        assertTrue(repository.evictions() > 0);
+        for (long id = 1; id <= 1000; id++) {
+            BookVO book = bookService.getBookById(id);
+            assertEquals("Book " + id, book.getTitle());
+            assertEquals(id % 7 == 0 ? null : (double) id, book.getPrice());
+        }
+        assertTrue(repository.faultIns() > 0);
+        assertEquals(100, bookService.findBooks("author 3", null).size());
+        assertEquals(List.of(3L), ids(bookService.findBooks("AUTHOR 3", "book 3")));
+    }
+
+    @Test
+    void testUpdatesAndDeletesReachTheDiskTier() {
+        for (int i = 1; i <= 500; i++) {
+            bookService.addBook(new BookVO(null, "Book " + i, "Author", (double) i));
+        }
+
+        bookService.updateBook(1L, new BookVO(null, "Book 1, revised", "Author", 1.5));
+        assertEquals(2L, bookService.updateBook(2L, new BookVO(null, "Book 2, revised", "Author", 2.5), 1L).getVersion());
+        bookService.deleteBook(3L);
+
+        // Push the changed books out of the heap tier, then read them back from disk
+        for (long id = 4; id <= 500; id++) {
+            bookService.getBookById(id);
+        }
+        assertEquals("Book 1, revised", bookService.getBookById(1L).getTitle());
+        assertEquals(2L, bookService.getBookById(2L).getVersion());
+        assertThrows(BookNotFoundException.class, () -> bookService.getBookById(3L));
+
+        BookPage page = bookService.getBooksPage(1L, 3);
+        assertEquals(List.of(2L, 4L, 5L), ids(page.getItems()));
+        assertEquals(499, bookService.streamBooks(null).count());
+        assertEquals(499, repository.count());
+        assertEquals(501, repository.nextId());
+        assertEquals(List.of(2L, 1L), ids(bookService.findBooksByPrice(1.0, 3.0, true, null)));
+    }
+
+    @Test
+    void testPagingSkipsDeletedRuns() {
+        List<BookVO> books = new ArrayList<>();
+        for (int i = 1; i <= 140_000; i++) {
+            books.add(new BookVO(null, "Book " + i, "Author " + i, null));
+        }
+        bookService.addBatchBooks(books);
+        List<Long> deleted = new ArrayList<>();
+        for (long id = 3; id <= 139_998; id++) {
+            deleted.add(id);
+        }
+        bookService.deleteBatchBooks(deleted);
+
+        assertEquals(List.of(1L, 2L, 139_999L), ids(bookService.getBooksPage(null, 3).getItems()));
+        assertEquals(List.of(139_999L, 140_000L), ids(bookService.getBooksPage(2L, 10).getItems()));
+        assertEquals(List.of(), ids(bookService.getBooksPage(140_000L, 10).getItems()));
+        assertEquals(List.of(), ids(bookService.getBooksPage(Long.MAX_VALUE, 10).getItems()));
+        assertEquals(4, bookService.streamBooks(null).count());
+    }
+
+    @Test
+    void testFrequentlyReadBooksSurviveScans() {
+        for (int i = 1; i <= 5000; i++) {
+            bookService.addBook(new BookVO(null, "Book " + i, "Author", 1.0));
+        }
+        Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            for (long id = 2001; id <= 2030; id++) {
+                bookService.getBookById(id);
+            }
+            // A burst of one-off reads must not flush the hot set
+            for (int i = 0; i < 200; i++) {
+                bookService.getBookById(3000L + random.nextInt(2000));
+            }
+        }
+
+        // Nor may listing the whole catalog, which also leaves the read counters alone
+        long faultInsBefore = repository.faultIns();
+        long hitsBefore = repository.hits();
+        assertEquals(5000, bookService.streamBooks(null).count());
+        assertEquals(5000, bookService.getAllBooks().size());
+        assertEquals(faultInsBefore, repository.faultIns());
+        assertEquals(hitsBefore, repository.hits());
+
+        for (long id = 2001; id <= 2030; id++) {
+            bookService.getBookById(id);
+        }
+        assertEquals(30, repository.hits() - hitsBefore);
+    }
+
+    @Test
+    void testConcurrentReadersKeepTheHotSet() throws InterruptedException {
+        for (int i = 1; i <= 2000; i++) {
+            bookService.addBook(new BookVO(null, "Book " + i, "Author " + i, (double) i));
+        }
+        List<Thread> readers = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Random random = new Random(t);
+            readers.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20_000; i++) {
+                        long id = i % 4 == 0 ? 1 + random.nextInt(2000) : 1001 + random.nextInt(20);
+                        assertEquals("Book " + id, bookService.getBookById(id).getTitle());
+                    }
+                } catch (Throwable ex) {
+                    synchronized (failures) {
+                        failures.add(ex);
+                    }
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(List.of(), failures);
+        assertTrue(repository.hotSize() <= 64);
+        long faultInsBefore = repository.faultIns();
+        for (long id = 1001; id <= 1020; id++) {
+            bookService.getBookById(id);
+        }
+        assertEquals(faultInsBefore, repository.faultIns());
+    }
+
+    @Test
+    void testDiskTierIsCompacted() throws IOException {
+        String padding = "x".repeat(100);
+        for (int i = 1; i <= 20_000; i++) {
+            bookService.addBook(new BookVO(null, "Book " + i + padding, "Author", 1.0));
+        }
+        for (int round = 0; round < 3; round++) {
+            for (long id = 1; id <= 20_000; id++) {
+                bookService.updateBook(id, new BookVO(null, "Book " + id + " revision " + round + padding, "Author", 1.0));
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (repository.isCompacting()) {
+            assertTrue(System.currentTimeMillis() < deadline, "compaction did not finish");
+            Thread.onSpinWait();
+        }
+        long fileBytes = Files.size(directory.resolve("books.dat"));
+        assertTrue(fileBytes < 3 * repository.diskBytes(), "expected garbage to be reclaimed");
+        assertEquals("Book 7 revision 2" + padding, bookService.getBookById(7L).getTitle());
+        assertEquals(4L, bookService.getBookById(7L).getVersion());
+        // Updates kept landing while the live records were being copied; none were lost
+        for (BookVO book : bookService.getAllBooks()) {
+            assertEquals("Book " + book.getId() + " revision 2" + padding, book.getTitle());
+            assertEquals(4L, book.getVersion());
+        }
+    }
+
+    private static List<Long> ids(List<BookVO> books) {
+        return books.stream().map(BookVO::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,110 @@
+package com.library.search;
+
+import com.library.model.BookVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.put(book(1, "Effective Java", "Joshua Bloch", 1));
+        index.put(book(2, "Java Concurrency in Practice", "Brian Goetz", 1));
+        index.put(book(3, "Clean Code", "Robert C. Martin", 1));
+        index.put(book(4, "Java Puzzlers", "Joshua Bloch", 1));
+        index.put(book(5, "Der Zauberberg", "Thomas Mann", 1));
+    }
+
+    @Test
+    void testWordsAndGrams() {
+        assertEquals(List.of("robert", "c", "martin"), BookSearchIndex.words("Robert C. Martin", new ArrayList<>()));
+        assertTrue(BookSearchIndex.words(" -- ", new ArrayList<>()).isEmpty());
+        assertEquals(4, Vocabulary.distinctGrams("java").length);
+        assertEquals(1, Vocabulary.distinctGrams("c").length);
+        assertEquals(1, Vocabulary.distance("concurrency", "concurency", 2));
+        assertEquals(1, Vocabulary.distance("java", "jaav", 2));
+        assertEquals(3, Vocabulary.distance("java", "kotlin", 2));
+    }
+
+    @Test
+    void testRanksTyposAndPartialWords() {
+        assertEquals(1L, ids(index.search("efective jva", 10)).get(0));
+        assertEquals(2L, ids(index.search("concurency", 10)).get(0));
+        assertEquals(List.of(2L), ids(index.search("goetz", 10)));
+        assertEquals(5L, ids(index.search("zauberb", 10)).get(0));
+        // Same word count, so the same score; ties go to the lower id
+        assertEquals(List.of(1L, 4L), ids(index.search("bloch", 10)));
+        assertEquals(List.of(3L), ids(index.search("martin robert", 10)));
+        assertTrue(index.search("xylophone", 10).isEmpty());
+        assertEquals(1, index.search("java", 1).size());
+    }
+
+    @Test
+    void testAccentsAndCaseAreIgnored() {
+        index.put(book(6, "Les Misérables", "Victor Hugo", 1));
+
+        assertEquals(6L, ids(index.search("LES MISERABLES", 10)).get(0));
+    }
+
+    @Test
+    void testUpdatesAndDeletesReplaceIndexedText() {
+        index.put(book(3, "Refactoring", "Martin Fowler", 2));
+        assertFalse(ids(index.search("clean code", 10)).contains(3L));
+        assertEquals(3L, ids(index.search("refactorin", 10)).get(0));
+
+        // A write that lost the race to a newer version must not bring back the old text
+        index.put(book(3, "Clean Code", "Robert C. Martin", 1));
+        assertEquals(3L, ids(index.search("refactorin", 10)).get(0));
+
+        index.remove(2);
+        assertTrue(index.search("goetz", 10).isEmpty());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void testRemovedIdCanBeIndexedAgain() {
+        index.remove(2);
+        index.remove(8);
+        assertTrue(index.search("goetz", 10).isEmpty());
+        assertEquals(4, index.size());
+
+        // Nothing is kept for a removed id, so any version of it can come back, such as a
+        // book moved back from another shard
+        index.put(book(2, "Java Concurrency in Practice", "Brian Goetz", 1));
+        assertEquals(List.of(2L), ids(index.search("goetz", 10)));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void testCompactionKeepsResults() {
+        for (int version = 2; version < 2000; version++) {
+            index.put(book(1, "Effective Java " + version, "Joshua Bloch", version));
+        }
+        index.put(book(7, "Effective Kotlin", "Marcin Moskala", 1));
+
+        assertEquals(6, index.size());
+        assertEquals(Set.of(1L, 4L), Set.copyOf(ids(index.search("bloch", 10))));
+        assertEquals(7L, ids(index.search("kotlin effective", 10)).get(0));
+        assertEquals(1L, ids(index.search("effective java 1999", 10)).get(0));
+    }
+
+    private static BookVO book(long id, String title, String author, long version) {
+        BookVO book = new BookVO(id, title, author, 10.0);
+        book.setVersion(version);
+        return book;
+    }
+
+    private static List<Long> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::getId).collect(Collectors.toList());
+    }
+}
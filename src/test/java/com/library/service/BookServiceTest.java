@@ -0,0 +1,348 @@
+package com.library.service;
+
+import com.library.exception.BookNotFoundException;
+import com.library.exception.VersionMismatchException;
+import com.library.model.AuthorStats;
+import com.library.model.BatchFailure;
+import com.library.model.BatchResult;
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import com.library.repository.BookChangeListener;
+import com.library.repository.InMemoryBookRepository;
+import com.library.stats.AuthorStatistics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookServiceTest {
+
+    private BookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        bookService = new BookService();
+    }
+
+    @Test
+    void testFindBooks_ByAuthor() {
+        bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        bookService.addBook(new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00));
+        bookService.addBook(new BookVO(null, "Spring Boot in Action", "Craig Walls", 39.99));
+
+        List<BookVO> result = bookService.findBooks("joshua bloch", null);
+
+        assertEquals(2, result.size());
+        assertEquals("Effective Java", result.get(0).getTitle());
+        assertEquals("Java Puzzlers", result.get(1).getTitle());
+    }
+
+    @Test
+    void testFindBooks_ByAuthorAndTitle() {
+        bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        bookService.addBook(new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00));
+
+        List<BookVO> result = bookService.findBooks("Joshua Bloch", " Effective Java ");
+
+        assertEquals(1, result.size());
+        assertEquals("Effective Java", result.get(0).getTitle());
+        assertTrue(bookService.findBooks("Craig Walls", "Effective Java").isEmpty());
+    }
+
+    @Test
+    void testFindBooks_IndexFollowsUpdateAndDelete() {
+        BookVO book = bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+
+        bookService.updateBook(book.getId(), new BookVO(null, "Effective Java", "J. Bloch", 45.50));
+        assertTrue(bookService.findBooks("Joshua Bloch", null).isEmpty());
+        assertEquals(1, bookService.findBooks("J. Bloch", null).size());
+
+        bookService.deleteBook(book.getId());
+        assertTrue(bookService.findBooks("J. Bloch", null).isEmpty());
+        assertTrue(bookService.findBooks(null, "Effective Java").isEmpty());
+    }
+
+    @Test
+    void testUpdateBook_NotFound() {
+        assertThrows(BookNotFoundException.class,
+                () -> bookService.updateBook(42L, new BookVO(null, "Title", "Author", 1.0)));
+        assertTrue(bookService.findBooks("Author", null).isEmpty());
+    }
+
+    @Test
+    void testGetBooksPage_WalksCatalogWithCursor() {
+        for (int i = 1; i <= 5; i++) {
+            bookService.addBook(new BookVO(null, "Book " + i, "Author", 10.0 * i));
+        }
+        bookService.deleteBook(2L);
+
+        BookPage first = bookService.getBooksPage(null, 2);
+        assertEquals(List.of(1L, 3L), first.getItems().stream().map(BookVO::getId).collect(Collectors.toList()));
+        assertEquals(3L, first.getNextCursor());
+
+        BookPage second = bookService.getBooksPage(first.getNextCursor(), 2);
+        assertEquals(List.of(4L, 5L), second.getItems().stream().map(BookVO::getId).collect(Collectors.toList()));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testGetBooksPage_InvalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> bookService.getBooksPage(null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> bookService.getBooksPage(null, BookService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void testStreamBooks_FromCursor() {
+        for (int i = 1; i <= 3; i++) {
+            bookService.addBook(new BookVO(null, "Book " + i, "Author", 10.0));
+        }
+
+        List<Long> ids = bookService.streamBooks(1L).map(BookVO::getId).collect(Collectors.toList());
+
+        assertEquals(List.of(2L, 3L), ids);
+    }
+
+    @Test
+    void testAddBatchBooks_ReservesContiguousIds() {
+        bookService.addBook(new BookVO(null, "Existing", "Author", 1.0));
+
+        List<BookVO> added = bookService.addBatchBooks(List.of(
+                new BookVO(null, "Book A", "Author", 10.0),
+                new BookVO(null, "Book B", "Author", 20.0)));
+
+        assertEquals(List.of(2L, 3L), added.stream().map(BookVO::getId).collect(Collectors.toList()));
+        assertEquals(3, bookService.findBooks("Author", null).size());
+        assertEquals(4L, bookService.addBook(new BookVO(null, "Next", "Author", 1.0)).getId());
+    }
+
+    @Test
+    void testUpdateAndDeleteBatchBooks_ReportFailures() {
+        bookService.addBatchBooks(List.of(
+                new BookVO(null, "Book A", "Author", 10.0),
+                new BookVO(null, "Book B", "Author", 20.0)));
+
+        BatchResult updated = bookService.updateBatchBooks(List.of(
+                new BookVO(1L, "Book A2", "Author", 11.0),
+                new BookVO(9L, "Missing", "Author", 1.0),
+                new BookVO(null, "No id", "Author", 1.0)));
+
+        assertEquals(1, updated.getSucceeded());
+        assertEquals(List.of(1L, 2L), updated.getFailures().stream().map(BatchFailure::getIndex).collect(Collectors.toList()));
+        assertEquals("Book A2", bookService.getBookById(1L).getTitle());
+
+        BatchResult deleted = bookService.deleteBatchBooks(List.of(2L, 9L));
+
+        assertEquals(1, deleted.getSucceeded());
+        assertEquals(9L, deleted.getFailures().get(0).getId());
+        assertThrows(BookNotFoundException.class, () -> bookService.getBookById(2L));
+    }
+
+    @Test
+    void testFindBooksByPrice_RangeAndTopK() {
+        bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        bookService.addBook(new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00));
+        BookVO spring = bookService.addBook(new BookVO(null, "Spring Boot in Action", "Craig Walls", 39.99));
+        bookService.addBook(new BookVO(null, "Clean Code", "Robert Martin", 30.00));
+
+        List<String> inRange = bookService.findBooksByPrice(30.0, 40.0, false, null).stream()
+                .map(BookVO::getTitle).collect(Collectors.toList());
+        assertEquals(List.of("Java Puzzlers", "Clean Code", "Spring Boot in Action"), inRange);
+
+        List<String> mostExpensive = bookService.findBooksByPrice(null, null, true, 2).stream()
+                .map(BookVO::getTitle).collect(Collectors.toList());
+        assertEquals(List.of("Effective Java", "Spring Boot in Action"), mostExpensive);
+
+        // The index follows updates and deletes
+        bookService.updateBook(spring.getId(), new BookVO(null, "Spring Boot in Action", "Craig Walls", 99.0));
+        bookService.deleteBook(1L);
+        assertEquals("Spring Boot in Action", bookService.findBooksByPrice(null, null, true, 1).get(0).getTitle());
+        assertEquals(2, bookService.findBooksByPrice(30.0, 40.0, false, null).size());
+
+        assertThrows(IllegalArgumentException.class, () -> bookService.findBooksByPrice(50.0, 10.0, false, null));
+        assertThrows(IllegalArgumentException.class, () -> bookService.findBooksByPrice(null, null, false, 0));
+    }
+
+    @Test
+    void testSummarizePrices() {
+        bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        bookService.addBook(new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00));
+        BookVO spring = bookService.addBook(new BookVO(null, "Spring Boot in Action", "Craig Walls", 39.99));
+
+        PriceSummary all = bookService.summarizePrices(null, null);
+        assertEquals(3, all.getCount());
+        assertEquals(115.49, all.getSum(), 1e-9);
+
+        bookService.deleteBook(spring.getId());
+        PriceSummary cheap = bookService.summarizePrices(null, 40.0);
+        assertEquals(1, cheap.getCount());
+        assertEquals(30.00, cheap.getAverage(), 1e-9);
+
+        assertNull(bookService.summarizePrices(100.0, null).getAverage());
+    }
+
+    @Test
+    void testPriceIndexAgreesWithStoreAfterConcurrentWrites() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            bookService.addBook(new BookVO(null, "Book " + i, "Author", 10.0));
+        }
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            writers.add(new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 2000; i++) {
+                    long id = 1 + random.nextInt(4);
+                    Double price = random.nextInt(5) == 0 ? null : (double) random.nextInt(100);
+                    bookService.updateBook(id, new BookVO(null, "Book", "Author", price));
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // Writers of the same book reach the price index in any order; it must still end up
+        // holding each book's latest price, once
+        List<Double> prices = bookService.getAllBooks().stream()
+                .map(BookVO::getPrice).filter(Objects::nonNull).collect(Collectors.toList());
+        PriceSummary summary = bookService.summarizePrices(null, null);
+        assertEquals(prices.size(), summary.getCount());
+        assertEquals(prices.stream().mapToDouble(Double::doubleValue).sum(), summary.getSum(), 1e-9);
+        assertEquals(prices.size(), bookService.findBooksByPrice(null, null, false, null).size());
+    }
+
+    @Test
+    void testVersionedUpdateAndDelete() {
+        BookVO book = bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        assertEquals(1L, book.getVersion());
+
+        BookVO updated = bookService.updateBook(book.getId(), new BookVO(null, "Effective Java 3", "Joshua Bloch", 45.50), 1L);
+        assertEquals(2L, updated.getVersion());
+
+        // A writer holding the old version loses instead of overwriting the newer book
+        assertThrows(VersionMismatchException.class, () ->
+                bookService.updateBook(book.getId(), new BookVO(null, "Stale", "Joshua Bloch", 1.0), 1L));
+        assertThrows(VersionMismatchException.class, () -> bookService.deleteBook(book.getId(), 1L));
+        assertEquals("Effective Java 3", bookService.getBookById(book.getId()).getTitle());
+
+        bookService.deleteBook(book.getId(), 2L);
+        // An update racing the delete must not bring the book back
+        assertThrows(BookNotFoundException.class, () ->
+                bookService.updateBook(book.getId(), new BookVO(null, "Resurrected", "Joshua Bloch", 1.0)));
+        assertTrue(bookService.getAllBooks().isEmpty());
+    }
+
+    @Test
+    void testChangeCountTracksSuccessfulWrites() {
+        BookVO book = bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        bookService.addBatchBooks(List.of(
+                new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00),
+                new BookVO(null, "Spring Boot in Action", "Craig Walls", 39.99)));
+        assertEquals(3, bookService.changeCount());
+
+        bookService.updateBook(book.getId(), new BookVO(null, "Effective Java 3", "Joshua Bloch", 45.50));
+        assertThrows(BookNotFoundException.class, () -> bookService.deleteBook(99L));
+        bookService.deleteBatchBooks(List.of(2L, 99L));
+        bookService.getAllBooks();
+
+        // Reads and failed writes leave the catalog, and the count, as they were
+        assertEquals(5, bookService.changeCount());
+    }
+
+    @Test
+    void testSearchBooks_FollowsWrites() {
+        BookVO effective = bookService.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        bookService.addBatchBooks(List.of(
+                new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00),
+                new BookVO(null, "Spring Boot in Action", "Craig Walls", 39.99)));
+
+        assertEquals("Effective Java", bookService.searchBooks("efective jav", null).get(0).getTitle());
+        assertEquals(1, bookService.searchBooks("bloch", 1).size());
+
+        bookService.updateBook(effective.getId(), new BookVO(null, "Modern Java in Action", "Raoul-Gabriel Urma", 50.00));
+        assertEquals(List.of("Java Puzzlers"),
+                bookService.searchBooks("bloch", null).stream().map(BookVO::getTitle).collect(Collectors.toList()));
+        assertEquals(effective.getId(), bookService.searchBooks("urma", null).get(0).getId());
+
+        bookService.deleteBatchBooks(List.of(3L));
+        assertTrue(bookService.searchBooks("spring boot", null).isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> bookService.searchBooks(" ", null));
+        assertThrows(IllegalArgumentException.class, () -> bookService.searchBooks("java", 0));
+    }
+
+    @Test
+    void testSearchBooks_IndexesExistingBooks() {
+        InMemoryBookRepository repository = new InMemoryBookRepository();
+        repository.insert(new BookVO(null, "Clean Code", "Robert C. Martin", 37.99));
+
+        assertEquals(1, new BookService(repository).searchBooks("clean cod", null).size());
+    }
+
+    @Test
+    void testSearchBooks_LateUpdateDoesNotBringBackDeletedBook() {
+        // Holds back the changes the store reports while holding[0] is set
+        boolean[] holding = {false};
+        List<Runnable> held = new ArrayList<>();
+        InMemoryBookRepository repository = new InMemoryBookRepository() {
+            @Override
+            public void setChangeListener(BookChangeListener listener) {
+                super.setChangeListener((before, after) -> {
+                    if (holding[0]) {
+                        held.add(() -> listener.changed(before, after));
+                    } else {
+                        listener.changed(before, after);
+                    }
+                });
+            }
+        };
+        BookService service = new BookService(repository);
+        BookVO deleted = service.addBook(new BookVO(null, "Concurrency", "Goetz", 10.0));
+        BookVO kept = service.addBook(new BookVO(null, "Concurrency in Practice, Second Edition", "Brian Goetz", 20.0));
+
+        // The update reaches the index and statistics only after the delete that followed it
+        holding[0] = true;
+        service.updateBook(deleted.getId(), new BookVO(null, "Concurrency", "Goetz", 12.0));
+        holding[0] = false;
+        service.deleteBook(deleted.getId());
+        held.forEach(Runnable::run);
+
+        // The shorter, deleted book would otherwise take the only hit and leave nothing to return
+        assertEquals(List.of(kept.getId()),
+                service.searchBooks("concurrency", 1).stream().map(BookVO::getId).collect(Collectors.toList()));
+        assertEquals(List.of("Brian Goetz"), service.getAuthorStats(AuthorStatistics.Order.AUTHOR, null).stream()
+                .map(AuthorStats::getAuthor).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testOperationsArePublishedAsMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BookService service = new BookService(new InMemoryBookRepository(), registry);
+        service.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        service.addBook(new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00));
+
+        service.getBookById(1L);
+        assertThrows(BookNotFoundException.class, () -> service.getBookById(99L));
+        assertThrows(BookNotFoundException.class, () -> service.deleteBook(99L));
+        service.deleteBook(2L);
+
+        assertEquals(2, registry.get("library.books.operations").tag("operation", "add").timer().count());
+        assertEquals(2, registry.get("library.books.operations").tag("operation", "get").timer().count());
+        assertEquals(2, registry.get("library.books.operations").tag("operation", "delete").timer().count());
+        assertEquals(1.0, registry.get("library.books.not.found").tag("operation", "get").counter().count());
+        assertEquals(1.0, registry.get("library.books.not.found").tag("operation", "delete").counter().count());
+        assertEquals(0.0, registry.get("library.books.not.found").tag("operation", "update").counter().count());
+        assertEquals(1.0, registry.get("library.books.count").gauge().value());
+        assertEquals(3.0, registry.get("library.books.next.id").gauge().value());
+    }
+}
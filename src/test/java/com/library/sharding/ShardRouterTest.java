@@ -0,0 +1,255 @@
+package com.library.sharding;
+
+import com.library.exception.BookNotFoundException;
+import com.library.ids.SequentialIdAllocator;
+import com.library.model.BatchResult;
+import com.library.model.BookPage;
+import com.library.model.BookVO;
+import com.library.model.PriceSummary;
+import com.library.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRouterTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    // One service per node, standing in for the instances of a cluster
+    private final Map<String, BookService> services = new HashMap<>();
+    private final Map<String, ShardRouter> routers = new LinkedHashMap<>();
+    private final SequentialIdAllocator ids = new SequentialIdAllocator();
+
+    @AfterEach
+    void tearDown() {
+        routers.values().forEach(ShardRouter::close);
+    }
+
+    private ShardRouter start(String self, Map<String, String> nodes) {
+        services.putIfAbsent(self, new BookService());
+        ShardRouter router = new ShardRouter(self, nodes, 64, ids,
+                (node, url) -> new LocalShard(services.computeIfAbsent(node, n -> new BookService())));
+        routers.put(self, router);
+        return router;
+    }
+
+    private static Map<String, String> nodes(String... names) {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        for (String name : names) {
+            nodes.put(name, "http://" + name + ":8080");
+        }
+        return nodes;
+    }
+
+    @Test
+    void testRing_SpreadsIdsEvenlyAndMovesOnlyTheJoiningNodesShare() {
+        HashRing three = new HashRing(List.of("a", "b", "c"), 128);
+        HashRing four = new HashRing(List.of("a", "b", "c", "d"), 128);
+        int ids = 100_000;
+        Map<String, Integer> load = new HashMap<>();
+        int moved = 0;
+        for (long id = 1; id <= ids; id++) {
+            String before = three.owner(id);
+            String after = four.owner(id);
+            load.merge(after, 1, Integer::sum);
+            if (!before.equals(after)) {
+                moved++;
+                // Ids only ever move to the new node
+                assertEquals("d", after);
+            }
+        }
+        for (int share : load.values()) {
+            assertTrue(Math.abs(share - ids / 4) < ids / 4 * 0.2, "uneven share " + share);
+        }
+        assertEquals(moved, (int) load.get("d"));
+        assertEquals(List.of("a", "b", "c"), new HashRing(List.of("c", "a", "b"), 1).nodes());
+    }
+
+    @Test
+    void testRouter_StoresEachBookOnItsOwnerAndMergesListings() {
+        ShardRouter router = start("a", nodes("a", "b", "c"));
+        router.addBook(new BookVO(null, "Effective Java", "Joshua Bloch", 45.50));
+        List<BookVO> batch = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            batch.add(new BookVO(null, "Book " + i, i % 2 == 0 ? "Even" : "Odd", (double) i));
+        }
+        router.addBatchBooks(batch);
+
+        for (long id = 1; id <= 301; id++) {
+            String owner = router.ring().owner(id);
+            assertEquals(id, services.get(owner).getBookById(id).getId());
+            for (String other : List.of("a", "b", "c")) {
+                if (!other.equals(owner)) {
+                    long missing = id;
+                    assertThrows(BookNotFoundException.class, () -> services.get(other).getBookById(missing));
+                }
+            }
+        }
+        assertTrue(services.values().stream().allMatch(service -> service.getAllBooks().size() > 50));
+
+        assertEquals(LongStream.rangeClosed(1, 301).boxed().collect(Collectors.toList()), ids(router.getAllBooks()));
+        BookPage page = router.getBooksPage(100L, 50);
+        assertEquals(LongStream.rangeClosed(101, 150).boxed().collect(Collectors.toList()), ids(page.getItems()));
+        assertEquals(150L, page.getNextCursor());
+        assertNull(router.getBooksPage(290L, 50).getNextCursor());
+        try (Stream<BookVO> books = router.streamBooks(250L)) {
+            assertEquals(51, books.count());
+        }
+
+        assertEquals(150, router.findBooks("Odd", null).size());
+        assertEquals(List.of(300L, 299L, 298L), ids(router.findBooksByPrice(null, 298.0, true, 3)));
+        assertEquals(List.of(3L, 4L), ids(router.findBooksByPrice(0.5, null, false, 2)));
+        PriceSummary summary = router.summarizePrices(null, 9.0);
+        assertEquals(10, summary.getCount());
+        assertEquals(45.0, summary.getSum(), 1e-9);
+        assertEquals(1L, router.searchBooks("effective", 5).get(0).getId());
+    }
+
+    @Test
+    void testRouter_RoutesWritesAndMapsBatchFailuresBackToTheirPositions() {
+        ShardRouter router = start("a", nodes("a", "b", "c"));
+        for (int i = 0; i < 20; i++) {
+            router.addBook(new BookVO(null, "Book " + i, "Author", (double) i));
+        }
+
+        BookVO updated = router.updateBook(7L, new BookVO(7L, "Book 7 revised", "Author", 7.0), 1L);
+        assertEquals(2L, updated.getVersion());
+        assertEquals("Book 7 revised", router.getBookById(7L).getTitle());
+        router.deleteBook(8L, null);
+        assertThrows(BookNotFoundException.class, () -> router.getBookById(8L));
+
+        List<BookVO> updates = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            updates.add(new BookVO(id, "Renamed " + id, "Author", 1.0));
+        }
+        updates.add(3, new BookVO(null, "No id", "Author", 1.0));
+        BatchResult result = router.updateBatchBooks(updates);
+        assertEquals(9, result.getSucceeded());
+        assertEquals(List.of(3L, 8L), result.getFailures().stream()
+                .map(failure -> failure.getIndex()).collect(Collectors.toList()));
+        assertEquals(8L, result.getFailures().get(1).getId());
+
+        BatchResult deleted = router.deleteBatchBooks(List.of(1L, 8L, 2L, 99L));
+        assertEquals(2, deleted.getSucceeded());
+        assertEquals(List.of(1L, 3L), deleted.getFailures().stream()
+                .map(failure -> failure.getIndex()).collect(Collectors.toList()));
+        assertEquals(17, router.getAllBooks().size());
+    }
+
+    @Test
+    void testRebalance_MovesOnlyReassignedBooksOnJoinAndLeave() {
+        Map<String, String> three = nodes("a", "b", "c");
+        for (String node : three.keySet()) {
+            start(node, three);
+        }
+        ShardRouter router = routers.get("a");
+        List<BookVO> batch = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            batch.add(new BookVO(null, "Book " + i, "Author", (double) i));
+        }
+        router.addBatchBooks(batch);
+        router.updateBook(42L, new BookVO(42L, "Book 42 revised", "Author", 42.0), null);
+        Map<Long, String> before = placement();
+
+        // d joins
+        Map<String, String> four = nodes("a", "b", "c", "d");
+        start("d", four);
+        reconfigure(four);
+        Map<Long, String> afterJoin = placement();
+        assertEquals(3000, afterJoin.size());
+        long moved = 0;
+        for (Map.Entry<Long, String> book : afterJoin.entrySet()) {
+            assertEquals(router.ring().owner(book.getKey()), book.getValue());
+            if (!book.getValue().equals(before.get(book.getKey()))) {
+                moved++;
+                assertEquals("d", book.getValue());
+            }
+        }
+        assertEquals(moved, routers.values().stream().mapToLong(ShardRouter::movedBooks).sum());
+        assertTrue(moved > 500 && moved < 1000, "moved " + moved);
+        assertEquals("Book 42 revised", router.getBookById(42L).getTitle());
+        assertEquals(2L, router.getBookById(42L).getVersion());
+
+        // b leaves: only its books move, and every one is still found
+        Map<String, String> leave = nodes("a", "c", "d");
+        routers.get("b").reconfigure(leave);
+        reconfigure(leave);
+        assertEquals(0, services.get("b").getAllBooks().size());
+        Map<Long, String> afterLeave = placement();
+        for (Map.Entry<Long, String> book : afterLeave.entrySet()) {
+            if (!afterJoin.get(book.getKey()).equals("b")) {
+                assertEquals(afterJoin.get(book.getKey()), book.getValue());
+            }
+        }
+        assertEquals(3000, routers.get("c").getAllBooks().size());
+        assertEquals(2L, routers.get("d").getBookById(42L).getVersion());
+    }
+
+    @Test
+    void testRebalance_FallsBackToThePreviousOwnerUntilBooksHaveMoved() {
+        ShardRouter router = start("a", nodes("a"));
+        for (int i = 0; i < 100; i++) {
+            router.addBook(new BookVO(null, "Book " + i, "Author", (double) i));
+        }
+        // b starts out only routing, then joins before a has moved anything
+        ShardRouter joined = start("b", nodes("a"));
+        Map<String, String> two = nodes("a", "b");
+        joined.reconfigure(two);
+        waitForRebalance(joined);
+        assertEquals(0, services.get("b").getAllBooks().size());
+        for (long id = 1; id <= 100; id++) {
+            assertEquals(id, joined.getBookById(id).getId());
+        }
+        assertEquals(100, joined.getAllBooks().size());
+        long onB = LongStream.rangeClosed(1, 100).filter(id -> joined.ring().owner(id).equals("b")).findFirst().orElseThrow();
+        // Written through the previous owner, so the move has to carry the new version
+        joined.updateBook(onB, new BookVO(onB, "Moved later", "Author", 1.0), null);
+
+        router.reconfigure(two);
+        waitForRebalance(router);
+        assertEquals("Moved later", services.get("b").getBookById(onB).getTitle());
+        assertEquals(2L, services.get("b").getBookById(onB).getVersion());
+        assertEquals(100, router.getAllBooks().size());
+        assertEquals(100, services.get("a").getAllBooks().size() + services.get("b").getAllBooks().size());
+        assertEquals(services.get("b").getAllBooks().size(), router.movedBooks());
+    }
+
+    private void reconfigure(Map<String, String> nodes) {
+        for (ShardRouter router : routers.values()) {
+            router.reconfigure(nodes);
+        }
+        routers.values().forEach(ShardRouterTest::waitForRebalance);
+    }
+
+    private static void waitForRebalance(ShardRouter router) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (router.isRebalancing()) {
+            assertTrue(System.currentTimeMillis() < deadline, "rebalance did not finish");
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Which node's store holds each book.
+     */
+    private Map<Long, String> placement() {
+        Map<Long, String> placement = new HashMap<>();
+        services.forEach((node, service) -> service.getAllBooks()
+                .forEach(book -> assertNull(placement.put(book.getId(), node))));
+        return placement;
+    }
+
+    private static List<Long> ids(List<BookVO> books) {
+        return books.stream().map(BookVO::getId).collect(Collectors.toList());
+    }
+}
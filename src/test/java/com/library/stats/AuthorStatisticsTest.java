@@ -0,0 +1,209 @@
+package com.library.stats;
+
+import com.library.model.AuthorStats;
+import com.library.model.BookVO;
+import com.library.service.BookService;
+import com.library.stats.AuthorStatistics.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthorStatisticsTest {
+
+    private final BookService bookService = new BookService();
+
+    @Test
+    void testMinAndMaxSurviveDeletes() {
+        BookVO cheapest = bookService.addBook(new BookVO(null, "Java Puzzlers", "Joshua Bloch", 30.00));
+        bookService.addBook(new BookVO(null, "Effective Java", "joshua bloch ", 45.50));
+        BookVO dearest = bookService.addBook(new BookVO(null, "Effective Java 3", "Joshua Bloch", 50.00));
+        bookService.addBook(new BookVO(null, "Untitled", "Joshua Bloch", null));
+
+        AuthorStats stats = only(bookService.getAuthorStats(Order.AUTHOR, null));
+        assertEquals("Joshua Bloch", stats.getAuthor());
+        assertEquals(4, stats.getCount());
+        assertEquals(30.00, stats.getMinPrice());
+        assertEquals(50.00, stats.getMaxPrice());
+        assertEquals(125.50 / 3, stats.getAveragePrice(), 1e-9);
+
+        bookService.deleteBook(cheapest.getId());
+        bookService.deleteBook(dearest.getId());
+        stats = only(bookService.getAuthorStats(Order.AUTHOR, null));
+        assertEquals(2, stats.getCount());
+        assertEquals(45.50, stats.getMinPrice());
+        assertEquals(45.50, stats.getMaxPrice());
+
+        // Moving the last priced book to another author leaves no prices behind
+        bookService.updateBook(2L, new BookVO(null, "Effective Java", "J. Bloch", 45.50));
+        List<AuthorStats> authors = bookService.getAuthorStats(Order.AUTHOR, null);
+        assertEquals(List.of("J. Bloch", "Joshua Bloch"), names(authors));
+        assertNull(authors.get(1).getMinPrice());
+        assertNull(authors.get(1).getAveragePrice());
+
+        bookService.deleteBook(4L);
+        assertEquals(List.of("J. Bloch"), names(bookService.getAuthorStats(Order.AUTHOR, null)));
+    }
+
+    @Test
+    void testTopAuthors() {
+        List<BookVO> books = new ArrayList<>();
+        books.add(new BookVO(null, "A1", "Alice", 10.0));
+        books.add(new BookVO(null, "A2", "Alice", 20.0));
+        books.add(new BookVO(null, "A3", "Alice", 30.0));
+        books.add(new BookVO(null, "B1", "Bob", 90.0));
+        books.add(new BookVO(null, "C1", "Carol", null));
+        books.add(new BookVO(null, "C2", "Carol", null));
+        bookService.addBatchBooks(books);
+
+        assertEquals(List.of("Alice", "Carol"), names(bookService.getAuthorStats(Order.COUNT, 2)));
+        // Carol has no priced book, so no average to rank by
+        assertEquals(List.of("Bob", "Alice"), names(bookService.getAuthorStats(Order.AVERAGE_PRICE, 10)));
+
+        bookService.deleteBatchBooks(List.of(1L, 2L));
+        assertEquals(List.of("Carol", "Alice", "Bob"), names(bookService.getAuthorStats(Order.COUNT, 10)));
+        assertThrows(IllegalArgumentException.class, () -> bookService.getAuthorStats(Order.COUNT, 0));
+    }
+
+    @Test
+    void testChangesConvergeInAnyOrder() {
+        // One book's history: added, moved to another author, moved back at a new price, removed;
+        // and a second book that stays
+        List<Runnable> changes = new ArrayList<>();
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            AuthorStatistics statistics = new AuthorStatistics();
+            changes.clear();
+            changes.add(() -> statistics.add("Alice", 10.0));
+            changes.add(() -> statistics.replace("Alice", 10.0, "Bob", 20.0));
+            changes.add(() -> statistics.replace("Bob", 20.0, "alice", 30.0));
+            changes.add(() -> statistics.remove("Alice ", 30.0));
+            changes.add(() -> statistics.add("Alice", 40.0));
+            Collections.shuffle(changes, random);
+
+            for (Runnable change : changes) {
+                change.run();
+                // Authors whose removals ran ahead of their adds are never reported
+                statistics.top(Order.AUTHOR, 10).forEach(stats -> assertTrue(stats.getCount() > 0));
+            }
+            AuthorStats alice = only(statistics.top(Order.COUNT, 10));
+            assertEquals(1, alice.getCount());
+            assertEquals(40.0, alice.getMinPrice());
+            assertEquals(40.0, alice.getMaxPrice());
+            assertEquals(40.0, alice.getAveragePrice(), 1e-9);
+            assertEquals(1, statistics.authorCount());
+        }
+    }
+
+    @Test
+    void testConcurrentWritersMatchRecomputation() throws InterruptedException {
+        for (int i = 0; i < 16; i++) {
+            bookService.addBook(new BookVO(null, "Book " + i, "Author " + i % 4, 10.0));
+        }
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            writers.add(new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 2000; i++) {
+                    long id = 1 + random.nextInt(16);
+                    try {
+                        // Deletes race the updates of a few books; the rest survive to be checked
+                        if (id > 12 && random.nextInt(100) == 0) {
+                            bookService.deleteBook(id);
+                        } else {
+                            Double price = random.nextInt(5) == 0 ? null : (double) random.nextInt(100);
+                            bookService.updateBook(id, new BookVO(null, "Book", "Author " + random.nextInt(4), price));
+                        }
+                    } catch (RuntimeException notFound) {
+                        // Deleted already
+                    }
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertMatchesCatalog();
+    }
+
+    @Test
+    void testMatchesRecomputationAfterRandomWrites() {
+        Random random = new Random(7);
+        int added = 0;
+        for (int i = 0; i < 3000; i++) {
+            int op = added == 0 ? 0 : random.nextInt(10);
+            long id = 1 + random.nextInt(Math.max(1, added));
+            Double price = random.nextInt(5) == 0 ? null : (double) random.nextInt(40);
+            String author = "Author " + random.nextInt(12);
+            try {
+                if (op < 5) {
+                    bookService.addBook(new BookVO(null, "Book", author, price));
+                    added++;
+                } else if (op < 8) {
+                    bookService.updateBook(id, new BookVO(null, "Book", author, price));
+                } else {
+                    bookService.deleteBook(id);
+                }
+            } catch (RuntimeException notFound) {
+                // Deleted already
+            }
+        }
+
+        assertMatchesCatalog();
+    }
+
+    @Test
+    void testMergeAcrossShards() {
+        List<AuthorStats> first = List.of(
+                new AuthorStats("Alice", 2, 2, 30.0, 10.0, 20.0),
+                new AuthorStats("Bob", 1, 0, 0, null, null));
+        List<AuthorStats> second = List.of(
+                new AuthorStats("alice", 1, 1, 60.0, 60.0, 60.0),
+                new AuthorStats("Carol", 2, 2, 50.0, 20.0, 30.0));
+        List<List<AuthorStats>> parts = List.of(first, second);
+
+        List<AuthorStats> byCount = AuthorStatistics.merge(parts, Order.COUNT, 10);
+        assertEquals(List.of("Alice", "Carol", "Bob"), names(byCount));
+        AuthorStats alice = byCount.get(0);
+        assertEquals(3, alice.getCount());
+        assertEquals(10.0, alice.getMinPrice());
+        assertEquals(60.0, alice.getMaxPrice());
+        assertEquals(30.0, alice.getAveragePrice(), 1e-9);
+        assertEquals(List.of("Alice"), names(AuthorStatistics.merge(parts, Order.AVERAGE_PRICE, 1)));
+        assertEquals(List.of("Alice", "Bob", "Carol"), names(AuthorStatistics.merge(parts, Order.AUTHOR, 10)));
+    }
+
+    private void assertMatchesCatalog() {
+        Map<String, List<BookVO>> byAuthor = bookService.getAllBooks().stream()
+                .collect(Collectors.groupingBy(BookVO::getAuthor));
+        List<AuthorStats> stats = bookService.getAuthorStats(Order.AUTHOR, null);
+        assertEquals(byAuthor.size(), stats.size());
+        for (AuthorStats author : stats) {
+            List<BookVO> books = byAuthor.get(author.getAuthor());
+            assertEquals(books.size(), author.getCount());
+            List<Double> prices = books.stream().map(BookVO::getPrice).filter(p -> p != null).collect(Collectors.toList());
+            assertEquals(prices.size(), author.getPricedCount());
+            assertEquals(prices.stream().min(Double::compare).orElse(null), author.getMinPrice());
+            assertEquals(prices.stream().max(Double::compare).orElse(null), author.getMaxPrice());
+            assertEquals(prices.stream().mapToDouble(Double::doubleValue).sum(), author.getPriceSum(), 1e-6);
+        }
+    }
+
+    private static AuthorStats only(List<AuthorStats> stats) {
+        assertEquals(1, stats.size());
+        return stats.get(0);
+    }
+
+    private static List<String> names(List<AuthorStats> stats) {
+        return stats.stream().map(AuthorStats::getAuthor).collect(Collectors.toList());
+    }
+}